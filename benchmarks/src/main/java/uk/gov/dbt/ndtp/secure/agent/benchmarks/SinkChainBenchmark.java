@@ -0,0 +1,225 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.benchmarks;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Sink;
+import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.AbstractTransformingSink;
+import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.Sinks;
+
+/**
+ * Compares sending items through a chain of nested {@link AbstractTransformingSink} wrappers against sending the same
+ * items through an equivalent {@link uk.gov.dbt.ndtp.secure.agent.projectors.sinks.FusedSink}
+ * <p>
+ * Both chains count items, filter out blank items, normalise case, filter on a prefix and then map to a length before
+ * delivering to a terminal counting sink.
+ * </p>
+ * <p>
+ * When {@code polluted} is {@code true} several other nested chains and fused pipelines, built from different sink
+ * types and stage functions, are first run during setup.  This pollutes the JITs type profiles at the call sites shared
+ * by all chains, i.e. those within {@link AbstractTransformingSink} and
+ * {@link uk.gov.dbt.ndtp.secure.agent.projectors.sinks.FusedSink}, as happens in an application using many different
+ * pipelines, so that the benchmark measures both with megamorphic call sites rather than only the monomorphic case.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SinkChainBenchmark {
+
+    private static final int ITEMS = 1024;
+    private static final int POLLUTION_ROUNDS = 200;
+
+    @Param({"false", "true"})
+    public boolean polluted;
+
+    private final String[] items = new String[ITEMS];
+    private CountingSink<Integer> nestedTerminal, fusedTerminal;
+    private Sink<String> nested, fused;
+    private long seen;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < ITEMS; i++) {
+            items[i] = i % 7 == 0 ? "" : (i % 3 == 0 ? "Foo-" : "bar-") + i;
+        }
+
+        this.nestedTerminal = new CountingSink<>();
+        //@formatter:off
+        this.nested =
+                new PeekSink<>(
+                    Sinks.<String>filter().predicate(s -> !s.isEmpty()).destination(
+                        new MapSink<>(s -> s.toLowerCase(Locale.ROOT),
+                            Sinks.<String>filter().predicate(s -> s.startsWith("foo")).destination(
+                                new MapSink<>(String::length, this.nestedTerminal)).build())).build());
+
+        this.fusedTerminal = new CountingSink<>();
+        this.fused = Sinks.<String>pipeline()
+                          .peek(s -> this.seen++)
+                          .filter(s -> !s.isEmpty())
+                          .map(s -> s.toLowerCase(Locale.ROOT))
+                          .filter(s -> s.startsWith("foo"))
+                          .map(String::length)
+                          .destination(this.fusedTerminal)
+                          .build();
+        //@formatter:on
+
+        if (this.polluted) {
+            pollute();
+        }
+    }
+
+    /**
+     * Runs the items through several other nested chains and fused pipelines, each using different sink types and stage
+     * functions, so the shared call sites see many receiver types before the benchmark methods are compiled
+     */
+    private void pollute() {
+        //@formatter:off
+        List<Sink<String>> others = List.of(
+                new MapSink<>(String::trim,
+                    Sinks.<String>filter().predicate(s -> !s.isEmpty()).destination(
+                        new PeekSink<>(new MapSink<>(String::hashCode, new CountingSink<>()))).build()),
+                Sinks.<String>filter().predicate(s -> s.length() > 4).destination(
+                    new MapSink<>(s -> s.toUpperCase(Locale.ROOT),
+                        Sinks.<String>filter().predicate(s -> !s.endsWith("1"))
+                             .destination(new CountingSink<>()).build())).build(),
+                new PeekSink<>(new MapSink<>(s -> !s.isEmpty() && s.charAt(0) == 'F',
+                    Sinks.<Boolean>filter().predicate(Boolean::booleanValue)
+                         .destination(new CountingSink<>()).build())),
+                Sinks.<String>pipeline()
+                     .map(String::trim)
+                     .filter(s -> !s.isBlank())
+                     .peek(s -> this.seen--)
+                     .map(String::hashCode)
+                     .destination(new CountingSink<>())
+                     .build(),
+                Sinks.<String>pipeline()
+                     .filter(s -> s.length() > 4)
+                     .map(s -> s.toUpperCase(Locale.ROOT))
+                     .filter(s -> !s.endsWith("1"))
+                     .destination(new CountingSink<>())
+                     .build(),
+                Sinks.<String>pipeline()
+                     .peek(s -> this.seen += 2)
+                     .map(s -> s.isEmpty() ? 'x' : s.charAt(0))
+                     .filter(Character::isUpperCase)
+                     .map(c -> c == 'F')
+                     .destination(new CountingSink<>())
+                     .build());
+        //@formatter:on
+        for (int round = 0; round < POLLUTION_ROUNDS; round++) {
+            for (Sink<String> other : others) {
+                for (String item : this.items) {
+                    other.send(item);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public long nestedChain() {
+        for (String item : this.items) {
+            this.nested.send(item);
+        }
+        return this.nestedTerminal.total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public long fusedChain() {
+        for (String item : this.items) {
+            this.fused.send(item);
+        }
+        return this.fusedTerminal.total;
+    }
+
+    /**
+     * A sink that counts the items it has seen before forwarding them unchanged
+     */
+    private final class PeekSink<T> extends AbstractTransformingSink<T, T> {
+        PeekSink(Sink<T> destination) {
+            super(destination);
+        }
+
+        @Override
+        protected T transform(T item) {
+            seen++;
+            return item;
+        }
+    }
+
+    /**
+     * A sink that maps items using a function before forwarding them
+     */
+    private static final class MapSink<TInput, TOutput> extends AbstractTransformingSink<TInput, TOutput> {
+        private final Function<TInput, TOutput> mapper;
+
+        MapSink(Function<TInput, TOutput> mapper, Sink<TOutput> destination) {
+            super(destination);
+            this.mapper = mapper;
+        }
+
+        @Override
+        protected TOutput transform(TInput item) {
+            return this.mapper.apply(item);
+        }
+    }
+
+    /**
+     * A terminal sink that accumulates the hash of the items it receives so the work cannot be optimised away
+     */
+    private static final class CountingSink<T> implements Sink<T> {
+        private long total;
+
+        @Override
+        public void send(T item) {
+            this.total += item.hashCode();
+        }
+
+        @Override
+        public void close() {
+            // Nothing to close
+        }
+    }
+}
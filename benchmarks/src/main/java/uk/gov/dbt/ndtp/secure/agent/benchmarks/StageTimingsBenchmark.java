@@ -0,0 +1,96 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Sink;
+import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.NullSink;
+import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.Sinks;
+import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.StageTimings;
+
+/**
+ * Measures the overhead of per-stage timing instrumentation, via {@link StageTimings}, on a pipeline of sinks at
+ * different sampling intervals
+ * <p>
+ * A {@code sampleInterval} of {@code 0} builds the pipeline without any instrumentation to provide a baseline.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class StageTimingsBenchmark {
+
+    private static final int ITEMS = 1024;
+
+    @Param({ "0", "1", "100" })
+    private int sampleInterval;
+
+    private final Integer[] items = new Integer[ITEMS];
+    private NullSink<Integer> terminal;
+    private Sink<Integer> pipeline;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < ITEMS; i++) {
+            this.items[i] = i;
+        }
+        StageTimings timings =
+                this.sampleInterval > 0 ? new StageTimings("benchmark", this.sampleInterval) : null;
+        this.terminal = NullSink.of();
+        //@formatter:off
+        this.pipeline = Sinks.<Integer>filter()
+                             .timings(timings)
+                             .predicate(i -> i % 8 != 0)
+                             .suppressDuplicates(s -> s.cacheSize(ITEMS / 2)
+                                                       .filter(f -> f.predicate(i -> i % 3 != 0)
+                                                                     .destination(this.terminal)))
+                             .buildTimed();
+        //@formatter:on
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public long pipeline() {
+        for (Integer item : this.items) {
+            this.pipeline.send(item);
+        }
+        return this.terminal.count();
+    }
+}
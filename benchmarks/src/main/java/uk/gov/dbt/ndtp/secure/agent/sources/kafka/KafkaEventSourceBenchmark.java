@@ -0,0 +1,211 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.KafkaReadPolicy;
+
+/**
+ * Measures the per-event overhead of the {@link KafkaEventSource} buffering and offset tracking path
+ * <p>
+ * The source is backed by a stub consumer that returns the same pre-built batch of records from every poll, spread
+ * across several partitions, so the measured cost is purely that of buffering the records, tracking the auto-commit
+ * offsets and wrapping each record as an {@link Event}.  Run with {@code -prof gc} to see the allocation per event.
+ * </p>
+ * <p>
+ * This benchmark lives in the same package as {@link KafkaEventSource} since the constructor that allows the consumer
+ * to be substituted is package-private.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class KafkaEventSourceBenchmark {
+
+    private static final String TOPIC = "benchmark";
+    private static final int PARTITIONS = 4;
+    private static final int RECORDS = 500;
+    private static final Duration TIMEOUT = Duration.ofMillis(1);
+
+    private KafkaEventSource<String, String> source;
+
+    @Setup
+    public void setup() {
+        Map<TopicPartition, List<ConsumerRecord<String, String>>> byPartition = new LinkedHashMap<>();
+        for (int p = 0; p < PARTITIONS; p++) {
+            List<ConsumerRecord<String, String>> records = new ArrayList<>();
+            for (int i = 0; i < RECORDS / PARTITIONS; i++) {
+                records.add(new ConsumerRecord<>(TOPIC, p, i, "key-" + i, "value-" + i));
+            }
+            byPartition.put(new TopicPartition(TOPIC, p), records);
+        }
+        ConsumerRecords<String, String> batch = new ConsumerRecords<>(byPartition, Map.of());
+
+        this.source = new KafkaEventSource<>("localhost:9092", Set.of(TOPIC), "benchmark",
+                                             StringDeserializer.class.getCanonicalName(),
+                                             StringDeserializer.class.getCanonicalName(), RECORDS,
+                                             new NoOpReadPolicy(), true, null, Duration.ofHours(1), null) {
+            @Override
+            protected Consumer<String, String> createConsumer(Properties props) {
+                return new StubConsumer(batch);
+            }
+
+            @Override
+            protected AdminClient createAdminClient(Properties props) {
+                return null;
+            }
+        };
+    }
+
+    @TearDown
+    public void teardown() {
+        this.source.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void poll(Blackhole blackhole) {
+        for (int i = 0; i < RECORDS; i++) {
+            blackhole.consume(this.source.poll(TIMEOUT));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public List<Event<String, String>> pollBatch() {
+        return this.source.pollBatch(RECORDS, TIMEOUT);
+    }
+
+    /**
+     * A consumer that returns the same batch of records from every poll and ignores commits
+     */
+    private static final class StubConsumer extends MockConsumer<String, String> {
+        private final ConsumerRecords<String, String> batch;
+
+        StubConsumer(ConsumerRecords<String, String> batch) {
+            super(OffsetResetStrategy.EARLIEST);
+            this.batch = batch;
+        }
+
+        @Override
+        public synchronized ConsumerRecords<String, String> poll(Duration timeout) {
+            return this.batch;
+        }
+
+        @Override
+        public synchronized void commitSync() {
+            // Ignored
+        }
+
+        @Override
+        public synchronized void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+            // Ignored
+        }
+    }
+
+    /**
+     * A read policy that does nothing since the stub consumer needs no assignment
+     */
+    private static final class NoOpReadPolicy implements KafkaReadPolicy<String, String> {
+        @Override
+        public boolean isSubscriptionBased() {
+            return false;
+        }
+
+        @Override
+        public void prepareConsumerConfiguration(Properties props) {
+            // No-op
+        }
+
+        @Override
+        public void setConsumer(Consumer<String, String> consumer) {
+            // No-op
+        }
+
+        @Override
+        public void startEvents(String topic) {
+            // No-op
+        }
+
+        @Override
+        public void logReadPositions(String topic) {
+            // No-op
+        }
+
+        @Override
+        public Long currentLag(String topic) {
+            return null;
+        }
+
+        @Override
+        public void stopEvents(String topic) {
+            // No-op
+        }
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            // No-op
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            // No-op
+        }
+    }
+}
@@ -0,0 +1,118 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.events.EventHeaderSink;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.Header;
+import uk.gov.dbt.ndtp.secure.agent.sources.IANodeHeaders;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.sinks.KafkaSink;
+import uk.gov.dbt.ndtp.secure.agent.sources.memory.SimpleEvent;
+
+/**
+ * Measures the per-event cost of converting the IANode standard header set into Kafka headers
+ * <p>
+ * Events are passed through an {@link EventHeaderSink} configured with the standard headers, as a typical pipeline
+ * would before writing to a {@link KafkaSink}, and the resulting headers are converted into Kafka headers.  The
+ * {@code perEventEncoding} benchmark is the baseline, encoding every header value for every event as was previously
+ * the case, whereas the other benchmarks use the {@link KafkaSink#toKafkaHeaders(Event)} conversion path that reuses
+ * pre-encoded fixed headers.  Run with {@code -prof gc} to see the allocation per event.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class KafkaHeadersBenchmark {
+
+    private EventHeaderSink<String, String> headerSink;
+    private Event<String, String> output;
+    private Event<String, String> simpleInput;
+    private Event<String, String> kafkaInput;
+
+    @Setup
+    public void setup() {
+        List<Header> inputHeaders = List.of(new Header(IANodeHeaders.REQUEST_ID, UUID.randomUUID().toString()));
+        this.simpleInput = new SimpleEvent<>(inputHeaders, "key", "value");
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("benchmark", 0, 0, "key", "value");
+        record.headers()
+              .add(new RecordHeader(IANodeHeaders.REQUEST_ID,
+                                    UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8)));
+        this.kafkaInput = new KafkaEvent<>(record, null);
+
+        this.headerSink = EventHeaderSink.<String, String>create()
+                                         .addExecPath("benchmark")
+                                         .addInputRequestId()
+                                         .addDataSourceHeaders("Benchmark Data", "text/csv")
+                                         .addContentType("text/turtle")
+                                         .destination(e -> this.output = e)
+                                         .build();
+    }
+
+    @TearDown
+    public void teardown() {
+        this.headerSink.close();
+    }
+
+    @Benchmark
+    public void perEventEncoding(Blackhole blackhole) {
+        this.headerSink.send(this.simpleInput);
+        blackhole.consume(this.output.headers()
+                                     .map(h -> new RecordHeader(h.key(), h.value().getBytes(StandardCharsets.UTF_8)))
+                                     .toList());
+    }
+
+    @Benchmark
+    public void preEncoded(Blackhole blackhole) {
+        this.headerSink.send(this.simpleInput);
+        blackhole.consume(KafkaSink.toKafkaHeaders(this.output));
+    }
+
+    @Benchmark
+    public void preEncodedKafkaEvent(Blackhole blackhole) {
+        this.headerSink.send(this.kafkaInput);
+        blackhole.consume(KafkaSink.toKafkaHeaders(this.output));
+    }
+}
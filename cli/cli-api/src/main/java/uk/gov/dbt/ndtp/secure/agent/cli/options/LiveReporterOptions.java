@@ -110,12 +110,14 @@ public class LiveReporterOptions extends KafkaConfigurationOptions {
             logLiveReportingLocation(this.liveBootstrapServers);
             builder = builder.toKafka(k -> k.bootstrapServers(this.liveBootstrapServers)
                                             .topic(this.liveReportTopic)
-                                            .producerConfig(this.getAdditionalProperties()));
+                                            .producerConfig(this.getAdditionalProperties())
+                                            .sharedProducer());
         } else if (StringUtils.isNotBlank(bootstrapServers)) {
             logLiveReportingLocation(bootstrapServers);
             builder = builder.toKafka(k -> k.bootstrapServers(bootstrapServers)
                                             .topic(this.liveReportTopic)
-                                            .producerConfig(this.getAdditionalProperties()));
+                                            .producerConfig(this.getAdditionalProperties())
+                                            .sharedProducer());
         }
 
         this.reporter = builder.build();
@@ -174,6 +176,7 @@ public class LiveReporterOptions extends KafkaConfigurationOptions {
                             .keySerializer(BytesSerializer.class)
                             .valueSerializer(LiveErrorSerializer.class)
                             .producerConfig(this.getAdditionalProperties())
+                            .sharedProducer()
                             .build();
             //@formatter:on
         }
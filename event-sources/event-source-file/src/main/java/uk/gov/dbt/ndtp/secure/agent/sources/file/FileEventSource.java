@@ -107,19 +107,56 @@ public class FileEventSource<TKey, TValue> implements EventSource<TKey, TValue>
             throw new IllegalStateException("Event source is closed");
         }
         if (!this.events.isEmpty()) {
-            File f = this.events.remove(0);
-            try {
-                return this.eventReader.read(f);
-            } catch (IOException e) {
-                throw new EventSourceException("Failed to parse an Event from file " + f.getAbsolutePath(), e);
-            } catch (Throwable e) {
-                throw new EventSourceException("Invalid Event in file " + f.getAbsolutePath(), e);
-            }
+            return readEvent(this.events.remove(0));
         } else {
             return null;
         }
     }
 
+    @Override
+    public List<Event<TKey, TValue>> pollBatch(int maxEvents, Duration timeout) {
+        if (maxEvents < 1) {
+            throw new IllegalArgumentException("maxEvents must be >= 1");
+        }
+        if (this.closed) {
+            throw new IllegalStateException("Event source is closed");
+        }
+
+        int size = Math.min(maxEvents, this.events.size());
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        List<Event<TKey, TValue>> batch = new ArrayList<>(size);
+        for (File f : this.events.subList(0, size)) {
+            try {
+                batch.add(readEvent(f));
+            } catch (EventSourceException e) {
+                if (batch.isEmpty()) {
+                    // Behave as poll() would i.e. the bad file is consumed
+                    this.events.remove(0);
+                    throw e;
+                }
+                // Return the events read thus far, the bad file remains as the next event so the error is surfaced by
+                // the next poll
+                break;
+            }
+        }
+
+        // Remove all the files we've read in one operation rather than one at a time
+        this.events.subList(0, batch.size()).clear();
+        return batch;
+    }
+
+    private Event<TKey, TValue> readEvent(File f) {
+        try {
+            return this.eventReader.read(f);
+        } catch (IOException e) {
+            throw new EventSourceException("Failed to parse an Event from file " + f.getAbsolutePath(), e);
+        } catch (Throwable e) {
+            throw new EventSourceException("Invalid Event in file " + f.getAbsolutePath(), e);
+        }
+    }
+
     @Override
     public Long remaining() {
         return (long) this.events.size();
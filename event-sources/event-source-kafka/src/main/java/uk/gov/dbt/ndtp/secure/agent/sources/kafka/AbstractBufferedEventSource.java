@@ -25,7 +25,10 @@
 package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
 
 import java.time.Duration;
-import java.util.LinkedList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Queue;
 import uk.gov.dbt.ndtp.secure.agent.sources.Event;
 import uk.gov.dbt.ndtp.secure.agent.sources.EventSource;
@@ -51,8 +54,12 @@ public abstract class AbstractBufferedEventSource<TIntermediate, TKey, TValue> i
     protected volatile boolean closed = false;
     /**
      * The buffer of intermediate events
+     * <p>
+     * This is an array backed ring buffer so adding events to, and removing events from, the buffer does not allocate
+     * once it has grown to the typical batch size.  As a consequence {@code null} events cannot be buffered.
+     * </p>
      */
-    protected final Queue<TIntermediate> events = new LinkedList<>();
+    protected final Queue<TIntermediate> events = new ArrayDeque<>();
 
     /**
      * Creates a new buffered event source
@@ -62,7 +69,20 @@ public abstract class AbstractBufferedEventSource<TIntermediate, TKey, TValue> i
 
     @Override
     public final boolean availableImmediately() {
-        return !this.closed && !this.events.isEmpty();
+        return !this.closed && (!this.events.isEmpty() || hasPendingEvents());
+    }
+
+    /**
+     * Gets whether the derived implementation has further events pending outside of the buffer such that a call to
+     * {@link #tryFillBuffer(Duration)} is guaranteed to add events to the buffer without blocking
+     * <p>
+     * The default implementation returns {@code false}.
+     * </p>
+     *
+     * @return True if events are pending, false otherwise
+     */
+    protected boolean hasPendingEvents() {
+        return false;
     }
 
     @Override
@@ -84,7 +104,8 @@ public abstract class AbstractBufferedEventSource<TIntermediate, TKey, TValue> i
      * Decodes from the internal event representation used when buffering events to the actual {@link Event} instance
      * <p>
      * The implementation must return {@code null} if it receives a {@code null} input since {@code null} is used to
-     * represent no event available.
+     * represent no event available.  An implementation may also return {@code null} for a non-null input to indicate
+     * that the event should be skipped, e.g. because it has been filtered out.
      * </p>
      *
      * @param internalEvent Internal event representation
@@ -98,18 +119,113 @@ public abstract class AbstractBufferedEventSource<TIntermediate, TKey, TValue> i
             throw new IllegalStateException("Event source has been closed");
         }
 
-        // If we have some events buffered continue returning them
-        if (!events.isEmpty()) {
-            return this.decodeEvent(events.poll());
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean refilled = false;
+        while (true) {
+            // If we have some events buffered continue returning them
+            if (!events.isEmpty()) {
+                Event<TKey, TValue> event = nextBufferedEvent();
+                if (event != null) {
+                    return event;
+                }
+            }
+
+            // Always make at least one attempt to refill the buffer, but once all the events from a refill have been
+            // skipped only try again if there is still time remaining
+            long remaining = deadline - System.nanoTime();
+            if (refilled && remaining <= 0) {
+                return null;
+            }
+
+            // The buffer has now been exhausted, allow the derived implementation chance to do any state management it
+            // needs and then ask it to refill the buffer
+            bufferExhausted();
+            tryFillBuffer(Duration.ofNanos(Math.max(remaining, 0)));
+            refilled = true;
+            if (events.isEmpty()) {
+                // No events available
+                return this.decodeEvent(null);
+            }
+        }
+    }
+
+    /**
+     * Decodes buffered events until one is not skipped
+     *
+     * @return Next event, or {@code null} if all buffered events were skipped
+     */
+    private Event<TKey, TValue> nextBufferedEvent() {
+        while (!events.isEmpty()) {
+            Event<TKey, TValue> event = this.decodeEvent(events.poll());
+            if (event != null) {
+                return event;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public final List<Event<TKey, TValue>> pollBatch(int maxEvents, Duration timeout) {
+        if (maxEvents < 1) {
+            throw new IllegalArgumentException("maxEvents must be >= 1");
+        }
+        if (this.closed) {
+            throw new IllegalStateException("Event source has been closed");
         }
 
-        // The buffer has now been exhausted, allow the derived implementation chance to do any state management it
-        // needs and then ask it to refill the buffer
-        bufferExhausted();
-        tryFillBuffer(timeout);
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean refilled = false;
+        List<Event<TKey, TValue>> batch = null;
+        while (true) {
+            // Only need to refill the buffer if it's currently empty, otherwise we just return whatever is buffered up
+            // to the maximum requested events
+            if (events.isEmpty()) {
+                // Always make at least one attempt to refill the buffer, but once all the events from a refill have
+                // been skipped only try again if there is still time remaining
+                long remaining = deadline - System.nanoTime();
+                if (refilled && remaining <= 0) {
+                    return Collections.emptyList();
+                }
+                bufferExhausted();
+                tryFillBuffer(Duration.ofNanos(Math.max(remaining, 0)));
+                refilled = true;
+            }
+
+            int size = Math.min(maxEvents, events.size());
+            if (size == 0) {
+                return Collections.emptyList();
+            }
+            if (batch == null) {
+                batch = new ArrayList<>(size);
+            }
+            decodeEvents(size, batch);
+
+            // If every event in this slice was skipped, e.g. filtered out, carry on with the rest of the buffer, or
+            // another refill, rather than returning an empty batch while events may still be available
+            if (!batch.isEmpty()) {
+                return batch;
+            }
+        }
+    }
 
-        // Return the next buffered event, or null if no events available
-        return this.decodeEvent(events.poll());
+    /**
+     * Removes the given number of events from the buffer, decoding them and adding them to the given batch
+     * <p>
+     * The default implementation calls {@link #decodeEvent(Object)} for each event, derived implementations may
+     * override this if they can decode a batch of events more efficiently.  Events that are skipped are not added to
+     * the batch, so fewer than {@code count} events may be added.
+     * </p>
+     *
+     * @param count Number of events to decode, guaranteed to be no greater than the number of buffered events
+     * @param batch Batch to add the decoded events to
+     */
+    protected void decodeEvents(int count, List<Event<TKey, TValue>> batch) {
+        for (int i = 0; i < count; i++) {
+            Event<TKey, TValue> event = this.decodeEvent(events.poll());
+            if (event != null) {
+                batch.add(event);
+            }
+        }
     }
 
     /**
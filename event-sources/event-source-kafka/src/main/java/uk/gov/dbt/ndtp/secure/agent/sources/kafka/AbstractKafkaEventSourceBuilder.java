@@ -30,6 +30,10 @@ import java.util.LinkedHashSet;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.EventSource;
 import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.KafkaReadPolicies;
 import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.KafkaReadPolicy;
 import uk.gov.dbt.ndtp.secure.agent.sources.offsets.OffsetStore;
@@ -49,7 +53,7 @@ import org.slf4j.LoggerFactory;
  * @param <TSource> Event Source type
  */
 @SuppressWarnings("unchecked")
-public abstract class AbstractKafkaEventSourceBuilder<TKey, TValue, TSource extends KafkaEventSource<TKey, TValue>, TBuilder extends AbstractKafkaEventSourceBuilder<TKey, TValue, TSource, TBuilder>> {
+public abstract class AbstractKafkaEventSourceBuilder<TKey, TValue, TSource extends EventSource<TKey, TValue>, TBuilder extends AbstractKafkaEventSourceBuilder<TKey, TValue, TSource, TBuilder>> {
 
     static final Logger LOGGER = LoggerFactory.getLogger(AbstractKafkaEventSourceBuilder.class);
 
@@ -58,9 +62,18 @@ public abstract class AbstractKafkaEventSourceBuilder<TKey, TValue, TSource exte
     int maxPollRecords = 100;
     Duration lagReportInterval = Duration.ofMinutes(1);
     KafkaReadPolicy<TKey, TValue> readPolicy = KafkaReadPolicies.fromEarliest();
+    Supplier<KafkaReadPolicy<TKey, TValue>> readPolicies = KafkaReadPolicies::fromEarliest;
     boolean autoCommit = true;
     OffsetStore externalOffsetStore = null;
     Properties properties = new Properties();
+    int prefetchBatches = 0;
+    Duration asyncCommitInterval = null;
+    int asyncCommitMaxPending = KafkaEventSource.DEFAULT_ASYNC_COMMIT_MAX_PENDING;
+    int partitionPauseThreshold = 0;
+    long maxBufferedBytes = 0;
+    int deserializationThreads = 0;
+    boolean lazyValues = false;
+    Predicate<Event<TKey, TValue>> filter = null;
 
     /**
      * Sets the bootstrap servers
@@ -208,7 +221,7 @@ public abstract class AbstractKafkaEventSourceBuilder<TKey, TValue, TSource exte
      * @return Builder
      */
     public TBuilder fromBeginning() {
-        return readPolicy(KafkaReadPolicies.fromBeginning());
+        return readPolicies(KafkaReadPolicies::fromBeginning);
     }
 
     /**
@@ -217,7 +230,7 @@ public abstract class AbstractKafkaEventSourceBuilder<TKey, TValue, TSource exte
      * @return Builder
      */
     public TBuilder fromEarliest() {
-        return readPolicy(KafkaReadPolicies.fromEarliest());
+        return readPolicies(KafkaReadPolicies::fromEarliest);
     }
 
     /**
@@ -226,7 +239,7 @@ public abstract class AbstractKafkaEventSourceBuilder<TKey, TValue, TSource exte
      * @return Builder
      */
     public TBuilder fromLatest() {
-        return readPolicy(KafkaReadPolicies.fromLatest());
+        return readPolicies(KafkaReadPolicies::fromLatest);
     }
 
     /**
@@ -235,7 +248,7 @@ public abstract class AbstractKafkaEventSourceBuilder<TKey, TValue, TSource exte
      * @return Builder
      */
     public TBuilder fromEnd() {
-        return readPolicy(KafkaReadPolicies.fromEnd());
+        return readPolicies(KafkaReadPolicies::fromEnd);
     }
 
     /**
@@ -246,6 +259,25 @@ public abstract class AbstractKafkaEventSourceBuilder<TKey, TValue, TSource exte
      */
     public TBuilder readPolicy(KafkaReadPolicy<TKey, TValue> policy) {
         this.readPolicy = policy;
+        this.readPolicies = null;
+        return (TBuilder) this;
+    }
+
+    /**
+     * Sets the read policy to those produced by the given supplier
+     * <p>
+     * A read policy instance may only be used by a single consumer, so sources that create multiple consumers, e.g.
+     * {@link ParallelKafkaEventSource}, require a supplier of read policies rather than a single read policy.  Each
+     * call to the supplier <strong>MUST</strong> return a new read policy instance.
+     * </p>
+     *
+     * @param policies Read policy supplier
+     * @return Builder
+     */
+    public TBuilder readPolicies(Supplier<KafkaReadPolicy<TKey, TValue>> policies) {
+        Objects.requireNonNull(policies, "Read policy supplier cannot be null");
+        this.readPolicy = policies.get();
+        this.readPolicies = policies;
         return (TBuilder) this;
     }
 
@@ -295,6 +327,282 @@ public abstract class AbstractKafkaEventSourceBuilder<TKey, TValue, TSource exte
         return (TBuilder) this;
     }
 
+    /**
+     * Enables prefetching with the default number of prefetched batches ({@value KafkaEventSource#DEFAULT_PREFETCH_BATCHES})
+     *
+     * @return Builder
+     * @see #prefetch(int)
+     */
+    public TBuilder prefetch() {
+        return prefetch(KafkaEventSource.DEFAULT_PREFETCH_BATCHES);
+    }
+
+    /**
+     * Enables/Disables prefetching of events
+     * <p>
+     * When enabled (a value greater than zero) a dedicated background thread owns the underlying
+     * {@link org.apache.kafka.clients.consumer.KafkaConsumer} and keeps polling Kafka for new events while the caller is
+     * still working through previously returned events.  Up to the given number of batches, each of up to
+     * {@link #maxPollRecords(int)} events, are held in memory ready to be handed off to the caller.  Once that many
+     * batches are waiting the background thread pauses fetching until the caller catches up.
+     * </p>
+     * <p>
+     * All offset commits, whether from auto-commit or from calls to
+     * {@link uk.gov.dbt.ndtp.secure.agent.sources.EventSource#processed(Collection)}, are carried out by the background
+     * thread so the consumer is only ever accessed from a single thread.
+     * </p>
+     *
+     * @param batches Number of batches to prefetch, zero disables prefetching
+     * @return Builder
+     */
+    public TBuilder prefetch(int batches) {
+        this.prefetchBatches = batches;
+        return (TBuilder) this;
+    }
+
+    /**
+     * Disables prefetching, this is the default behaviour
+     *
+     * @return Builder
+     */
+    public TBuilder noPrefetch() {
+        return prefetch(0);
+    }
+
+    /**
+     * Enables asynchronous offset commits with the default commit interval
+     * ({@link KafkaEventSource#DEFAULT_ASYNC_COMMIT_INTERVAL}) and maximum pending commits
+     * ({@value KafkaEventSource#DEFAULT_ASYNC_COMMIT_MAX_PENDING})
+     *
+     * @return Builder
+     * @see #asyncCommits(Duration, int)
+     */
+    public TBuilder asyncCommits() {
+        return asyncCommits(KafkaEventSource.DEFAULT_ASYNC_COMMIT_INTERVAL,
+                            KafkaEventSource.DEFAULT_ASYNC_COMMIT_MAX_PENDING);
+    }
+
+    /**
+     * Enables asynchronous offset commits
+     * <p>
+     * By default every offset commit, whether from auto-commit or from calls to
+     * {@link uk.gov.dbt.ndtp.secure.agent.sources.EventSource#processed(Collection)}, is carried out synchronously and
+     * so blocks the thread that owns the consumer for a broker round trip.  When asynchronous commits are enabled
+     * offsets to be committed are instead merged together and committed asynchronously once either the given interval
+     * has elapsed since the last commit, or the given number of commit requests have been merged.
+     * </p>
+     * <p>
+     * Any offsets still pending are committed synchronously when the source is closed, and when using a subscription
+     * based read policy before partitions are revoked during a consumer group rebalance, so at-least-once delivery is
+     * preserved.  However, if the application terminates abnormally up to the given interval worth of processed events
+     * may be read again by the next consumer.
+     * </p>
+     *
+     * @param interval          Maximum interval between commits
+     * @param maxPendingCommits Maximum number of commit requests to merge before committing
+     * @return Builder
+     */
+    public TBuilder asyncCommits(Duration interval, int maxPendingCommits) {
+        this.asyncCommitInterval = interval;
+        this.asyncCommitMaxPending = maxPendingCommits;
+        return (TBuilder) this;
+    }
+
+    /**
+     * Disables asynchronous offset commits so every commit is carried out synchronously, this is the default behaviour
+     *
+     * @return Builder
+     */
+    public TBuilder syncCommits() {
+        this.asyncCommitInterval = null;
+        this.asyncCommitMaxPending = KafkaEventSource.DEFAULT_ASYNC_COMMIT_MAX_PENDING;
+        return (TBuilder) this;
+    }
+
+    /**
+     * Enables per-partition buffering with the default pause threshold
+     * ({@value KafkaEventSource#DEFAULT_PARTITION_PAUSE_THRESHOLD})
+     *
+     * @return Builder
+     * @see #perPartitionBuffering(int)
+     */
+    public TBuilder perPartitionBuffering() {
+        return perPartitionBuffering(KafkaEventSource.DEFAULT_PARTITION_PAUSE_THRESHOLD);
+    }
+
+    /**
+     * Enables per-partition buffering
+     * <p>
+     * When enabled fetched records are buffered separately for each assigned partition and handed off to the caller in
+     * round-robin order across partitions, so a partition with a large backlog cannot starve the other partitions.
+     * Once more than the given number of records are buffered for a single partition fetching from that partition is
+     * paused, it is resumed once the caller has worked through half of those records.  This provides per-partition
+     * backpressure while the consumer continues to poll, and thus remains a member of its consumer group.
+     * </p>
+     * <p>
+     * Per-partition buffering cannot be combined with {@link #prefetch(int)}.
+     * </p>
+     *
+     * @param pauseThreshold Number of records buffered for a single partition above which that partition is paused
+     * @return Builder
+     */
+    public TBuilder perPartitionBuffering(int pauseThreshold) {
+        this.partitionPauseThreshold = pauseThreshold;
+        return (TBuilder) this;
+    }
+
+    /**
+     * Disables per-partition buffering, this is the default behaviour
+     *
+     * @return Builder
+     */
+    public TBuilder noPerPartitionBuffering() {
+        this.partitionPauseThreshold = 0;
+        return (TBuilder) this;
+    }
+
+    /**
+     * Sets a byte budget for the records the source buffers in memory
+     * <p>
+     * The budget is measured using the serialized size of records as fetched from Kafka.  When set the amount of data
+     * the underlying consumer fetches in a single request is lowered to at most the budget, and when using
+     * {@link #prefetch(int)} or {@link #perPartitionBuffering(int)} fetching is paused whenever the buffered records
+     * exceed the budget, resuming once they have dropped to half the budget.  This bounds the memory used for buffered
+     * records when individual records may be large.
+     * </p>
+     *
+     * @param maxBytes Maximum bytes to buffer, zero for no limit
+     * @return Builder
+     */
+    public TBuilder maxBufferedBytes(long maxBytes) {
+        this.maxBufferedBytes = maxBytes;
+        return (TBuilder) this;
+    }
+
+    /**
+     * Removes any byte budget for buffered records, this is the default behaviour
+     *
+     * @return Builder
+     */
+    public TBuilder noMaxBufferedBytes() {
+        return maxBufferedBytes(0);
+    }
+
+    /**
+     * Enables parallel deserialization with the default number of threads
+     * ({@value KafkaEventSource#DEFAULT_DESERIALIZATION_THREADS})
+     *
+     * @return Builder
+     * @see #parallelDeserialization(int)
+     */
+    public TBuilder parallelDeserialization() {
+        return parallelDeserialization(KafkaEventSource.DEFAULT_DESERIALIZATION_THREADS);
+    }
+
+    /**
+     * Enables/Disables parallel deserialization of records
+     * <p>
+     * Normally records are deserialized by the configured key and value deserializers within the underlying
+     * {@link org.apache.kafka.clients.consumer.KafkaConsumer} on the single thread that polls Kafka.  When enabled (a
+     * value greater than zero) the consumer instead fetches raw bytes and each fetched batch is split up and
+     * deserialized concurrently by a pool of the given number of threads, with the polling thread also deserializing a
+     * share of each batch.  This is useful when deserialization is expensive, e.g. eagerly parsing RDF payloads.
+     * </p>
+     * <p>
+     * Records are still returned in the order they were fetched, and a record that fails to deserialize is reported in
+     * the same way as when deserializing within the Kafka consumer.  Each thread uses its own deserializer instances so
+     * deserializers need not be thread-safe.
+     * </p>
+     *
+     * @param threads Number of deserialization threads, zero disables parallel deserialization
+     * @return Builder
+     */
+    public TBuilder parallelDeserialization(int threads) {
+        this.deserializationThreads = threads;
+        return (TBuilder) this;
+    }
+
+    /**
+     * Disables parallel deserialization, this is the default behaviour
+     *
+     * @return Builder
+     */
+    public TBuilder noParallelDeserialization() {
+        return parallelDeserialization(0);
+    }
+
+    /**
+     * Enables lazy deserialization of event values
+     * <p>
+     * Normally event values are deserialized as soon as records are fetched from Kafka.  When enabled the consumer
+     * instead fetches raw bytes, only keys are deserialized upon fetching, and each event's value is deserialized, via
+     * the configured value deserializer, the first time {@link Event#value()} is called with the result being
+     * memoized.  This avoids the cost of deserializing values for events that the application discards without
+     * inspecting their value, e.g. using a {@link #filter(Predicate)} on keys and/or headers.
+     * </p>
+     * <p>
+     * If a value cannot be deserialized then {@link Event#value()} throws a
+     * {@link org.apache.kafka.common.errors.RecordDeserializationException}, rather than the source failing to poll.
+     * Values may be accessed from any thread, each thread uses its own value deserializer instance.
+     * </p>
+     *
+     * @return Builder
+     */
+    public TBuilder lazyValueDeserialization() {
+        this.lazyValues = true;
+        return (TBuilder) this;
+    }
+
+    /**
+     * Disables lazy deserialization of event values so values are deserialized as soon as records are fetched, this is
+     * the default behaviour
+     *
+     * @return Builder
+     */
+    public TBuilder eagerValueDeserialization() {
+        this.lazyValues = false;
+        return (TBuilder) this;
+    }
+
+    /**
+     * Sets a filter that is applied to events before they are returned by the source
+     * <p>
+     * Events the filter rejects are skipped and never returned to the caller, their offsets are still committed if
+     * auto-commit is enabled.  When combined with {@link #lazyValueDeserialization()} a filter that only inspects the
+     * event key and headers, e.g. via {@link Event#lastHeader(String)}, avoids ever deserializing the values of the
+     * events it rejects.
+     * </p>
+     * <p>
+     * If auto-commit is disabled note that a skipped event is only committed once a subsequent event from the same
+     * partition is passed to {@link uk.gov.dbt.ndtp.secure.agent.sources.EventSource#processed(Collection)}.
+     * </p>
+     *
+     * @param filter Filter, returns {@code true} for events that should be returned, {@code null} to remove any filter
+     * @return Builder
+     */
+    public TBuilder filter(Predicate<Event<TKey, TValue>> filter) {
+        this.filter = filter;
+        return (TBuilder) this;
+    }
+
+    /**
+     * Creates the decode options for the source being built
+     *
+     * @return Decode options
+     */
+    DecodeOptions<TKey, TValue> decodeOptions() {
+        return new DecodeOptions<>(this.deserializationThreads, this.lazyValues, this.filter);
+    }
+
+    /**
+     * Creates the flow control configuration for the source being built
+     *
+     * @return Flow control configuration
+     */
+    FlowControl flowControl() {
+        return new FlowControl(this.partitionPauseThreshold, this.maxBufferedBytes);
+    }
+
     /**
      * Sets a Kafka Consumer configuration property that will be used to configure the underlying
      * {@link org.apache.kafka.clients.consumer.KafkaConsumer}.  Note that some properties are always overridden by the
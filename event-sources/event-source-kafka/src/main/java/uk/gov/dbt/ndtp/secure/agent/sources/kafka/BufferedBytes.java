@@ -0,0 +1,161 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+
+/**
+ * Tracks the serialized size of the records a {@link KafkaEventSource} currently holds in memory, optionally against a
+ * byte budget
+ * <p>
+ * Record sizes are taken from {@link ConsumerRecord#serializedKeySize()} and
+ * {@link ConsumerRecord#serializedValueSize()} so reflect the size of the records as fetched from Kafka rather than
+ * their deserialized in-memory size.  Once the budget is exceeded the tracker reports itself as throttled until the
+ * buffered bytes have dropped to half the budget, this hysteresis avoids rapidly pausing and resuming fetching.
+ * </p>
+ * <p>
+ * Records may be added and released from different threads, however {@link #throttled()} <strong>MUST</strong> only be
+ * called from the thread that owns the consumer.
+ * </p>
+ */
+final class BufferedBytes {
+
+    private final AtomicLong buffered = new AtomicLong(0);
+    private final long maxBytes, resumeBytes;
+    private boolean throttled = false;
+
+    /**
+     * Creates a new tracker
+     *
+     * @param maxBytes Byte budget, zero for no budget in which case buffered bytes are tracked but never throttled
+     */
+    BufferedBytes(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Max buffered bytes must be >= 0");
+        }
+        this.maxBytes = maxBytes;
+        this.resumeBytes = maxBytes / 2;
+    }
+
+    /**
+     * Calculates the serialized size of a record
+     *
+     * @param record Record
+     * @return Serialized size in bytes
+     */
+    static long sizeOf(ConsumerRecord<?, ?> record) {
+        // Sizes are reported as -1 for null keys/values
+        return Math.max(0, record.serializedKeySize()) + Math.max(0, record.serializedValueSize());
+    }
+
+    /**
+     * Records that some records are now buffered
+     *
+     * @param records Records
+     */
+    void add(ConsumerRecords<?, ?> records) {
+        long bytes = 0;
+        for (ConsumerRecord<?, ?> record : records) {
+            bytes += sizeOf(record);
+        }
+        add(bytes);
+    }
+
+    /**
+     * Records that some bytes are now buffered
+     *
+     * @param bytes Bytes
+     */
+    void add(long bytes) {
+        if (bytes != 0) {
+            this.buffered.addAndGet(bytes);
+        }
+    }
+
+    /**
+     * Records that a record is no longer buffered
+     *
+     * @param record Record
+     */
+    void release(ConsumerRecord<?, ?> record) {
+        add(-sizeOf(record));
+    }
+
+    /**
+     * Records that some bytes are no longer buffered
+     *
+     * @param bytes Bytes
+     */
+    void release(long bytes) {
+        add(-bytes);
+    }
+
+    /**
+     * Resets the buffered bytes to zero, used when all buffered records are discarded
+     */
+    void reset() {
+        this.buffered.set(0);
+        this.throttled = false;
+    }
+
+    /**
+     * Gets the number of bytes currently buffered
+     *
+     * @return Buffered bytes
+     */
+    long bufferedBytes() {
+        return this.buffered.get();
+    }
+
+    /**
+     * Gets whether a byte budget is in effect
+     *
+     * @return True if there is a budget, false otherwise
+     */
+    boolean hasBudget() {
+        return this.maxBytes > 0;
+    }
+
+    /**
+     * Gets whether fetching should currently be throttled because the buffered bytes have exceeded the budget, and not
+     * yet dropped back to half the budget
+     *
+     * @return True if throttled, false otherwise
+     */
+    boolean throttled() {
+        if (!hasBudget()) {
+            return false;
+        }
+        long current = this.buffered.get();
+        if (current > this.maxBytes) {
+            this.throttled = true;
+        } else if (current <= this.resumeBytes) {
+            this.throttled = false;
+        }
+        return this.throttled;
+    }
+}
@@ -0,0 +1,192 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RetriableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces offset commits and applies them asynchronously
+ * <p>
+ * Offsets to be committed are merged into a pending set, keeping the highest offset for each partition, and only
+ * committed via {@link Consumer#commitAsync(Map, org.apache.kafka.clients.consumer.OffsetCommitCallback)} once either
+ * the configured interval has elapsed since the last commit, or the configured number of commit requests have been
+ * merged.  This means the thread that owns the consumer is not blocked waiting on a broker round trip for every commit.
+ * </p>
+ * <p>
+ * If an asynchronous commit fails with a retriable error, and no later commit has been issued since, the failed offsets
+ * are merged back into the pending set so they are retried with the next commit.  Otherwise the failure is logged and
+ * the offsets dropped since a later commit supersedes them.  Callers <strong>MUST</strong> call
+ * {@link #commitSync(Consumer)} before giving up ownership of partitions, e.g. on close and on rebalance, to ensure
+ * that any pending offsets are actually committed.
+ * </p>
+ * <p>
+ * This class is not thread-safe and <strong>MUST</strong> only be used from the thread that owns the consumer.
+ * </p>
+ */
+final class CoalescingOffsetCommitter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoalescingOffsetCommitter.class);
+
+    private final long intervalNanos;
+    private final int maxPendingCommits;
+    private final Map<TopicPartition, OffsetAndMetadata> pending = new HashMap<>();
+    private int pendingCommits = 0;
+    private long lastCommit = System.nanoTime();
+    private long sequence = 0;
+
+    /**
+     * Creates a new committer
+     *
+     * @param interval          Maximum interval between commits
+     * @param maxPendingCommits Maximum number of commit requests to merge before committing
+     */
+    CoalescingOffsetCommitter(Duration interval, int maxPendingCommits) {
+        Objects.requireNonNull(interval, "Commit interval cannot be null");
+        if (interval.isNegative()) {
+            throw new IllegalArgumentException("Commit interval must be >= 0");
+        }
+        if (maxPendingCommits < 1) {
+            throw new IllegalArgumentException("Max pending commits must be >= 1");
+        }
+        this.intervalNanos = interval.toNanos();
+        this.maxPendingCommits = maxPendingCommits;
+    }
+
+    /**
+     * Adds offsets to be committed, these are merged with any offsets already pending
+     *
+     * @param offsets Offsets
+     */
+    void add(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        merge(offsets);
+        this.pendingCommits++;
+    }
+
+    /**
+     * Discards any pending offsets for the given partitions
+     * <p>
+     * This is used when partitions are (re-)assigned since any offsets pending for them at that point were determined
+     * from records read during a previous assignment, and so may be behind those another consumer has since committed.
+     * </p>
+     *
+     * @param partitions Partitions
+     */
+    void forget(Collection<TopicPartition> partitions) {
+        this.pending.keySet().removeAll(partitions);
+    }
+
+    private void merge(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        for (Map.Entry<TopicPartition, OffsetAndMetadata> offset : offsets.entrySet()) {
+            this.pending.merge(offset.getKey(), offset.getValue(),
+                               (a, b) -> a.offset() >= b.offset() ? a : b);
+        }
+    }
+
+    /**
+     * Commits any pending offsets asynchronously if the commit interval has elapsed, or the maximum number of pending
+     * commits has been reached
+     *
+     * @param consumer Consumer
+     */
+    void commitIfDue(Consumer<?, ?> consumer) {
+        if (this.pending.isEmpty()) {
+            return;
+        }
+        if (this.pendingCommits >= this.maxPendingCommits
+                || System.nanoTime() - this.lastCommit >= this.intervalNanos) {
+            commitAsync(consumer);
+        }
+    }
+
+    /**
+     * Commits any pending offsets asynchronously
+     *
+     * @param consumer Consumer
+     */
+    void commitAsync(Consumer<?, ?> consumer) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = takePending(consumer.assignment());
+        if (offsets.isEmpty()) {
+            return;
+        }
+        final long commitSequence = ++this.sequence;
+        consumer.commitAsync(offsets, (committed, e) -> {
+            if (e != null) {
+                onFailure(offsets, e, commitSequence);
+            }
+        });
+    }
+
+    /**
+     * Commits any pending offsets synchronously
+     *
+     * @param consumer Consumer
+     */
+    void commitSync(Consumer<?, ?> consumer) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = takePending(consumer.assignment());
+        // Bump the sequence so any earlier asynchronous commit that subsequently fails is not retried
+        this.sequence++;
+        if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+        }
+    }
+
+    /**
+     * Takes the pending offsets, resetting the pending state
+     *
+     * @param assignment Partitions currently assigned to the consumer, pending offsets for any other partitions are
+     *                   discarded since we aren't permitted to commit them
+     * @return Offsets to commit
+     */
+    private Map<TopicPartition, OffsetAndMetadata> takePending(Set<TopicPartition> assignment) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>(this.pending);
+        offsets.keySet().retainAll(assignment);
+        this.pending.clear();
+        this.pendingCommits = 0;
+        this.lastCommit = System.nanoTime();
+        return offsets;
+    }
+
+    private void onFailure(Map<TopicPartition, OffsetAndMetadata> offsets, Exception e, long commitSequence) {
+        if (e instanceof RetriableException && commitSequence == this.sequence) {
+            LOGGER.warn("Asynchronous offset commit failed with a retriable error, will retry with next commit: {}",
+                        e.getMessage());
+            merge(offsets);
+        } else {
+            LOGGER.warn("Asynchronous offset commit failed, offsets will be superseded by a later commit: {}",
+                        e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.util.function.Predicate;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+
+/**
+ * Configuration for how a {@link KafkaEventSource} decodes fetched records into events
+ *
+ * @param deserializationThreads Number of threads, in addition to the polling thread, used to deserialize fetched
+ *                               records in parallel, zero deserializes records on the polling thread
+ * @param lazyValues             Whether event values are deserialized lazily on first access
+ * @param filter                 Filter applied to events before they are returned, events it rejects are skipped,
+ *                               {@code null} if no filter
+ * @param <TKey>                 Event key type
+ * @param <TValue>               Event value type
+ */
+record DecodeOptions<TKey, TValue>(int deserializationThreads, boolean lazyValues,
+                                   Predicate<Event<TKey, TValue>> filter) {
+
+    /**
+     * Creates new decode options
+     *
+     * @param deserializationThreads Number of threads, in addition to the polling thread, used to deserialize fetched
+     *                               records in parallel, zero deserializes records on the polling thread
+     * @param lazyValues             Whether event values are deserialized lazily on first access
+     * @param filter                 Filter applied to events before they are returned, events it rejects are skipped,
+     *                               {@code null} if no filter
+     */
+    DecodeOptions {
+        if (deserializationThreads < 0) {
+            throw new IllegalArgumentException("Kafka deserializationThreads must be >= 0");
+        }
+    }
+
+    /**
+     * Gets decode options where records are deserialized eagerly within the Kafka consumer, and no filter is applied
+     *
+     * @param <TKey>   Event key type
+     * @param <TValue> Event value type
+     * @return Default decode options
+     */
+    static <TKey, TValue> DecodeOptions<TKey, TValue> defaults() {
+        return new DecodeOptions<>(0, false, null);
+    }
+
+    /**
+     * Gets whether the source needs to fetch raw records and deserialize them itself, rather than having the Kafka
+     * consumer deserialize them
+     *
+     * @return True if raw records are fetched, false otherwise
+     */
+    boolean fetchRaw() {
+        return this.deserializationThreads > 0 || this.lazyValues;
+    }
+}
@@ -0,0 +1,597 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.clients.consumer.SubscriptionPattern;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.Uuid;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.errors.RecordDeserializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.metrics.KafkaMetric;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * A Kafka consumer that fetches raw bytes via an underlying consumer and then deserializes the fetched records itself
+ * <p>
+ * Normally a {@link org.apache.kafka.clients.consumer.KafkaConsumer} deserializes records inside of
+ * {@link #poll(Duration)} on the polling thread, for expensive deserializers, e.g. RDF parsing, this can dominate the
+ * cost of consuming events.  Taking over deserialization allows for two optimisations, which may be combined:
+ * </p>
+ * <ul>
+ *     <li>Parallel deserialization, each fetched batch is split into contiguous chunks that are deserialized
+ *     concurrently by a pool of worker threads, with the polling thread deserializing one of the chunks itself.</li>
+ *     <li>Lazy value deserialization, only keys are deserialized when records are fetched, values are deserialized
+ *     on first access, see {@link LazyConsumerRecord}.</li>
+ * </ul>
+ * <p>
+ * Either way records are returned in exactly the order the underlying consumer fetched them.
+ * </p>
+ * <p>
+ * Deserialization errors are surfaced in the same way the {@link org.apache.kafka.clients.consumer.KafkaConsumer} does,
+ * i.e. as a {@link RecordDeserializationException} identifying the partition and offset of the malformed record.  As
+ * with the Kafka consumer, records preceding the malformed record are still returned, and the error is instead thrown
+ * on the next call to {@link #poll(Duration)}, with the position for the affected partition rewound to the malformed
+ * record.  When values are deserialized lazily a malformed value instead causes the error to be thrown when the value
+ * is accessed.
+ * </p>
+ * <p>
+ * Since records may be deserialized concurrently each thread uses its own key and value deserializer instances, see
+ * {@link PerThreadDeserializer}, so deserializers need not be thread-safe.  Like any other Kafka consumer this class is
+ * not thread-safe and <strong>MUST</strong> only be used from a single thread.
+ * </p>
+ *
+ * @param <TKey>   Key type
+ * @param <TValue> Value type
+ */
+final class DeserializingConsumer<TKey, TValue> implements Consumer<TKey, TValue> {
+
+    private static final AtomicInteger POOL_ID = new AtomicInteger(0);
+
+    private final Consumer<byte[], byte[]> delegate;
+    private final PerThreadDeserializer<TKey> keyDeserializer;
+    private final PerThreadDeserializer<TValue> valueDeserializer;
+    private final int parallelism;
+    private final boolean lazyValues;
+    private final ExecutorService workers;
+    private RecordDeserializationException pendingFailure = null;
+
+    /**
+     * Creates a new deserializing consumer
+     *
+     * @param delegate           Underlying consumer that fetches raw bytes
+     * @param keyDeserializers   Supplier of configured key deserializers, called once per thread that deserializes keys
+     * @param valueDeserializers Supplier of configured value deserializers, called once per thread that deserializes
+     *                           values
+     * @param threads            Number of worker threads, in addition to the polling thread, used to deserialize
+     *                           records, zero to deserialize records solely on the polling thread
+     * @param lazyValues         Whether values are deserialized lazily on first access
+     */
+    DeserializingConsumer(Consumer<byte[], byte[]> delegate, Supplier<Deserializer<TKey>> keyDeserializers,
+                          Supplier<Deserializer<TValue>> valueDeserializers, int threads, boolean lazyValues) {
+        if (threads < 0) {
+            throw new IllegalArgumentException("Kafka deserializationThreads must be >= 0");
+        }
+        this.delegate = Objects.requireNonNull(delegate, "Delegate consumer cannot be null");
+        this.keyDeserializer = new PerThreadDeserializer<>(keyDeserializers);
+        this.valueDeserializer = new PerThreadDeserializer<>(valueDeserializers);
+        this.parallelism = threads + 1;
+        this.lazyValues = lazyValues;
+        if (threads > 0) {
+            String prefix = "KafkaDeserializer-" + POOL_ID.incrementAndGet() + "-";
+            AtomicInteger threadId = new AtomicInteger(0);
+            this.workers = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, prefix + threadId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.workers = null;
+        }
+    }
+
+    /**
+     * Gets the underlying consumer that fetches raw bytes
+     *
+     * @return Underlying consumer
+     */
+    Consumer<byte[], byte[]> delegate() {
+        return this.delegate;
+    }
+
+    @Override
+    public ConsumerRecords<TKey, TValue> poll(Duration timeout) {
+        // Report any deserialization error deferred from the previous poll
+        RecordDeserializationException failure = this.pendingFailure;
+        if (failure != null) {
+            this.pendingFailure = null;
+            throw failure;
+        }
+
+        ConsumerRecords<byte[], byte[]> raw = this.delegate.poll(timeout);
+        if (raw.isEmpty()) {
+            return ConsumerRecords.empty();
+        }
+        return deserialize(raw);
+    }
+
+    /**
+     * Deserializes a batch of raw records, preserving their order
+     *
+     * @param raw Raw records
+     * @return Deserialized records
+     */
+    private ConsumerRecords<TKey, TValue> deserialize(ConsumerRecords<byte[], byte[]> raw) {
+        List<ConsumerRecord<byte[], byte[]>> input = new ArrayList<>(raw.count());
+        raw.forEach(input::add);
+        @SuppressWarnings("unchecked")
+        ConsumerRecord<TKey, TValue>[] output = new ConsumerRecord[input.size()];
+        RecordDeserializationException[] failures = new RecordDeserializationException[input.size()];
+
+        // Split into contiguous chunks, one per thread, with the polling thread handling the first chunk itself
+        int chunks = Math.min(this.parallelism, input.size());
+        int chunkSize = (input.size() + chunks - 1) / chunks;
+        List<Future<?>> futures = new ArrayList<>(chunks - 1);
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            int id = chunk;
+            futures.add(this.workers.submit(() -> deserializeChunk(id, chunkSize, input, output, failures)));
+        }
+        deserializeChunk(0, chunkSize, input, output, failures);
+        awaitChunks(raw, futures);
+
+        // Reassemble by partition stopping at the first malformed record in each partition
+        Map<TopicPartition, List<ConsumerRecord<TKey, TValue>>> records = new LinkedHashMap<>();
+        Map<TopicPartition, OffsetAndMetadata> nextOffsets = new LinkedHashMap<>(raw.nextOffsets());
+        RecordDeserializationException firstFailure = null;
+        int i = 0;
+        for (TopicPartition partition : raw.partitions()) {
+            List<ConsumerRecord<byte[], byte[]>> partitionRecords = raw.records(partition);
+            List<ConsumerRecord<TKey, TValue>> decoded = new ArrayList<>(partitionRecords.size());
+            for (int end = i + partitionRecords.size(); i < end; i++) {
+                if (failures[i] != null) {
+                    if (firstFailure == null) {
+                        firstFailure = failures[i];
+                    }
+                    // Rewind so the malformed record is fetched again, rather than silently skipped
+                    this.delegate.seek(partition, input.get(i).offset());
+                    nextOffsets.remove(partition);
+                    i = end;
+                    break;
+                }
+                decoded.add(output[i]);
+            }
+            if (!decoded.isEmpty()) {
+                records.put(partition, decoded);
+            }
+        }
+
+        if (firstFailure != null) {
+            if (records.isEmpty()) {
+                throw firstFailure;
+            }
+            this.pendingFailure = firstFailure;
+        }
+        return new ConsumerRecords<>(records, nextOffsets);
+    }
+
+    private void deserializeChunk(int chunk, int chunkSize, List<ConsumerRecord<byte[], byte[]>> input,
+                                  ConsumerRecord<TKey, TValue>[] output, RecordDeserializationException[] failures) {
+        int end = Math.min(input.size(), (chunk + 1) * chunkSize);
+        for (int i = chunk * chunkSize; i < end; i++) {
+            try {
+                output[i] = deserialize(input.get(i));
+            } catch (RecordDeserializationException e) {
+                failures[i] = e;
+            }
+        }
+    }
+
+    /**
+     * Waits for the worker threads to finish deserializing their chunks
+     * <p>
+     * If interrupted while waiting the positions of all fetched partitions are rewound so that none of the fetched
+     * records are lost.
+     * </p>
+     *
+     * @param raw     Raw records being deserialized
+     * @param futures Futures for the chunks being deserialized by worker threads
+     */
+    private void awaitChunks(ConsumerRecords<byte[], byte[]> raw, List<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            for (TopicPartition partition : raw.partitions()) {
+                this.delegate.seek(partition, raw.records(partition).get(0).offset());
+            }
+            throw new InterruptException(e);
+        } catch (ExecutionException e) {
+            throw new KafkaException("Unexpected error deserializing Kafka records", e.getCause());
+        }
+    }
+
+    /**
+     * Deserializes a single record
+     *
+     * @param record Raw record
+     * @return Deserialized record
+     * @throws RecordDeserializationException Thrown if either the key or value cannot be deserialized
+     */
+    private ConsumerRecord<TKey, TValue> deserialize(ConsumerRecord<byte[], byte[]> record) {
+        TKey key;
+        try {
+            key = record.key() != null ?
+                  this.keyDeserializer.deserialize(record.topic(), record.headers(), record.key()) : null;
+        } catch (RuntimeException e) {
+            throw deserializationError(RecordDeserializationException.DeserializationExceptionOrigin.KEY, record, e);
+        }
+        if (this.lazyValues) {
+            return new LazyConsumerRecord<>(record, key, this.valueDeserializer);
+        }
+        TValue value;
+        try {
+            value = record.value() != null ?
+                    this.valueDeserializer.deserialize(record.topic(), record.headers(), record.value()) : null;
+        } catch (RuntimeException e) {
+            throw deserializationError(RecordDeserializationException.DeserializationExceptionOrigin.VALUE, record, e);
+        }
+        return new ConsumerRecord<>(record.topic(), record.partition(), record.offset(), record.timestamp(),
+                                    record.timestampType(), record.serializedKeySize(), record.serializedValueSize(),
+                                    key, value, record.headers(), record.leaderEpoch(), record.deliveryCount());
+    }
+
+    private static RecordDeserializationException deserializationError(
+            RecordDeserializationException.DeserializationExceptionOrigin origin, ConsumerRecord<byte[], byte[]> record,
+            RuntimeException cause) {
+        return deserializationError(origin, record.topic(), record.partition(), record.offset(), record.timestamp(),
+                                    record.timestampType(), record.key(), record.value(), record.headers(), cause);
+    }
+
+    /**
+     * Creates a deserialization error for a record
+     *
+     * @param origin        Whether the key or value failed to deserialize
+     * @param topic         Topic
+     * @param partition     Partition
+     * @param offset        Offset
+     * @param timestamp     Timestamp
+     * @param timestampType Timestamp type
+     * @param key           Raw key, may be {@code null}
+     * @param value         Raw value, may be {@code null}
+     * @param headers       Headers
+     * @param cause         Cause
+     * @return Deserialization error
+     */
+    static RecordDeserializationException deserializationError(
+            RecordDeserializationException.DeserializationExceptionOrigin origin, String topic, int partition,
+            long offset, long timestamp, TimestampType timestampType, byte[] key, byte[] value, Headers headers,
+            RuntimeException cause) {
+        // Same message the KafkaConsumer uses so errors are reported identically regardless of where we deserialize
+        TopicPartition topicPartition = new TopicPartition(topic, partition);
+        String message = String.format(
+                "Error deserializing %s for partition %s at offset %d. If needed, please seek past the record to continue consumption.",
+                origin == RecordDeserializationException.DeserializationExceptionOrigin.KEY ? "key" : "value",
+                topicPartition, offset);
+        return new RecordDeserializationException(origin, topicPartition, offset, timestamp, timestampType,
+                                                  key != null ? ByteBuffer.wrap(key) : null,
+                                                  value != null ? ByteBuffer.wrap(value) : null, headers, message,
+                                                  cause);
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.delegate.close();
+        } finally {
+            closeDeserializers();
+        }
+    }
+
+    @Override
+    public void close(Duration timeout) {
+        try {
+            this.delegate.close(timeout);
+        } finally {
+            closeDeserializers();
+        }
+    }
+
+    private void closeDeserializers() {
+        if (this.workers != null) {
+            this.workers.shutdownNow();
+        }
+        this.keyDeserializer.close();
+        this.valueDeserializer.close();
+    }
+
+    @Override
+    public Set<TopicPartition> assignment() {
+        return this.delegate.assignment();
+    }
+
+    @Override
+    public Set<String> subscription() {
+        return this.delegate.subscription();
+    }
+
+    @Override
+    public void subscribe(Collection<String> topics) {
+        this.delegate.subscribe(topics);
+    }
+
+    @Override
+    public void subscribe(Collection<String> topics, ConsumerRebalanceListener callback) {
+        this.delegate.subscribe(topics, callback);
+    }
+
+    @Override
+    public void assign(Collection<TopicPartition> partitions) {
+        this.delegate.assign(partitions);
+    }
+
+    @Override
+    public void subscribe(Pattern pattern, ConsumerRebalanceListener callback) {
+        this.delegate.subscribe(pattern, callback);
+    }
+
+    @Override
+    public void subscribe(Pattern pattern) {
+        this.delegate.subscribe(pattern);
+    }
+
+    @Override
+    public void subscribe(SubscriptionPattern pattern, ConsumerRebalanceListener callback) {
+        this.delegate.subscribe(pattern, callback);
+    }
+
+    @Override
+    public void subscribe(SubscriptionPattern pattern) {
+        this.delegate.subscribe(pattern);
+    }
+
+    @Override
+    public void unsubscribe() {
+        this.pendingFailure = null;
+        this.delegate.unsubscribe();
+    }
+
+    @Override
+    public void commitSync() {
+        this.delegate.commitSync();
+    }
+
+    @Override
+    public void commitSync(Duration timeout) {
+        this.delegate.commitSync(timeout);
+    }
+
+    @Override
+    public void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        this.delegate.commitSync(offsets);
+    }
+
+    @Override
+    public void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets, Duration timeout) {
+        this.delegate.commitSync(offsets, timeout);
+    }
+
+    @Override
+    public void commitAsync() {
+        this.delegate.commitAsync();
+    }
+
+    @Override
+    public void commitAsync(OffsetCommitCallback callback) {
+        this.delegate.commitAsync(callback);
+    }
+
+    @Override
+    public void commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets, OffsetCommitCallback callback) {
+        this.delegate.commitAsync(offsets, callback);
+    }
+
+    @Override
+    public void registerMetricForSubscription(KafkaMetric metric) {
+        this.delegate.registerMetricForSubscription(metric);
+    }
+
+    @Override
+    public void unregisterMetricFromSubscription(KafkaMetric metric) {
+        this.delegate.unregisterMetricFromSubscription(metric);
+    }
+
+    @Override
+    public void seek(TopicPartition partition, long offset) {
+        this.delegate.seek(partition, offset);
+    }
+
+    @Override
+    public void seek(TopicPartition partition, OffsetAndMetadata offsetAndMetadata) {
+        this.delegate.seek(partition, offsetAndMetadata);
+    }
+
+    @Override
+    public void seekToBeginning(Collection<TopicPartition> partitions) {
+        this.delegate.seekToBeginning(partitions);
+    }
+
+    @Override
+    public void seekToEnd(Collection<TopicPartition> partitions) {
+        this.delegate.seekToEnd(partitions);
+    }
+
+    @Override
+    public long position(TopicPartition partition) {
+        return this.delegate.position(partition);
+    }
+
+    @Override
+    public long position(TopicPartition partition, Duration timeout) {
+        return this.delegate.position(partition, timeout);
+    }
+
+    @Override
+    public Map<TopicPartition, OffsetAndMetadata> committed(Set<TopicPartition> partitions) {
+        return this.delegate.committed(partitions);
+    }
+
+    @Override
+    public Map<TopicPartition, OffsetAndMetadata> committed(Set<TopicPartition> partitions, Duration timeout) {
+        return this.delegate.committed(partitions, timeout);
+    }
+
+    @Override
+    public Uuid clientInstanceId(Duration timeout) {
+        return this.delegate.clientInstanceId(timeout);
+    }
+
+    @Override
+    public Map<MetricName, ? extends Metric> metrics() {
+        return this.delegate.metrics();
+    }
+
+    @Override
+    public List<PartitionInfo> partitionsFor(String topic) {
+        return this.delegate.partitionsFor(topic);
+    }
+
+    @Override
+    public List<PartitionInfo> partitionsFor(String topic, Duration timeout) {
+        return this.delegate.partitionsFor(topic, timeout);
+    }
+
+    @Override
+    public Map<String, List<PartitionInfo>> listTopics() {
+        return this.delegate.listTopics();
+    }
+
+    @Override
+    public Map<String, List<PartitionInfo>> listTopics(Duration timeout) {
+        return this.delegate.listTopics(timeout);
+    }
+
+    @Override
+    public Set<TopicPartition> paused() {
+        return this.delegate.paused();
+    }
+
+    @Override
+    public void pause(Collection<TopicPartition> partitions) {
+        this.delegate.pause(partitions);
+    }
+
+    @Override
+    public void resume(Collection<TopicPartition> partitions) {
+        this.delegate.resume(partitions);
+    }
+
+    @Override
+    public Map<TopicPartition, OffsetAndTimestamp> offsetsForTimes(Map<TopicPartition, Long> timestampsToSearch) {
+        return this.delegate.offsetsForTimes(timestampsToSearch);
+    }
+
+    @Override
+    public Map<TopicPartition, OffsetAndTimestamp> offsetsForTimes(Map<TopicPartition, Long> timestampsToSearch,
+                                                                   Duration timeout) {
+        return this.delegate.offsetsForTimes(timestampsToSearch, timeout);
+    }
+
+    @Override
+    public Map<TopicPartition, Long> beginningOffsets(Collection<TopicPartition> partitions) {
+        return this.delegate.beginningOffsets(partitions);
+    }
+
+    @Override
+    public Map<TopicPartition, Long> beginningOffsets(Collection<TopicPartition> partitions, Duration timeout) {
+        return this.delegate.beginningOffsets(partitions, timeout);
+    }
+
+    @Override
+    public Map<TopicPartition, Long> endOffsets(Collection<TopicPartition> partitions) {
+        return this.delegate.endOffsets(partitions);
+    }
+
+    @Override
+    public Map<TopicPartition, Long> endOffsets(Collection<TopicPartition> partitions, Duration timeout) {
+        return this.delegate.endOffsets(partitions, timeout);
+    }
+
+    @Override
+    public OptionalLong currentLag(TopicPartition partition) {
+        return this.delegate.currentLag(partition);
+    }
+
+    @Override
+    public ConsumerGroupMetadata groupMetadata() {
+        return this.delegate.groupMetadata();
+    }
+
+    @Override
+    public void enforceRebalance() {
+        this.delegate.enforceRebalance();
+    }
+
+    @Override
+    public void enforceRebalance(String reason) {
+        this.delegate.enforceRebalance(reason);
+    }
+
+    @Override
+    public void wakeup() {
+        this.delegate.wakeup();
+    }
+}
@@ -0,0 +1,159 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.EndOffsetCache;
+
+/**
+ * Periodically refreshes the end offsets for all partitions of a set of topics on a background thread, storing them in
+ * an {@link EndOffsetCache}
+ * <p>
+ * Since a {@link org.apache.kafka.clients.consumer.KafkaConsumer} is not thread-safe the refresh is carried out using
+ * an {@link AdminClient}, which is, so that accurate end offsets are available without the thread that owns the
+ * consumer ever having to block on a broker round trip to obtain them.
+ * </p>
+ */
+final class EndOffsetRefresher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EndOffsetRefresher.class);
+
+    private final AdminClient adminClient;
+    private final Set<String> topics;
+    private final EndOffsetCache cache;
+    private final Duration interval;
+    private ScheduledExecutorService scheduler;
+    private boolean closed = false;
+
+    /**
+     * Creates a new refresher
+     *
+     * @param adminClient Admin client
+     * @param topics      Topics whose end offsets should be refreshed
+     * @param cache       Cache to store the end offsets in
+     * @param interval    Interval between refreshes
+     */
+    EndOffsetRefresher(AdminClient adminClient, Collection<String> topics, EndOffsetCache cache, Duration interval) {
+        this.adminClient = Objects.requireNonNull(adminClient, "Admin Client cannot be null");
+        this.topics = new LinkedHashSet<>(Objects.requireNonNull(topics, "Topics cannot be null"));
+        this.cache = Objects.requireNonNull(cache, "Cache cannot be null");
+        this.interval = Objects.requireNonNull(interval, "Interval cannot be null");
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Interval must be > 0");
+        }
+    }
+
+    /**
+     * Starts refreshing end offsets in the background, the first refresh happens immediately
+     */
+    synchronized void start() {
+        if (this.scheduler != null || this.closed) {
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "KafkaEndOffsetRefresher-" + StringUtils.join(this.topics, ","));
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::refresh, 0, this.interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Refreshes the end offsets for all partitions of our topics
+     * <p>
+     * Failures are logged and otherwise ignored, the cache simply retains the previously refreshed end offsets until the
+     * next successful refresh.
+     * </p>
+     */
+    void refresh() {
+        try {
+            Map<TopicPartition, OffsetSpec> request = new HashMap<>();
+            for (Map.Entry<String, KafkaFuture<TopicDescription>> topic : this.adminClient.describeTopics(this.topics)
+                                                                                         .topicNameValues()
+                                                                                         .entrySet()) {
+                try {
+                    TopicDescription description =
+                            topic.getValue().get(this.interval.toMillis(), TimeUnit.MILLISECONDS);
+                    for (TopicPartitionInfo partition : description.partitions()) {
+                        request.put(new TopicPartition(topic.getKey(), partition.partition()), OffsetSpec.latest());
+                    }
+                } catch (ExecutionException | TimeoutException e) {
+                    // Topic may not exist (yet), we'll try again next time around
+                    LOGGER.debug("Unable to describe Kafka topic {}: {}", topic.getKey(), e.getMessage());
+                }
+            }
+            if (request.isEmpty()) {
+                return;
+            }
+
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> results =
+                    this.adminClient.listOffsets(request).all().get(this.interval.toMillis(), TimeUnit.MILLISECONDS);
+            Map<TopicPartition, Long> endOffsets = new HashMap<>();
+            results.forEach((partition, info) -> endOffsets.put(partition, info.offset()));
+            this.cache.update(endOffsets);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            LOGGER.debug("Failed to refresh end offsets for Kafka topic(s) {}: {}", StringUtils.join(this.topics, ", "),
+                         e.getMessage());
+        }
+    }
+
+    /**
+     * Stops refreshing end offsets
+     */
+    synchronized void close() {
+        this.closed = true;
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            try {
+                this.scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                // Ignored, just trying to give any in-flight refresh time to complete
+            }
+        }
+    }
+}
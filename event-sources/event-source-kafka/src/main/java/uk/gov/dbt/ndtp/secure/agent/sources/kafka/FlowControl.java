@@ -0,0 +1,74 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+/**
+ * Flow control configuration for a {@link KafkaEventSource}
+ *
+ * @param partitionPauseThreshold Number of records buffered for a single partition above which fetching from that
+ *                                partition is paused, zero disables per-partition buffering
+ * @param maxBufferedBytes        Maximum serialized size of records to buffer in memory, zero for no limit
+ */
+record FlowControl(int partitionPauseThreshold, long maxBufferedBytes) {
+
+    /**
+     * Flow control configuration that disables all flow control
+     */
+    static final FlowControl NONE = new FlowControl(0, 0);
+
+    /**
+     * Creates new flow control configuration
+     *
+     * @param partitionPauseThreshold Number of records buffered for a single partition above which fetching from that
+     *                                partition is paused, zero disables per-partition buffering
+     * @param maxBufferedBytes        Maximum serialized size of records to buffer in memory, zero for no limit
+     */
+    FlowControl {
+        if (partitionPauseThreshold < 0) {
+            throw new IllegalArgumentException("Kafka partitionPauseThreshold must be >= 0");
+        }
+        if (maxBufferedBytes < 0) {
+            throw new IllegalArgumentException("Kafka maxBufferedBytes must be >= 0");
+        }
+    }
+
+    /**
+     * Gets whether per-partition buffering is enabled
+     *
+     * @return True if enabled, false otherwise
+     */
+    boolean perPartitionBuffering() {
+        return this.partitionPauseThreshold > 0;
+    }
+
+    /**
+     * Gets whether a byte budget for buffered records is in effect
+     *
+     * @return True if in effect, false otherwise
+     */
+    boolean byteBudget() {
+        return this.maxBufferedBytes > 0;
+    }
+}
@@ -72,13 +72,49 @@ public class KafkaDatasetGraphSource<TKey> extends KafkaEventSource<TKey, Datase
      * @param lagReportInterval    Lag reporting interval
      * @param properties           Kafka Consumer Configuration properties, these may be overridden by explicit
      *                             configuration parameters passed to this constructor
+     * @param prefetchBatches      Number of batches to prefetch, zero disables prefetching
      */
     KafkaDatasetGraphSource(String bootstrapServers, Set<String> topics, String groupId, String keyDeserializerClass,
                             int maxPollRecords, KafkaReadPolicy<TKey, DatasetGraph> policy, boolean autoCommit,
-                            OffsetStore offsetStore, Duration lagReportInterval, Properties properties) {
+                            OffsetStore offsetStore, Duration lagReportInterval, Properties properties,
+                            int prefetchBatches) {
+        this(bootstrapServers, topics, groupId, keyDeserializerClass, maxPollRecords, policy, autoCommit, offsetStore,
+             lagReportInterval, properties, prefetchBatches, null, DEFAULT_ASYNC_COMMIT_MAX_PENDING, FlowControl.NONE,
+             DecodeOptions.defaults());
+    }
+
+    /**
+     * Creates a new event source backed by a Kafka topic
+     *
+     * @param bootstrapServers     Kafka Bootstrap servers
+     * @param topics               Kafka topic(s) to subscribe to
+     * @param groupId              Kafka Consumer Group ID
+     * @param keyDeserializerClass Key Deserializer class
+     * @param maxPollRecords       Maximum events to retrieve and buffer in one Kafka
+     *                             {@link KafkaConsumer#poll(Duration)} request.
+     * @param policy               Kafka read policy to use
+     * @param autoCommit           Whether the event source will automatically commit Kafka positions
+     * @param offsetStore          An external offset store to commit offsets to in addition to committing them to
+     *                             Kafka
+     * @param lagReportInterval    Lag reporting interval
+     * @param properties           Kafka Consumer Configuration properties, these may be overridden by explicit
+     *                             configuration parameters passed to this constructor
+     * @param prefetchBatches      Number of batches to prefetch, zero disables prefetching
+     * @param asyncCommitInterval  Maximum interval between asynchronous offset commits, {@code null} to commit
+     *                             offsets synchronously
+     * @param asyncCommitMaxPending Maximum number of commit requests to merge before committing asynchronously
+     * @param flowControl          Flow control configuration
+     * @param decodeOptions        Decode options
+     */
+    KafkaDatasetGraphSource(String bootstrapServers, Set<String> topics, String groupId, String keyDeserializerClass,
+                            int maxPollRecords, KafkaReadPolicy<TKey, DatasetGraph> policy, boolean autoCommit,
+                            OffsetStore offsetStore, Duration lagReportInterval, Properties properties,
+                            int prefetchBatches, Duration asyncCommitInterval, int asyncCommitMaxPending,
+                            FlowControl flowControl, DecodeOptions<TKey, DatasetGraph> decodeOptions) {
         super(bootstrapServers, topics, groupId, keyDeserializerClass,
               DatasetGraphDeserializer.class.getCanonicalName(), maxPollRecords, policy, autoCommit, offsetStore,
-              lagReportInterval, properties);
+              lagReportInterval, properties, prefetchBatches, asyncCommitInterval, asyncCommitMaxPending, flowControl,
+              decodeOptions);
     }
 
     /**
@@ -101,7 +137,9 @@ public class KafkaDatasetGraphSource<TKey> extends KafkaEventSource<TKey, Datase
             return new KafkaDatasetGraphSource<>(this.bootstrapServers, this.topics, this.groupId,
                                                  this.keyDeserializerClass, this.maxPollRecords, this.readPolicy,
                                                  this.autoCommit, this.externalOffsetStore, this.lagReportInterval,
-                                                 this.properties);
+                                                 this.properties, this.prefetchBatches, this.asyncCommitInterval,
+                                                 this.asyncCommitMaxPending,
+                                                 flowControl(), decodeOptions());
         }
     }
 }
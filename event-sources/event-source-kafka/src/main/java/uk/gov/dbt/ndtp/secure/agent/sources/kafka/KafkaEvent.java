@@ -28,7 +28,9 @@ import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -39,7 +41,8 @@ import uk.gov.dbt.ndtp.secure.agent.sources.kafka.sinks.KafkaSink;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.SetUtils;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.header.internals.RecordHeaders;
 
 /**
@@ -50,6 +53,12 @@ import org.apache.kafka.common.header.internals.RecordHeaders;
  */
 public class KafkaEvent<TKey, TValue> implements Event<TKey, TValue> {
 
+    /**
+     * Topic partition instances, indexed by partition, for each topic events have been read from, so that looking up
+     * an event's topic partition does not allocate.  Each array is replaced, never modified, once published.
+     */
+    private static final Map<String, TopicPartition[]> TOPIC_PARTITIONS = new ConcurrentHashMap<>();
+
     private final ConsumerRecord<TKey, TValue> record;
     private final KafkaEventSource source;
 
@@ -97,10 +106,7 @@ public class KafkaEvent<TKey, TValue> implements Event<TKey, TValue> {
 
     @Override
     public <TNewKey> Event<TNewKey, TValue> replaceKey(TNewKey newKey) {
-        return new KafkaEvent<>(new ConsumerRecord<>(this.record.topic(), this.record.partition(), this.record.offset(),
-                                                     this.record.timestamp(), this.record.timestampType(), -1,
-                                                     this.record.serializedValueSize(), newKey, this.record.value(),
-                                                     this.record.headers(), this.record.leaderEpoch()), this.source);
+        return new KafkaEvent<>(copy(newKey, -1, this.record.headers()), this.source);
     }
 
     @Override
@@ -121,23 +127,38 @@ public class KafkaEvent<TKey, TValue> implements Event<TKey, TValue> {
 
     @Override
     public Event<TKey, TValue> replaceHeaders(Stream<Header> headers) {
-        return new KafkaEvent<>(new ConsumerRecord<>(this.record.topic(), this.record.partition(), this.record.offset(),
-                                                     this.record.timestamp(), this.record.timestampType(),
-                                                     this.record.serializedKeySize(), this.record.serializedValueSize(),
-                                                     this.key(), this.value(),
-                                                     new RecordHeaders(KafkaSink.toKafkaHeaders(headers)),
-                                                     this.record.leaderEpoch()), this.source);
+        return new KafkaEvent<>(copy(this.key(), this.record.serializedKeySize(),
+                                     new RecordHeaders(KafkaSink.toKafkaHeaders(headers))), this.source);
     }
 
     @Override
     public Event<TKey, TValue> addHeaders(Stream<Header> headers) {
         RecordHeaders newHeaders = new RecordHeaders(this.record.headers());
-        headers.forEach(h -> newHeaders.add(new RecordHeader(h.key(), h.value().getBytes(StandardCharsets.UTF_8))));
-        return new KafkaEvent<>(new ConsumerRecord<>(this.record.topic(), this.record.partition(), this.record.offset(),
-                                                     this.record.timestamp(), this.record.timestampType(),
-                                                     this.record.serializedKeySize(), this.record.serializedValueSize(),
-                                                     this.key(), this.value(), newHeaders, this.record.leaderEpoch()),
-                                this.source);
+        headers.forEach(h -> newHeaders.add(KafkaSink.toKafkaHeader(h)));
+        return new KafkaEvent<>(copy(this.key(), this.record.serializedKeySize(), newHeaders), this.source);
+    }
+
+    /**
+     * Copies the underlying record with a different key and/or headers, preserving the value
+     * <p>
+     * If the value is being lazily deserialized, and has not yet been deserialized, then the copy also defers
+     * deserializing it.
+     * </p>
+     *
+     * @param key               Key
+     * @param serializedKeySize Serialized key size
+     * @param headers           Headers
+     * @param <TNewKey>         Key type
+     * @return Copied record
+     */
+    private <TNewKey> ConsumerRecord<TNewKey, TValue> copy(TNewKey key, int serializedKeySize, Headers headers) {
+        if (this.record instanceof LazyConsumerRecord<TKey, TValue> lazy) {
+            return lazy.withKeyAndHeaders(key, serializedKeySize, headers);
+        }
+        return new ConsumerRecord<>(this.record.topic(), this.record.partition(), this.record.offset(),
+                                    this.record.timestamp(), this.record.timestampType(), serializedKeySize,
+                                    this.record.serializedValueSize(), key, this.record.value(), headers,
+                                    this.record.leaderEpoch());
     }
 
     @Override
@@ -158,6 +179,82 @@ public class KafkaEvent<TKey, TValue> implements Event<TKey, TValue> {
         return this.record;
     }
 
+    /**
+     * Gets the topic partition from which an event was read
+     * <p>
+     * This is intended for use as a completion lane function for the projector driver, since Kafka tracks offsets
+     * independently for each topic partition.  Since it may be called for every event the same
+     * {@link TopicPartition} instance is returned for every event from a given topic partition.
+     * </p>
+     *
+     * @param event Event
+     * @return Topic partition, or {@code null} if the event is not a Kafka event
+     */
+    public static TopicPartition topicPartition(Event<?, ?> event) {
+        if (event instanceof KafkaEvent<?, ?> kafkaEvent) {
+            ConsumerRecord<?, ?> record = kafkaEvent.getConsumerRecord();
+            return topicPartition(record.topic(), record.partition());
+        }
+        return null;
+    }
+
+    /**
+     * Gets the shared {@link TopicPartition} instance for the given topic and partition
+     *
+     * @param topic     Topic
+     * @param partition Partition
+     * @return Topic partition
+     */
+    static TopicPartition topicPartition(String topic, int partition) {
+        if (partition < 0) {
+            return new TopicPartition(topic, partition);
+        }
+        TopicPartition[] partitions = TOPIC_PARTITIONS.get(topic);
+        if (partitions != null && partition < partitions.length && partitions[partition] != null) {
+            return partitions[partition];
+        }
+        // Copy on write so readers only ever see fully populated arrays
+        return TOPIC_PARTITIONS.compute(topic, (t, existing) -> {
+            TopicPartition[] updated = existing == null ? new TopicPartition[partition + 1] :
+                                       Arrays.copyOf(existing, Math.max(existing.length, partition + 1));
+            if (updated[partition] == null) {
+                updated[partition] = new TopicPartition(t, partition);
+            }
+            return updated;
+        })[partition];
+    }
+
+    /**
+     * Gets the timestamp of the record from which an event was read
+     * <p>
+     * This is intended for use as a timestamp function for the projector driver's freshness metrics.
+     * </p>
+     *
+     * @param event Event
+     * @return Record timestamp, in milliseconds since the epoch, or {@code null} if the event is not a Kafka event or
+     * its record has no timestamp
+     */
+    public static Long timestamp(Event<?, ?> event) {
+        if (event instanceof KafkaEvent<?, ?> kafkaEvent) {
+            long timestamp = kafkaEvent.getConsumerRecord().timestamp();
+            return timestamp >= 0 ? timestamp : null;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the topic from which an event was read
+     *
+     * @param event Event
+     * @return Topic, or {@code null} if the event is not a Kafka event
+     */
+    public static String topic(Event<?, ?> event) {
+        if (event instanceof KafkaEvent<?, ?> kafkaEvent) {
+            return kafkaEvent.getConsumerRecord().topic();
+        }
+        return null;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null) {
@@ -32,8 +32,11 @@ import io.opentelemetry.api.metrics.ObservableLongGauge;
 import io.opentelemetry.semconv.SemanticAttributes;
 import java.lang.ref.WeakReference;
 import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -41,13 +44,25 @@ import java.util.Objects;
 import java.util.Properties;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.kafka.clients.admin.AdminClient;
 import org.apache.kafka.clients.admin.KafkaAdminClient;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.InvalidOffsetException;
@@ -61,13 +76,18 @@ import org.apache.kafka.common.errors.InterruptException;
 import org.apache.kafka.common.errors.InvalidTopicException;
 import org.apache.kafka.common.errors.RecordDeserializationException;
 import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.utils.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.dbt.ndtp.secure.agent.observability.IANodeMetrics;
 import uk.gov.dbt.ndtp.secure.agent.projectors.utils.PeriodicAction;
 import uk.gov.dbt.ndtp.secure.agent.sources.Event;
 import uk.gov.dbt.ndtp.secure.agent.sources.EventSourceException;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.EndOffsetCache;
 import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.KafkaReadPolicy;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.RebalanceHandler;
 import uk.gov.dbt.ndtp.secure.agent.sources.offsets.OffsetStore;
 
 /**
@@ -90,6 +110,50 @@ public class KafkaEventSource<TKey, TValue>
         return new Builder<>();
     }
 
+    /**
+     * Default number of batches to prefetch when prefetching is enabled
+     */
+    public static final int DEFAULT_PREFETCH_BATCHES = 2;
+
+    /**
+     * Maximum time the prefetch thread spends in a single {@link KafkaConsumer#poll(Duration)} call, this bounds how
+     * long offset commits and other requests wait before being serviced by the prefetch thread
+     */
+    static final Duration PREFETCH_POLL_INTERVAL = Duration.ofMillis(100);
+
+    /**
+     * Default number of records buffered for a single partition above which fetching from that partition is paused,
+     * when per-partition buffering is enabled
+     */
+    public static final int DEFAULT_PARTITION_PAUSE_THRESHOLD = 1_000;
+
+    /**
+     * Maximum amount of data the consumer will fetch for a single partition in one request, this is reduced when a
+     * byte budget is configured and the budget is smaller than this
+     */
+    static final int MAX_PARTITION_FETCH_BYTES = 10 * 1024 * 1024;
+
+    /**
+     * Maximum time spent polling Kafka when records are already buffered for some partitions, and thus we don't want
+     * to wait for new records to be available
+     */
+    static final Duration BUFFERED_POLL_TIMEOUT = Duration.ofMillis(1);
+
+    /**
+     * Default number of threads used to deserialize fetched records when parallel deserialization is enabled
+     */
+    public static final int DEFAULT_DESERIALIZATION_THREADS = 4;
+
+    /**
+     * Default maximum interval between commits when asynchronous commits are enabled
+     */
+    public static final Duration DEFAULT_ASYNC_COMMIT_INTERVAL = Duration.ofSeconds(5);
+
+    /**
+     * Default maximum number of commit requests that are merged before committing when asynchronous commits are enabled
+     */
+    public static final int DEFAULT_ASYNC_COMMIT_MAX_PENDING = 10;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(KafkaEventSource.class);
 
     private final KafkaReadPolicy<TKey, TValue> readPolicy;
@@ -99,18 +163,41 @@ public class KafkaEventSource<TKey, TValue>
     private final int maxPollRecords;
     private boolean firstRun = true;
     private final TopicExistenceChecker topicExistenceChecker;
+    private final EndOffsetCache endOffsetCache = new EndOffsetCache();
+    private final EndOffsetRefresher endOffsetRefresher;
     private final boolean autoCommit;
-    private final Map<TopicPartition, OffsetAndMetadata> autoCommitOffsets = new HashMap<>();
+    private final PartitionOffsets autoCommitOffsets = new PartitionOffsets();
+    // Incremented, while holding the autoCommitOffsets lock, whenever partitions are fenced so that the decoding thread
+    // knows when the floor it has cached for its current partition run may be stale
+    private volatile int fenceGeneration = 0;
+    // State of the run of records from a single partition currently being decoded, only accessed by the thread
+    // decoding records, or while holding the autoCommitOffsets lock on that thread
+    private TopicPartition runPartition = null;
+    private long runFloor = -1;
+    private int runGeneration = -1;
+    private ConsumerRecord<TKey, TValue> runLastAdmitted = null;
+    private volatile boolean transactionalCommits = false;
+    private volatile RebalanceHandler transactionHandler = null;
+    private volatile ConsumerGroupMetadata assignedGroupMetadata = null;
     private final Queue<Map<TopicPartition, OffsetAndMetadata>> delayedOffsetCommits = new ConcurrentLinkedDeque<>();
+    private final CoalescingOffsetCommitter asyncCommitter;
+    private final PartitionBuffers<TKey, TValue> partitionBuffers;
+    private final BufferedBytes bufferedBytes;
     private final OffsetStore externalOffsetStore;
+    private final Predicate<Event<TKey, TValue>> filter;
     private Thread pollThread = null;
     private final PeriodicAction positionLogger, lagWarning;
     private final Attributes metricAttributes;
     private final DoubleHistogram pollTimingMetric;
     private final LongHistogram fetchCountsMetric;
     private final ObservableLongGauge lagMetric;
+    private final ObservableLongGauge bufferedBytesMetric;
+    private final int prefetchBatches;
+    private Prefetcher prefetcher = null;
+    private volatile Runnable prefetchListener = null;
 
     private Long lastObservedLag = null;
+    private volatile int lastFetchCount = 0;
 
     /**
      * Creates a new event source backed by a Kafka topic
@@ -130,12 +217,80 @@ public class KafkaEventSource<TKey, TValue>
      * @param properties             Kafka Consumer Properties, these may be overwritten by explicit configuration
      *                               passed as other parameters
      */
-    @SuppressWarnings("resource")
     KafkaEventSource(final String bootstrapServers, final Set<String> topics, final String groupId,
                      final String keyDeserializerClass,
                      final String valueDeserializerClass, final int maxPollRecords,
                      final KafkaReadPolicy<TKey, TValue> policy, final boolean autoCommit,
                      final OffsetStore offsetStore, final Duration lagReportInterval, final Properties properties) {
+        this(bootstrapServers, topics, groupId, keyDeserializerClass, valueDeserializerClass, maxPollRecords, policy,
+             autoCommit, offsetStore, lagReportInterval, properties, 0);
+    }
+
+    /**
+     * Creates a new event source backed by a Kafka topic
+     *
+     * @param bootstrapServers       Kafka Bootstrap servers
+     * @param topics                 Kafka topic(s) to subscribe to
+     * @param groupId                Kafka Consumer Group ID
+     * @param keyDeserializerClass   Key deserializer class
+     * @param valueDeserializerClass Value deserializer class
+     * @param maxPollRecords         Maximum events to retrieve and buffer in one Kafka
+     *                               {@link KafkaConsumer#poll(Duration)} request.
+     * @param policy                 Kafka Read Policy to control what events to read from the configured topic
+     * @param autoCommit             Whether the event source will automatically commit Kafka positions
+     * @param offsetStore            An external offset store to commit offsets to in addition to committing them to
+     *                               Kafka
+     * @param lagReportInterval      Lag reporting interval
+     * @param properties             Kafka Consumer Properties, these may be overwritten by explicit configuration
+     *                               passed as other parameters
+     * @param prefetchBatches        Number of batches of events to prefetch on a background thread, zero disables
+     *                               prefetching
+     */
+    KafkaEventSource(final String bootstrapServers, final Set<String> topics, final String groupId,
+                     final String keyDeserializerClass,
+                     final String valueDeserializerClass, final int maxPollRecords,
+                     final KafkaReadPolicy<TKey, TValue> policy, final boolean autoCommit,
+                     final OffsetStore offsetStore, final Duration lagReportInterval, final Properties properties,
+                     final int prefetchBatches) {
+        this(bootstrapServers, topics, groupId, keyDeserializerClass, valueDeserializerClass, maxPollRecords, policy,
+             autoCommit, offsetStore, lagReportInterval, properties, prefetchBatches, null,
+             DEFAULT_ASYNC_COMMIT_MAX_PENDING, FlowControl.NONE, DecodeOptions.defaults());
+    }
+
+    /**
+     * Creates a new event source backed by a Kafka topic
+     *
+     * @param bootstrapServers       Kafka Bootstrap servers
+     * @param topics                 Kafka topic(s) to subscribe to
+     * @param groupId                Kafka Consumer Group ID
+     * @param keyDeserializerClass   Key deserializer class
+     * @param valueDeserializerClass Value deserializer class
+     * @param maxPollRecords         Maximum events to retrieve and buffer in one Kafka
+     *                               {@link KafkaConsumer#poll(Duration)} request.
+     * @param policy                 Kafka Read Policy to control what events to read from the configured topic
+     * @param autoCommit             Whether the event source will automatically commit Kafka positions
+     * @param offsetStore            An external offset store to commit offsets to in addition to committing them to
+     *                               Kafka
+     * @param lagReportInterval      Lag reporting interval
+     * @param properties             Kafka Consumer Properties, these may be overwritten by explicit configuration
+     *                               passed as other parameters
+     * @param prefetchBatches        Number of batches of events to prefetch on a background thread, zero disables
+     *                               prefetching
+     * @param asyncCommitInterval    Maximum interval between asynchronous offset commits, {@code null} to commit
+     *                               offsets synchronously
+     * @param asyncCommitMaxPending  Maximum number of commit requests to merge before committing asynchronously,
+     *                               ignored if {@code asyncCommitInterval} is {@code null}
+     * @param flowControl            Flow control configuration
+     * @param decodeOptions          Decode options controlling how fetched records are deserialized and filtered
+     */
+    @SuppressWarnings("resource")
+    KafkaEventSource(final String bootstrapServers, final Set<String> topics, final String groupId,
+                     final String keyDeserializerClass,
+                     final String valueDeserializerClass, final int maxPollRecords,
+                     final KafkaReadPolicy<TKey, TValue> policy, final boolean autoCommit,
+                     final OffsetStore offsetStore, final Duration lagReportInterval, final Properties properties,
+                     final int prefetchBatches, final Duration asyncCommitInterval, final int asyncCommitMaxPending,
+                     final FlowControl flowControl, final DecodeOptions<TKey, TValue> decodeOptions) {
         if (StringUtils.isBlank(bootstrapServers)) {
             throw new IllegalArgumentException("Kafka bootstrapServers cannot be null");
         }
@@ -155,7 +310,21 @@ public class KafkaEventSource<TKey, TValue>
             throw new IllegalArgumentException("Kafka maxPollRecords must be >= 1");
         }
         Objects.requireNonNull(policy, "Kafka readPolicy cannot be null");
+        if (prefetchBatches < 0) {
+            throw new IllegalArgumentException("Kafka prefetchBatches must be >= 0");
+        }
+        Objects.requireNonNull(flowControl, "Kafka flowControl cannot be null");
+        Objects.requireNonNull(decodeOptions, "Kafka decodeOptions cannot be null");
+        if (flowControl.perPartitionBuffering() && prefetchBatches > 0) {
+            throw new IllegalArgumentException("Kafka per-partition buffering cannot be combined with prefetching");
+        }
         // NB - Not validating lagReportInterval because that gets validated by the PeriodicAction constructor
+        this.asyncCommitter = asyncCommitInterval != null ?
+                              new CoalescingOffsetCommitter(asyncCommitInterval, asyncCommitMaxPending) : null;
+        this.bufferedBytes = new BufferedBytes(flowControl.maxBufferedBytes());
+        this.partitionBuffers = flowControl.perPartitionBuffering() ?
+                                new PartitionBuffers<>(flowControl.partitionPauseThreshold(), this.bufferedBytes) :
+                                null;
 
         // Configure our Kafka consumer appropriately
         Properties props = new Properties();
@@ -166,7 +335,19 @@ public class KafkaEventSource<TKey, TValue>
         props.setProperty(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
         props.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Integer.toString(maxPollRecords));
-        props.setProperty(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, Integer.toString(10 * 1024 * 1024));
+        props.setProperty(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, Integer.toString(MAX_PARTITION_FETCH_BYTES));
+        if (flowControl.byteBudget()) {
+            // Lower the amount of data a single fetch may return so a single poll can't blow through our budget, Kafka
+            // still returns a record batch that exceeds these limits if necessary to ensure the consumer makes progress
+            int budget = (int) Math.min(Integer.MAX_VALUE, flowControl.maxBufferedBytes());
+            Object fetchMaxBytes = props.get(ConsumerConfig.FETCH_MAX_BYTES_CONFIG);
+            long configuredFetchMaxBytes = fetchMaxBytes != null ? Long.parseLong(fetchMaxBytes.toString()) :
+                                           ConsumerConfig.DEFAULT_FETCH_MAX_BYTES;
+            props.setProperty(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG,
+                              Integer.toString(Math.min(MAX_PARTITION_FETCH_BYTES, budget)));
+            props.setProperty(ConsumerConfig.FETCH_MAX_BYTES_CONFIG,
+                              Long.toString(Math.min(configuredFetchMaxBytes, budget)));
+        }
         props.setProperty(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, keyDeserializerClass);
         props.setProperty(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, valueDeserializerClass);
         props.setProperty(ConsumerConfig.ALLOW_AUTO_CREATE_TOPICS_CONFIG, "false");
@@ -174,7 +355,8 @@ public class KafkaEventSource<TKey, TValue>
         // Allow the read policy to further configure the consumer configuration as needed
         policy.prepareConsumerConfiguration(props);
 
-        Consumer<TKey, TValue> consumer = createConsumer(props);
+        Consumer<TKey, TValue> consumer = decodeOptions.fetchRaw() ?
+                                          createDeserializingConsumer(props, decodeOptions) : createConsumer(props);
         this.consumer = consumer;
         this.server = bootstrapServers;
         this.consumerGroup = groupId;
@@ -184,7 +366,25 @@ public class KafkaEventSource<TKey, TValue>
         this.maxPollRecords = maxPollRecords;
         this.autoCommit = autoCommit;
         this.externalOffsetStore = offsetStore;
-        this.topicExistenceChecker = new TopicExistenceChecker(createAdminClient(props), this.server, this.topics, LOGGER);
+        this.prefetchBatches = prefetchBatches;
+        this.filter = decodeOptions.filter();
+        this.readPolicy.setRebalanceHandler(new RebalanceHandler() {
+            @Override
+            public void beforeRevocation(Collection<TopicPartition> partitions) {
+                partitionsRevoked(partitions);
+            }
+
+            @Override
+            public void afterAssignment(Collection<TopicPartition> partitions) {
+                partitionsAssigned(partitions);
+            }
+        });
+        // Topic metadata, and thus the admin client used to obtain it, is shared with other sources using the same
+        // Kafka cluster, unless a derived class controls how its admin client is created
+        TopicMetadataCache topicMetadata =
+                overridesCreateAdminClient(getClass()) ? TopicMetadataCache.create(createAdminClient(props)) :
+                TopicMetadataCache.acquire(props, () -> createAdminClient(props));
+        this.topicExistenceChecker = new TopicExistenceChecker(topicMetadata, this.server, this.topics, LOGGER);
 
         // Prepare metrics, for Messaging systems there are a bunch of predefined attributes we reuse
         this.metricAttributes = Attributes.of(SemanticAttributes.MESSAGING_KAFKA_CONSUMER_GROUP, groupId,
@@ -209,6 +409,13 @@ public class KafkaEventSource<TKey, TValue>
                                       measure.record(this.lastObservedLag, this.metricAttributes);
                                   }
                               });
+        this.bufferedBytesMetric = meter.gaugeBuilder(KafkaMetricNames.BUFFERED_BYTES)
+                                        .setDescription(KafkaMetricNames.BUFFERED_BYTES_DESCRIPTION)
+                                        .setUnit("bytes")
+                                        .ofLongs()
+                                        .buildWithCallback(
+                                                measure -> measure.record(this.bufferedBytes.bufferedBytes(),
+                                                                          this.metricAttributes));
 
         // Prepare our periodic actions
         // We use one to log our current read positions, and thus lag, intermittently
@@ -222,18 +429,48 @@ public class KafkaEventSource<TKey, TValue>
             if (lag != null && lag < maxPollRecords && lag > 0) {
                 LOGGER.warn(
                         "Only able to buffer {} new events when configured to buffer a max of {} events.  Application performance is being reduced by a slower upstream producer writing to {}",
-                        events.size(), maxPollRecords, topic);
+                        this.lastFetchCount, maxPollRecords, topic);
                 return true;
             }
             return false;
         }).anyMatch(result -> result), lagReportInterval);
+
+        // Lag is estimated from the consumers own fetch metadata, falling back to end offsets that we refresh in the
+        // background as often as we report lag, so that calculating lag never blocks the consumer thread
+        this.endOffsetRefresher = topicMetadata != null ?
+                                  new EndOffsetRefresher(topicMetadata.adminClient(), this.topics,
+                                                         this.endOffsetCache, lagReportInterval) : null;
+        this.readPolicy.setEndOffsetCache(this.endOffsetCache);
+    }
+
+    /**
+     * Gets whether the given event source class overrides {@link #createAdminClient(Properties)}
+     *
+     * @param cls Event source class
+     * @return True if overridden, false otherwise
+     */
+    static boolean overridesCreateAdminClient(Class<?> cls) {
+        for (Class<?> current = cls; current != null && current != KafkaEventSource.class;
+             current = current.getSuperclass()) {
+            try {
+                current.getDeclaredMethod("createAdminClient", Properties.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // Not overridden at this level, check the super class
+            }
+        }
+        return false;
     }
 
     /**
-     * Creates the actual Kafka Admin Client used for the topic existence check
+     * Creates the actual Kafka Admin Client used for the topic existence check, and background end offset refreshes
      * <p>
-     * An implementation may choose to return {@code null} in which case the topic existence check is disabled for this
-     * event source.
+     * When this method is not overridden the admin client is only created if there isn't already a shared
+     * {@link TopicMetadataCache} for the Kafka cluster this source is configured to use, in which case the created
+     * admin client is shared with other sources using the same cluster.  When a derived class overrides this method
+     * it is always called, and the admin client it returns is used only by this source.  An implementation may choose
+     * to return {@code null} in which case the topic existence check, and background end offset refreshes, are
+     * disabled for this event source.
      * </p>
      *
      * @param props Client configuration
@@ -257,48 +494,144 @@ public class KafkaEventSource<TKey, TValue>
         return new KafkaConsumer<>(props);
     }
 
+    /**
+     * Creates the actual Kafka consumer used to fetch raw records when parallel, or lazy, deserialization is enabled
+     * <p>
+     * This primarily exists for test purposes where it is useful to be able to introduce a
+     * {@link MockConsumer}
+     * </p>
+     *
+     * @param props Consumer configuration, configured with byte array deserializers
+     * @return Kafka consumer
+     */
+    protected Consumer<byte[], byte[]> createRawConsumer(Properties props) {
+        return new KafkaConsumer<>(props);
+    }
+
+    /**
+     * Creates a consumer that fetches raw records and deserializes them itself using the configured deserializers
+     *
+     * @param props         Consumer configuration
+     * @param decodeOptions Decode options
+     * @return Deserializing consumer
+     */
+    private Consumer<TKey, TValue> createDeserializingConsumer(Properties props,
+                                                               DecodeOptions<TKey, TValue> decodeOptions) {
+        // The deserializers are instantiated and configured the same way the KafkaConsumer would, but one per thread
+        Map<String, Object> configs = Utils.propsToMap(props);
+        Supplier<Deserializer<TKey>> keyDeserializers = () -> createDeserializer(configs, true);
+        Supplier<Deserializer<TValue>> valueDeserializers = () -> createDeserializer(configs, false);
+
+        Properties rawProps = new Properties();
+        rawProps.putAll(props);
+        rawProps.setProperty(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG,
+                             ByteArrayDeserializer.class.getCanonicalName());
+        rawProps.setProperty(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
+                             ByteArrayDeserializer.class.getCanonicalName());
+        return new DeserializingConsumer<>(createRawConsumer(rawProps), keyDeserializers, valueDeserializers,
+                                           decodeOptions.deserializationThreads(), decodeOptions.lazyValues());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Deserializer<T> createDeserializer(Map<String, Object> configs, boolean isKey) {
+        String className = (String) configs.get(isKey ? ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG :
+                                                ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG);
+        try {
+            Deserializer<T> deserializer = Utils.newInstance(className, Deserializer.class);
+            deserializer.configure(configs, isKey);
+            return deserializer;
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Kafka deserializer class " + className + " not found", e);
+        }
+    }
+
     @Override
     public void close() {
         if (!this.closed) {
-            if (this.autoCommit) {
-                // Make sure that we have committed our offsets.  When using Kafka's offset management functionality
-                // this will let us resume processing from the correct offset the next time we are run.
-                if (this.events.isEmpty()) {
-                    // If there's no buffered events we've consumed everything from our last poll() so can use Kafka's
-                    // no argument commitSync() method to just commit offsets based on our last poll() results
-                    this.consumer.commitSync();
-                } else {
-                    // Since we have some events buffered we cannot do a simple commitSync() since that would commit as
-                    // if we had processed all the buffered events, which we have not!
-                    // Instead, we need to do an explicit commit of the next offset(s) we were yet to process, we
-                    // automatically track these as the caller polls events from us, so we already know the offsets to
-                    // be committed.
-                    // Only gotcha here is have to remove any partitions that are no longer assigned to us as otherwise
-                    // the commit will fail.
-                    performOffsetCommits(this.autoCommitOffsets);
-                }
+            if (this.prefetcher != null) {
+                // The prefetch thread owns the consumer so it has to be the one to close it
+                this.prefetcher.stop(this::closeConsumer);
+            } else {
+                closeConsumer();
             }
+            this.bufferedBytes.reset();
+            this.bufferedBytesMetric.close();
+        }
+        super.close();
+    }
 
-            // If there were any unprocessed delayed commits (because something called processed() from a background
-            // thread) then commit those now
+    /**
+     * Closes the underlying Kafka consumer, committing offsets first as appropriate
+     */
+    private void closeConsumer() {
+        if (this.prefetcher != null) {
+            // When prefetching any delayed commits may include earlier auto-commit offsets so must apply those first
+            // to avoid them overwriting the final offsets we are about to commit
             processDelayedCommits();
+        }
+
+        if (this.autoCommit) {
+            trackAdmittedOffsets();
+
+            // Make sure that we have committed our offsets.  When using Kafka's offset management functionality
+            // this will let us resume processing from the correct offset the next time we are run.
+            if (this.asyncCommitter != null) {
+                // When committing asynchronously just merge our final offsets with any pending offsets, these are all
+                // committed synchronously below
+                synchronized (this.autoCommitOffsets) {
+                    if (!this.autoCommitOffsets.isEmpty()) {
+                        this.asyncCommitter.add(this.autoCommitOffsets.toCommitMap());
+                    }
+                }
+            } else if (this.prefetcher == null && this.events.isEmpty() && !hasPendingEvents()) {
+                // If there's no buffered events we've consumed everything from our last poll() so can use Kafka's
+                // no argument commitSync() method to just commit offsets based on our last poll() results
+                this.consumer.commitSync();
+            } else {
+                // Since we have some events buffered, or have prefetched events beyond those returned to our caller, we
+                // cannot do a simple commitSync() since that would commit as if we had processed all the buffered
+                // events, which we have not!
+                // Instead, we need to do an explicit commit of the next offset(s) we were yet to process, we
+                // automatically track these as the caller polls events from us, so we already know the offsets to
+                // be committed.
+                // Only gotcha here is have to remove any partitions that are no longer assigned to us as otherwise
+                // the commit will fail.
+                Map<TopicPartition, OffsetAndMetadata> offsets;
+                synchronized (this.autoCommitOffsets) {
+                    offsets = this.autoCommitOffsets.toCommitMap();
+                }
+                if (this.prefetcher == null || !offsets.isEmpty()) {
+                    performOffsetCommits(offsets);
+                }
+            }
+        }
+
+        // If there were any unprocessed delayed commits (because something called processed() from a background
+        // thread) then commit those now
+        processDelayedCommits();
 
-            // If using an external offset store update and close it now
-            closeExternalOffsetStore();
+        // If committing asynchronously we must synchronously commit any offsets still pending
+        commitPendingOffsets();
 
-            // Stop events ONLY once we've done our commits (if any), otherwise attempting to do our commit operations
-            // might actually result in us not committing anything as once events have been stopped the consumer doesn't
-            // consider itself subscribed to anything and so may not commit any offsets!
-            this.topics.forEach(topic -> this.readPolicy.stopEvents(topic));
+        // If using an external offset store update and close it now
+        closeExternalOffsetStore();
 
-            // Close our topic existence checker as if we've been configured with non-existent topics we could have
-            // in-flight checks that need terminating
-            this.topicExistenceChecker.close();
+        // Stop events ONLY once we've done our commits (if any), otherwise attempting to do our commit operations
+        // might actually result in us not committing anything as once events have been stopped the consumer doesn't
+        // consider itself subscribed to anything and so may not commit any offsets!
+        this.topics.forEach(topic -> this.readPolicy.stopEvents(topic));
 
-            // Close the underlying Kafka classes to release their network resources
-            this.consumer.close();
+        // Stop refreshing end offsets before the topic existence checker releases the admin client we share with it
+        if (this.endOffsetRefresher != null) {
+            this.endOffsetRefresher.close();
         }
-        super.close();
+
+        // Close our topic existence checker as if we've been configured with non-existent topics we could have
+        // in-flight checks that need terminating
+        this.topicExistenceChecker.close();
+
+        // Close the underlying Kafka classes to release their network resources
+        this.consumer.close();
     }
 
     /**
@@ -307,7 +640,11 @@ public class KafkaEventSource<TKey, TValue>
     private void closeExternalOffsetStore() {
         if (this.externalOffsetStore != null) {
             try {
-                this.performExternalOffsetStoreCommits(this.autoCommitOffsets);
+                Map<TopicPartition, OffsetAndMetadata> offsets;
+                synchronized (this.autoCommitOffsets) {
+                    offsets = this.autoCommitOffsets.toCommitMap();
+                }
+                this.performExternalOffsetStoreCommits(offsets);
                 this.externalOffsetStore.close();
             } catch (Throwable e) {
                 LOGGER.warn("Failed to close external offset store {}: {}",
@@ -321,8 +658,15 @@ public class KafkaEventSource<TKey, TValue>
      * calling {@link #poll(Duration)} and thus effectively owns the underlying {@link KafkaConsumer}.  This is
      * necessary because a {@link KafkaConsumer} isn't thread-safe as demonstrated by <a
      * href="https://github.com/National-Digital-Twin/secure-agents-lib/issues/135">Issue 135</a>
+     * <p>
+     * When prefetching is enabled this only does anything when called from the prefetch thread since that is the thread
+     * that owns the {@link KafkaConsumer}.
+     * </p>
      */
     private void processDelayedCommits() {
+        if (this.prefetcher != null && !this.prefetcher.isPrefetchThread()) {
+            return;
+        }
         if (!this.delayedOffsetCommits.isEmpty()) {
             Map<TopicPartition, OffsetAndMetadata> delayedCommits = this.delayedOffsetCommits.poll();
             while (delayedCommits != null) {
@@ -347,28 +691,341 @@ public class KafkaEventSource<TKey, TValue>
         if (internalEvent == null) {
             return null;
         }
+        this.bufferedBytes.release(internalEvent);
+
+        if (!admit(internalEvent)) {
+            return null;
+        }
+
+        KafkaEvent<TKey, TValue> event = new KafkaEvent<>(internalEvent, this);
+        return accept(event) ? event : null;
+    }
+
+    @Override
+    protected void decodeEvents(int count, List<Event<TKey, TValue>> batch) {
+        processDelayedCommits();
+
+        long bytes = 0;
+        for (int i = 0; i < count; i++) {
+            ConsumerRecord<TKey, TValue> record = this.events.poll();
+            bytes += BufferedBytes.sizeOf(record);
+            if (!admit(record)) {
+                continue;
+            }
+            KafkaEvent<TKey, TValue> event = new KafkaEvent<>(record, this);
+            if (accept(event)) {
+                batch.add(event);
+            }
+        }
 
+        // Track the offsets for the batch now so that they are committed if our partitions are revoked before the next
+        // time our buffer is exhausted
+        trackAdmittedOffsets();
+        this.bufferedBytes.release(bytes);
+    }
+
+    /**
+     * Applies the configured filter, if any, to an event
+     * <p>
+     * Events that are rejected are skipped, however their offsets are still tracked for auto-commit purposes so that
+     * the consumer group makes progress past them.
+     * </p>
+     *
+     * @param event Event
+     * @return True if the event should be returned to the caller, false if it should be skipped
+     */
+    private boolean accept(KafkaEvent<TKey, TValue> event) {
+        return this.filter == null || this.filter.test(event);
+    }
+
+    /**
+     * Determines whether a record should be returned to our caller, and if so and we're auto-committing remembers it as
+     * the last record admitted for the current partition run
+     * <p>
+     * Records that were read during a previous assignment of their partition, i.e. prior to the partition being
+     * revoked, are discarded since either another consumer now owns the partition, or we have been reassigned the
+     * partition and will read it again from the position we were reassigned at.
+     * </p>
+     * <p>
+     * Records from a poll are grouped by partition, so rather than taking the {@link #autoCommitOffsets} lock for every
+     * record the partition's fence is only looked up when we move onto a different partition, or partitions have since
+     * been fenced, and the offset of the last record admitted from the run is only tracked at that point, or when
+     * {@link #trackAdmittedOffsets()} is called.
+     * </p>
+     *
+     * @param record Record that has been read
+     * @return True if the record should be returned, false if it should be discarded
+     */
+    private boolean admit(ConsumerRecord<TKey, TValue> record) {
+        TopicPartition partition = this.runPartition;
+        if (partition == null || partition.partition() != record.partition()
+                || !partition.topic().equals(record.topic()) || this.runGeneration != this.fenceGeneration) {
+            startPartitionRun(record);
+        }
+        if (record.offset() < this.runFloor) {
+            return false;
+        }
         if (this.autoCommit) {
-            // If we're auto-committing track the next event we would read for each partition so that we can
-            // periodically commit our offsets
+            this.runLastAdmitted = record;
+        }
+        return true;
+    }
+
+    /**
+     * Starts a new run of records from a single partition, tracking the offset of the last record admitted from the
+     * previous run and looking up the fence for the new run's partition
+     *
+     * @param record First record of the run
+     */
+    private void startPartitionRun(ConsumerRecord<TKey, TValue> record) {
+        synchronized (this.autoCommitOffsets) {
+            trackAdmittedOffset();
+            this.runPartition = KafkaEvent.topicPartition(record.topic(), record.partition());
+            this.runFloor = this.autoCommitOffsets.floor(record.topic(), record.partition());
+            this.runGeneration = this.fenceGeneration;
+        }
+    }
+
+    /**
+     * If we're auto-committing tracks the next event we would read for the current partition run so that we can
+     * periodically commit our offsets
+     */
+    private void trackAdmittedOffsets() {
+        if (this.runLastAdmitted != null) {
+            synchronized (this.autoCommitOffsets) {
+                trackAdmittedOffset();
+            }
+        }
+    }
+
+    /**
+     * Tracks the next event we would read for the current partition run, <strong>MUST</strong> only be called while
+     * holding the {@link #autoCommitOffsets} lock
+     * <p>
+     * If partitions have been fenced since the run started the offset is discarded, rather than tracked, since the
+     * record may have been read during a previous assignment of its partition.
+     * </p>
+     */
+    private void trackAdmittedOffset() {
+        ConsumerRecord<TKey, TValue> record = this.runLastAdmitted;
+        if (record == null) {
+            return;
+        }
+        this.runLastAdmitted = null;
+        if (this.runGeneration == this.fenceGeneration) {
             // Remember Kafka wants us to commit the next offset to be read so have to add 1 to the offset of the record
-            // we're currently reading
-            this.autoCommitOffsets.put(new TopicPartition(internalEvent.topic(), internalEvent.partition()),
-                                       new OffsetAndMetadata(internalEvent.offset() + 1));
+            // we last admitted.  The actual commit objects are only created if and when we commit.
+            this.autoCommitOffsets.track(record.topic(), record.partition(), record.offset() + 1);
+        }
+    }
+
+    /**
+     * Called, on the consumer thread, before partitions are revoked from our consumer
+     * <p>
+     * The current transaction of any transactional sink, and any delayed, or pending asynchronous, offset commits are
+     * committed while we still own the partitions, otherwise whichever consumer is assigned them next would re-read
+     * events we have already processed.  When committing asynchronously the auto-commit offsets we've tracked for the
+     * revoked partitions are added to the pending offsets first, so they are included in that synchronous commit.  Only
+     * then are the partitions fenced, forgetting the auto-commit offsets we've tracked for them, so that any records
+     * still buffered for them are discarded, since if we later committed their offsets, e.g. after the partitions were
+     * assigned back to us, they could be behind the offsets another consumer has since committed.
+     * </p>
+     * <p>
+     * When prefetching, the thread decoding records may not yet have tracked the offsets of the events it has most
+     * recently returned from a revoked partition, see {@link #admit(ConsumerRecord)}, in which case those events may be
+     * re-read by whichever consumer is assigned the partition next.
+     * </p>
+     *
+     * @param partitions Partitions being revoked
+     */
+    private void partitionsRevoked(Collection<TopicPartition> partitions) {
+        RebalanceHandler handler = this.transactionHandler;
+        if (handler != null) {
+            try {
+                handler.beforeRevocation(partitions);
+            } catch (Throwable e) {
+                LOGGER.warn("Failed to commit transaction prior to partitions being revoked: {}", e.getMessage());
+            }
+        }
+
+        synchronized (this.autoCommitOffsets) {
+            if (this.prefetcher == null) {
+                // Without prefetching we're on the thread decoding records so can track the offsets it has admitted
+                trackAdmittedOffset();
+            }
+            processDelayedCommits();
+            if (this.autoCommit && this.asyncCommitter != null) {
+                // Hand the offsets we've tracked for the revoked partitions to the committer before they are forgotten
+                Map<TopicPartition, OffsetAndMetadata> offsets = this.autoCommitOffsets.toCommitMap();
+                offsets.keySet().retainAll(partitions);
+                if (!offsets.isEmpty()) {
+                    this.asyncCommitter.add(offsets);
+                }
+            }
+            commitPendingOffsets();
+            partitions.forEach(p -> this.autoCommitOffsets.fence(p, Long.MAX_VALUE));
+            this.fenceGeneration++;
+        }
+    }
+
+    /**
+     * Called, on the consumer thread, after partitions are assigned to our consumer
+     * <p>
+     * We may still have records buffered, or offset commits pending, that were read from these partitions during a
+     * previous assignment.  Since another consumer may have moved the partitions on in the meantime we fence the
+     * partitions at our new read positions, discarding any buffered records before them, and discard any pending
+     * offsets for the partitions, so that we never commit an offset that is behind where we are now reading from.
+     * </p>
+     *
+     * @param partitions Partitions assigned
+     */
+    private void partitionsAssigned(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, Long> positions = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            try {
+                positions.put(partition, this.consumer.position(partition));
+            } catch (Throwable e) {
+                LOGGER.debug("Unable to determine position for newly assigned partition {}: {}", partition,
+                             e.getMessage());
+            }
+        }
+
+        synchronized (this.autoCommitOffsets) {
+            this.autoCommitOffsets.remove(partitions);
+            positions.forEach(this.autoCommitOffsets::fence);
+            this.fenceGeneration++;
+            this.delayedOffsetCommits.forEach(offsets -> offsets.keySet().removeAll(partitions));
+        }
+        if (this.asyncCommitter != null) {
+            this.asyncCommitter.forget(partitions);
         }
 
-        return new KafkaEvent<>(internalEvent, this);
+        if (this.transactionalCommits) {
+            this.assignedGroupMetadata = this.consumer.groupMetadata();
+            RebalanceHandler handler = this.transactionHandler;
+            if (handler != null) {
+                handler.afterAssignment(partitions);
+            }
+        }
     }
 
     @Override
     public Long remaining() {
-        List<Long> onTopicRemaining = this.topics.stream().map(topic -> this.readPolicy.currentLag(topic)).toList();
-        if (onTopicRemaining.stream().allMatch(lag -> lag == null)) {
-            // No topics reported their remaining total so can't report right now
+        // Calculating lag requires interrogating the consumer so must happen on the thread that owns the consumer
+        Long actualRemaining = onConsumerThread(() -> {
+            List<Long> onTopicRemaining = this.topics.stream().map(topic -> this.readPolicy.currentLag(topic)).toList();
+            if (onTopicRemaining.stream().allMatch(lag -> lag == null)) {
+                // No topics reported their remaining total so can't report right now
+                return null;
+            }
+            Long lag = onTopicRemaining.stream().filter(l -> l != null).reduce(0L, (a, b) -> a + b);
+
+            // If prefetching the consumer position is ahead of the events we've returned to our caller so also need
+            // to account for any prefetched events
+            return this.prefetcher != null ? lag + this.prefetcher.prefetchedCount() : lag;
+        });
+        if (actualRemaining == null) {
             return null;
         }
-        Long actualRemaining = onTopicRemaining.stream().filter(lag -> lag != null).reduce(0L, (a, b) -> a + b);
-        return actualRemaining + events.size();
+        return actualRemaining + events.size() + (this.partitionBuffers != null ? this.partitionBuffers.size() : 0);
+    }
+
+    /**
+     * Runs an action on the thread that owns the {@link KafkaConsumer}, waiting for it to complete
+     * <p>
+     * If prefetching is not enabled, or the prefetch thread is no longer running, then the action is just run on the
+     * calling thread.
+     * </p>
+     *
+     * @param action Action
+     * @param <T>    Result type
+     * @return Result of the action
+     */
+    private <T> T onConsumerThread(Supplier<T> action) {
+        Prefetcher current = this.prefetcher;
+        if (current == null || current.isPrefetchThread()) {
+            return action.get();
+        }
+        return current.call(action);
+    }
+
+    /**
+     * Gets the consumer group metadata of the underlying Kafka consumer
+     * <p>
+     * A transactional {@link uk.gov.dbt.ndtp.secure.agent.sources.kafka.sinks.KafkaSink} passes this to
+     * {@link org.apache.kafka.clients.producer.Producer#sendOffsetsToTransaction(Map, ConsumerGroupMetadata)} so that
+     * the offsets of the events it has written are committed atomically with the written events.
+     * </p>
+     *
+     * @return Consumer group metadata
+     */
+    public ConsumerGroupMetadata groupMetadata() {
+        // With a subscription based read policy the metadata only changes when partitions are assigned, so we capture
+        // it at that point.  This avoids a transactional sink committing on another thread from having to wait on the
+        // consumer thread, which may itself be waiting on the sink to commit its transaction prior to a revocation.
+        ConsumerGroupMetadata assigned = this.assignedGroupMetadata;
+        if (assigned != null) {
+            return assigned;
+        }
+        return onConsumerThread(this.consumer::groupMetadata);
+    }
+
+    /**
+     * Hands responsibility for committing offsets over to the producer transactions of a transactional
+     * {@link uk.gov.dbt.ndtp.secure.agent.sources.kafka.sinks.KafkaSink}
+     * <p>
+     * Once enabled {@link #processed(Collection)} no longer commits offsets, neither to Kafka nor any external
+     * {@link OffsetStore}, since the sink commits them as part of each transaction.  This is only permitted when
+     * auto-commit is disabled, otherwise offsets would be committed for events whose outputs were not yet committed.
+     * </p>
+     * <p>
+     * The given handler is notified, on the consumer thread, before partitions are revoked from this source's consumer
+     * so that the sink can commit its current transaction while the consumer still owns those partitions.  Otherwise
+     * the transaction would commit offsets for partitions that another member of the consumer group may now own.
+     * </p>
+     *
+     * @param handler Handler notified of partitions being revoked, and assigned, may be {@code null}
+     * @throws IllegalStateException Thrown if this source was created with auto-commit enabled
+     */
+    public void enableTransactionalCommits(RebalanceHandler handler) {
+        if (this.autoCommit) {
+            throw new IllegalStateException(
+                    "Transactional commits require a Kafka event source with auto-commit disabled");
+        }
+        this.transactionHandler = handler;
+        this.transactionalCommits = true;
+    }
+
+    /**
+     * Sets a listener that is notified from the prefetch thread whenever a batch of records is prefetched, or the
+     * prefetch thread encounters an error
+     * <p>
+     * This allows a caller that is polling multiple sources to wait for any of them to have events available, rather
+     * than having to poll each in turn.  The listener <strong>MUST</strong> be cheap and non-blocking.
+     * </p>
+     *
+     * @param listener Listener
+     */
+    void setPrefetchListener(Runnable listener) {
+        this.prefetchListener = listener;
+    }
+
+    /**
+     * Gets whether the prefetch thread has encountered an error that the next {@link #poll(Duration)} will report
+     *
+     * @return True if a prefetch error is pending, false otherwise
+     */
+    boolean hasPrefetchFailure() {
+        Prefetcher current = this.prefetcher;
+        return current != null && current.failure != null;
+    }
+
+    @Override
+    protected boolean hasPendingEvents() {
+        if (this.partitionBuffers != null) {
+            return !this.partitionBuffers.isEmpty();
+        }
+        return this.prefetcher != null && this.prefetcher.hasPrefetched();
     }
 
     /**
@@ -393,6 +1050,11 @@ public class KafkaEventSource<TKey, TValue>
      */
     @Override
     public void processed(Collection<Event> processedEvents) {
+        if (this.transactionalCommits) {
+            // Offsets are committed as part of the producer transactions of a transactional sink instead
+            return;
+        }
+
         // Compute the maximum processed offset for each topic partitions
         Map<TopicPartition, OffsetAndMetadata> commitOffsets = determineCommitOffsetsFromEvents(processedEvents);
 
@@ -404,10 +1066,39 @@ public class KafkaEventSource<TKey, TValue>
         }
     }
 
+    /**
+     * Gets the topic partition of the event, since Kafka tracks offsets independently for each topic partition
+     *
+     * @param event Event
+     * @return Topic partition, or {@code null} if not a Kafka event
+     */
+    @Override
+    public Object completionLane(Event<TKey, TValue> event) {
+        return KafkaEvent.topicPartition(event);
+    }
+
+    /**
+     * Gets whether this source was created with auto-commit enabled, in which case the offsets of events are committed
+     * once a subsequent poll is made, regardless of whether they have been processed
+     *
+     * @return True if auto-committing, false otherwise
+     */
+    @Override
+    public boolean isAutoCommitting() {
+        return this.autoCommit;
+    }
+
     private void performOffsetCommits(Map<TopicPartition, OffsetAndMetadata> commitOffsets) {
         // If we've been configured with an external offset store commit there first
         performExternalOffsetStoreCommits(commitOffsets);
 
+        // If committing asynchronously merge with any other pending commits, these are committed once due
+        if (this.asyncCommitter != null) {
+            this.asyncCommitter.add(commitOffsets);
+            this.asyncCommitter.commitIfDue(this.consumer);
+            return;
+        }
+
         // If we are no longer assigned a given partition we aren't permitted to commit an offset for it
         commitOffsets.entrySet().removeIf(e -> !this.consumer.assignment().contains(e.getKey()));
         if (!commitOffsets.isEmpty()) {
@@ -417,6 +1108,19 @@ public class KafkaEventSource<TKey, TValue>
         }
     }
 
+    /**
+     * Synchronously commits any offsets that are pending an asynchronous commit
+     * <p>
+     * This is called when the source is closed, and before partitions are revoked, so that pending offsets are
+     * committed while we still own the relevant partitions.
+     * </p>
+     */
+    private void commitPendingOffsets() {
+        if (this.asyncCommitter != null) {
+            this.asyncCommitter.commitSync(this.consumer);
+        }
+    }
+
     private void performExternalOffsetStoreCommits(Map<TopicPartition, OffsetAndMetadata> commitOffsets) {
         if (this.externalOffsetStore == null) {
             return;
@@ -461,12 +1165,7 @@ public class KafkaEventSource<TKey, TValue>
             Collection<ConsumerRecord> records) {
         Map<TopicPartition, Long> offsets = new HashMap<>();
         for (ConsumerRecord record : records) {
-            TopicPartition topicPartition = new TopicPartition(record.topic(), record.partition());
-            if (offsets.containsKey(topicPartition)) {
-                offsets.computeIfPresent(topicPartition, (k, v) -> Math.max(v, record.offset()));
-            } else {
-                offsets.put(topicPartition, record.offset());
-            }
+            offsets.merge(KafkaEvent.topicPartition(record.topic(), record.partition()), record.offset(), Math::max);
         }
 
         // Convert into actual offsets to commit to Kafka
@@ -486,8 +1185,38 @@ public class KafkaEventSource<TKey, TValue>
             // Don't do this on the first run since we won't have called KafkaConsumer.poll() yet so there's nothing to
             // commit
             if (this.autoCommit) {
-                this.consumer.commitSync();
+                trackAdmittedOffsets();
+                if (this.prefetcher != null) {
+                    // When prefetching the consumer position is ahead of the events we've returned to our caller so
+                    // must explicitly commit just the offsets we've returned, and have the prefetch thread do the
+                    // actual commit
+                    synchronized (this.autoCommitOffsets) {
+                        if (!this.autoCommitOffsets.isEmpty()) {
+                            this.delayedOffsetCommits.add(this.autoCommitOffsets.toCommitMap());
+                        }
+                    }
+                } else if (this.asyncCommitter != null || this.partitionBuffers != null) {
+                    // When using per-partition buffers the consumer position may be ahead of the events we've returned
+                    // to our caller so must explicitly commit just the offsets we've returned, otherwise these are the
+                    // same as our consumer position
+                    Map<TopicPartition, OffsetAndMetadata> offsets;
+                    synchronized (this.autoCommitOffsets) {
+                        offsets = this.autoCommitOffsets.toCommitMap();
+                    }
+                    if (!offsets.isEmpty()) {
+                        performOffsetCommits(offsets);
+                    }
+                } else {
+                    this.consumer.commitSync();
+                }
             }
+        } else if (this.prefetchBatches > 0) {
+            // When prefetching a dedicated thread owns the consumer, and thus is the only thread able to commit
+            // offsets, it is also responsible for connecting the consumer to Kafka
+            this.prefetcher = new Prefetcher(this.prefetchBatches);
+            this.pollThread = this.prefetcher.thread;
+            this.prefetcher.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(new Interrupter(this.consumer)));
         } else {
             // This is the point where the consumer is actually connected to Kafka.  It is intentionally delayed to the
             // first time the user calls poll() (and thus calls into this method)
@@ -502,58 +1231,125 @@ public class KafkaEventSource<TKey, TValue>
             // callers provided timeout
             Runtime.getRuntime().addShutdownHook(new Thread(new Interrupter(this.consumer)));
         }
+        if (this.firstRun && this.endOffsetRefresher != null) {
+            this.endOffsetRefresher.start();
+        }
         this.firstRun = false;
     }
 
     @Override
     protected void tryFillBuffer(Duration timeout) {
+        if (this.prefetcher != null) {
+            // Prefetch thread is responsible for actually polling Kafka so just take whatever it has prefetched
+            this.prefetcher.takeInto(this.events, timeout);
+            return;
+        }
+
+        if (this.partitionBuffers != null) {
+            fillFromPartitionBuffers(timeout);
+            return;
+        }
+
         // Buffer up some more events
-        ConsumerRecords<TKey, TValue> records;
+        ConsumerRecords<TKey, TValue> records = pollKafka(timeout);
+        for (ConsumerRecord<TKey, TValue> record : records) {
+            events.add(record);
+        }
+        this.bufferedBytes.add(records);
+        recordFetch(records.count());
+    }
+
+    /**
+     * Gets the serialized size of the records currently buffered by this source, i.e. fetched from Kafka but not yet
+     * returned to the caller
+     *
+     * @return Buffered bytes
+     */
+    long bufferedBytes() {
+        return this.bufferedBytes.bufferedBytes();
+    }
+
+    /**
+     * Refills the buffer from the per-partition buffers, interleaving records from each partition, polling Kafka first
+     * to top up the per-partition buffers
+     *
+     * @param timeout Timeout
+     */
+    private void fillFromPartitionBuffers(Duration timeout) {
+        // If we already have records buffered for some partitions only briefly poll Kafka as we don't want to block
+        // waiting for new records when we can already return some
+        ConsumerRecords<TKey, TValue> records =
+                pollKafka(this.partitionBuffers.isEmpty() ? timeout : BUFFERED_POLL_TIMEOUT);
+        this.partitionBuffers.add(records);
+        this.bufferedBytes.add(records);
+        recordFetch(records.count());
+
+        this.partitionBuffers.drainTo(this.events, this.maxPollRecords);
+        this.partitionBuffers.updatePaused(this.consumer);
+    }
+
+    /**
+     * Records metrics, and carries out any periodic logging, after a Kafka poll
+     *
+     * @param fetched Number of records fetched
+     */
+    private void recordFetch(int fetched) {
+        this.lastFetchCount = fetched;
+        this.fetchCountsMetric.record(fetched, this.metricAttributes);
+
+        if (fetched == 0) {
+            LOGGER.debug("Currently no new events available for Kafka topic(s) {}", StringUtils.join(this.topics, ", "));
+        } else {
+            LOGGER.debug("Buffered {} new events from Kafka topic(s) {}", fetched, StringUtils.join(this.topics, ", "));
+
+            if (fetched < this.maxPollRecords) {
+                this.lagWarning.run();
+            }
+        }
+
+        this.positionLogger.run();
+    }
+
+    /**
+     * Polls Kafka for new records
+     *
+     * @param timeout Timeout
+     * @return Records, may be empty if none were available within the timeout, or a recoverable error occurred
+     * @throws EventSourceException Thrown if an unrecoverable error occurs
+     */
+    private ConsumerRecords<TKey, TValue> pollKafka(Duration timeout) {
         try {
+            // If committing asynchronously make sure pending commits are applied once due, even if no new commits
+            // have been requested recently
+            if (this.asyncCommitter != null) {
+                this.asyncCommitter.commitIfDue(this.consumer);
+            }
+
             // Don't do any work if none of the topic(s) exist on the Kafka cluster
             long start = System.currentTimeMillis();
-            if (!this.topicExistenceChecker.anyTopicExists(timeout)) return;
+            if (!this.topicExistenceChecker.anyTopicExists(timeout)) return ConsumerRecords.empty();
 
             // Reduce the timeout by the amount of time we spent waiting for the topic to exist as otherwise we
             // could wait twice our timeout and violate our API contract
             long elapsed = System.currentTimeMillis() - start;
             long remainingTime = timeout.toMillis() - elapsed;
             if (remainingTime <= 0) {
-                return;
+                return ConsumerRecords.empty();
             } else {
                 timeout = Duration.ofMillis(remainingTime);
             }
 
-            // Perform the actual Kafka poll() and store the returned ConsumerRecord instances (if any) in our local
-            // buffer
+            // Perform the actual Kafka poll()
             Duration finalTimeout = timeout;
-            records = IANodeMetrics.time(this.pollTimingMetric, this.metricAttributes,
-                                           () -> this.consumer.poll(finalTimeout));
-            for (ConsumerRecord<TKey, TValue> record : records) {
-                events.add(record);
-            }
-            this.fetchCountsMetric.record(events.size(), this.metricAttributes);
-
-            if (events.size() == 0) {
-                LOGGER.debug("Currently no new events available for Kafka topic(s) {}",
-                             StringUtils.join(this.topics, ", "));
-            } else {
-                LOGGER.debug("Buffered {} new events from Kafka topic(s) {}", events.size(),
-                             StringUtils.join(this.topics, ", "));
-
-                if (events.size() < this.maxPollRecords) {
-                    this.lagWarning.run();
-                }
-            }
-
-            this.positionLogger.run();
-
+            return IANodeMetrics.time(this.pollTimingMetric, this.metricAttributes,
+                                      () -> this.consumer.poll(finalTimeout));
         /*
         These errors are considered recoverable i.e. a subsequent call to this function could successfully fill the
         buffer
         */
         } catch (WakeupException | InterruptException e) {
             LOGGER.debug("Interrupted/woken while polling Kafka for events");
+            return ConsumerRecords.empty();
         /*
         The following errors are considered unrecoverable and result in an EventSourceException being thrown
 
@@ -615,7 +1411,292 @@ public class KafkaEventSource<TKey, TValue>
             return new KafkaEventSource<>(this.bootstrapServers, this.topics, this.groupId, this.keyDeserializerClass,
                                           this.valueDeserializerClass, this.maxPollRecords, this.readPolicy,
                                           this.autoCommit, this.externalOffsetStore, this.lagReportInterval,
-                                          this.properties);
+                                          this.properties, this.prefetchBatches, this.asyncCommitInterval,
+                                          this.asyncCommitMaxPending, flowControl(),
+                                          decodeOptions());
+        }
+    }
+
+    /**
+     * A background prefetcher that owns the {@link Consumer} when prefetching is enabled
+     * <p>
+     * The prefetcher polls Kafka on a dedicated thread, handing off batches of records to the thread calling
+     * {@link #poll(Duration)} via a bounded queue.  Once that queue is full the assigned partitions are paused, so that
+     * the consumer continues to participate in its consumer group but does not fetch further records, until the caller
+     * has caught up.
+     * </p>
+     * <p>
+     * Since a {@link KafkaConsumer} is not thread-safe all other operations that need the consumer, e.g. committing
+     * offsets, calculating lag and closing the consumer, are routed to the prefetch thread.
+     * </p>
+     */
+    private final class Prefetcher implements Runnable {
+
+        private final BlockingQueue<ConsumerRecords<TKey, TValue>> handoff;
+        private final Deque<ConsumerRecords<TKey, TValue>> overflow = new ArrayDeque<>();
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final Set<TopicPartition> paused = new HashSet<>();
+        private final AtomicInteger prefetched = new AtomicInteger(0);
+        private final Thread thread;
+        private volatile boolean running = true;
+        private volatile EventSourceException failure = null;
+
+        /**
+         * Creates a new prefetcher
+         *
+         * @param batches Maximum number of batches to prefetch
+         */
+        private Prefetcher(int batches) {
+            this.handoff = new ArrayBlockingQueue<>(batches);
+            this.thread = new Thread(this, "KafkaPrefetcher-" + StringUtils.join(topics, ","));
+            this.thread.setDaemon(true);
+        }
+
+        /**
+         * Starts the prefetch thread
+         */
+        private void start() {
+            this.thread.start();
+        }
+
+        @Override
+        public void run() {
+            boolean started = false;
+            while (true) {
+                try {
+                    if (!started) {
+                        // This is the point where the consumer is actually connected to Kafka
+                        topics.forEach(topic -> readPolicy.startEvents(topic));
+                        started = true;
+                    }
+
+                    processDelayedCommits();
+                    runTasks();
+                    if (!this.running) {
+                        break;
+                    }
+
+                    if (this.failure != null) {
+                        // Wait for our caller to receive the previous failure before we try polling again
+                        LockSupport.parkNanos(PREFETCH_POLL_INTERVAL.toNanos());
+                        continue;
+                    }
+
+                    // If we've already got as many batches, or bytes, as permitted pause our partitions, we still need
+                    // to call poll() regularly to remain a member of our consumer group
+                    transfer();
+                    boolean full = !this.overflow.isEmpty() || this.handoff.remainingCapacity() == 0 ||
+                                   bufferedBytes.throttled();
+                    updatePaused(full);
+
+                    ConsumerRecords<TKey, TValue> records = pollKafka(PREFETCH_POLL_INTERVAL);
+                    if (!records.isEmpty()) {
+                        this.prefetched.addAndGet(records.count());
+                        bufferedBytes.add(records);
+                        this.overflow.add(records);
+                        transfer();
+                    }
+                    if (!full) {
+                        recordFetch(records.count());
+                    }
+                } catch (EventSourceException e) {
+                    this.failure = e;
+                    notifyListener();
+                } catch (Throwable e) {
+                    LOGGER.error("Kafka Error: ", e);
+                    this.failure = new EventSourceException(e);
+                    notifyListener();
+                }
+            }
+        }
+
+        /**
+         * Runs any tasks that other threads have requested be run on the consumer thread
+         */
+        private void runTasks() {
+            Runnable task = this.tasks.poll();
+            while (task != null) {
+                task.run();
+                task = this.tasks.poll();
+            }
+        }
+
+        /**
+         * Transfers as many overflow batches as possible into the handoff queue
+         */
+        private void transfer() {
+            boolean transferred = false;
+            while (!this.overflow.isEmpty() && this.handoff.offer(this.overflow.peek())) {
+                this.overflow.poll();
+                transferred = true;
+            }
+            if (transferred) {
+                notifyListener();
+            }
+        }
+
+        /**
+         * Notifies the prefetch listener, if any, that there is something for the caller to take
+         */
+        private void notifyListener() {
+            Runnable listener = prefetchListener;
+            if (listener != null) {
+                listener.run();
+            }
+        }
+
+        /**
+         * Pauses, or resumes, the assigned partitions as necessary
+         *
+         * @param pause Whether partitions should be paused
+         */
+        private void updatePaused(boolean pause) {
+            if (pause) {
+                Set<TopicPartition> toPause = new HashSet<>(consumer.assignment());
+                toPause.removeAll(consumer.paused());
+                if (!toPause.isEmpty()) {
+                    consumer.pause(toPause);
+                    this.paused.addAll(toPause);
+                }
+            } else if (!this.paused.isEmpty()) {
+                // Only resume partitions that we paused and are still assigned to us
+                this.paused.retainAll(consumer.paused());
+                consumer.resume(this.paused);
+                this.paused.clear();
+            }
+        }
+
+        /**
+         * Takes the next prefetched batch of records, if any, adding them to the given buffer
+         *
+         * @param buffer  Buffer
+         * @param timeout Maximum time to wait for a batch to be prefetched
+         * @throws EventSourceException Thrown if the prefetch thread encountered an error polling Kafka
+         */
+        private void takeInto(Queue<ConsumerRecord<TKey, TValue>> buffer, Duration timeout) {
+            long deadline = System.nanoTime() + timeout.toNanos();
+            try {
+                while (true) {
+                    // Wait in slices so that we notice failures promptly
+                    long remaining = deadline - System.nanoTime();
+                    long wait = Math.max(0, Math.min(remaining, PREFETCH_POLL_INTERVAL.toNanos()));
+                    ConsumerRecords<TKey, TValue> records = this.handoff.poll(wait, TimeUnit.NANOSECONDS);
+                    if (records != null) {
+                        this.prefetched.addAndGet(-records.count());
+                        for (ConsumerRecord<TKey, TValue> record : records) {
+                            buffer.add(record);
+                        }
+                        return;
+                    }
+
+                    // Only report a failure once we've handed off all the batches prefetched prior to that failure
+                    EventSourceException e = this.failure;
+                    if (e != null) {
+                        this.failure = null;
+                        throw e;
+                    }
+                    if (remaining <= 0 || !this.thread.isAlive()) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Runs an action on the prefetch thread waiting for it to complete
+         *
+         * @param action Action
+         * @param <T>    Result type
+         * @return Result
+         */
+        private <T> T call(Supplier<T> action) {
+            if (isPrefetchThread() || !this.thread.isAlive()) {
+                return action.get();
+            }
+
+            CompletableFuture<T> future = new CompletableFuture<>();
+            Runnable task = () -> {
+                try {
+                    future.complete(action.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            };
+            this.tasks.add(task);
+            try {
+                while (true) {
+                    try {
+                        return future.get(PREFETCH_POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException e) {
+                        // If the prefetch thread has terminated without running our task run it ourselves
+                        if (!this.thread.isAlive() && this.tasks.remove(task)) {
+                            return action.get();
+                        }
+                    }
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                } else if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw new EventSourceException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EventSourceException("Interrupted waiting for Kafka consumer thread", e);
+            }
+        }
+
+        /**
+         * Stops the prefetch thread, running the given action on the prefetch thread as its final action
+         *
+         * @param finalAction Final action
+         */
+        private void stop(Runnable finalAction) {
+            call(() -> {
+                try {
+                    finalAction.run();
+                } finally {
+                    this.running = false;
+                }
+                return null;
+            });
+            try {
+                this.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.handoff.clear();
+            this.prefetched.set(0);
+        }
+
+        /**
+         * Gets whether the current thread is the prefetch thread
+         *
+         * @return True if the prefetch thread, false otherwise
+         */
+        private boolean isPrefetchThread() {
+            return Thread.currentThread() == this.thread;
+        }
+
+        /**
+         * Gets whether there are prefetched batches waiting to be taken
+         *
+         * @return True if batches are waiting, false otherwise
+         */
+        private boolean hasPrefetched() {
+            return !this.handoff.isEmpty();
+        }
+
+        /**
+         * Gets the number of prefetched records that have not yet been taken
+         *
+         * @return Prefetched records
+         */
+        private int prefetchedCount() {
+            return this.prefetched.get();
         }
     }
 
@@ -43,6 +43,21 @@ public class KafkaMetricNames {
      */
     public static final String KAFKA_LAG = "messaging.kafka.lag";
 
+    /**
+     * Metric for the serialized size of the Kafka records currently buffered in memory by a consumer
+     */
+    public static final String BUFFERED_BYTES = "messaging.kafka.buffered_bytes";
+
+    /**
+     * Metric for the number of sends from a Kafka sink currently awaiting acknowledgement from Kafka
+     */
+    public static final String SINK_IN_FLIGHT = "messaging.kafka.sink.in_flight";
+
+    /**
+     * Metric for the total number of sends from a Kafka sink that have failed
+     */
+    public static final String SINK_ERRORS = "messaging.kafka.sink.errors";
+
     /**
      * Description for the Kafka poll timings metric
      */
@@ -58,4 +73,19 @@ public class KafkaMetricNames {
      */
     public static final String LAG_DESCRIPTION =
             "Kafka Lag i.e. how far behind on reading a topic a given consumer group is.";
+    /**
+     * Description for the Kafka buffered bytes metric
+     */
+    public static final String BUFFERED_BYTES_DESCRIPTION =
+            "Kafka buffered bytes i.e. the serialized size of records fetched from Kafka but not yet returned to the application.";
+    /**
+     * Description for the Kafka sink in-flight sends metric
+     */
+    public static final String SINK_IN_FLIGHT_DESCRIPTION =
+            "Kafka sink in-flight sends i.e. how many sent events are awaiting acknowledgement from Kafka.";
+    /**
+     * Description for the Kafka sink errors metric
+     */
+    public static final String SINK_ERRORS_DESCRIPTION =
+            "Kafka sink errors i.e. how many sent events Kafka failed to acknowledge.";
 }
@@ -0,0 +1,140 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.util.Objects;
+import java.util.Optional;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.errors.RecordDeserializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * A consumer record whose value is only deserialized when it is first accessed
+ * <p>
+ * The raw value bytes are retained and deserialized via the provided deserializer the first time {@link #value()} is
+ * called, the result is then memoized so subsequent calls return the same value.  This allows consumers to inspect the
+ * topic, partition, offset, key and headers of a record, e.g. to filter out events they aren't interested in, without
+ * paying the cost of deserializing the value.
+ * </p>
+ * <p>
+ * If the value cannot be deserialized then {@link #value()} throws a {@link RecordDeserializationException}, exactly as
+ * the {@link org.apache.kafka.clients.consumer.KafkaConsumer} would have done had the value been deserialized eagerly.
+ * </p>
+ *
+ * @param <TKey>   Key type
+ * @param <TValue> Value type
+ */
+final class LazyConsumerRecord<TKey, TValue> extends ConsumerRecord<TKey, TValue> {
+
+    private final byte[] rawValue;
+    private final Deserializer<TValue> deserializer;
+    private volatile boolean decoded = false;
+    private TValue value;
+
+    /**
+     * Creates a new lazy record
+     *
+     * @param record       Raw record, whose key has already been deserialized
+     * @param key          Deserialized key
+     * @param deserializer Value deserializer, <strong>MUST</strong> be thread-safe since the value may be accessed from
+     *                     any thread
+     */
+    LazyConsumerRecord(ConsumerRecord<byte[], byte[]> record, TKey key, Deserializer<TValue> deserializer) {
+        this(record.topic(), record.partition(), record.offset(), record.timestamp(), record.timestampType(),
+             record.serializedKeySize(), record.serializedValueSize(), key, record.value(), record.headers(),
+             record.leaderEpoch(), deserializer);
+    }
+
+    private LazyConsumerRecord(String topic, int partition, long offset, long timestamp,
+                               TimestampType timestampType, int serializedKeySize,
+                               int serializedValueSize, TKey key, byte[] rawValue, Headers headers,
+                               Optional<Integer> leaderEpoch, Deserializer<TValue> deserializer) {
+        super(topic, partition, offset, timestamp, timestampType, serializedKeySize, serializedValueSize, key, null,
+              headers, leaderEpoch);
+        this.rawValue = rawValue;
+        this.deserializer = Objects.requireNonNull(deserializer, "Value deserializer cannot be null");
+    }
+
+    @Override
+    public TValue value() {
+        if (!this.decoded) {
+            synchronized (this) {
+                if (!this.decoded) {
+                    this.value = this.rawValue != null ? deserialize() : null;
+                    this.decoded = true;
+                }
+            }
+        }
+        return this.value;
+    }
+
+    private TValue deserialize() {
+        try {
+            return this.deserializer.deserialize(topic(), headers(), this.rawValue);
+        } catch (RuntimeException e) {
+            throw DeserializingConsumer.deserializationError(
+                    RecordDeserializationException.DeserializationExceptionOrigin.VALUE, topic(), partition(), offset(),
+                    timestamp(), timestampType(), null, this.rawValue, headers(), e);
+        }
+    }
+
+    /**
+     * Gets whether the value has been deserialized yet
+     *
+     * @return True if deserialized, false otherwise
+     */
+    boolean isDecoded() {
+        return this.decoded;
+    }
+
+    /**
+     * Creates a copy of this record with a different key and headers, if the value has not yet been deserialized the
+     * copy also defers deserializing it
+     *
+     * @param key               New key
+     * @param serializedKeySize Serialized key size
+     * @param headers           New headers
+     * @param <TNewKey>         New key type
+     * @return Copy of the record
+     */
+    <TNewKey> ConsumerRecord<TNewKey, TValue> withKeyAndHeaders(TNewKey key, int serializedKeySize, Headers headers) {
+        if (this.decoded) {
+            return new ConsumerRecord<>(topic(), partition(), offset(), timestamp(), timestampType(), serializedKeySize,
+                                        serializedValueSize(), key, this.value, headers, leaderEpoch());
+        }
+        return new LazyConsumerRecord<>(topic(), partition(), offset(), timestamp(), timestampType(),
+                                        serializedKeySize, serializedValueSize(), key, this.rawValue, headers,
+                                        leaderEpoch(), this.deserializer);
+    }
+
+    @Override
+    public String toString() {
+        // Intentionally don't force deserialization just to produce a string representation
+        return "LazyConsumerRecord(topic = " + topic() + ", partition = " + partition() + ", offset = " + offset() +
+               ", key = " + key() + ", decoded = " + this.decoded + ")";
+    }
+}
@@ -0,0 +1,400 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.EventSource;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.KafkaReadPolicy;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.automatic.AbstractAutoSeekingPolicy;
+
+/**
+ * An event source that reads from Kafka topic(s) using multiple consumers in parallel, merging their output
+ * <p>
+ * A single {@link KafkaEventSource} owns a single {@link org.apache.kafka.clients.consumer.KafkaConsumer} and so can
+ * only fetch events as fast as that consumers fetch loop allows.  This source creates several {@link KafkaEventSource}
+ * instances in the same consumer group, each of which prefetches on its own dedicated thread with its own read policy,
+ * so the topic partitions are shared out amongst the consumers by Kafka's consumer group protocol.  Events are returned
+ * from whichever consumers have events available.
+ * </p>
+ * <p>
+ * Since each partition is only assigned to a single consumer, and each consumer returns the events for a partition in
+ * order, events for a given partition are always returned in order.  When events are marked as processed via
+ * {@link #processed(Collection)} the resulting offset commits are routed back to the consumer that read those events.
+ * As with any consumer group, when partitions are reassigned between consumers events may be read more than once.
+ * </p>
+ *
+ * @param <TKey>   Key type
+ * @param <TValue> Value type
+ */
+public class ParallelKafkaEventSource<TKey, TValue> implements EventSource<TKey, TValue> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelKafkaEventSource.class);
+
+    /**
+     * Default number of consumers
+     */
+    public static final int DEFAULT_CONSUMERS = 4;
+
+    /**
+     * Creates a new builder for parallel Kafka event sources
+     *
+     * @param <TKey>   Key type
+     * @param <TValue> Value type
+     * @return Builder
+     */
+    public static <TKey, TValue> Builder<TKey, TValue> create() {
+        return new Builder<>();
+    }
+
+    private final List<KafkaEventSource<TKey, TValue>> sources;
+    private final boolean[] started;
+    private final Object signal = new Object();
+    private int next = 0;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a new parallel source
+     *
+     * @param sources Sources to read from, these <strong>MUST</strong> have prefetching enabled
+     */
+    ParallelKafkaEventSource(List<? extends KafkaEventSource<TKey, TValue>> sources) {
+        Objects.requireNonNull(sources, "Kafka sources cannot be null");
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("Kafka sources cannot be empty");
+        }
+        this.sources = List.copyOf(sources);
+        this.started = new boolean[this.sources.size()];
+        for (KafkaEventSource<TKey, TValue> source : this.sources) {
+            source.setPrefetchListener(this::signal);
+        }
+    }
+
+    /**
+     * Wakes up any thread waiting in {@link #poll(Duration)} for events to become available
+     */
+    private void signal() {
+        synchronized (this.signal) {
+            this.signal.notifyAll();
+        }
+    }
+
+    /**
+     * Gets the underlying sources
+     *
+     * @return Sources
+     */
+    List<KafkaEventSource<TKey, TValue>> sources() {
+        return this.sources;
+    }
+
+    @Override
+    public boolean availableImmediately() {
+        return !this.closed && this.sources.stream().anyMatch(KafkaEventSource::availableImmediately);
+    }
+
+    @Override
+    public boolean isExhausted() {
+        return this.closed;
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        signal();
+
+        RuntimeException error = null;
+        for (KafkaEventSource<TKey, TValue> source : this.sources) {
+            try {
+                source.close();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to close Kafka source {}: {}", source, e.getMessage());
+                if (error == null) {
+                    error = e;
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    @Override
+    public Event<TKey, TValue> poll(Duration timeout) {
+        if (this.closed) {
+            throw new IllegalStateException("Event source has been closed");
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            Event<TKey, TValue> event = pollAvailable();
+            if (event != null) {
+                return event;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || this.closed) {
+                return null;
+            }
+            synchronized (this.signal) {
+                // Check again whilst holding the lock as otherwise we could miss a signal and wait needlessly
+                if (!this.closed && !anyPollable()) {
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(this.signal, remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return null;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Polls the next source, in round-robin order, that has events immediately available
+     * <p>
+     * Sources are only polled when they have events available, or an error to report, since polling an idle source
+     * would needlessly trigger offset commits.  The exception is the first poll of each source which is what starts it
+     * prefetching.
+     * </p>
+     *
+     * @return Next event, or {@code null} if none immediately available
+     */
+    private Event<TKey, TValue> pollAvailable() {
+        for (int i = 0; i < this.sources.size(); i++) {
+            int index = (this.next + i) % this.sources.size();
+            KafkaEventSource<TKey, TValue> source = this.sources.get(index);
+            if (!this.started[index] || isPollable(source)) {
+                this.started[index] = true;
+                Event<TKey, TValue> event = source.poll(Duration.ZERO);
+                if (event != null) {
+                    this.next = (index + 1) % this.sources.size();
+                    return event;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean anyPollable() {
+        for (KafkaEventSource<TKey, TValue> source : this.sources) {
+            if (isPollable(source)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPollable(KafkaEventSource<?, ?> source) {
+        return source.availableImmediately() || source.hasPrefetchFailure();
+    }
+
+    @Override
+    public Long remaining() {
+        Long total = null;
+        for (KafkaEventSource<TKey, TValue> source : this.sources) {
+            Long remaining = source.remaining();
+            if (remaining != null) {
+                total = total != null ? total + remaining : remaining;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Tells the event source that the given events are now considered processed
+     * <p>
+     * The events are grouped by the consumer that read them, and each consumer then commits the offsets for its own
+     * events, see {@link KafkaEventSource#processed(Collection)} for more details.  Any events not read by this source
+     * are ignored.
+     * </p>
+     *
+     * @param processedEvents A collection of events that have been processed.
+     */
+    @SuppressWarnings("rawtypes")
+    @Override
+    public void processed(Collection<Event> processedEvents) {
+        Map<KafkaEventSource<TKey, TValue>, List<Event>> bySource = new IdentityHashMap<>();
+        for (Event event : processedEvents) {
+            if (event instanceof KafkaEvent<?, ?> kafkaEvent) {
+                KafkaEventSource<TKey, TValue> owner = ownerOf(kafkaEvent);
+                if (owner != null) {
+                    bySource.computeIfAbsent(owner, s -> new ArrayList<>()).add(event);
+                }
+            }
+        }
+        bySource.forEach(KafkaEventSource::processed);
+    }
+
+    @Override
+    public Object completionLane(Event<TKey, TValue> event) {
+        // Each partition is only ever owned by one consumer at a time so the topic partition alone suffices
+        return KafkaEvent.topicPartition(event);
+    }
+
+    @Override
+    public boolean isAutoCommitting() {
+        return this.sources.stream().anyMatch(KafkaEventSource::isAutoCommitting);
+    }
+
+    private KafkaEventSource<TKey, TValue> ownerOf(KafkaEvent<?, ?> event) {
+        for (KafkaEventSource<TKey, TValue> source : this.sources) {
+            if (event.source() == source) {
+                return source;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "Parallel[" + StringUtils.join(this.sources, ",") + "]";
+    }
+
+    /**
+     * A builder for parallel Kafka event sources
+     * <p>
+     * Supports all the same options as {@link KafkaEventSource.Builder}, each of which applies to every consumer, plus
+     * {@link #consumers(int)} to control how many consumers are created.  Since each consumer requires its own read
+     * policy, when creating more than one consumer the read policy must be configured either via one of the builder
+     * methods such as {@link #fromEarliest()}, or by providing a read policy supplier via
+     * {@link #readPolicies(java.util.function.Supplier)}, rather than via {@link #readPolicy(KafkaReadPolicy)}.  Where
+     * the read policies seek on assignment, e.g. {@link #fromBeginning()}, they share their seek state so a partition
+     * that moves between consumers during a re-balance is not seeked again by its new owner.
+     * </p>
+     * <p>
+     * Each consumer always prefetches on its own dedicated thread, if {@link #prefetch(int)} is not explicitly
+     * configured then {@link KafkaEventSource#DEFAULT_PREFETCH_BATCHES} is used.  Per-partition buffering, which is
+     * incompatible with prefetching, is not supported.
+     * </p>
+     *
+     * @param <TKey>   Key type
+     * @param <TValue> Value type
+     */
+    public static class Builder<TKey, TValue> extends
+            AbstractKafkaEventSourceBuilder<TKey, TValue, ParallelKafkaEventSource<TKey, TValue>,
+                    Builder<TKey, TValue>> {
+
+        private int consumers = DEFAULT_CONSUMERS;
+
+        /**
+         * Sets the number of consumers to read with in parallel
+         * <p>
+         * There is no benefit to having more consumers than there are partitions in the topic(s) being read since any
+         * surplus consumers are not assigned any partitions.
+         * </p>
+         *
+         * @param consumers Number of consumers
+         * @return Builder
+         */
+        public Builder<TKey, TValue> consumers(int consumers) {
+            this.consumers = consumers;
+            return this;
+        }
+
+        /**
+         * Builds the event source
+         *
+         * @return Parallel Kafka Event Source
+         */
+        @Override
+        public ParallelKafkaEventSource<TKey, TValue> build() {
+            if (this.consumers < 1) {
+                throw new IllegalArgumentException("Kafka consumers must be >= 1");
+            }
+            if (this.consumers > 1 && this.readPolicies == null) {
+                throw new IllegalArgumentException(
+                        "Kafka parallel sources require a read policy supplier, see readPolicies(), since each " +
+                        "consumer requires its own read policy");
+            }
+            if (flowControl().perPartitionBuffering()) {
+                throw new IllegalArgumentException(
+                        "Kafka per-partition buffering cannot be combined with parallel consumers");
+            }
+
+            List<KafkaEventSource<TKey, TValue>> sources = new ArrayList<>();
+            AbstractAutoSeekingPolicy<?, ?> firstSeeking = null;
+            try {
+                for (int i = 0; i < this.consumers; i++) {
+                    KafkaReadPolicy<TKey, TValue> policy =
+                            this.readPolicies != null ? this.readPolicies.get() : this.readPolicy;
+                    if (this.consumers > 1 && !policy.isSubscriptionBased()) {
+                        throw new IllegalArgumentException(
+                                "Kafka parallel sources require a read policy that uses consumer group subscriptions");
+                    }
+                    // The consumers share a consumer group so a partition must only be seeked once across all of them,
+                    // not once per consumer that is ever assigned it
+                    if (policy instanceof AbstractAutoSeekingPolicy<?, ?> seeking) {
+                        if (firstSeeking == null) {
+                            firstSeeking = seeking;
+                        } else {
+                            seeking.shareSeekedPartitions(firstSeeking);
+                        }
+                    }
+                    sources.add(createSource(policy));
+                }
+            } catch (RuntimeException e) {
+                sources.forEach(KafkaEventSource::close);
+                throw e;
+            }
+            return new ParallelKafkaEventSource<>(sources);
+        }
+
+        /**
+         * Creates one of the underlying sources
+         *
+         * @param policy Read policy for the source
+         * @return Source
+         */
+        KafkaEventSource<TKey, TValue> createSource(KafkaReadPolicy<TKey, TValue> policy) {
+            return new KafkaEventSource<>(this.bootstrapServers, this.topics, this.groupId, this.keyDeserializerClass,
+                                          this.valueDeserializerClass, this.maxPollRecords, policy, this.autoCommit,
+                                          this.externalOffsetStore, this.lagReportInterval, this.properties,
+                                          this.prefetchBatches > 0 ? this.prefetchBatches :
+                                          KafkaEventSource.DEFAULT_PREFETCH_BATCHES, this.asyncCommitInterval,
+                                          this.asyncCommitMaxPending, flowControl(), decodeOptions());
+        }
+    }
+}
@@ -0,0 +1,222 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * Buffers fetched records separately for each topic partition, serving them in round-robin order across partitions and
+ * pausing fetching from any partition whose buffer grows too large
+ * <p>
+ * A single Kafka poll may return many records from one partition with a large backlog and few, or none, from the
+ * other partitions.  By buffering per partition, and interleaving the partitions when records are taken from the
+ * buffers, records from quieter partitions are not stuck waiting behind the entire backlog of a busy partition.
+ * </p>
+ * <p>
+ * Once more than the pause threshold records are buffered for a partition it is paused via
+ * {@link Consumer#pause(java.util.Collection)}, it is resumed once its buffer has drained to half the threshold.  This
+ * bounds memory usage and applies backpressure per partition, while still allowing the consumer to poll regularly so
+ * that it remains a member of its consumer group.
+ * </p>
+ * <p>
+ * Optionally a byte budget may also apply, in which case all assigned partitions are paused while the total buffered
+ * bytes are over budget, see {@link BufferedBytes#throttled()}.
+ * </p>
+ * <p>
+ * This class is not thread-safe and <strong>MUST</strong> only be used from the thread that owns the consumer.
+ * </p>
+ *
+ * @param <TKey>   Key type
+ * @param <TValue> Value type
+ */
+final class PartitionBuffers<TKey, TValue> {
+
+    private final int pauseThreshold, resumeThreshold;
+    private final Map<TopicPartition, Queue<ConsumerRecord<TKey, TValue>>> buffers = new HashMap<>();
+    private final Queue<TopicPartition> ready = new ArrayDeque<>();
+    private final Set<TopicPartition> paused = new HashSet<>();
+    private final BufferedBytes bytes;
+    private int size = 0;
+
+    /**
+     * Creates new partition buffers
+     *
+     * @param pauseThreshold Number of buffered records for a partition above which that partition is paused
+     * @param bytes          Buffered bytes tracker, records discarded by these buffers are released from this tracker
+     */
+    PartitionBuffers(int pauseThreshold, BufferedBytes bytes) {
+        if (pauseThreshold < 1) {
+            throw new IllegalArgumentException("Pause threshold must be >= 1");
+        }
+        this.pauseThreshold = pauseThreshold;
+        this.resumeThreshold = pauseThreshold / 2;
+        this.bytes = Objects.requireNonNull(bytes, "Buffered bytes cannot be null");
+    }
+
+    /**
+     * Adds fetched records to the relevant partition buffers
+     *
+     * @param records Records
+     */
+    void add(ConsumerRecords<TKey, TValue> records) {
+        for (TopicPartition partition : records.partitions()) {
+            List<ConsumerRecord<TKey, TValue>> partitionRecords = records.records(partition);
+            if (partitionRecords.isEmpty()) {
+                continue;
+            }
+            Queue<ConsumerRecord<TKey, TValue>> buffer =
+                    this.buffers.computeIfAbsent(partition, p -> new ArrayDeque<>());
+            if (buffer.isEmpty()) {
+                this.ready.add(partition);
+            }
+            buffer.addAll(partitionRecords);
+            this.size += partitionRecords.size();
+        }
+    }
+
+    /**
+     * Moves buffered records into the given queue, taking one record from each partition with buffered records in turn
+     *
+     * @param out        Queue to move records into
+     * @param maxRecords Maximum number of records to move
+     * @return Number of records moved
+     */
+    int drainTo(Queue<ConsumerRecord<TKey, TValue>> out, int maxRecords) {
+        int moved = 0;
+        while (moved < maxRecords && !this.ready.isEmpty()) {
+            TopicPartition partition = this.ready.poll();
+            Queue<ConsumerRecord<TKey, TValue>> buffer = this.buffers.get(partition);
+            out.add(buffer.poll());
+            moved++;
+            if (!buffer.isEmpty()) {
+                this.ready.add(partition);
+            }
+        }
+        this.size -= moved;
+        return moved;
+    }
+
+    /**
+     * Pauses any partitions whose buffers are over the pause threshold, or all partitions if over the byte budget, and
+     * resumes any partitions we previously paused whose buffers have since drained
+     * <p>
+     * Any records buffered for partitions that are no longer assigned to the consumer, e.g. because they were revoked
+     * during a consumer group rebalance, are discarded since they will be read again by the partitions new owner.
+     * </p>
+     *
+     * @param consumer Consumer
+     */
+    void updatePaused(Consumer<TKey, TValue> consumer) {
+        // Forget about any partitions that are no longer assigned to us
+        Set<TopicPartition> assignment = consumer.assignment();
+        this.paused.retainAll(assignment);
+        Iterator<Map.Entry<TopicPartition, Queue<ConsumerRecord<TKey, TValue>>>> iter =
+                this.buffers.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<TopicPartition, Queue<ConsumerRecord<TKey, TValue>>> entry = iter.next();
+            if (!assignment.contains(entry.getKey())) {
+                this.size -= entry.getValue().size();
+                for (ConsumerRecord<TKey, TValue> record : entry.getValue()) {
+                    this.bytes.release(record);
+                }
+                this.ready.remove(entry.getKey());
+                iter.remove();
+            }
+        }
+
+        // Never pause/resume partitions that something else has paused
+        boolean throttled = this.bytes.throttled();
+        Set<TopicPartition> externallyPaused = consumer.paused();
+        List<TopicPartition> toPause = new ArrayList<>();
+        List<TopicPartition> toResume = new ArrayList<>();
+        for (TopicPartition partition : assignment) {
+            int buffered = size(partition);
+            if (throttled || buffered > this.pauseThreshold) {
+                if (!externallyPaused.contains(partition) && this.paused.add(partition)) {
+                    toPause.add(partition);
+                }
+            } else if (buffered <= this.resumeThreshold && this.paused.remove(partition)) {
+                toResume.add(partition);
+            }
+        }
+        if (!toPause.isEmpty()) {
+            consumer.pause(toPause);
+        }
+        if (!toResume.isEmpty()) {
+            consumer.resume(toResume);
+        }
+    }
+
+    /**
+     * Gets the total number of buffered records
+     *
+     * @return Buffered records
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the number of buffered records for a partition
+     *
+     * @param partition Partition
+     * @return Buffered records
+     */
+    int size(TopicPartition partition) {
+        Queue<ConsumerRecord<TKey, TValue>> buffer = this.buffers.get(partition);
+        return buffer != null ? buffer.size() : 0;
+    }
+
+    /**
+     * Gets whether there are any buffered records
+     *
+     * @return True if empty, false otherwise
+     */
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Gets the partitions that are currently paused due to their buffers being over the pause threshold
+     *
+     * @return Paused partitions
+     */
+    Set<TopicPartition> paused() {
+        return this.paused;
+    }
+}
@@ -0,0 +1,253 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * Tracks the next offset to be read for each topic partition an event source has read from, without allocating any
+ * objects on the hot path
+ * <p>
+ * Each distinct topic partition is assigned a slot the first time it is seen, the next offsets are then held in a
+ * primitive array indexed by that slot.  Subsequent updates for a known partition simply overwrite the relevant array
+ * element, the {@link TopicPartition} and {@link OffsetAndMetadata} objects that Kafka requires for an offset commit
+ * are only created when {@link #toCommitMap()} is called i.e. when a commit actually happens.
+ * </p>
+ * <p>
+ * Partitions that are revoked from the consumer <strong>MUST</strong> be {@link #fence(TopicPartition, long)}'d at
+ * {@link Long#MAX_VALUE}, and partitions that are (re-)assigned <strong>SHOULD</strong> be fenced at the consumers new
+ * position, so that records read during a previous assignment can be identified via {@link #floor(String, int)} and
+ * their offsets are never committed once another consumer may have moved the partition on.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+final class PartitionOffsets {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final Map<String, int[]> topicSlots = new HashMap<>();
+    private String lastTopic = null;
+    private int[] lastSlots = null;
+    private TopicPartition[] partitions = new TopicPartition[INITIAL_CAPACITY];
+    private long[] nextOffsets = new long[INITIAL_CAPACITY];
+    private long[] floors = new long[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Records the next offset to be read for a topic partition
+     * <p>
+     * If the partition has been {@link #fence(TopicPartition, long)}'d then offsets at, or below, the fence are
+     * ignored.
+     * </p>
+     *
+     * @param topic      Topic
+     * @param partition  Partition
+     * @param nextOffset Next offset to be read i.e. the offset of the record just read plus one
+     */
+    void track(String topic, int partition, long nextOffset) {
+        int[] slots;
+        if (topic.equals(this.lastTopic)) {
+            slots = this.lastSlots;
+        } else {
+            slots = this.topicSlots.get(topic);
+            if (slots == null) {
+                slots = new int[partition + 1];
+                this.topicSlots.put(topic, slots);
+            }
+            this.lastTopic = topic;
+            this.lastSlots = slots;
+        }
+
+        // Slots are stored offset by one so that the default array value of zero means no slot assigned
+        int slot = partition < slots.length ? slots[partition] - 1 : -1;
+        if (slot < 0) {
+            slot = assignSlot(topic, partition);
+        }
+        if (nextOffset > this.floors[slot]) {
+            this.nextOffsets[slot] = nextOffset;
+        }
+    }
+
+    /**
+     * Fences a topic partition, discarding any offset currently tracked for it and ignoring any subsequently tracked
+     * offset that is not beyond the fence
+     * <p>
+     * This is used when a partition is revoked from, or (re-)assigned to, the consumer, records read during a previous
+     * assignment may still be buffered and their offsets could be behind those that another consumer has since
+     * committed.
+     * </p>
+     *
+     * @param partition Topic partition
+     * @param floor     Fence, the consumer position for the partition when it was assigned, or {@link Long#MAX_VALUE}
+     *                  when it is revoked
+     */
+    void fence(TopicPartition partition, long floor) {
+        int slot = slotOf(partition.topic(), partition.partition());
+        if (slot < 0) {
+            this.topicSlots.computeIfAbsent(partition.topic(), t -> new int[partition.partition() + 1]);
+            slot = assignSlot(partition.topic(), partition.partition());
+        }
+        this.nextOffsets[slot] = -1;
+        this.floors[slot] = floor;
+    }
+
+    /**
+     * Gets the fence for a topic partition, any record whose offset is below this was read during a previous assignment
+     * of the partition
+     *
+     * @param topic     Topic
+     * @param partition Partition
+     * @return Fence, or {@code -1} if the partition is not fenced
+     */
+    long floor(String topic, int partition) {
+        int[] slots = topic.equals(this.lastTopic) ? this.lastSlots : this.topicSlots.get(topic);
+        if (slots == null || partition >= slots.length || slots[partition] == 0) {
+            return -1;
+        }
+        return this.floors[slots[partition] - 1];
+    }
+
+    /**
+     * Removes the given topic partitions, forgetting any offsets, and fences, tracked for them
+     *
+     * @param toRemove Topic partitions to remove
+     */
+    void remove(Collection<TopicPartition> toRemove) {
+        for (TopicPartition partition : toRemove) {
+            int slot = slotOf(partition.topic(), partition.partition());
+            if (slot < 0) {
+                continue;
+            }
+            this.topicSlots.get(partition.topic())[partition.partition()] = 0;
+
+            // Move the last slot into the vacated slot so tracked slots remain contiguous
+            int last = --this.size;
+            if (slot != last) {
+                TopicPartition moved = this.partitions[last];
+                this.partitions[slot] = moved;
+                this.nextOffsets[slot] = this.nextOffsets[last];
+                this.floors[slot] = this.floors[last];
+                this.topicSlots.get(moved.topic())[moved.partition()] = slot + 1;
+            }
+            this.partitions[last] = null;
+        }
+    }
+
+    /**
+     * Gets the slot for a topic partition
+     *
+     * @param topic     Topic
+     * @param partition Partition
+     * @return Slot, or {@code -1} if no slot assigned
+     */
+    private int slotOf(String topic, int partition) {
+        int[] slots = this.topicSlots.get(topic);
+        if (slots == null || partition >= slots.length) {
+            return -1;
+        }
+        return slots[partition] - 1;
+    }
+
+    /**
+     * Assigns a new slot for a topic partition that has not previously been seen
+     *
+     * @param topic     Topic
+     * @param partition Partition
+     * @return Slot
+     */
+    private int assignSlot(String topic, int partition) {
+        int[] slots = this.topicSlots.get(topic);
+        if (partition >= slots.length) {
+            slots = Arrays.copyOf(slots, partition + 1);
+            this.topicSlots.put(topic, slots);
+            if (topic.equals(this.lastTopic)) {
+                this.lastSlots = slots;
+            }
+        }
+        if (this.size == this.partitions.length) {
+            this.partitions = Arrays.copyOf(this.partitions, this.size * 2);
+            this.nextOffsets = Arrays.copyOf(this.nextOffsets, this.size * 2);
+            this.floors = Arrays.copyOf(this.floors, this.size * 2);
+        }
+        int slot = this.size++;
+        this.partitions[slot] = new TopicPartition(topic, partition);
+        this.nextOffsets[slot] = -1;
+        this.floors[slot] = -1;
+        slots[partition] = slot + 1;
+        return slot;
+    }
+
+    /**
+     * Gets whether any offsets have been tracked
+     *
+     * @return True if no offsets tracked, false otherwise
+     */
+    boolean isEmpty() {
+        for (int i = 0; i < this.size; i++) {
+            if (this.nextOffsets[i] >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the next offset tracked for a topic partition
+     *
+     * @param topic     Topic
+     * @param partition Partition
+     * @return Next offset, or {@code -1} if no offset has been tracked for the partition
+     */
+    long nextOffset(String topic, int partition) {
+        int slot = slotOf(topic, partition);
+        return slot >= 0 ? this.nextOffsets[slot] : -1;
+    }
+
+    /**
+     * Creates a map of the tracked offsets suitable for passing to a Kafka offset commit
+     * <p>
+     * A new map is returned on every call so callers are free to modify it.
+     * </p>
+     *
+     * @return Offsets to commit
+     */
+    Map<TopicPartition, OffsetAndMetadata> toCommitMap() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (int i = 0; i < this.size; i++) {
+            if (this.nextOffsets[i] < 0) {
+                continue;
+            }
+            offsets.put(this.partitions[i], new OffsetAndMetadata(this.nextOffsets[i]));
+        }
+        return offsets;
+    }
+}
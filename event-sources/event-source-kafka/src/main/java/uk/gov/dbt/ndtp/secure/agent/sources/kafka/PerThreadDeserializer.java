@@ -0,0 +1,91 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * A thread-safe deserializer that delegates to a separate deserializer instance for each thread that uses it
+ * <p>
+ * Kafka deserializers are not required to be thread-safe, so when records may be deserialized concurrently, whether by
+ * a pool of deserialization threads or lazily by whichever thread first accesses an event value, each thread is given
+ * its own instance obtained from the supplier on first use.  All instances are closed when this deserializer is closed.
+ * </p>
+ *
+ * @param <T> Deserialized type
+ */
+final class PerThreadDeserializer<T> implements Deserializer<T> {
+
+    private final Queue<Deserializer<T>> instances = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Deserializer<T>> current;
+
+    /**
+     * Creates a new per-thread deserializer
+     *
+     * @param supplier Supplier of configured deserializer instances
+     */
+    PerThreadDeserializer(Supplier<Deserializer<T>> supplier) {
+        Objects.requireNonNull(supplier, "Deserializer supplier cannot be null");
+        this.current = ThreadLocal.withInitial(() -> {
+            Deserializer<T> deserializer =
+                    Objects.requireNonNull(supplier.get(), "Deserializer supplier returned a null deserializer");
+            this.instances.add(deserializer);
+            return deserializer;
+        });
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        return this.current.get().deserialize(topic, data);
+    }
+
+    @Override
+    public T deserialize(String topic, Headers headers, byte[] data) {
+        return this.current.get().deserialize(topic, headers, data);
+    }
+
+    /**
+     * Gets the number of deserializer instances created so far
+     *
+     * @return Number of instances
+     */
+    int instances() {
+        return this.instances.size();
+    }
+
+    @Override
+    public void close() {
+        Deserializer<T> deserializer = this.instances.poll();
+        while (deserializer != null) {
+            deserializer.close();
+            deserializer = this.instances.poll();
+        }
+    }
+}
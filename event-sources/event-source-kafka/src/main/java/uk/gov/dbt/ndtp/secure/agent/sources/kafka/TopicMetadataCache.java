@@ -0,0 +1,365 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.errors.AuthenticationException;
+import org.apache.kafka.common.errors.AuthorizationException;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An asynchronous cache of topic metadata, currently topic existence, for a Kafka cluster
+ * <p>
+ * Instances obtained via {@link #acquire(Properties, Supplier)} are shared by every caller talking to the same Kafka
+ * cluster with the same security configuration, and are reference counted so that the underlying {@link AdminClient}
+ * is only closed once every caller has called {@link #release()}.  All topics of interest that are not yet known to
+ * exist are looked up together in a single {@link AdminClient#describeTopics(Collection)} call whose results are
+ * processed via {@link KafkaFuture} completion, so no thread is blocked waiting on the broker.  Topics not yet known to
+ * exist continue to be looked up periodically in the background, using a single scheduler thread shared by all caches,
+ * until they are created.
+ * </p>
+ * <p>
+ * Once a topic is known to exist that result is cached for the lifetime of the cache.
+ * </p>
+ * <p>
+ * Instances obtained via {@link #create(AdminClient)} are never shared, these are intended for callers that need to
+ * control how their admin client is created.
+ * </p>
+ */
+public final class TopicMetadataCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TopicMetadataCache.class);
+
+    /**
+     * Default interval at which topics not yet known to exist are looked up again
+     */
+    public static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofMillis(250);
+
+    private static final Map<String, TopicMetadataCache> SHARED = new HashMap<>();
+    private static ScheduledExecutorService SCHEDULER = null;
+
+    private final String key;
+    private final AdminClient adminClient;
+    private final Duration refreshInterval;
+    private final Set<String> topics = ConcurrentHashMap.newKeySet();
+    private final Map<String, Boolean> topicExists = new ConcurrentHashMap<>();
+    private final Set<String> securityErrorsLogged = ConcurrentHashMap.newKeySet();
+    private int references = 1;
+    private boolean inFlight = false, closed = false;
+    private ScheduledFuture<?> refreshTask;
+
+    /**
+     * Acquires the shared cache for the Kafka cluster described by the given client configuration, creating it if
+     * necessary
+     * <p>
+     * Callers <strong>MUST</strong> call {@link #release()} once they no longer need the cache.  Since an existing
+     * shared cache is returned without consulting the factory callers <strong>MUST</strong> only use this method with
+     * a factory that creates an admin client purely from the given configuration, otherwise use
+     * {@link #create(AdminClient)} instead.
+     * </p>
+     *
+     * @param props              Client configuration, the bootstrap servers and any security related configuration
+     *                           determine which callers share a cache
+     * @param adminClientFactory Factory used to create the admin client if no shared cache currently exists
+     * @return Shared cache, or {@code null} if the factory returned {@code null}
+     */
+    public static TopicMetadataCache acquire(Properties props, Supplier<AdminClient> adminClientFactory) {
+        Objects.requireNonNull(props, "Properties cannot be null");
+        Objects.requireNonNull(adminClientFactory, "Admin Client factory cannot be null");
+        String key = clusterKey(props);
+        synchronized (SHARED) {
+            TopicMetadataCache cache = SHARED.get(key);
+            if (cache != null) {
+                cache.references++;
+                return cache;
+            }
+            AdminClient adminClient = adminClientFactory.get();
+            if (adminClient == null) {
+                return null;
+            }
+            cache = new TopicMetadataCache(key, adminClient, DEFAULT_REFRESH_INTERVAL);
+            SHARED.put(key, cache);
+            return cache;
+        }
+    }
+
+    /**
+     * Creates a new cache that is not shared with any other caller
+     * <p>
+     * Callers <strong>MUST</strong> call {@link #release()} once they no longer need the cache.
+     * </p>
+     *
+     * @param adminClient Admin client, this is closed when the cache is released
+     * @return Unshared cache, or {@code null} if the admin client is {@code null}
+     */
+    public static TopicMetadataCache create(AdminClient adminClient) {
+        return adminClient != null ? new TopicMetadataCache(adminClient, DEFAULT_REFRESH_INTERVAL) : null;
+    }
+
+    /**
+     * Calculates the key that identifies the cluster, and security configuration, described by the given client
+     * configuration
+     *
+     * @param props Client configuration
+     * @return Cluster key
+     */
+    static String clusterKey(Properties props) {
+        Map<String, String> relevant = new TreeMap<>();
+        for (String name : props.stringPropertyNames()) {
+            if (name.equals(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG) || name.startsWith("security.")
+                || name.startsWith("sasl.") || name.startsWith("ssl.")) {
+                relevant.put(name, props.getProperty(name));
+            }
+        }
+        return relevant.toString();
+    }
+
+    /**
+     * Creates a new cache that is not shared
+     *
+     * @param adminClient     Admin client, this is closed when the cache is released
+     * @param refreshInterval Interval at which topics not yet known to exist are looked up again
+     */
+    TopicMetadataCache(AdminClient adminClient, Duration refreshInterval) {
+        this(null, adminClient, refreshInterval);
+    }
+
+    private TopicMetadataCache(String key, AdminClient adminClient, Duration refreshInterval) {
+        this.key = key;
+        this.adminClient = Objects.requireNonNull(adminClient, "Admin Client cannot be null");
+        this.refreshInterval = Objects.requireNonNull(refreshInterval, "Refresh Interval cannot be null");
+        if (refreshInterval.isNegative() || refreshInterval.isZero()) {
+            throw new IllegalArgumentException("Refresh Interval must be > 0");
+        }
+    }
+
+    /**
+     * Gets the shared scheduler used to run background refreshes, creating it if necessary
+     *
+     * @return Scheduler
+     */
+    private static synchronized ScheduledExecutorService scheduler() {
+        if (SCHEDULER == null) {
+            SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "KafkaTopicMetadataRefresher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return SCHEDULER;
+    }
+
+    /**
+     * Gets the admin client used by this cache
+     * <p>
+     * Callers <strong>MUST NOT</strong> close this, it is closed once the cache has been released by all its callers.
+     * </p>
+     *
+     * @return Admin client
+     */
+    public AdminClient adminClient() {
+        return this.adminClient;
+    }
+
+    /**
+     * Registers interest in some topics, starting a lookup of any that are not yet known to exist
+     *
+     * @param topics Topics
+     */
+    public void register(Collection<String> topics) {
+        boolean added = false;
+        for (String topic : topics) {
+            added |= this.topics.add(topic);
+        }
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            if (this.refreshTask == null) {
+                long interval = this.refreshInterval.toMillis();
+                this.refreshTask =
+                        scheduler().scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (added) {
+            refresh();
+        }
+    }
+
+    /**
+     * Gets whether a topic is known to exist
+     *
+     * @param topic Topic
+     * @return True if known to exist, false if known to not exist, {@code null} if not yet known
+     */
+    public Boolean exists(String topic) {
+        return this.topicExists.get(topic);
+    }
+
+    /**
+     * Waits until any of the given topics is known to exist
+     *
+     * @param topics  Topics, these <strong>MUST</strong> have been previously passed to {@link #register(Collection)}
+     * @param timeout Maximum time to wait
+     * @return True if any of the topics is known to exist, false if none were known to exist within the timeout
+     */
+    public boolean awaitAnyExists(Collection<String> topics, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (this) {
+            while (true) {
+                if (topics.stream().anyMatch(topic -> Boolean.TRUE.equals(this.topicExists.get(topic)))) {
+                    return true;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || this.closed) {
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Looks up all topics of interest that are not yet known to exist in a single request, unless a lookup is already
+     * in-flight
+     */
+    void refresh() {
+        Set<String> unknown = new LinkedHashSet<>();
+        for (String topic : this.topics) {
+            if (!Boolean.TRUE.equals(this.topicExists.get(topic))) {
+                unknown.add(topic);
+            }
+        }
+        synchronized (this) {
+            if (unknown.isEmpty() || this.inFlight || this.closed) {
+                return;
+            }
+            this.inFlight = true;
+        }
+
+        Map<String, KafkaFuture<TopicDescription>> results;
+        try {
+            results = this.adminClient.describeTopics(unknown).topicNameValues();
+        } catch (Throwable e) {
+            LOGGER.debug("Failed to describe Kafka topic(s) {}: {}", StringUtils.join(unknown, ", "), e.getMessage());
+            completed();
+            return;
+        }
+        KafkaFuture.allOf(results.values().toArray(new KafkaFuture[0])).whenComplete((r, e) -> {
+            results.forEach((topic, future) -> future.whenComplete((description, error) -> recordResult(topic, error)));
+            completed();
+        });
+    }
+
+    /**
+     * Records the result of looking up a topic
+     *
+     * @param topic Topic
+     * @param error Error, {@code null} if the topic exists
+     */
+    private void recordResult(String topic, Throwable error) {
+        if (error == null) {
+            this.topicExists.put(topic, true);
+            return;
+        }
+        this.topicExists.put(topic, false);
+        if (error instanceof AuthenticationException || error instanceof AuthorizationException) {
+            if (this.securityErrorsLogged.add(topic)) {
+                LOGGER.error("Kafka Security rejected the request to describe topic {}: ", topic, error);
+            }
+        } else if (!(error instanceof UnknownTopicOrPartitionException)) {
+            LOGGER.debug("Failed to describe Kafka topic {}: {}", topic, error.getMessage());
+        }
+    }
+
+    /**
+     * Marks the in-flight lookup as completed and wakes up anyone waiting on topic existence
+     */
+    private synchronized void completed() {
+        this.inFlight = false;
+        this.notifyAll();
+    }
+
+    /**
+     * Releases this callers reference to the cache, once all references are released the cache is closed along with
+     * its admin client
+     */
+    public void release() {
+        if (this.key != null) {
+            synchronized (SHARED) {
+                if (--this.references > 0) {
+                    return;
+                }
+                SHARED.remove(this.key, this);
+            }
+        }
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            if (this.refreshTask != null) {
+                this.refreshTask.cancel(false);
+            }
+            this.notifyAll();
+        }
+        this.adminClient.close();
+    }
+
+    /**
+     * Gets whether the cache has been closed
+     *
+     * @return True if closed, false otherwise
+     */
+    synchronized boolean isClosed() {
+        return this.closed;
+    }
+}
@@ -33,13 +33,12 @@ import java.util.Objects;
 import java.util.OptionalLong;
 import java.util.Properties;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.jena.atlas.logging.FmtLog;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
 import org.slf4j.Logger;
 
 /**
@@ -54,6 +53,12 @@ public abstract class AbstractReadPolicy<TKey, TValue> implements KafkaReadPolic
      */
     protected Consumer<TKey, TValue> consumer = null;
 
+    /**
+     * Cache of end offsets refreshed in the background, used to estimate lag when the consumer's own fetch metadata
+     * cannot yet provide it
+     */
+    protected EndOffsetCache endOffsetCache = null;
+
     /**
      * We create a basic cache to control the amount of repeated status messages logged that add no value.
      */
@@ -78,6 +83,11 @@ public abstract class AbstractReadPolicy<TKey, TValue> implements KafkaReadPolic
         this.consumer = consumer;
     }
 
+    @Override
+    public void setEndOffsetCache(EndOffsetCache cache) {
+        this.endOffsetCache = cache;
+    }
+
     /**
      * Gets the set of unique topics affected by a partition re-balance operation
      *
@@ -124,25 +134,69 @@ public abstract class AbstractReadPolicy<TKey, TValue> implements KafkaReadPolic
             return;
         }
 
-        // We want to accurately log the position and lag for each partition
-        // Since currentLag() is computed only from local metadata we have to force Kafka to look up the end offsets
-        // and positions for each partition prior to asking for the current lag
-        this.consumer.endOffsets(partitions);
+        // Positions and lag are taken from the consumer's local state, and our background refreshed end offsets, so
+        // we never block on a broker round trip here
         partitions.forEach(p -> {
-            long position = this.consumer.position(p);
-            OptionalLong currentLag = this.consumer.currentLag(p);
+            OptionalLong position = localPosition(p);
+            OptionalLong currentLag = estimateLag(p, position);
+            String knownPosition = position.isPresent() ? String.format("%,d", position.getAsLong()) : "unknown";
             String knownLag = currentLag.isPresent() ? String.format("%,d", currentLag.getAsLong()) : "unknown";
-            String key = String.format("%s-%d-%s", p , position , knownLag);
+            String key = String.format("%s-%s-%s", p, knownPosition, knownLag);
             if(LOGGING_CACHE.getIfPresent(key) == null) {
-                FmtLog.info(logger, "Kafka Partition %s is at position %,d with a current lag of %s", p,
-                        position, knownLag);
+                FmtLog.info(logger, "Kafka Partition %s is at position %s with a current lag of %s", p,
+                        knownPosition, knownLag);
                 LOGGING_CACHE.put(key, Boolean.TRUE);
             }
         });
     }
 
+    /**
+     * Gets the consumer's position for a partition, only if it is already known locally
+     *
+     * @param partition Partition
+     * @return Position, empty if not currently known
+     */
+    private OptionalLong localPosition(TopicPartition partition) {
+        try {
+            // A zero timeout means we get the position if already known, otherwise a lookup is triggered in the
+            // background and we time out immediately rather than blocking on it
+            return OptionalLong.of(this.consumer.position(partition, Duration.ZERO));
+        } catch (TimeoutException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * Estimates the lag for a partition without making any broker round trips
+     * <p>
+     * Primarily this relies upon the consumer's own fetch metadata, i.e. the high watermark returned with the most
+     * recent fetch for the partition.  If that isn't yet known, e.g. we've not yet fetched from the partition, then the
+     * end offsets from the {@link #endOffsetCache}, if any, are used instead.
+     * </p>
+     *
+     * @param partition Partition
+     * @param position  Consumer position for the partition, if known
+     * @return Estimated lag, empty if unknown
+     */
+    private OptionalLong estimateLag(TopicPartition partition, OptionalLong position) {
+        OptionalLong currentLag = this.consumer.currentLag(partition);
+        if (currentLag.isPresent() || this.endOffsetCache == null || position.isEmpty()) {
+            return currentLag;
+        }
+        OptionalLong endOffset = this.endOffsetCache.endOffset(partition);
+        if (endOffset.isEmpty()) {
+            return endOffset;
+        }
+        // Cached end offsets may be stale so never report a negative lag
+        return OptionalLong.of(Math.max(0, endOffset.getAsLong() - position.getAsLong()));
+    }
+
     /**
      * Calculates the total lag for the given partitions, or {@code null} if it cannot be calculated
+     * <p>
+     * This is an estimate based upon the consumer's own fetch metadata, and our background refreshed end offsets, so it
+     * is cheap enough to call frequently since it never blocks on a broker round trip.
+     * </p>
      *
      * @param partitions Partitions
      * @return Total lag
@@ -152,23 +206,17 @@ public abstract class AbstractReadPolicy<TKey, TValue> implements KafkaReadPolic
             return null;
         }
 
-        this.consumer.endOffsets(partitions);
-        AtomicBoolean anyUnknown = new AtomicBoolean(false);
-        AtomicLong totalLag = new AtomicLong();
-        partitions.forEach(p -> {
-            this.consumer.position(p);
+        long totalLag = 0;
+        for (TopicPartition p : partitions) {
             OptionalLong currentLag = this.consumer.currentLag(p);
-            if (currentLag.isPresent()) {
-                totalLag.addAndGet(currentLag.getAsLong());
-            } else {
-                anyUnknown.set(true);
+            if (currentLag.isEmpty()) {
+                currentLag = estimateLag(p, localPosition(p));
             }
-        });
-
-        if (anyUnknown.get()) {
-            return null;
-        } else {
-            return totalLag.get();
+            if (currentLag.isEmpty()) {
+                return null;
+            }
+            totalLag += currentLag.getAsLong();
         }
+        return totalLag;
     }
 }
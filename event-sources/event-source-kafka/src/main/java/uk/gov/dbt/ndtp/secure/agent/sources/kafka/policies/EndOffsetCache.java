@@ -0,0 +1,75 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * A thread-safe cache of the most recently known end offsets for topic partitions
+ * <p>
+ * This is populated in the background, e.g. by periodically querying Kafka via an
+ * {@link org.apache.kafka.clients.admin.AdminClient}, and allows read policies to estimate lag for partitions where the
+ * consumer's own fetch metadata does not yet provide it without making a blocking broker round trip.  Cached end offsets
+ * may be stale so any lag calculated from them is only an estimate.
+ * </p>
+ */
+public final class EndOffsetCache {
+
+    private final Map<TopicPartition, Long> endOffsets = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the most recently known end offset for a partition
+     *
+     * @param partition Partition
+     * @return End offset, empty if not known
+     */
+    public OptionalLong endOffset(TopicPartition partition) {
+        Long offset = this.endOffsets.get(partition);
+        return offset != null ? OptionalLong.of(offset) : OptionalLong.empty();
+    }
+
+    /**
+     * Updates the cached end offsets
+     *
+     * @param offsets End offsets
+     */
+    public void update(Map<TopicPartition, Long> offsets) {
+        Objects.requireNonNull(offsets, "Offsets cannot be null");
+        this.endOffsets.putAll(offsets);
+    }
+
+    /**
+     * Gets the number of partitions whose end offsets are cached
+     *
+     * @return Number of partitions
+     */
+    public int size() {
+        return this.endOffsets.size();
+    }
+}
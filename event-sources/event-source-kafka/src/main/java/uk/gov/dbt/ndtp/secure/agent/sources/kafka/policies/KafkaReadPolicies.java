@@ -24,6 +24,8 @@
  */
 package uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Map;
 import org.apache.kafka.common.TopicPartition;
 import uk.gov.dbt.ndtp.secure.agent.sources.kafka.KafkaEventSource;
@@ -32,6 +34,7 @@ import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.automatic.AutoFromEar
 import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.automatic.AutoFromEnd;
 import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.automatic.AutoFromLatest;
 import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.automatic.AutoFromOffset;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.automatic.AutoFromTimestamp;
 import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.manual.ManualFromBeginning;
 
 /**
@@ -124,4 +127,36 @@ public class KafkaReadPolicies {
                                                                            long defaultOffset) {
         return new AutoFromOffset<>(offsets, defaultOffset);
     }
+
+    /**
+     * Reads events starting from a specific point in time
+     * <p>
+     * Each partition is read from the earliest event whose timestamp is at, or after, the given timestamp.  Partitions
+     * with no such events are read from the end i.e. only new events are read from them.
+     * </p>
+     *
+     * @param timestamp Timestamp to read events from
+     * @param <TKey>    Key Type
+     * @param <TValue>  Value Type
+     * @return Read Policy
+     */
+    public static <TKey, TValue> KafkaReadPolicy<TKey, TValue> fromTimestamp(Instant timestamp) {
+        return new AutoFromTimestamp<>(timestamp);
+    }
+
+    /**
+     * Reads events starting from a duration ago
+     * <p>
+     * Equivalent to {@link #fromTimestamp(Instant)} where the timestamp is calculated relative to when partitions are
+     * first assigned to the consumer.
+     * </p>
+     *
+     * @param ago      How long ago to read events from
+     * @param <TKey>   Key Type
+     * @param <TValue> Value Type
+     * @return Read Policy
+     */
+    public static <TKey, TValue> KafkaReadPolicy<TKey, TValue> fromDuration(Duration ago) {
+        return new AutoFromTimestamp<>(ago);
+    }
 }
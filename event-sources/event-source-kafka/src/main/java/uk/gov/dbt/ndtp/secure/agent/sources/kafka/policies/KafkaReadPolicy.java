@@ -81,6 +81,34 @@ public interface KafkaReadPolicy<TKey, TValue> extends ConsumerRebalanceListener
      */
     void setConsumer(Consumer<TKey, TValue> consumer);
 
+    /**
+     * Sets a handler that the policy notifies, on the consumer thread, before partitions are revoked from it and after
+     * partitions are assigned to it, so that the event source can commit any offsets it has yet to commit while it
+     * still owns those partitions, and forget any state it holds for partitions it no longer owns
+     * <p>
+     * The default implementation ignores the handler, which is appropriate for policies that are not subscription based
+     * and thus never have partitions revoked.
+     * </p>
+     *
+     * @param handler Rebalance handler
+     */
+    default void setRebalanceHandler(RebalanceHandler handler) {
+        // No-op by default
+    }
+
+    /**
+     * Sets a cache of end offsets, refreshed in the background, that the policy may use to estimate lag when the
+     * consumer's own fetch metadata cannot yet provide it
+     * <p>
+     * The default implementation ignores the cache.
+     * </p>
+     *
+     * @param cache End offset cache
+     */
+    default void setEndOffsetCache(EndOffsetCache cache) {
+        // No-op by default
+    }
+
     /**
      * Configures the consumer to start receiving events
      *
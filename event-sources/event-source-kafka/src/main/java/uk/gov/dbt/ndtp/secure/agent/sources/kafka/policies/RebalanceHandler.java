@@ -0,0 +1,57 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies;
+
+import java.util.Collection;
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * Handler that a subscription based {@link KafkaReadPolicy} notifies, on the consumer thread, when the partitions
+ * assigned to its consumer change so that the event source can keep any per-partition state it holds consistent with
+ * the partitions it actually owns
+ */
+public interface RebalanceHandler {
+
+    /**
+     * Called before partitions are revoked from the consumer, i.e. while it still owns them, so any pending offsets
+     * for those partitions may still be committed
+     *
+     * @param partitions Partitions being revoked
+     */
+    void beforeRevocation(Collection<TopicPartition> partitions);
+
+    /**
+     * Called after partitions have been assigned to the consumer, and the read policy has applied any seeks for them
+     * <p>
+     * This is called after every rebalance, even if no partitions were newly assigned, since the consumer group
+     * generation has still changed.  The default implementation does nothing.
+     * </p>
+     *
+     * @param partitions Partitions assigned, may be empty
+     */
+    default void afterAssignment(Collection<TopicPartition> partitions) {
+        // No-op by default
+    }
+}
@@ -30,6 +30,7 @@ import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
 import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.AbstractReadPolicy;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.RebalanceHandler;
 import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.manual.AbstractManualReadPolicy;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
@@ -58,6 +59,7 @@ import org.slf4j.LoggerFactory;
  */
 public abstract class AbstractAutoReadPolicy<TKey, TValue> extends AbstractReadPolicy<TKey, TValue> {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractAutoReadPolicy.class);
+    private RebalanceHandler rebalanceHandler = null;
 
     @Override
     public boolean isSubscriptionBased() {
@@ -117,8 +119,23 @@ public abstract class AbstractAutoReadPolicy<TKey, TValue> extends AbstractReadP
         }
     }
 
+    @Override
+    public void setRebalanceHandler(RebalanceHandler handler) {
+        this.rebalanceHandler = handler;
+    }
+
     @Override
     public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        // Commit any pending offsets while we still own the partitions, otherwise whichever consumer is assigned them
+        // next would re-read events we have already processed
+        if (this.rebalanceHandler != null && !partitions.isEmpty()) {
+            try {
+                this.rebalanceHandler.beforeRevocation(partitions);
+            } catch (Throwable e) {
+                LOGGER.warn("Failed to commit pending offsets prior to partitions being revoked: {}", e.getMessage());
+            }
+        }
+
         Set<String> affectedTopics = getAffectedTopics(partitions);
         LOGGER.info("Revoked {} partitions for Kafka topic(s) {}", partitions.size(),
                     StringUtils.join(affectedTopics, ", "));
@@ -132,6 +149,16 @@ public abstract class AbstractAutoReadPolicy<TKey, TValue> extends AbstractReadP
 
         seek(partitions);
 
+        // Only once we've applied our seeks can the event source determine where it is now reading from.  The handler
+        // is notified even if no partitions were assigned since the consumer group generation has still changed.
+        if (this.rebalanceHandler != null) {
+            try {
+                this.rebalanceHandler.afterAssignment(partitions);
+            } catch (Throwable e) {
+                LOGGER.warn("Failed to handle partitions being assigned: {}", e.getMessage());
+            }
+        }
+
         logPartitionPositions(partitions, LOGGER);
     }
 
@@ -28,18 +28,45 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import org.apache.kafka.common.TopicPartition;
 
 /**
  * An automatic read policy that seeks within partitions when they are assigned to it guaranteeing that the seek happens
  * only once for each partition
+ * <p>
+ * Where several consumers in the same consumer group each have their own policy instance, e.g. the consumers of a
+ * {@link uk.gov.dbt.ndtp.secure.agent.sources.kafka.ParallelKafkaEventSource}, the policies should share their seek
+ * state via {@link #shareSeekedPartitions(AbstractAutoSeekingPolicy)}, otherwise a partition that moves between those
+ * consumers during a re-balance is seeked again by its new owner.
+ * </p>
  *
  * @param <TKey>   Key type
  * @param <TValue> Value type
  */
 public abstract class AbstractAutoSeekingPolicy<TKey, TValue> extends AbstractAutoReadPolicy<TKey, TValue> {
-    private final Set<TopicPartition> seekedPartitions = new HashSet<>();
+    private Set<TopicPartition> seekedPartitions = new HashSet<>();
+
+    /**
+     * Shares the record of which partitions have already been seeked with another policy of the same type, so that
+     * each partition is only seeked once across both policies
+     * <p>
+     * This <strong>MUST</strong> be called before either policy is in use.
+     * </p>
+     *
+     * @param other Policy whose seek state should be shared
+     * @throws IllegalArgumentException Thrown if the other policy is not of the same type as this policy
+     */
+    public final void shareSeekedPartitions(AbstractAutoSeekingPolicy<?, ?> other) {
+        Objects.requireNonNull(other, "Policy to share seeked partitions with cannot be null");
+        if (other.getClass() != this.getClass()) {
+            throw new IllegalArgumentException(
+                    String.format("Cannot share seeked partitions between policies of different types (%s and %s)",
+                                  this.getClass().getSimpleName(), other.getClass().getSimpleName()));
+        }
+        this.seekedPartitions = other.seekedPartitions;
+    }
 
     @Override
     protected final void seek(Collection<TopicPartition> partitions) {
@@ -0,0 +1,135 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.automatic;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A Kafka read policy that reads events from a point in time onwards from all assigned partitions (which are assigned
+ * automatically via Kafka Consumer Groups).
+ * <p>
+ * For each partition the consumer seeks to the earliest offset whose timestamp is greater than or equal to the desired
+ * timestamp, as determined by the Kafka brokers time index.  This allows targeted replays of recent events without
+ * having to read a topic from the beginning.  If a partition has no events at, or after, the desired timestamp then
+ * the consumer seeks to the end of that partition and only reads new events from it.
+ * </p>
+ * <p>
+ * Note that use of this policy means that events in a topic <strong>MAY</strong> be read and processed multiple times.
+ * </p>
+ *
+ * @param <TKey>   Key Type
+ * @param <TValue> Value Type
+ */
+public class AutoFromTimestamp<TKey, TValue> extends AbstractAutoSeekingPolicy<TKey, TValue> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AutoFromTimestamp.class);
+
+    private final Duration ago;
+    private volatile Instant timestamp;
+
+    /**
+     * Creates a new policy that reads events from the given timestamp onwards
+     *
+     * @param timestamp Timestamp
+     */
+    public AutoFromTimestamp(Instant timestamp) {
+        Objects.requireNonNull(timestamp, "timestamp cannot be null");
+        if (timestamp.isBefore(Instant.EPOCH)) {
+            throw new IllegalArgumentException("timestamp must be >= " + Instant.EPOCH);
+        }
+        this.timestamp = timestamp;
+        this.ago = null;
+    }
+
+    /**
+     * Creates a new policy that reads events from the given duration ago onwards
+     * <p>
+     * The timestamp to read from is calculated relative to when partitions are first assigned to the consumer, and the
+     * same timestamp is then used for any partitions subsequently assigned.
+     * </p>
+     *
+     * @param ago How long ago to read events from
+     */
+    public AutoFromTimestamp(Duration ago) {
+        Objects.requireNonNull(ago, "ago cannot be null");
+        if (ago.isNegative()) {
+            throw new IllegalArgumentException("ago must be >= 0");
+        }
+        this.ago = ago;
+        this.timestamp = null;
+    }
+
+    /**
+     * Gets the timestamp from which events are read
+     *
+     * @return Timestamp, or {@code null} if this policy reads from a duration ago and no partitions have yet been
+     *         assigned
+     */
+    public Instant getTimestamp() {
+        return this.timestamp;
+    }
+
+    @Override
+    protected void seekInternal(Collection<TopicPartition> partitions) {
+        if (this.timestamp == null) {
+            this.timestamp = Instant.now().minus(this.ago);
+            if (this.timestamp.isBefore(Instant.EPOCH)) {
+                this.timestamp = Instant.EPOCH;
+            }
+        }
+
+        long millis = this.timestamp.toEpochMilli();
+        Map<TopicPartition, Long> timestamps = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            timestamps.put(partition, millis);
+        }
+        Map<TopicPartition, OffsetAndTimestamp> offsets = this.consumer.offsetsForTimes(timestamps);
+
+        List<TopicPartition> noEventsSince = new ArrayList<>();
+        for (TopicPartition partition : partitions) {
+            OffsetAndTimestamp offset = offsets != null ? offsets.get(partition) : null;
+            if (offset != null) {
+                this.consumer.seek(partition, offset.offset());
+            } else {
+                noEventsSince.add(partition);
+            }
+        }
+        if (!noEventsSince.isEmpty()) {
+            LOGGER.info("{} partitions have no events since {}, reading only new events from those partitions",
+                        noEventsSince.size(), this.timestamp);
+            this.consumer.seekToEnd(noEventsSince);
+        }
+    }
+}
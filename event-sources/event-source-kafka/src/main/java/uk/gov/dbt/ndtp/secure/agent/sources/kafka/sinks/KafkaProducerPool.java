@@ -0,0 +1,355 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka.sinks;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.Uuid;
+import org.apache.kafka.common.metrics.KafkaMetric;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A reference-counted pool of Kafka producers that allows multiple {@link KafkaSink}'s to share a single underlying
+ * {@link KafkaProducer}, and thus its buffer memory, I/O thread and broker connections
+ * <p>
+ * Producers are keyed by their configuration, i.e. bootstrap servers plus any other producer configuration, excluding
+ * the key and value serializers.  Each {@link #acquire(Properties)} call returns a lightweight producer that serializes
+ * records itself, using the serializers from its configuration, before handing them off to the shared producer, so
+ * sinks writing different types of events to different topics may share a producer.  Once all the producers acquired
+ * for a given configuration have been closed the shared producer is closed.
+ * </p>
+ * <p>
+ * Sinks only share a producer when <strong>all</strong> of their configuration other than the serializers is
+ * identical, including any {@code client.id} and security credentials.  For example an application's work sink, which
+ * is typically configured with its own client ID, credentials or tuning, will not share a producer with the Live
+ * Reporter sinks, it is only those Live Reporter sinks configured identically that share a producer.
+ * </p>
+ * <p>
+ * Note that since a shared producer is used by many sinks it cannot be used transactionally, and that any fatal error
+ * from the shared producer affects all the sinks using it.  Also, flushing a producer acquired from the pool, which
+ * happens when it is closed, flushes all records sent via the shared producer.
+ * </p>
+ */
+public class KafkaProducerPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KafkaProducerPool.class);
+
+    private static final KafkaProducerPool DEFAULT = new KafkaProducerPool();
+
+    private final Map<Map<String, String>, PooledProducer> producers = new HashMap<>();
+
+    /**
+     * Gets the default producer pool that is shared across the entire application
+     *
+     * @return Default producer pool
+     */
+    public static KafkaProducerPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Acquires a producer for the given configuration, creating a new shared producer if no producer with the same
+     * configuration is currently in use
+     * <p>
+     * The returned producer <strong>MUST</strong> be closed once no longer needed in order to release the shared
+     * producer.
+     * </p>
+     *
+     * @param props    Producer configuration, this <strong>MUST</strong> include the bootstrap servers and the key and
+     *                 value serializers
+     * @param <TKey>   Key type
+     * @param <TValue> Value type
+     * @return Producer
+     */
+    public <TKey, TValue> Producer<TKey, TValue> acquire(Properties props) {
+        Objects.requireNonNull(props, "Producer configuration cannot be null");
+        if (StringUtils.isBlank(props.getProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG))) {
+            throw new IllegalArgumentException("Kafka bootstrapServers cannot be null");
+        }
+        if (props.containsKey(ProducerConfig.TRANSACTIONAL_ID_CONFIG)) {
+            throw new IllegalArgumentException("Shared Kafka producers cannot be transactional");
+        }
+        Serializer<TKey> keySerializer = createSerializer(props, ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, true);
+        Serializer<TValue> valueSerializer =
+                createSerializer(props, ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, false);
+
+        Map<String, String> key = toPoolKey(props);
+        PooledProducer pooled;
+        synchronized (this.producers) {
+            pooled = this.producers.get(key);
+            if (pooled == null) {
+                Properties sharedProps = new Properties();
+                sharedProps.putAll(props);
+                sharedProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+                sharedProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+                pooled = new PooledProducer(key, createProducer(sharedProps));
+                this.producers.put(key, pooled);
+                LOGGER.info("Created new shared Kafka producer for {}",
+                            props.getProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG));
+            }
+            pooled.references++;
+        }
+        return new SharedProducer<>(pooled, keySerializer, valueSerializer);
+    }
+
+    /**
+     * Gets the number of shared producers currently in use
+     *
+     * @return Number of shared producers
+     */
+    public int size() {
+        synchronized (this.producers) {
+            return this.producers.size();
+        }
+    }
+
+    /**
+     * Gets how many acquired producers currently reference the shared producer for the given configuration
+     *
+     * @param props Producer configuration
+     * @return Reference count, {@code 0} if there is no shared producer for the configuration
+     */
+    public int getReferenceCount(Properties props) {
+        synchronized (this.producers) {
+            PooledProducer pooled = this.producers.get(toPoolKey(props));
+            return pooled != null ? pooled.references : 0;
+        }
+    }
+
+    /**
+     * Creates the actual shared Kafka producer
+     * <p>
+     * This primarily exists for test purposes where it is useful to be able to introduce a
+     * {@link org.apache.kafka.clients.producer.MockProducer}
+     * </p>
+     *
+     * @param props Producer configuration, the key and value serializers are always {@link ByteArraySerializer}
+     * @return Kafka producer
+     */
+    protected Producer<byte[], byte[]> createProducer(Properties props) {
+        return new KafkaProducer<>(props);
+    }
+
+    private void release(PooledProducer pooled) {
+        synchronized (this.producers) {
+            pooled.references--;
+            if (pooled.references > 0) {
+                return;
+            }
+            this.producers.remove(pooled.key);
+        }
+        LOGGER.info("Closing shared Kafka producer as no longer in use");
+        pooled.producer.close();
+    }
+
+    private static Map<String, String> toPoolKey(Properties props) {
+        Map<String, String> key = new TreeMap<>();
+        props.forEach((name, value) -> key.put(String.valueOf(name), String.valueOf(value)));
+        key.remove(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG);
+        key.remove(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG);
+        return key;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Serializer<T> createSerializer(Properties props, String config, boolean isKey) {
+        Object serializerClass = props.get(config);
+        if (serializerClass == null || StringUtils.isBlank(serializerClass.toString())) {
+            throw new IllegalArgumentException("Kafka " + config + " cannot be null");
+        }
+        Serializer<T> serializer;
+        try {
+            if (serializerClass instanceof Class<?> cls) {
+                serializer = Utils.newInstance(cls, Serializer.class);
+            } else {
+                serializer = Utils.newInstance(serializerClass.toString(), Serializer.class);
+            }
+        } catch (ClassNotFoundException | KafkaException e) {
+            throw new IllegalArgumentException("Failed to create Kafka serializer " + serializerClass, e);
+        }
+        serializer.configure(Utils.propsToMap(props), isKey);
+        return serializer;
+    }
+
+    /**
+     * A shared producer, and the number of acquired producers currently referencing it
+     */
+    private static final class PooledProducer {
+        private final Map<String, String> key;
+        private final Producer<byte[], byte[]> producer;
+        private int references = 0;
+
+        private PooledProducer(Map<String, String> key, Producer<byte[], byte[]> producer) {
+            this.key = key;
+            this.producer = producer;
+        }
+    }
+
+    /**
+     * A producer acquired from the pool that serializes records before sending them via the shared producer
+     *
+     * @param <TKey>   Key type
+     * @param <TValue> Value type
+     */
+    private final class SharedProducer<TKey, TValue> implements Producer<TKey, TValue> {
+        private final PooledProducer pooled;
+        private final Serializer<TKey> keySerializer;
+        private final Serializer<TValue> valueSerializer;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        private SharedProducer(PooledProducer pooled, Serializer<TKey> keySerializer,
+                               Serializer<TValue> valueSerializer) {
+            this.pooled = pooled;
+            this.keySerializer = keySerializer;
+            this.valueSerializer = valueSerializer;
+        }
+
+        private Producer<byte[], byte[]> delegate() {
+            if (this.closed.get()) {
+                throw new IllegalStateException("Cannot use a shared Kafka producer after it has been closed");
+            }
+            return this.pooled.producer;
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<TKey, TValue> record) {
+            return send(record, null);
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<TKey, TValue> record, Callback callback) {
+            Producer<byte[], byte[]> producer = delegate();
+            byte[] key = this.keySerializer.serialize(record.topic(), record.headers(), record.key());
+            byte[] value = this.valueSerializer.serialize(record.topic(), record.headers(), record.value());
+            return producer.send(new ProducerRecord<>(record.topic(), record.partition(), record.timestamp(), key,
+                                                      value, record.headers()), callback);
+        }
+
+        @Override
+        public void flush() {
+            delegate().flush();
+        }
+
+        @Override
+        public List<PartitionInfo> partitionsFor(String topic) {
+            return delegate().partitionsFor(topic);
+        }
+
+        @Override
+        public Map<MetricName, ? extends Metric> metrics() {
+            return delegate().metrics();
+        }
+
+        @Override
+        public Uuid clientInstanceId(Duration timeout) {
+            return delegate().clientInstanceId(timeout);
+        }
+
+        @Override
+        public void registerMetricForSubscription(KafkaMetric metric) {
+            delegate().registerMetricForSubscription(metric);
+        }
+
+        @Override
+        public void unregisterMetricFromSubscription(KafkaMetric metric) {
+            delegate().unregisterMetricFromSubscription(metric);
+        }
+
+        @Override
+        public void initTransactions() {
+            throw notTransactional();
+        }
+
+        @Override
+        public void beginTransaction() {
+            throw notTransactional();
+        }
+
+        @Override
+        public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets,
+                                             ConsumerGroupMetadata groupMetadata) {
+            throw notTransactional();
+        }
+
+        @Override
+        public void commitTransaction() {
+            throw notTransactional();
+        }
+
+        @Override
+        public void abortTransaction() {
+            throw notTransactional();
+        }
+
+        private UnsupportedOperationException notTransactional() {
+            return new UnsupportedOperationException("Shared Kafka producers cannot be used transactionally");
+        }
+
+        @Override
+        public void close() {
+            close(Duration.ofMillis(Long.MAX_VALUE));
+        }
+
+        @Override
+        public void close(Duration timeout) {
+            if (!this.closed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                // Ensure everything sent via this producer has completed before we release the shared producer, this
+                // preserves the guarantee of a dedicated producer that all sends are complete once it is closed
+                this.pooled.producer.flush();
+            } finally {
+                this.keySerializer.close();
+                this.valueSerializer.close();
+                release(this.pooled);
+            }
+        }
+    }
+}
@@ -24,30 +24,63 @@
  */
 package uk.gov.dbt.ndtp.secure.agent.sources.kafka.sinks;
 
-import java.nio.charset.StandardCharsets;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableLongCounter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import io.opentelemetry.semconv.SemanticAttributes;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Stream;
 import lombok.NonNull;
-import uk.gov.dbt.ndtp.secure.agent.projectors.Sink;
+import uk.gov.dbt.ndtp.secure.agent.observability.IANodeMetrics;
+import uk.gov.dbt.ndtp.secure.agent.projectors.AsyncSink;
 import uk.gov.dbt.ndtp.secure.agent.projectors.SinkException;
 import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.builder.SinkBuilder;
 import uk.gov.dbt.ndtp.secure.agent.sources.Event;
 import uk.gov.dbt.ndtp.secure.agent.sources.Header;
+import uk.gov.dbt.ndtp.secure.agent.sources.PreEncodedHeaders;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.KafkaEvent;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.KafkaEventSource;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.KafkaMetricNames;
 import uk.gov.dbt.ndtp.secure.agent.sources.kafka.KafkaSecurity;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.Library;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.Metric;
 import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.config.SaslConfigs;
 import org.apache.kafka.common.header.internals.RecordHeader;
 import org.apache.kafka.common.security.auth.SecurityProtocol;
@@ -59,79 +92,455 @@ import org.slf4j.LoggerFactory;
  * <p>
  * This uses a {@link KafkaProducer} internally so all the sent events are sent asynchronously.
  * </p>
+ * <p>
+ * As an {@link AsyncSink} callers that need to know when an event has actually been acknowledged by Kafka may use
+ * {@link #sendAsync(Event)} instead of {@link #send(Event)}.
+ * </p>
+ * <p>
+ * When configured as transactional, via {@link KafkaSinkBuilder#transactional(String, KafkaEventSource)}, events are
+ * written inside Kafka producer transactions that also commit the offsets of the source events, so outputs and offsets
+ * are committed atomically, i.e. exactly-once processing.  Each transaction covers a batch of events, bounded by a
+ * maximum number of events and a maximum amount of time.  The current transaction is also committed before the
+ * source's partitions are revoked, and applications whose input may go idle <strong>MUST</strong> periodically call
+ * {@link #commitTransaction()}.
+ * </p>
+ * <p>
+ * Optionally the number of sends awaiting acknowledgement from Kafka may be bounded, via
+ * {@link KafkaSinkBuilder#maxInFlight(int)}, in which case sending blocks until an earlier send completes.  The current
+ * in-flight and total error counts are available via {@link #getInFlight()} and {@link #getErrorCount()}, and are also
+ * exposed as metrics.
+ * </p>
+ * <p>
+ * By default each sink creates its own {@link KafkaProducer}, alternatively a sink may use a producer shared with other
+ * sinks with the same producer configuration, via {@link KafkaSinkBuilder#sharedProducer()}, see
+ * {@link KafkaProducerPool} for more details.
+ * </p>
+ * <p>
+ * Synchronous sends, via {@link KafkaSinkBuilder#noAsync()}, incur a full round trip to Kafka for every event.  Where
+ * synchronous failure semantics are needed at higher volumes the sink may instead send batches synchronously, via
+ * {@link KafkaSinkBuilder#syncBatch(int, Duration)}, where events are sent asynchronously but the sink waits for all
+ * the events in the batch to be acknowledged once the batch is full, or its maximum wait has elapsed.
+ * </p>
  *
  * @param <TKey>   Key type
  * @param <TValue> Value type
  */
-public class KafkaSink<TKey, TValue> implements Sink<Event<TKey, TValue>> {
+public class KafkaSink<TKey, TValue> implements AsyncSink<Event<TKey, TValue>> {
+
+    /**
+     * Default maximum number of events written in a single transaction when the sink is transactional
+     */
+    public static final int DEFAULT_TRANSACTION_MAX_EVENTS = 1_000;
+    /**
+     * Default maximum amount of time a transaction is kept open when the sink is transactional
+     */
+    public static final Duration DEFAULT_TRANSACTION_MAX_INTERVAL = Duration.ofSeconds(1);
 
     private static final Logger LOGGER = LoggerFactory.getLogger(KafkaSink.class);
 
-    private final KafkaProducer<TKey, TValue> producer;
+    /**
+     * Kafka headers for headers that have been pre-encoded via {@link PreEncodedHeaders}
+     */
+    private static final Map<Header, org.apache.kafka.common.header.Header> KAFKA_HEADERS = new ConcurrentHashMap<>();
+
+    /**
+     * How long a send blocked on the in-flight limit waits before checking for asynchronous errors again
+     */
+    private static final long IN_FLIGHT_POLL_INTERVAL = 100;
+
+    private final Producer<TKey, TValue> producer;
     private final String topic;
     private final boolean async;
     private final Callback callback;
-    private final List<Exception> producerErrors = new ArrayList<>();
+    private final Queue<Exception> producerErrors = new ConcurrentLinkedQueue<>();
+    private volatile boolean producerErrorsPending = false;
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Semaphore inFlightPermits;
+    private final Attributes metricAttributes;
+    private final ObservableLongGauge inFlightMetric;
+    private final ObservableLongCounter errorsMetric;
+    private final KafkaEventSource<?, ?> transactionSource;
+    private final int transactionMaxEvents;
+    private final long transactionMaxIntervalNanos;
+    private final Map<TopicPartition, OffsetAndMetadata> transactionOffsets = new HashMap<>();
+    /**
+     * Guards transaction and synchronous batch state, only taken when the sink is transactional or uses synchronous
+     * batches so plain sinks never contend on it
+     */
+    private final Object transactionLock = new Object();
+    private boolean transactionsInitialised = false, inTransaction = false;
+    private int transactionEvents = 0;
+    private long transactionStarted;
+    private final int syncBatchSize;
+    private final long syncBatchMaxWaitNanos;
+    private final List<Future<RecordMetadata>> syncBatch = new ArrayList<>();
+    private long syncBatchStarted;
+    private ScheduledFuture<?> syncBatchTimer;
+    private Future<?> expiredBatchCompletion;
 
     /**
-     * Creates a new Kafka sink
+     * Creates a new Kafka sink from the configuration held by the given builder
      *
-     * @param bootstrapServers     Bootstrap servers for connecting to the Kafka cluster
-     * @param topic                Kafka topic to write events to
-     * @param keySerializerClass   Serializer to use for event keys
-     * @param valueSerializerClass Serializer to use for event values
-     * @param lingerMilliseconds   Linger milliseconds, reduces the number of requests made to Kafka by batching events
-     *                             together at the cost of event sending latency
-     */
-    KafkaSink(final String bootstrapServers, final String topic, final String keySerializerClass,
-              final String valueSerializerClass, final Integer lingerMilliseconds, final boolean async,
-              final Callback callback, Properties producerProperties) {
-        if (StringUtils.isBlank(bootstrapServers)) {
+     * @param builder Builder
+     */
+    KafkaSink(final KafkaSinkBuilder<TKey, TValue> builder) {
+        if (StringUtils.isBlank(builder.bootstrapServers)) {
             throw new IllegalArgumentException("Kafka bootstrapServers cannot be null");
         }
-        if (StringUtils.isBlank(topic)) {
+        if (StringUtils.isBlank(builder.topic)) {
             throw new IllegalArgumentException("Kafka topic to read cannot be null");
         }
-        if (StringUtils.isBlank(keySerializerClass)) {
+        if (StringUtils.isBlank(builder.keySerializerClass)) {
             throw new IllegalArgumentException("Kafka keySerializerClass cannot be null");
         }
-        if (StringUtils.isBlank(valueSerializerClass)) {
+        if (StringUtils.isBlank(builder.valueSerializerClass)) {
             throw new IllegalArgumentException("Kafka valueSerializerClass cannot be null");
         }
-        this.topic = topic;
+        boolean transactional = builder.transactionalId != null;
+        if (transactional) {
+            if (StringUtils.isBlank(builder.transactionalId)) {
+                throw new IllegalArgumentException("Kafka transactionalId cannot be blank");
+            }
+            Objects.requireNonNull(builder.transactionSource,
+                                   "Transactional Kafka Sink requires a Kafka event source");
+            if (builder.transactionMaxEvents < 1) {
+                throw new IllegalArgumentException("Transaction max events must be >= 1");
+            }
+            if (builder.transactionMaxInterval == null || builder.transactionMaxInterval.isNegative()
+                    || builder.transactionMaxInterval.isZero()) {
+                throw new IllegalArgumentException("Transaction max interval must be a positive duration");
+            }
+            if (builder.producerPool != null) {
+                throw new IllegalArgumentException("Transactional Kafka Sink cannot use a shared producer");
+            }
+        }
+        if (builder.maxInFlight != null && builder.maxInFlight < 1) {
+            throw new IllegalArgumentException("Max in-flight sends must be >= 1");
+        }
+        boolean syncBatching = builder.syncBatchSize != null;
+        if (syncBatching) {
+            if (builder.syncBatchSize < 1) {
+                throw new IllegalArgumentException("Synchronous batch size must be >= 1");
+            }
+            if (builder.syncBatchMaxWait == null || builder.syncBatchMaxWait.isNegative()
+                    || builder.syncBatchMaxWait.isZero()) {
+                throw new IllegalArgumentException("Synchronous batch max wait must be a positive duration");
+            }
+        }
+        this.topic = builder.topic;
 
         Properties props = new Properties();
-        if (producerProperties != null) {
-            props.putAll(producerProperties);
-        }
-        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, keySerializerClass);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, valueSerializerClass);
-        if (lingerMilliseconds != null && lingerMilliseconds > 0) {
-            if (!async) {
+        props.putAll(builder.properties);
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, builder.bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, builder.keySerializerClass);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, builder.valueSerializerClass);
+        if (builder.lingerMs != null && builder.lingerMs > 0) {
+            if (!builder.async && !syncBatching) {
                 LOGGER.warn("Kafka Sink created with synchronous sends so linger milliseconds is ignored");
             } else {
-                props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMilliseconds);
+                props.put(ProducerConfig.LINGER_MS_CONFIG, builder.lingerMs);
             }
         }
-        this.producer = new KafkaProducer<>(props);
+        if (transactional) {
+            props.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, builder.transactionalId);
+            props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        }
+        this.producer = builder.producerPool != null ? builder.producerPool.acquire(props) :
+                        builder.producerFactory.apply(props);
+
+        this.transactionSource = transactional ? builder.transactionSource : null;
+        this.transactionMaxEvents = builder.transactionMaxEvents;
+        this.transactionMaxIntervalNanos = transactional ? builder.transactionMaxInterval.toNanos() : 0;
+        if (this.transactionSource != null) {
+            this.transactionSource.enableTransactionalCommits(partitions -> partitionsRevoked());
+        }
+
+        this.syncBatchSize = syncBatching ? builder.syncBatchSize : 0;
+        this.syncBatchMaxWaitNanos = syncBatching ? builder.syncBatchMaxWait.toNanos() : 0;
 
-        this.async = async;
-        this.callback = this.async ? Objects.requireNonNullElse(callback, new CompletionHandler(this)) : null;
+        this.async = builder.async;
+        this.callback =
+                this.async ? Objects.requireNonNullElse(builder.callback, new CompletionHandler(this)) : null;
+        this.inFlightPermits = builder.maxInFlight != null ? new Semaphore(builder.maxInFlight) : null;
+
+        // Prepare metrics, for Messaging systems there are a bunch of predefined attributes we reuse
+        this.metricAttributes = Attributes.of(SemanticAttributes.MESSAGING_OPERATION, "publish",
+                                              SemanticAttributes.MESSAGING_DESTINATION_NAME, this.topic,
+                                              SemanticAttributes.MESSAGING_SYSTEM, "kafka");
+        Meter meter = IANodeMetrics.getMeter(Library.NAME);
+        this.inFlightMetric = meter.gaugeBuilder(KafkaMetricNames.SINK_IN_FLIGHT)
+                                   .setDescription(KafkaMetricNames.SINK_IN_FLIGHT_DESCRIPTION)
+                                   .ofLongs()
+                                   .buildWithCallback(
+                                           measure -> measure.record(this.inFlight.get(), this.metricAttributes));
+        this.errorsMetric = meter.counterBuilder(KafkaMetricNames.SINK_ERRORS)
+                                 .setDescription(KafkaMetricNames.SINK_ERRORS_DESCRIPTION)
+                                 .buildWithCallback(
+                                         measure -> measure.record(this.errorCount.get(), this.metricAttributes));
     }
 
     @Override
     public void send(Event<TKey, TValue> event) {
-        Objects.requireNonNull(event, "Event cannot be null");
-        ProducerRecord<TKey, TValue> record = new ProducerRecord<>(this.topic, null, null, event.key(), event.value(),
-                                                                   toKafkaHeaders(event.headers()));
-        if (this.async) {
-            asynchronousSend(record);
-        } else {
-            synchronousSend(record);
+        ProducerRecord<TKey, TValue> record = toProducerRecord(event);
+        if (!isTransactional() && this.syncBatchSize == 0) {
+            // Without transactions, or synchronous batches, there is no state shared between sends to guard
+            if (this.async) {
+                asynchronousSend(record);
+            } else {
+                synchronousSend(record);
+            }
+            return;
+        }
+
+        if (this.syncBatchSize > 0) {
+            // Surface any failure of a batch completed by its timer before sending anything further
+            checkForAsyncErrors();
+        }
+        // Wait for in-flight capacity before taking the lock so a blocked send never holds up other users of the lock
+        acquireInFlightPermit();
+        synchronized (this.transactionLock) {
+            beginTransactionIfNeededOrRelease();
+            try {
+                if (this.async) {
+                    trackedSend(record, this.callback);
+                    this.checkForAsyncErrors();
+                } else if (this.syncBatchSize > 0) {
+                    batchedSend(record);
+                } else {
+                    awaitSend(trackedSend(record, null));
+                }
+            } catch (RuntimeException e) {
+                abortTransaction();
+                throw e;
+            }
+            addToTransaction(event);
         }
     }
 
+    /**
+     * Sends an event to Kafka asynchronously, returning a future that completes once Kafka has acknowledged the event
+     * <p>
+     * This always sends asynchronously regardless of whether the sink was configured for synchronous sends.  Any
+     * failure to send the event is reported solely via the returned future, with the exception that errors from
+     * previous asynchronous sends made via {@link #send(Event)} are still thrown immediately.  If a custom producer
+     * callback was configured then it is also invoked.
+     * </p>
+     *
+     * @param event Event
+     * @return Future that completes once Kafka has acknowledged the event
+     */
+    @Override
+    public CompletableFuture<Void> sendAsync(Event<TKey, TValue> event) {
+        ProducerRecord<TKey, TValue> record = toProducerRecord(event);
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Callback userCallback = this.callback instanceof CompletionHandler ? null : this.callback;
+        Callback completion = (metadata, exception) -> {
+            if (userCallback != null) {
+                userCallback.onCompletion(metadata, exception);
+            }
+            if (exception != null) {
+                future.completeExceptionally(exception);
+            } else {
+                future.complete(null);
+            }
+        };
+        acquireInFlightPermit();
+        if (!isTransactional()) {
+            trackedSend(record, completion);
+            this.checkForAsyncErrors();
+            return future;
+        }
+        synchronized (this.transactionLock) {
+            beginTransactionIfNeededOrRelease();
+            try {
+                trackedSend(record, completion);
+                this.checkForAsyncErrors();
+            } catch (RuntimeException e) {
+                abortTransaction();
+                throw e;
+            }
+            addToTransaction(event);
+        }
+        return future;
+    }
+
+    /**
+     * Gets whether this sink is transactional
+     *
+     * @return True if transactional, false otherwise
+     */
+    public boolean isTransactional() {
+        return this.transactionSource != null;
+    }
+
+    /**
+     * Commits the current transaction, if any, regardless of whether its event count or time limit has been reached
+     * <p>
+     * Transactions are otherwise only committed by {@link #send(Event)} calls, before the source's partitions are
+     * revoked, and on {@link #close()}.  Since the time limit is only checked when events are sent, applications whose
+     * input can go idle <strong>MUST</strong> call this periodically, e.g. whenever polling the source returns no
+     * events, otherwise the open transaction may exceed the producers {@code transaction.timeout.ms} and be aborted by
+     * Kafka.  If the sink is not transactional this does nothing.
+     * </p>
+     *
+     * @throws SinkException Thrown if the transaction could not be committed, in which case it is aborted
+     */
+    public void commitTransaction() {
+        if (!isTransactional()) {
+            return;
+        }
+        synchronized (this.transactionLock) {
+            if (!this.inTransaction) {
+                return;
+            }
+            commitCurrentTransaction();
+        }
+    }
+
+    /**
+     * Called, on the source's consumer thread, before partitions are revoked from the source's consumer
+     * <p>
+     * The current transaction is committed while the consumer still owns the partitions, otherwise it would later
+     * commit offsets for partitions that another member of the consumer group may now own.  If the commit fails the
+     * transaction is aborted and the failure is reported to the caller, like an asynchronous error, upon its next use
+     * of the sink.
+     * </p>
+     */
+    private void partitionsRevoked() {
+        synchronized (this.transactionLock) {
+            if (!this.inTransaction) {
+                return;
+            }
+            try {
+                commitCurrentTransaction();
+            } catch (SinkException e) {
+                LOGGER.warn("Failed to commit Kafka transaction prior to partitions being revoked: {}", e.getMessage());
+                this.producerErrors.add(e);
+                this.producerErrorsPending = true;
+            }
+        }
+    }
+
+    /**
+     * Commits the current transaction, callers <strong>MUST</strong> hold the transaction lock and have already
+     * checked that a transaction is open
+     *
+     * @throws SinkException Thrown if the transaction could not be committed, in which case it is aborted
+     */
+    private void commitCurrentTransaction() {
+        try {
+            // Surface any per-event failures before committing the transaction
+            completeBatch();
+        } catch (RuntimeException e) {
+            abortTransaction();
+            throw e;
+        }
+        try {
+            if (!this.transactionOffsets.isEmpty()) {
+                this.producer.sendOffsetsToTransaction(new HashMap<>(this.transactionOffsets),
+                                                       this.transactionSource.groupMetadata());
+            }
+            this.producer.commitTransaction();
+        } catch (KafkaException e) {
+            abortTransaction();
+            SinkException sinkError =
+                    new SinkException("Failed to commit Kafka transaction, see cause for details", e);
+            drainAsyncErrors().forEach(sinkError::addSuppressed);
+            throw sinkError;
+        }
+        resetTransaction();
+        checkForAsyncErrors();
+    }
+
+    private void beginTransactionIfNeeded() {
+        if (this.transactionSource == null || this.inTransaction) {
+            return;
+        }
+
+        // Surface any failure to commit the previous transaction, e.g. prior to partitions being revoked, before
+        // starting another
+        checkForAsyncErrors();
+        try {
+            if (!this.transactionsInitialised) {
+                this.producer.initTransactions();
+                this.transactionsInitialised = true;
+            }
+            this.producer.beginTransaction();
+        } catch (KafkaException e) {
+            throw new SinkException("Failed to begin Kafka transaction, see cause for details", e);
+        }
+        this.inTransaction = true;
+        this.transactionStarted = System.nanoTime();
+    }
+
+    /**
+     * Begins a transaction if needed, releasing the in-flight permit the caller acquired for its send if that fails
+     */
+    private void beginTransactionIfNeededOrRelease() {
+        try {
+            beginTransactionIfNeeded();
+        } catch (RuntimeException e) {
+            releaseInFlightPermit();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds the offset of the given event to the current transaction, committing the transaction if either its event
+     * count or time limit has been reached
+     * <p>
+     * Only events read from the configured source carry offsets that can be committed, any other events are still
+     * written within the transaction but don't contribute offsets.
+     * </p>
+     *
+     * @param event Event
+     */
+    private void addToTransaction(Event<TKey, TValue> event) {
+        if (!this.inTransaction) {
+            return;
+        }
+
+        if (event instanceof KafkaEvent<?, ?> kafkaEvent && kafkaEvent.source() == this.transactionSource) {
+            // Kafka wants the next offset to be read so have to add 1 to the offset of the event
+            ConsumerRecord<?, ?> record = kafkaEvent.getConsumerRecord();
+            this.transactionOffsets.merge(new TopicPartition(record.topic(), record.partition()),
+                                          new OffsetAndMetadata(record.offset() + 1),
+                                          (a, b) -> a.offset() >= b.offset() ? a : b);
+        }
+        this.transactionEvents++;
+        if (this.transactionEvents >= this.transactionMaxEvents
+                || System.nanoTime() - this.transactionStarted >= this.transactionMaxIntervalNanos) {
+            commitCurrentTransaction();
+        }
+    }
+
+    private void abortTransaction() {
+        if (!this.inTransaction) {
+            return;
+        }
+
+        try {
+            this.producer.abortTransaction();
+        } catch (KafkaException e) {
+            // Fatal errors, e.g. the producer being fenced, don't permit aborting, the caller is already handling the
+            // original error so just log this
+            LOGGER.warn("Failed to abort Kafka transaction: {}", e.getMessage());
+        }
+        resetTransaction();
+    }
+
+    private void resetTransaction() {
+        this.inTransaction = false;
+        this.transactionEvents = 0;
+        this.transactionOffsets.clear();
+    }
+
+    private ProducerRecord<TKey, TValue> toProducerRecord(Event<TKey, TValue> event) {
+        Objects.requireNonNull(event, "Event cannot be null");
+        return new ProducerRecord<>(this.topic, null, null, event.key(), event.value(), toKafkaHeaders(event));
+    }
+
     /**
      * Sends the prepared {@link ProducerRecord} asynchronously to Kafka.
      * <p>
@@ -144,7 +553,8 @@ public class KafkaSink<TKey, TValue> implements Sink<Event<TKey, TValue>> {
      */
     protected final void asynchronousSend(ProducerRecord<TKey, TValue> record) {
         // Asynchronous send, just send the record and use the callback to handle any issues
-        this.producer.send(record, this.callback);
+        acquireInFlightPermit();
+        trackedSend(record, this.callback);
 
         // However immediately check for any async errors as we may only now be seeing errors from previous send
         // attempts
@@ -163,7 +573,17 @@ public class KafkaSink<TKey, TValue> implements Sink<Event<TKey, TValue>> {
      */
     protected final void synchronousSend(ProducerRecord<TKey, TValue> record) {
         // Synchronous send, send the message and wait for confirmation it was produced
-        Future<RecordMetadata> future = this.producer.send(record);
+        acquireInFlightPermit();
+        awaitSend(trackedSend(record, null));
+    }
+
+    /**
+     * Waits for a send to be acknowledged by the producer
+     *
+     * @param future Future for the send
+     * @throws SinkException Thrown if the send failed
+     */
+    private void awaitSend(Future<RecordMetadata> future) {
         try {
             RecordMetadata metadata = future.get();
             if (metadata == null) {
@@ -175,6 +595,253 @@ public class KafkaSink<TKey, TValue> implements Sink<Event<TKey, TValue>> {
         }
     }
 
+    /**
+     * Sends the prepared {@link ProducerRecord} to Kafka as part of the current synchronous batch
+     * <p>
+     * The record is sent asynchronously, and once the batch is full, or its maximum wait has elapsed, this waits for
+     * all the events in the batch to be acknowledged via {@link #completeBatch()}.  When a new batch is started a
+     * timer is also scheduled to complete it once its maximum wait elapses, see {@link #completeExpiredBatch()}.
+     * </p>
+     *
+     * @param record Producer Record
+     */
+    private void batchedSend(ProducerRecord<TKey, TValue> record) {
+        if (this.syncBatch.isEmpty()) {
+            this.syncBatchStarted = System.nanoTime();
+            this.syncBatchTimer =
+                    BatchExecutors.TIMER.schedule(this::completeExpiredBatch, this.syncBatchMaxWaitNanos,
+                                                  TimeUnit.NANOSECONDS);
+        }
+        this.syncBatch.add(trackedSend(record, null));
+        if (this.syncBatch.size() >= this.syncBatchSize
+                || System.nanoTime() - this.syncBatchStarted >= this.syncBatchMaxWaitNanos) {
+            awaitBatch(takeCurrentBatch());
+        }
+    }
+
+    /**
+     * Waits for all the events in the current synchronous batch, if any, to be acknowledged by Kafka regardless of
+     * whether the batch is full or its maximum wait has elapsed
+     * <p>
+     * Batches are otherwise completed by {@link #send(Event)} calls, on {@link #close()}, and by a timer once their
+     * maximum wait has elapsed.  This also waits for any batches the timer is still completing in the background.  If
+     * the sink does not use synchronous batches this does nothing.
+     * </p>
+     *
+     * @throws SinkException Thrown if any events in the batch failed to be sent, each failed event is reported as a
+     *                       suppressed error identifying its position within the batch, or if a batch previously
+     *                       completed by its timer failed
+     */
+    public void completeBatch() {
+        if (this.syncBatchSize == 0) {
+            return;
+        }
+        List<Future<RecordMetadata>> batch;
+        Future<?> expired;
+        synchronized (this.transactionLock) {
+            batch = takeCurrentBatch();
+            expired = this.expiredBatchCompletion;
+        }
+        awaitExpiredBatches(expired);
+        awaitBatch(batch);
+        checkForAsyncErrors();
+    }
+
+    /**
+     * Called, on the shared timer thread, to complete the current synchronous batch if its maximum wait has elapsed
+     * <p>
+     * This bounds how long events are left unacknowledged when the input goes idle.  The batch is taken under the lock,
+     * but waiting for it to be acknowledged happens on a separate thread without holding the lock, so a slow batch
+     * neither blocks sends on this sink nor delays the timers of other sinks.  Since there is no caller to throw to any
+     * failure is reported, like an asynchronous error, upon the next use of the sink.  A timer for an earlier batch
+     * that fires after that batch was completed finds the current batch has not yet expired, and does nothing.
+     * </p>
+     */
+    private void completeExpiredBatch() {
+        synchronized (this.transactionLock) {
+            if (this.syncBatch.isEmpty() || System.nanoTime() - this.syncBatchStarted < this.syncBatchMaxWaitNanos) {
+                return;
+            }
+            List<Future<RecordMetadata>> batch = takeCurrentBatch();
+            // Expired batches complete in order so waiting on the latest one also waits on any earlier ones
+            Future<?> previous = this.expiredBatchCompletion;
+            this.expiredBatchCompletion = BatchExecutors.COMPLETER.submit(() -> {
+                try {
+                    awaitExpiredBatches(previous);
+                    awaitBatch(batch);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Failed to complete synchronous batch of Kafka sends: {}", e.getMessage());
+                    this.producerErrors.add(e);
+                    this.producerErrorsPending = true;
+                }
+            });
+        }
+    }
+
+    /**
+     * Waits for any expired batches that are being completed in the background, primarily intended for tests
+     */
+    void awaitExpiredBatches() {
+        Future<?> expired;
+        synchronized (this.transactionLock) {
+            expired = this.expiredBatchCompletion;
+        }
+        awaitExpiredBatches(expired);
+    }
+
+    /**
+     * Waits for any expired batches that are being completed in the background to be completed, their failures are
+     * reported as asynchronous errors
+     *
+     * @param completion Completion of the most recently expired batch, may be {@code null}
+     */
+    private void awaitExpiredBatches(Future<?> completion) {
+        if (completion == null) {
+            return;
+        }
+        try {
+            completion.get();
+        } catch (ExecutionException e) {
+            // Completion reports its own failures as asynchronous errors
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SinkException("Interrupted while waiting for batch of Kafka sends to complete", e);
+        }
+    }
+
+    /**
+     * Takes the events of the current synchronous batch, starting a new batch, callers <strong>MUST</strong> hold the
+     * transaction lock
+     *
+     * @return Futures for the sends in the batch, empty if there is no current batch
+     */
+    private List<Future<RecordMetadata>> takeCurrentBatch() {
+        if (this.syncBatch.isEmpty()) {
+            return List.of();
+        }
+        if (this.syncBatchTimer != null) {
+            this.syncBatchTimer.cancel(false);
+            this.syncBatchTimer = null;
+        }
+        List<Future<RecordMetadata>> batch = new ArrayList<>(this.syncBatch);
+        this.syncBatch.clear();
+        return batch;
+    }
+
+    /**
+     * Waits for all the events in a synchronous batch to be acknowledged by Kafka, this does not require the
+     * transaction lock
+     *
+     * @param batch Futures for the sends in the batch
+     * @throws SinkException Thrown if any events in the batch failed to be sent
+     */
+    private void awaitBatch(List<Future<RecordMetadata>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        // Don't wait out any configured linger for the remainder of the batch
+        this.producer.flush();
+
+        List<SinkException> errors = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                if (batch.get(i).get() == null) {
+                    errors.add(new SinkException(
+                            String.format("Event %,d of %,d in batch: Kafka Producer returned null metadata", i + 1,
+                                          batch.size())));
+                }
+            } catch (ExecutionException e) {
+                errors.add(new SinkException(
+                        String.format("Event %,d of %,d in batch failed to send to Kafka, see cause for details", i + 1,
+                                      batch.size()), e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SinkException("Interrupted while waiting for batch of Kafka sends to complete", e);
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            SinkException e = new SinkException(
+                    String.format("%,d of %,d events in batch failed to send to Kafka", errors.size(), batch.size())
+                            + ", see suppressed errors for details");
+            errors.forEach(e::addSuppressed);
+            throw e;
+        }
+    }
+
+    /**
+     * Acquires an in-flight permit for a send, if an in-flight limit is configured
+     * <p>
+     * This blocks until the number of in-flight sends is below the limit so callers <strong>MUST NOT</strong> hold
+     * any lock while calling it.  While blocked, asynchronous errors are checked for periodically so that a failing
+     * Kafka cluster results in a {@link SinkException} rather than blocking indefinitely.
+     * </p>
+     */
+    private void acquireInFlightPermit() {
+        if (this.inFlightPermits == null) {
+            return;
+        }
+        try {
+            while (!this.inFlightPermits.tryAcquire(IN_FLIGHT_POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+                checkForAsyncErrors();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SinkException("Interrupted while waiting for in-flight Kafka sends to complete", e);
+        }
+    }
+
+    /**
+     * Releases an in-flight permit acquired for a send that was never handed to the producer
+     */
+    private void releaseInFlightPermit() {
+        if (this.inFlightPermits != null) {
+            this.inFlightPermits.release();
+        }
+    }
+
+    /**
+     * Sends a record to Kafka, tracking it as in-flight until the producer invokes its callback
+     * <p>
+     * Callers <strong>MUST</strong> have first acquired an in-flight permit via {@link #acquireInFlightPermit()},
+     * which is released once the send completes.
+     * </p>
+     *
+     * @param record   Producer Record
+     * @param callback Callback, may be {@code null}
+     * @return Future for the send
+     */
+    private Future<RecordMetadata> trackedSend(ProducerRecord<TKey, TValue> record, Callback callback) {
+        this.inFlight.incrementAndGet();
+
+        InFlightCallback tracker = new InFlightCallback(callback);
+        try {
+            return this.producer.send(record, tracker);
+        } catch (RuntimeException e) {
+            // Some send failures are thrown directly without the callback being invoked
+            tracker.complete(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of sends that are currently awaiting acknowledgement from Kafka
+     *
+     * @return In-flight sends
+     */
+    public int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    /**
+     * Gets the total number of sends that have failed over the lifetime of this sink
+     *
+     * @return Error count
+     */
+    public long getErrorCount() {
+        return this.errorCount.get();
+    }
+
     /**
      * Maps headers using our Event API into the Header format used by Kafka
      *
@@ -182,16 +849,72 @@ public class KafkaSink<TKey, TValue> implements Sink<Event<TKey, TValue>> {
      * @return Kafka headers
      */
     public static List<org.apache.kafka.common.header.Header> toKafkaHeaders(Stream<Header> headers) {
-        return headers.map(h -> (org.apache.kafka.common.header.Header) new RecordHeader(h.key(), h.value()
-                                                                                                   .getBytes(
-                                                                                                           StandardCharsets.UTF_8)))
-                      .toList();
+        return headers.map(KafkaSink::toKafkaHeader).toList();
+    }
+
+    /**
+     * Gets the headers of an event in the Header format used by Kafka
+     * <p>
+     * If the event was read from Kafka, and so already holds Kafka headers, those are returned as-is without decoding
+     * and re-encoding them.  Otherwise each header is mapped via {@link #toKafkaHeader(Header)}.
+     * </p>
+     *
+     * @param event Event
+     * @return Kafka headers
+     */
+    public static Iterable<org.apache.kafka.common.header.Header> toKafkaHeaders(Event<?, ?> event) {
+        if (event instanceof KafkaEvent<?, ?> kafkaEvent) {
+            return kafkaEvent.getConsumerRecord().headers();
+        }
+        List<org.apache.kafka.common.header.Header> headers = new ArrayList<>();
+        event.headers().forEach(h -> headers.add(toKafkaHeader(h)));
+        return headers;
+    }
+
+    /**
+     * Maps a header using our Event API into the Header format used by Kafka
+     * <p>
+     * For headers that were pre-encoded via {@link PreEncodedHeaders}, e.g. fixed headers added by an
+     * {@link uk.gov.dbt.ndtp.secure.agent.projectors.sinks.events.EventHeaderSink}, the same Kafka header instance is
+     * reused for every event so no per-event encoding or allocation happens.  Any other header is encoded on demand.
+     * </p>
+     *
+     * @param header Header
+     * @return Kafka header
+     */
+    public static org.apache.kafka.common.header.Header toKafkaHeader(Header header) {
+        org.apache.kafka.common.header.Header kafkaHeader = KAFKA_HEADERS.get(header);
+        if (kafkaHeader != null) {
+            return kafkaHeader;
+        }
+        if (PreEncodedHeaders.isPreEncoded(header)) {
+            // Only pre-encoded headers are cached so this is bounded by the size of the pre-encoded headers cache
+            return KAFKA_HEADERS.computeIfAbsent(header,
+                                                 h -> new RecordHeader(h.key(), PreEncodedHeaders.encodeValue(h)));
+        }
+        return new RecordHeader(header.key(), PreEncodedHeaders.encodeValue(header));
     }
 
 
     @Override
     public void close() {
-        this.producer.close();
+        try {
+            commitTransaction();
+            completeBatch();
+        } finally {
+            if (this.syncBatchSize > 0) {
+                synchronized (this.transactionLock) {
+                    // Never let a pending batch timer use the producer once it is closed
+                    if (this.syncBatchTimer != null) {
+                        this.syncBatchTimer.cancel(false);
+                        this.syncBatchTimer = null;
+                    }
+                }
+            }
+            this.producer.close();
+            this.inFlightMetric.close();
+            this.errorsMetric.close();
+        }
 
         checkForAsyncErrors();
     }
@@ -199,19 +922,42 @@ public class KafkaSink<TKey, TValue> implements Sink<Event<TKey, TValue>> {
     /**
      * Checks for any asynchronous errors that have been received when the sink is used in asynchronous sending mode
      * (the default)
+     * <p>
+     * This is called on every send so the common case, where no errors have been received, is just a read of a
+     * volatile flag.  Errors are only drained from the lock-free queue once the producer callback has flagged them.
+     * </p>
      */
     protected final void checkForAsyncErrors() {
-        synchronized (this.producerErrors) {
-            if (!this.producerErrors.isEmpty()) {
-                SinkException e = new SinkException(
-                        "Received " + this.producerErrors.size() + " async producer errors from Kafka, see suppressed errors for details");
-                for (Exception producerError : this.producerErrors) {
-                    e.addSuppressed(producerError);
-                }
-                this.producerErrors.clear();
-                throw e;
-            }
+        if (!this.producerErrorsPending) {
+            return;
+        }
+
+        List<Exception> errors = drainAsyncErrors();
+        if (!errors.isEmpty()) {
+            SinkException e = new SinkException("Received " + errors.size()
+                                                + " async producer errors from Kafka, see suppressed errors for details");
+            errors.forEach(e::addSuppressed);
+            throw e;
+        }
+    }
+
+    /**
+     * Drains any asynchronous errors that have been received
+     * <p>
+     * The pending flag is cleared before draining so an error added concurrently is either drained now, or leaves the
+     * flag set for the next check.
+     * </p>
+     *
+     * @return Errors
+     */
+    private List<Exception> drainAsyncErrors() {
+        this.producerErrorsPending = false;
+        List<Exception> errors = new ArrayList<>();
+        Exception error;
+        while ((error = this.producerErrors.poll()) != null) {
+            errors.add(error);
         }
+        return errors;
     }
 
     /**
@@ -239,13 +985,80 @@ public class KafkaSink<TKey, TValue> implements Sink<Event<TKey, TValue>> {
         @Override
         public void onCompletion(RecordMetadata metadata, Exception exception) {
             if (exception != null) {
-                synchronized (this.sink.producerErrors) {
-                    sink.producerErrors.add(exception);
-                }
+                // Queue the error before raising the flag so a check that sees the flag always finds the error
+                this.sink.producerErrors.add(exception);
+                this.sink.producerErrorsPending = true;
             }
         }
     }
 
+    /**
+     * A Kafka Producer callback that tracks a send as in-flight, releasing its in-flight permit and counting any error
+     * upon completion, before invoking the actual callback (if any)
+     */
+    private final class InFlightCallback implements Callback {
+
+        private final Callback delegate;
+        private volatile boolean completed = false;
+
+        private InFlightCallback(Callback delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onCompletion(RecordMetadata metadata, Exception exception) {
+            complete(exception);
+            if (this.delegate != null) {
+                this.delegate.onCompletion(metadata, exception);
+            }
+        }
+
+        private void complete(Exception exception) {
+            if (this.completed) {
+                return;
+            }
+            this.completed = true;
+            inFlight.decrementAndGet();
+            if (inFlightPermits != null) {
+                inFlightPermits.release();
+            }
+            if (exception != null) {
+                errorCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Holds the executors shared by all sinks that use synchronous batches, these are only created upon first use
+     * <p>
+     * A single timer thread fires when batches reach their maximum wait, waiting for an expired batch to be
+     * acknowledged happens on a separate pool so that one slow batch never delays the expiry of other sinks' batches.
+     * All threads are daemons that exit once idle so nothing needs to be shut down.
+     * </p>
+     */
+    private static final class BatchExecutors {
+        private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+        private static final ExecutorService COMPLETER =
+                Executors.newCachedThreadPool(daemonThreads("KafkaSinkBatchCompleter"));
+
+        private static ScheduledThreadPoolExecutor createTimer() {
+            ScheduledThreadPoolExecutor timer =
+                    new ScheduledThreadPoolExecutor(1, daemonThreads("KafkaSinkBatchTimer"));
+            timer.setKeepAliveTime(1, TimeUnit.MINUTES);
+            timer.allowCoreThreadTimeOut(true);
+            timer.setRemoveOnCancelPolicy(true);
+            return timer;
+        }
+
+        private static ThreadFactory daemonThreads(String name) {
+            return r -> {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
     /**
      * Creates a new builder for Kafka Sinks
      *
@@ -271,6 +1084,15 @@ public class KafkaSink<TKey, TValue> implements Sink<Event<TKey, TValue>> {
         private final Properties properties = new Properties();
         private boolean async = true;
         private Callback callback;
+        private String transactionalId;
+        private KafkaEventSource<?, ?> transactionSource;
+        private int transactionMaxEvents = DEFAULT_TRANSACTION_MAX_EVENTS;
+        private Duration transactionMaxInterval = DEFAULT_TRANSACTION_MAX_INTERVAL;
+        private Integer maxInFlight;
+        private KafkaProducerPool producerPool;
+        private Integer syncBatchSize;
+        private Duration syncBatchMaxWait;
+        private Function<Properties, Producer<TKey, TValue>> producerFactory = KafkaProducer::new;
 
         /**
          * Sets the bootstrap servers
@@ -381,6 +1203,7 @@ public class KafkaSink<TKey, TValue> implements Sink<Event<TKey, TValue>> {
         public KafkaSinkBuilder<TKey, TValue> async() {
             this.async = true;
             this.callback = null;
+            this.syncBatchSize = null;
             return this;
         }
 
@@ -396,6 +1219,30 @@ public class KafkaSink<TKey, TValue> implements Sink<Event<TKey, TValue>> {
          */
         public KafkaSinkBuilder<TKey, TValue> noAsync() {
             this.async = false;
+            this.syncBatchSize = null;
+            return this;
+        }
+
+        /**
+         * Configures the sink to send events in synchronous batches i.e. events are sent to Kafka asynchronously but
+         * once the batch is full, or its maximum wait has elapsed, the {@link #send(Event)} call waits for all the
+         * events in the batch to be acknowledged, either succeeding or throwing an error reporting each failed event.
+         * <p>
+         * This gives throughput close to that of asynchronous sends, while still guaranteeing that all events have
+         * been acknowledged at each batch boundary, and when the sink is closed.  A batch whose maximum wait elapses
+         * without any further events being sent is completed by a timer, with any failure thrown from the next call
+         * to the sink, see {@link KafkaSink#completeBatch()} for completing a batch explicitly.
+         * </p>
+         *
+         * @param maxEvents Maximum events per batch
+         * @param maxWait   Maximum amount of time a batch is kept open
+         * @return Builder
+         */
+        public KafkaSinkBuilder<TKey, TValue> syncBatch(int maxEvents, Duration maxWait) {
+            this.async = false;
+            this.callback = null;
+            this.syncBatchSize = maxEvents;
+            this.syncBatchMaxWait = maxWait;
             return this;
         }
 
@@ -419,6 +1266,7 @@ public class KafkaSink<TKey, TValue> implements Sink<Event<TKey, TValue>> {
             this.callback = Objects.requireNonNull(callback,
                                                    "Callback cannot be null, use the no argument async() method if you want KafkaSink to handle async callbacks for you");
             this.async = true;
+            this.syncBatchSize = null;
             return this;
         }
 
@@ -449,6 +1297,125 @@ public class KafkaSink<TKey, TValue> implements Sink<Event<TKey, TValue>> {
             return this;
         }
 
+        /**
+         * Sets the maximum number of sends that may be awaiting acknowledgement from Kafka, once reached sending blocks
+         * until an earlier send completes
+         * <p>
+         * This bounds the memory held by records, and their callbacks, that have been handed off to the producer.  By
+         * default there is no limit beyond that imposed by the producers own {@code buffer.memory} configuration.
+         * </p>
+         *
+         * @param maxInFlight Maximum in-flight sends
+         * @return Builder
+         */
+        public KafkaSinkBuilder<TKey, TValue> maxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Removes any limit on the number of sends that may be awaiting acknowledgement from Kafka, this is the default
+         * behaviour
+         *
+         * @return Builder
+         */
+        public KafkaSinkBuilder<TKey, TValue> unlimitedInFlight() {
+            this.maxInFlight = null;
+            return this;
+        }
+
+        /**
+         * Configures the sink to use a producer shared with other sinks that have the same producer configuration,
+         * acquired from the {@link KafkaProducerPool#getDefault()} pool
+         * <p>
+         * Sharing a producer reduces the memory, threads and broker connections used when an application writes to
+         * several topics, e.g. the Live Reporter topics.  Only sinks whose producer configuration, other than the
+         * serializers, is identical, including any {@code client.id} and credentials, share a producer.  A shared
+         * producer cannot be used transactionally.
+         * </p>
+         *
+         * @return Builder
+         */
+        public KafkaSinkBuilder<TKey, TValue> sharedProducer() {
+            return sharedProducer(KafkaProducerPool.getDefault());
+        }
+
+        /**
+         * Configures the sink to use a producer shared with other sinks that have the same producer configuration,
+         * acquired from the given pool
+         *
+         * @param pool Producer pool
+         * @return Builder
+         */
+        public KafkaSinkBuilder<TKey, TValue> sharedProducer(KafkaProducerPool pool) {
+            this.producerPool = Objects.requireNonNull(pool, "Producer pool cannot be null");
+            return this;
+        }
+
+        /**
+         * Configures the sink to create its own producer, this is the default behaviour
+         *
+         * @return Builder
+         */
+        public KafkaSinkBuilder<TKey, TValue> dedicatedProducer() {
+            this.producerPool = null;
+            return this;
+        }
+
+        /**
+         * Configures the sink to write events within Kafka producer transactions that also commit the offsets of the
+         * events read from the given source, providing exactly-once processing
+         * <p>
+         * The source <strong>MUST</strong> have auto-commit disabled, it no longer commits offsets itself once the sink
+         * is built.  Downstream consumers of the sinks topic should use the {@code read_committed} isolation level so
+         * that they do not see events from aborted transactions.
+         * </p>
+         *
+         * @param transactionalId Transactional ID, this must be unique to each running instance of an application but
+         *                        stable across restarts of that instance
+         * @param source          Kafka event source whose offsets are committed as part of each transaction
+         * @return Builder
+         */
+        public KafkaSinkBuilder<TKey, TValue> transactional(String transactionalId, KafkaEventSource<?, ?> source) {
+            this.transactionalId = Objects.requireNonNull(transactionalId, "Transactional ID cannot be null");
+            this.transactionSource = Objects.requireNonNull(source, "Source cannot be null");
+            return this;
+        }
+
+        /**
+         * Sets how many events, and for how long, a transaction is kept open when the sink is transactional
+         * <p>
+         * Larger batches amortise the cost of committing a transaction over more events at the cost of increased
+         * latency before downstream {@code read_committed} consumers see the events.  Defaults to
+         * {@value KafkaSink#DEFAULT_TRANSACTION_MAX_EVENTS} events and
+         * {@link KafkaSink#DEFAULT_TRANSACTION_MAX_INTERVAL}.
+         * </p>
+         * <p>
+         * The maximum interval is only checked when events are sent, if the input may go idle then
+         * {@link KafkaSink#commitTransaction()} <strong>MUST</strong> be called periodically.
+         * </p>
+         *
+         * @param maxEvents   Maximum events per transaction
+         * @param maxInterval Maximum amount of time a transaction is kept open
+         * @return Builder
+         */
+        public KafkaSinkBuilder<TKey, TValue> transactionBatching(int maxEvents, Duration maxInterval) {
+            this.transactionMaxEvents = maxEvents;
+            this.transactionMaxInterval = maxInterval;
+            return this;
+        }
+
+        /**
+         * Configures the sink to not use transactions, this is the default behaviour
+         *
+         * @return Builder
+         */
+        public KafkaSinkBuilder<TKey, TValue> noTransactions() {
+            this.transactionalId = null;
+            this.transactionSource = null;
+            return this;
+        }
+
         /**
          * Configures the sink to perform a plain SASL login to the Kafka cluster using the provided credentials
          * <p>
@@ -467,11 +1434,24 @@ public class KafkaSink<TKey, TValue> implements Sink<Event<TKey, TValue>> {
             return this;
         }
 
+        /**
+         * Sets the factory used to create the sinks own producer from its producer configuration
+         * <p>
+         * This primarily exists for test purposes where it is useful to be able to introduce a {@link MockProducer}.
+         * It is not used if the sink is configured to use a shared producer.
+         * </p>
+         *
+         * @param factory Producer factory
+         * @return Builder
+         */
+        KafkaSinkBuilder<TKey, TValue> producerFactory(Function<Properties, Producer<TKey, TValue>> factory) {
+            this.producerFactory = Objects.requireNonNull(factory, "Producer factory cannot be null");
+            return this;
+        }
+
         @Override
         public KafkaSink<TKey, TValue> build() {
-            return new KafkaSink<>(this.bootstrapServers, this.topic, this.keySerializerClass,
-                                   this.valueSerializerClass, this.lingerMs, this.async, this.callback,
-                                   this.properties);
+            return new KafkaSink<>(this);
         }
     }
 }
@@ -26,19 +26,30 @@ package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
 
 import java.time.Duration;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.kafka.clients.admin.AdminClient;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
 import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
 import uk.gov.dbt.ndtp.secure.agent.sources.Event;
 import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.KafkaReadPolicy;
 
 public class MockKafkaEventSource<TKey, TValue> extends KafkaEventSource<TKey, TValue> {
 
     private MockConsumer<TKey, TValue> mock;
+    private MockConsumer<byte[], byte[]> rawMock;
+    private Map<TopicPartition, OffsetAndMetadata> lastCommitted;
+    private final AtomicInteger syncCommits = new AtomicInteger(), asyncCommits = new AtomicInteger();
+    private volatile Exception asyncCommitFailure = null;
+    private Properties consumerProperties;
 
     /**
      * Creates a new event source backed by a Kafka topic
@@ -56,25 +67,225 @@ public class MockKafkaEventSource<TKey, TValue> extends KafkaEventSource<TKey, T
     public MockKafkaEventSource(String bootstrapServers, Set<String> topics, String groupId,
                                 String keyDeserializerClass, String valueDeserializerClass, int maxPollRecords,
                                 KafkaReadPolicy policy, boolean autoCommit, Collection<Event<TKey, TValue>> events) {
+        this(bootstrapServers, topics, groupId, keyDeserializerClass, valueDeserializerClass, maxPollRecords, policy,
+             autoCommit, events, 0);
+    }
+
+    /**
+     * Creates a new event source backed by a Kafka topic
+     *
+     * @param bootstrapServers       Kafka Bootstrap servers
+     * @param topics                 Kafka topic(s) to subscribe to
+     * @param groupId                Kafka Consumer Group ID
+     * @param keyDeserializerClass   Key deserializer class
+     * @param valueDeserializerClass Value deserializer class
+     * @param maxPollRecords         Maximum events to retrieve and buffer in one Kafka
+     *                               {@link KafkaConsumer#poll(Duration)} request.
+     * @param autoCommit             Whether the event source will automatically commit Kafka positions
+     * @param policy                 Kafka Read Policy to control what events to read from the configured topic
+     * @param prefetchBatches        Number of batches to prefetch, zero disables prefetching
+     */
+    public MockKafkaEventSource(String bootstrapServers, Set<String> topics, String groupId,
+                                String keyDeserializerClass, String valueDeserializerClass, int maxPollRecords,
+                                KafkaReadPolicy policy, boolean autoCommit, Collection<Event<TKey, TValue>> events,
+                                int prefetchBatches) {
+        this(bootstrapServers, topics, groupId, keyDeserializerClass, valueDeserializerClass, maxPollRecords, policy,
+             autoCommit, events, prefetchBatches, null, KafkaEventSource.DEFAULT_ASYNC_COMMIT_MAX_PENDING);
+    }
+
+    /**
+     * Creates a new event source backed by a Kafka topic
+     *
+     * @param bootstrapServers       Kafka Bootstrap servers
+     * @param topics                 Kafka topic(s) to subscribe to
+     * @param groupId                Kafka Consumer Group ID
+     * @param keyDeserializerClass   Key deserializer class
+     * @param valueDeserializerClass Value deserializer class
+     * @param maxPollRecords         Maximum events to retrieve and buffer in one Kafka
+     *                               {@link KafkaConsumer#poll(Duration)} request.
+     * @param autoCommit             Whether the event source will automatically commit Kafka positions
+     * @param policy                 Kafka Read Policy to control what events to read from the configured topic
+     * @param prefetchBatches        Number of batches to prefetch, zero disables prefetching
+     * @param asyncCommitInterval    Maximum interval between asynchronous commits, {@code null} for synchronous commits
+     * @param asyncCommitMaxPending  Maximum number of commit requests to merge before committing asynchronously
+     */
+    public MockKafkaEventSource(String bootstrapServers, Set<String> topics, String groupId,
+                                String keyDeserializerClass, String valueDeserializerClass, int maxPollRecords,
+                                KafkaReadPolicy policy, boolean autoCommit, Collection<Event<TKey, TValue>> events,
+                                int prefetchBatches, Duration asyncCommitInterval, int asyncCommitMaxPending) {
+        this(bootstrapServers, topics, groupId, keyDeserializerClass, valueDeserializerClass, maxPollRecords, policy,
+             autoCommit, events, prefetchBatches, asyncCommitInterval, asyncCommitMaxPending, FlowControl.NONE);
+    }
+
+    /**
+     * Creates a new event source backed by a Kafka topic
+     *
+     * @param bootstrapServers       Kafka Bootstrap servers
+     * @param topics                 Kafka topic(s) to subscribe to
+     * @param groupId                Kafka Consumer Group ID
+     * @param keyDeserializerClass   Key deserializer class
+     * @param valueDeserializerClass Value deserializer class
+     * @param maxPollRecords         Maximum events to retrieve and buffer in one Kafka
+     *                               {@link KafkaConsumer#poll(Duration)} request.
+     * @param autoCommit             Whether the event source will automatically commit Kafka positions
+     * @param policy                 Kafka Read Policy to control what events to read from the configured topic
+     * @param prefetchBatches        Number of batches to prefetch, zero disables prefetching
+     * @param asyncCommitInterval    Maximum interval between asynchronous commits, {@code null} for synchronous commits
+     * @param asyncCommitMaxPending  Maximum number of commit requests to merge before committing asynchronously
+     * @param flowControl            Flow control configuration
+     */
+    public MockKafkaEventSource(String bootstrapServers, Set<String> topics, String groupId,
+                                String keyDeserializerClass, String valueDeserializerClass, int maxPollRecords,
+                                KafkaReadPolicy policy, boolean autoCommit, Collection<Event<TKey, TValue>> events,
+                                int prefetchBatches, Duration asyncCommitInterval, int asyncCommitMaxPending,
+                                FlowControl flowControl) {
+        this(bootstrapServers, topics, groupId, keyDeserializerClass, valueDeserializerClass, maxPollRecords, policy,
+             autoCommit, events, prefetchBatches, asyncCommitInterval, asyncCommitMaxPending, flowControl,
+             DecodeOptions.defaults());
+    }
+
+    /**
+     * Creates a new event source backed by a Kafka topic
+     * <p>
+     * When the {@code decodeOptions} require raw records to be fetched, i.e. parallel and/or lazy deserialization is
+     * enabled, the events are not automatically added to the mock consumer, instead tests should add raw records to the
+     * consumer returned by {@link #getRawMockConsumer()}.
+     * </p>
+     *
+     * @param bootstrapServers       Kafka Bootstrap servers
+     * @param topics                 Kafka topic(s) to subscribe to
+     * @param groupId                Kafka Consumer Group ID
+     * @param keyDeserializerClass   Key deserializer class
+     * @param valueDeserializerClass Value deserializer class
+     * @param maxPollRecords         Maximum events to retrieve and buffer in one Kafka
+     *                               {@link KafkaConsumer#poll(Duration)} request.
+     * @param autoCommit             Whether the event source will automatically commit Kafka positions
+     * @param policy                 Kafka Read Policy to control what events to read from the configured topic
+     * @param prefetchBatches        Number of batches to prefetch, zero disables prefetching
+     * @param asyncCommitInterval    Maximum interval between asynchronous commits, {@code null} for synchronous commits
+     * @param asyncCommitMaxPending  Maximum number of commit requests to merge before committing asynchronously
+     * @param flowControl            Flow control configuration
+     * @param decodeOptions          Decode options
+     */
+    public MockKafkaEventSource(String bootstrapServers, Set<String> topics, String groupId,
+                                String keyDeserializerClass, String valueDeserializerClass, int maxPollRecords,
+                                KafkaReadPolicy policy, boolean autoCommit, Collection<Event<TKey, TValue>> events,
+                                int prefetchBatches, Duration asyncCommitInterval, int asyncCommitMaxPending,
+                                FlowControl flowControl, DecodeOptions<TKey, TValue> decodeOptions) {
         super(bootstrapServers, topics, groupId, keyDeserializerClass, valueDeserializerClass, maxPollRecords,
-              new MockReadPolicy(policy, events), autoCommit, null, Duration.ofMinutes(1), null);
+              new MockReadPolicy(policy, events), autoCommit, null, Duration.ofMinutes(1), null, prefetchBatches,
+              asyncCommitInterval, asyncCommitMaxPending, flowControl, decodeOptions);
     }
 
     @Override
     protected Consumer<TKey, TValue> createConsumer(Properties props) {
-        this.mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        this.mock = createMockConsumer(props);
         return this.mock;
     }
 
+    @Override
+    protected Consumer<byte[], byte[]> createRawConsumer(Properties props) {
+        this.rawMock = createMockConsumer(props);
+        return this.rawMock;
+    }
+
+    private <K, V> MockConsumer<K, V> createMockConsumer(Properties props) {
+        this.consumerProperties = props;
+        this.lastCommitted = new ConcurrentHashMap<>();
+        return new MockConsumer<>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public synchronized void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+                super.commitSync(offsets);
+                lastCommitted.putAll(offsets);
+                syncCommits.incrementAndGet();
+            }
+
+            @Override
+            public synchronized void commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets,
+                                                 OffsetCommitCallback callback) {
+                if (callback == null) {
+                    // MockConsumer implements commitSync() by calling this method without a callback
+                    super.commitAsync(offsets, null);
+                    return;
+                }
+                asyncCommits.incrementAndGet();
+                Exception failure = asyncCommitFailure;
+                if (failure != null) {
+                    callback.onComplete(offsets, failure);
+                    return;
+                }
+                super.commitAsync(offsets, null);
+                lastCommitted.putAll(offsets);
+                callback.onComplete(offsets, null);
+            }
+        };
+    }
+
+    /**
+     * Gets the most recently committed offsets, unlike {@link MockConsumer#committed(Set)} these remain available after
+     * the source has been closed
+     *
+     * @return Committed offsets
+     */
+    Map<TopicPartition, OffsetAndMetadata> getLastCommitted() {
+        return this.lastCommitted;
+    }
+
+    /**
+     * Gets the number of synchronous commits that have been made
+     *
+     * @return Synchronous commits
+     */
+    int getSyncCommits() {
+        return this.syncCommits.get();
+    }
+
+    /**
+     * Gets the number of asynchronous commits that have been attempted
+     *
+     * @return Asynchronous commits
+     */
+    int getAsyncCommits() {
+        return this.asyncCommits.get();
+    }
+
+    /**
+     * Sets an error that subsequent asynchronous commits fail with, {@code null} for them to succeed
+     *
+     * @param failure Failure
+     */
+    void setAsyncCommitFailure(Exception failure) {
+        this.asyncCommitFailure = failure;
+    }
+
+    /**
+     * Gets the configuration the consumer was created with
+     *
+     * @return Consumer configuration
+     */
+    Properties getConsumerProperties() {
+        return this.consumerProperties;
+    }
+
     /**
      * Gets the mock consumer, used to modify mock behaviour during tests
      *
      * @return Mock consumer
      */
-    MockConsumer<TKey, TValue> getMockConsumer() {
+    public MockConsumer<TKey, TValue> getMockConsumer() {
         return this.mock;
     }
 
+    /**
+     * Gets the mock raw consumer, only available when parallel deserialization is enabled, used to modify mock
+     * behaviour during tests
+     *
+     * @return Mock raw consumer
+     */
+    MockConsumer<byte[], byte[]> getRawMockConsumer() {
+        return this.rawMock;
+    }
+
     @Override
     protected AdminClient createAdminClient(Properties props) {
         return null;
@@ -33,13 +33,16 @@ import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.MockConsumer;
 import org.apache.kafka.common.TopicPartition;
 import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.EndOffsetCache;
 import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.KafkaReadPolicy;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.RebalanceHandler;
 
 public class MockReadPolicy<TKey, TValue> implements KafkaReadPolicy<TKey, TValue> {
 
     private final Collection<Event<TKey, TValue>> events;
     private final KafkaReadPolicy<TKey, TValue> policy;
     private MockConsumer<TKey, TValue> mock;
+    private MockConsumer<?, ?> partitionsMock;
 
     public MockReadPolicy(KafkaReadPolicy<TKey, TValue> policy, Collection<Event<TKey, TValue>> events) {
         this.policy = policy;
@@ -61,22 +64,40 @@ public class MockReadPolicy<TKey, TValue> implements KafkaReadPolicy<TKey, TValu
         this.policy.setConsumer(consumer);
         if (consumer instanceof MockConsumer<TKey, TValue> mockConsumer) {
             this.mock = mockConsumer;
+            this.partitionsMock = mockConsumer;
+        } else if (consumer instanceof DeserializingConsumer<TKey, TValue> deserializing
+                   && deserializing.delegate() instanceof MockConsumer<byte[], byte[]> rawMock) {
+            // Parallel and/or lazy deserialization is enabled, tests are responsible for adding raw records to the mock
+            this.partitionsMock = rawMock;
         }
     }
 
+    @Override
+    public void setRebalanceHandler(RebalanceHandler handler) {
+        this.policy.setRebalanceHandler(handler);
+    }
+
+    @Override
+    public void setEndOffsetCache(EndOffsetCache cache) {
+        this.policy.setEndOffsetCache(cache);
+    }
+
     @Override
     public void startEvents(String topic) {
         // Create the mock partition we will be assigned and set its offsets
         TopicPartition partition = new TopicPartition(topic, 0);
-        this.mock.updateBeginningOffsets(Map.of(partition, 0L));
-        this.mock.updateEndOffsets(Map.of(partition, (long) events.size()));
+        this.partitionsMock.updateBeginningOffsets(Map.of(partition, 0L));
+        this.partitionsMock.updateEndOffsets(Map.of(partition, (long) events.size()));
 
         this.policy.startEvents(topic);
 
         if (this.policy.isSubscriptionBased()) {
-            this.mock.rebalance(Collections.singletonList(partition));
+            this.partitionsMock.rebalance(Collections.singletonList(partition));
         } else {
-            this.mock.assign(Collections.singletonList(partition));
+            this.partitionsMock.assign(Collections.singletonList(partition));
+        }
+        if (this.mock == null) {
+            return;
         }
 
         int offset = 0;
@@ -0,0 +1,92 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestBufferedBytes {
+
+    private static ConsumerRecord<String, String> record(int keySize, int valueSize) {
+        return new ConsumerRecord<>("test", 0, 0, 0L, TimestampType.CREATE_TIME, keySize, valueSize, "key", "value",
+                                    new RecordHeaders(), Optional.empty());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void buffered_bytes_bad_01() {
+        new BufferedBytes(-1);
+    }
+
+    @Test
+    public void buffered_bytes_01() {
+        Assert.assertEquals(BufferedBytes.sizeOf(record(10, 100)), 110);
+        // Null keys/values are reported as -1
+        Assert.assertEquals(BufferedBytes.sizeOf(record(-1, 100)), 100);
+        Assert.assertEquals(BufferedBytes.sizeOf(record(-1, -1)), 0);
+    }
+
+    @Test
+    public void buffered_bytes_02() {
+        // Without a budget bytes are tracked but never throttled
+        BufferedBytes bytes = new BufferedBytes(0);
+        Assert.assertFalse(bytes.hasBudget());
+        bytes.add(Long.MAX_VALUE / 2);
+        Assert.assertFalse(bytes.throttled());
+        bytes.reset();
+        Assert.assertEquals(bytes.bufferedBytes(), 0);
+    }
+
+    @Test
+    public void buffered_bytes_03() {
+        BufferedBytes bytes = new BufferedBytes(1_000);
+        ConsumerRecords<String, String> records =
+                new ConsumerRecords<>(Map.of(new TopicPartition("test", 0), List.of(record(0, 600), record(0, 600))),
+                                      Map.of());
+        bytes.add(records);
+        Assert.assertEquals(bytes.bufferedBytes(), 1_200);
+        Assert.assertTrue(bytes.throttled());
+
+        // Remains throttled until back down to half the budget
+        bytes.release(record(0, 600));
+        Assert.assertTrue(bytes.throttled());
+        bytes.release(100);
+        Assert.assertEquals(bytes.bufferedBytes(), 500);
+        Assert.assertFalse(bytes.throttled());
+
+        // And not throttled again until over the budget
+        bytes.add(500);
+        Assert.assertFalse(bytes.throttled());
+        bytes.add(1);
+        Assert.assertTrue(bytes.throttled());
+    }
+}
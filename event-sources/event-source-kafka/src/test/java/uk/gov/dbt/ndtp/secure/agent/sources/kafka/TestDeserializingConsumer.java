@@ -0,0 +1,357 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RecordDeserializationException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.IntegerDeserializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestDeserializingConsumer {
+
+    private static final String TOPIC = "test";
+    private static final TopicPartition PARTITION_0 = new TopicPartition(TOPIC, 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition(TOPIC, 1);
+    private static final byte[] MALFORMED = "malformed".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * A deserializer that fails on malformed values, and records the threads it is used from
+     */
+    private static final class FailingDeserializer extends StringDeserializer {
+        private final Map<Thread, Boolean> threads;
+        private boolean closed = false;
+
+        FailingDeserializer(Map<Thread, Boolean> threads) {
+            this.threads = threads;
+        }
+
+        @Override
+        public String deserialize(String topic, byte[] data) {
+            this.threads.put(Thread.currentThread(), true);
+            if (data != null && new String(data, StandardCharsets.UTF_8).equals("malformed")) {
+                throw new SerializationException("Malformed value");
+            }
+            return super.deserialize(topic, data);
+        }
+
+        @Override
+        public void close() {
+            this.closed = true;
+        }
+    }
+
+    private static MockConsumer<byte[], byte[]> createMock() {
+        MockConsumer<byte[], byte[]> mock = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        mock.assign(List.of(PARTITION_0, PARTITION_1));
+        mock.updateBeginningOffsets(Map.of(PARTITION_0, 0L, PARTITION_1, 0L));
+        return mock;
+    }
+
+    private static void addRecords(MockConsumer<byte[], byte[]> mock, TopicPartition partition, int count) {
+        try (IntegerSerializer serializer = new IntegerSerializer()) {
+            for (int i = 0; i < count; i++) {
+                mock.addRecord(new ConsumerRecord<>(partition.topic(), partition.partition(), i,
+                                                    serializer.serialize(TOPIC, i),
+                                                    (partition + "-" + i).getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+    }
+
+    private static DeserializingConsumer<Integer, String> createConsumer(MockConsumer<byte[], byte[]> mock,
+                                                                         int threads) {
+        return createConsumer(mock, threads, false);
+    }
+
+    private static DeserializingConsumer<Integer, String> createConsumer(MockConsumer<byte[], byte[]> mock,
+                                                                         int threads, boolean lazyValues) {
+        return new DeserializingConsumer<>(mock, IntegerDeserializer::new,
+                                           () -> new FailingDeserializer(new ConcurrentHashMap<>()), threads,
+                                           lazyValues);
+    }
+
+    private static List<String> values(ConsumerRecords<Integer, String> records) {
+        List<String> values = new ArrayList<>();
+        records.forEach(r -> values.add(r.value()));
+        return values;
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void parallel_deserialization_bad_01() {
+        createConsumer(createMock(), -1);
+    }
+
+    @Test
+    public void parallel_deserialization_01() {
+        // Records are deserialized in parallel but returned in their original order
+        Map<Thread, Boolean> threads = new ConcurrentHashMap<>();
+        MockConsumer<byte[], byte[]> mock = createMock();
+        addRecords(mock, PARTITION_0, 1_000);
+        addRecords(mock, PARTITION_1, 500);
+        DeserializingConsumer<Integer, String> consumer =
+                new DeserializingConsumer<>(mock, IntegerDeserializer::new, () -> new FailingDeserializer(threads), 3,
+                                            false);
+
+        ConsumerRecords<Integer, String> records = consumer.poll(Duration.ofSeconds(1));
+        Assert.assertEquals(records.count(), 1_500);
+        for (TopicPartition partition : List.of(PARTITION_0, PARTITION_1)) {
+            int expected = 0;
+            for (ConsumerRecord<Integer, String> record : records.records(partition)) {
+                Assert.assertEquals(record.offset(), expected);
+                Assert.assertEquals(record.key(), expected);
+                Assert.assertEquals(record.value(), partition + "-" + expected);
+                expected++;
+            }
+        }
+        Assert.assertTrue(threads.size() > 1);
+        Assert.assertTrue(threads.containsKey(Thread.currentThread()));
+        consumer.close();
+    }
+
+    @Test
+    public void parallel_deserialization_02() {
+        // Empty polls and null keys/values are passed through
+        MockConsumer<byte[], byte[]> mock = createMock();
+        DeserializingConsumer<Integer, String> consumer = createConsumer(mock, 2);
+        Assert.assertTrue(consumer.poll(Duration.ofMillis(10)).isEmpty());
+
+        mock.addRecord(new ConsumerRecord<>(TOPIC, 0, 0, null, null));
+        ConsumerRecords<Integer, String> records = consumer.poll(Duration.ofMillis(10));
+        Assert.assertEquals(records.count(), 1);
+        ConsumerRecord<Integer, String> record = records.iterator().next();
+        Assert.assertNull(record.key());
+        Assert.assertNull(record.value());
+        consumer.close();
+    }
+
+    @Test
+    public void parallel_deserialization_03() {
+        // Records preceding a malformed record are returned, with the error reported on the next poll
+        MockConsumer<byte[], byte[]> mock = createMock();
+        addRecords(mock, PARTITION_0, 10);
+        mock.addRecord(new ConsumerRecord<>(TOPIC, 0, 10, null, MALFORMED));
+        addRecords(mock, PARTITION_1, 10);
+        DeserializingConsumer<Integer, String> consumer = createConsumer(mock, 2);
+
+        ConsumerRecords<Integer, String> records = consumer.poll(Duration.ofMillis(10));
+        Assert.assertEquals(records.records(PARTITION_0).size(), 10);
+        Assert.assertEquals(records.records(PARTITION_1).size(), 10);
+        Assert.assertEquals(mock.position(PARTITION_0), 10L);
+        Assert.assertEquals(mock.position(PARTITION_1), 10L);
+
+        try {
+            consumer.poll(Duration.ofMillis(10));
+            Assert.fail("Expected a deserialization error");
+        } catch (RecordDeserializationException e) {
+            Assert.assertEquals(e.topicPartition(), PARTITION_0);
+            Assert.assertEquals(e.offset(), 10L);
+            Assert.assertEquals(e.origin(), RecordDeserializationException.DeserializationExceptionOrigin.VALUE);
+            Assert.assertTrue(e.getCause() instanceof SerializationException);
+        }
+        consumer.close();
+    }
+
+    @Test
+    public void parallel_deserialization_04() {
+        // If nothing precedes the malformed record the error is reported immediately
+        MockConsumer<byte[], byte[]> mock = createMock();
+        mock.addRecord(new ConsumerRecord<>(TOPIC, 1, 0, "bad".getBytes(StandardCharsets.UTF_8), MALFORMED));
+        DeserializingConsumer<Integer, String> consumer = createConsumer(mock, 2);
+
+        try {
+            consumer.poll(Duration.ofMillis(10));
+            Assert.fail("Expected a deserialization error");
+        } catch (RecordDeserializationException e) {
+            Assert.assertEquals(e.topicPartition(), PARTITION_1);
+            Assert.assertEquals(e.offset(), 0L);
+            Assert.assertEquals(e.origin(), RecordDeserializationException.DeserializationExceptionOrigin.KEY);
+        }
+        Assert.assertEquals(mock.position(PARTITION_1), 0L);
+        consumer.close();
+    }
+
+    @Test
+    public void parallel_deserialization_05() {
+        // Each thread lazily creates its own deserializers, which are closed along with the consumer
+        AtomicInteger created = new AtomicInteger();
+        List<FailingDeserializer> deserializers = Collections.synchronizedList(new ArrayList<>());
+        MockConsumer<byte[], byte[]> mock = createMock();
+        DeserializingConsumer<Integer, String> consumer =
+                new DeserializingConsumer<>(mock, IntegerDeserializer::new, () -> {
+                    created.incrementAndGet();
+                    FailingDeserializer deserializer = new FailingDeserializer(new ConcurrentHashMap<>());
+                    deserializers.add(deserializer);
+                    return deserializer;
+                }, 3, false);
+        Assert.assertEquals(created.get(), 0);
+
+        addRecords(mock, PARTITION_0, 1_000);
+        Assert.assertEquals(consumer.poll(Duration.ofSeconds(1)).count(), 1_000);
+        Assert.assertTrue(created.get() >= 1 && created.get() <= 4);
+
+        consumer.close();
+        Assert.assertTrue(mock.closed());
+        Assert.assertTrue(deserializers.stream().allMatch(d -> d.closed));
+    }
+
+    @Test
+    public void parallel_deserialization_06() {
+        // Other consumer operations are delegated to the underlying consumer
+        MockConsumer<byte[], byte[]> mock = createMock();
+        DeserializingConsumer<Integer, String> consumer = createConsumer(mock, 1);
+        Assert.assertEquals(consumer.assignment(), mock.assignment());
+        consumer.seek(PARTITION_0, 5);
+        Assert.assertEquals(consumer.position(PARTITION_0), 5L);
+        consumer.pause(List.of(PARTITION_1));
+        Assert.assertEquals(mock.paused(), Set.of(PARTITION_1));
+        consumer.close(Duration.ofSeconds(1));
+        Assert.assertTrue(mock.closed());
+    }
+
+    @Test
+    public void lazy_values_01() {
+        // Values are only deserialized on first access, and are memoized thereafter
+        Map<Thread, Boolean> threads = new ConcurrentHashMap<>();
+        MockConsumer<byte[], byte[]> mock = createMock();
+        addRecords(mock, PARTITION_0, 10);
+        DeserializingConsumer<Integer, String> consumer =
+                new DeserializingConsumer<>(mock, IntegerDeserializer::new, () -> new FailingDeserializer(threads), 0,
+                                            true);
+
+        ConsumerRecords<Integer, String> records = consumer.poll(Duration.ofMillis(10));
+        Assert.assertEquals(records.count(), 10);
+        Assert.assertTrue(threads.isEmpty());
+        int expected = 0;
+        for (ConsumerRecord<Integer, String> record : records) {
+            Assert.assertTrue(record instanceof LazyConsumerRecord);
+            LazyConsumerRecord<Integer, String> lazy = (LazyConsumerRecord<Integer, String>) record;
+            Assert.assertEquals(record.key(), expected);
+            Assert.assertFalse(lazy.isDecoded());
+            Assert.assertFalse(record.toString().contains(PARTITION_0 + "-"));
+
+            String value = record.value();
+            Assert.assertEquals(value, PARTITION_0 + "-" + expected);
+            Assert.assertTrue(lazy.isDecoded());
+            Assert.assertSame(record.value(), value);
+            expected++;
+        }
+        Assert.assertFalse(threads.isEmpty());
+        consumer.close();
+    }
+
+    @Test
+    public void lazy_values_02() {
+        // Malformed values don't fail the poll, instead the error is reported when the value is accessed
+        MockConsumer<byte[], byte[]> mock = createMock();
+        mock.addRecord(new ConsumerRecord<>(TOPIC, 0, 0, null, MALFORMED));
+        mock.addRecord(new ConsumerRecord<>(TOPIC, 0, 1, null, null));
+        DeserializingConsumer<Integer, String> consumer = createConsumer(mock, 2, true);
+
+        ConsumerRecords<Integer, String> records = consumer.poll(Duration.ofMillis(10));
+        Assert.assertEquals(records.count(), 2);
+        List<ConsumerRecord<Integer, String>> list = records.records(PARTITION_0);
+        try {
+            list.get(0).value();
+            Assert.fail("Expected a deserialization error");
+        } catch (RecordDeserializationException e) {
+            Assert.assertEquals(e.topicPartition(), PARTITION_0);
+            Assert.assertEquals(e.offset(), 0L);
+            Assert.assertEquals(e.origin(), RecordDeserializationException.DeserializationExceptionOrigin.VALUE);
+            Assert.assertTrue(e.getCause() instanceof SerializationException);
+        }
+        Assert.assertNull(list.get(1).value());
+        consumer.close();
+    }
+
+    @Test
+    public void lazy_values_03() {
+        // Copying a lazy record with a new key and headers preserves laziness
+        MockConsumer<byte[], byte[]> mock = createMock();
+        addRecords(mock, PARTITION_1, 1);
+        DeserializingConsumer<Integer, String> consumer = createConsumer(mock, 0, true);
+
+        LazyConsumerRecord<Integer, String> lazy =
+                (LazyConsumerRecord<Integer, String>) consumer.poll(Duration.ofMillis(10)).iterator().next();
+        ConsumerRecord<String, String> copy = lazy.withKeyAndHeaders("key", 3, new RecordHeaders());
+        Assert.assertTrue(copy instanceof LazyConsumerRecord);
+        Assert.assertFalse(lazy.isDecoded());
+        Assert.assertEquals(copy.key(), "key");
+        Assert.assertEquals(copy.offset(), lazy.offset());
+        Assert.assertEquals(copy.value(), PARTITION_1 + "-0");
+
+        // Once decoded a copy is just a regular record
+        Assert.assertEquals(lazy.value(), PARTITION_1 + "-0");
+        copy = lazy.withKeyAndHeaders("other", 5, new RecordHeaders());
+        Assert.assertFalse(copy instanceof LazyConsumerRecord);
+        Assert.assertEquals(copy.value(), PARTITION_1 + "-0");
+        consumer.close();
+    }
+
+    @Test
+    public void per_thread_deserializer_01() {
+        // Each thread gets its own instance, all of which are closed
+        List<FailingDeserializer> deserializers = Collections.synchronizedList(new ArrayList<>());
+        PerThreadDeserializer<String> deserializer = new PerThreadDeserializer<>(() -> {
+            FailingDeserializer d = new FailingDeserializer(new ConcurrentHashMap<>());
+            deserializers.add(d);
+            return d;
+        });
+        Assert.assertEquals(deserializer.instances(), 0);
+        Assert.assertEquals(deserializer.deserialize(TOPIC, "a".getBytes(StandardCharsets.UTF_8)), "a");
+        Assert.assertEquals(deserializer.deserialize(TOPIC, new RecordHeaders(), "b".getBytes(StandardCharsets.UTF_8)),
+                            "b");
+        Assert.assertEquals(deserializer.instances(), 1);
+
+        Thread other = new Thread(() -> deserializer.deserialize(TOPIC, "c".getBytes(StandardCharsets.UTF_8)));
+        other.start();
+        try {
+            other.join();
+        } catch (InterruptedException e) {
+            Assert.fail("Interrupted");
+        }
+        Assert.assertEquals(deserializer.instances(), 2);
+
+        deserializer.close();
+        Assert.assertEquals(deserializers.size(), 2);
+        Assert.assertTrue(deserializers.stream().allMatch(d -> d.closed));
+    }
+}
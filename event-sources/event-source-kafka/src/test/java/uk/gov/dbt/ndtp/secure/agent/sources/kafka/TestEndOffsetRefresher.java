@@ -0,0 +1,155 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.EndOffsetCache;
+
+public class TestEndOffsetRefresher {
+
+    private static TopicDescription describe(String topic, int partitions) {
+        List<TopicPartitionInfo> infos = new ArrayList<>();
+        for (int i = 0; i < partitions; i++) {
+            infos.add(new TopicPartitionInfo(i, null, List.of(), List.of()));
+        }
+        return new TopicDescription(topic, false, infos);
+    }
+
+    private static AdminClient mockAdminClient(Map<String, KafkaFuture<TopicDescription>> descriptions,
+                                               Map<TopicPartition, Long> endOffsets) {
+        AdminClient adminClient = mock(AdminClient.class);
+        DescribeTopicsResult describeResult = mock(DescribeTopicsResult.class);
+        when(describeResult.topicNameValues()).thenReturn(descriptions);
+        when(adminClient.describeTopics(anyCollection())).thenReturn(describeResult);
+
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> infos = new HashMap<>();
+        endOffsets.forEach((p, o) -> infos.put(p, new ListOffsetsResult.ListOffsetsResultInfo(o, -1, Optional.empty())));
+        ListOffsetsResult listResult = mock(ListOffsetsResult.class);
+        when(listResult.all()).thenReturn(KafkaFuture.completedFuture(infos));
+        when(adminClient.listOffsets(anyMap())).thenReturn(listResult);
+        return adminClient;
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void end_offset_refresher_bad_01() {
+        new EndOffsetRefresher(null, Set.of("test"), new EndOffsetCache(), Duration.ofSeconds(1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void end_offset_refresher_bad_02() {
+        new EndOffsetRefresher(mock(AdminClient.class), Set.of("test"), new EndOffsetCache(), Duration.ZERO);
+    }
+
+    @Test
+    public void end_offset_refresher_01() {
+        TopicPartition p0 = new TopicPartition("test", 0), p1 = new TopicPartition("test", 1);
+        AdminClient adminClient = mockAdminClient(Map.of("test", KafkaFuture.completedFuture(describe("test", 2))),
+                                                  Map.of(p0, 100L, p1, 200L));
+        EndOffsetCache cache = new EndOffsetCache();
+        EndOffsetRefresher refresher =
+                new EndOffsetRefresher(adminClient, Set.of("test"), cache, Duration.ofSeconds(1));
+        refresher.refresh();
+
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertEquals(cache.endOffset(p0), OptionalLong.of(100));
+        Assert.assertEquals(cache.endOffset(p1), OptionalLong.of(200));
+        Assert.assertEquals(cache.endOffset(new TopicPartition("test", 2)), OptionalLong.empty());
+    }
+
+    @Test
+    public void end_offset_refresher_02() {
+        // Non-existent topics are ignored, other topics are still refreshed
+        KafkaFutureImpl<TopicDescription> missing = new KafkaFutureImpl<>();
+        missing.completeExceptionally(new UnknownTopicOrPartitionException("No such topic"));
+        TopicPartition p0 = new TopicPartition("test", 0);
+        AdminClient adminClient =
+                mockAdminClient(Map.of("test", KafkaFuture.completedFuture(describe("test", 1)), "other", missing),
+                                Map.of(p0, 100L));
+        EndOffsetCache cache = new EndOffsetCache();
+        new EndOffsetRefresher(adminClient, Set.of("test", "other"), cache, Duration.ofSeconds(1)).refresh();
+
+        Assert.assertEquals(cache.size(), 1);
+        Assert.assertEquals(cache.endOffset(p0), OptionalLong.of(100));
+    }
+
+    @Test
+    public void end_offset_refresher_03() {
+        // If no topics exist no offsets are requested
+        KafkaFutureImpl<TopicDescription> missing = new KafkaFutureImpl<>();
+        missing.completeExceptionally(new UnknownTopicOrPartitionException("No such topic"));
+        AdminClient adminClient = mockAdminClient(Map.of("test", missing), Map.of());
+        EndOffsetCache cache = new EndOffsetCache();
+        new EndOffsetRefresher(adminClient, Set.of("test"), cache, Duration.ofSeconds(1)).refresh();
+
+        Assert.assertEquals(cache.size(), 0);
+        verify(adminClient, never()).listOffsets(anyMap());
+    }
+
+    @Test
+    public void end_offset_refresher_04() throws InterruptedException {
+        // Refreshes happen in the background once started, and stop once closed
+        TopicPartition p0 = new TopicPartition("test", 0);
+        AdminClient adminClient = mockAdminClient(Map.of("test", KafkaFuture.completedFuture(describe("test", 1))),
+                                                  Map.of(p0, 100L));
+        EndOffsetCache cache = new EndOffsetCache();
+        EndOffsetRefresher refresher =
+                new EndOffsetRefresher(adminClient, Set.of("test"), cache, Duration.ofMillis(50));
+        refresher.start();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (cache.size() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        refresher.close();
+        Assert.assertEquals(cache.endOffset(p0), OptionalLong.of(100));
+
+        // Can't be restarted once closed
+        refresher.start();
+    }
+}
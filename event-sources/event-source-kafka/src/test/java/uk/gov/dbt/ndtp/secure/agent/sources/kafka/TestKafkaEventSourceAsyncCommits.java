@@ -0,0 +1,268 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.CommitFailedException;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.RetriableCommitFailedException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.KafkaReadPolicies;
+
+public class TestKafkaEventSourceAsyncCommits extends TestKafkaEventSource {
+
+    private static final TopicPartition PARTITION = new TopicPartition(TEST_TOPIC, 0);
+
+    @Override
+    protected MockKafkaEventSource<Integer, String> createMockKafkaEventSource(
+            Collection<Event<Integer, String>> events) {
+        return createAsyncSource(events, true, Duration.ZERO, 1);
+    }
+
+    private MockKafkaEventSource<Integer, String> createAsyncSource(Collection<Event<Integer, String>> events,
+                                                                    boolean autoCommit, Duration interval,
+                                                                    int maxPending) {
+        return new MockKafkaEventSource<>(DEFAULT_BOOTSTRAP_SERVERS, Set.of(TEST_TOPIC), TEST_GROUP,
+                                          StringSerializer.class.getCanonicalName(),
+                                          StringSerializer.class.getCanonicalName(), 100,
+                                          KafkaReadPolicies.fromBeginning(), autoCommit, events, 0, interval,
+                                          maxPending);
+    }
+
+    private static void pollEvents(MockKafkaEventSource<Integer, String> source, int count) {
+        for (int i = 0; i < count; i++) {
+            Assert.assertNotNull(source.poll(Duration.ofSeconds(3)), "Missing event " + i);
+        }
+    }
+
+    private static Long committedOffset(MockKafkaEventSource<Integer, String> source) {
+        MockConsumer<Integer, String> mock = source.getMockConsumer();
+        var committed = mock.committed(Set.of(PARTITION)).get(PARTITION);
+        return committed != null ? committed.offset() : null;
+    }
+
+    @Test
+    public void async_commits_01() {
+        // Neither interval nor max pending commits will be reached so nothing committed until close
+        MockKafkaEventSource<Integer, String> source =
+                createAsyncSource(createSampleData(1_000), true, Duration.ofHours(1), 1_000);
+        pollEvents(source, 1_000);
+        Assert.assertNull(source.poll(Duration.ofMillis(100)));
+        Assert.assertEquals(source.getAsyncCommits(), 0);
+        Assert.assertEquals(source.getSyncCommits(), 0);
+        Assert.assertNull(committedOffset(source));
+
+        // Close commits all pending offsets synchronously
+        source.close();
+        Assert.assertEquals(source.getAsyncCommits(), 0);
+        Assert.assertEquals(source.getSyncCommits(), 1);
+        Assert.assertEquals(source.getLastCommitted().get(PARTITION).offset(), 1_000L);
+    }
+
+    @Test
+    public void async_commits_02() {
+        // Processed commit requests are merged, and committed asynchronously every 2 requests
+        MockKafkaEventSource<Integer, String> source =
+                createAsyncSource(createSampleData(100), false, Duration.ofHours(1), 2);
+        for (int i = 1; i <= 11; i++) {
+            source.processed(List.of(source.poll(Duration.ofSeconds(3))));
+            Assert.assertEquals(source.getAsyncCommits(), i / 2);
+        }
+        Assert.assertEquals(source.getSyncCommits(), 0);
+        Assert.assertEquals(committedOffset(source), 10L);
+
+        // Close commits the remaining pending offsets synchronously
+        source.close();
+        Assert.assertEquals(source.getSyncCommits(), 1);
+        Assert.assertEquals(source.getLastCommitted().get(PARTITION).offset(), 11L);
+    }
+
+    @Test
+    public void async_commits_03() throws InterruptedException {
+        // Pending offsets are committed once the interval has elapsed the next time Kafka is polled, even if no further
+        // commits are requested
+        MockKafkaEventSource<Integer, String> source =
+                createAsyncSource(createSampleData(100), false, Duration.ofMillis(200), 1_000);
+        source.processed(List.of(source.poll(Duration.ofSeconds(3))));
+        Thread.sleep(300);
+        pollEvents(source, 99);
+        Assert.assertNull(source.poll(Duration.ofMillis(100)));
+        Assert.assertEquals(source.getAsyncCommits(), 1);
+        Assert.assertEquals(committedOffset(source), 1L);
+        source.close();
+        Assert.assertEquals(source.getSyncCommits(), 0);
+    }
+
+    @Test
+    public void async_commits_04() {
+        // Auto-commits on buffer exhaustion are also committed asynchronously
+        MockKafkaEventSource<Integer, String> source =
+                createAsyncSource(createSampleData(100), true, Duration.ofHours(1), 1);
+        pollEvents(source, 100);
+        Assert.assertEquals(source.getAsyncCommits(), 0);
+        Assert.assertNull(source.poll(Duration.ofMillis(100)));
+        Assert.assertEquals(source.getAsyncCommits(), 1);
+        Assert.assertEquals(source.getSyncCommits(), 0);
+        Assert.assertEquals(committedOffset(source), 100L);
+        source.close();
+    }
+
+    @Test
+    public void async_commits_05() {
+        // Retriable failures are retried with the next commit
+        MockKafkaEventSource<Integer, String> source =
+                createAsyncSource(createSampleData(1), false, Duration.ZERO, 1);
+        source.setAsyncCommitFailure(new RetriableCommitFailedException("Broker unavailable"));
+        source.processed(List.of(source.poll(Duration.ofSeconds(3))));
+        Assert.assertEquals(source.getAsyncCommits(), 1);
+        Assert.assertNull(committedOffset(source));
+
+        // Next poll of Kafka retries the failed commit
+        source.setAsyncCommitFailure(null);
+        Assert.assertNull(source.poll(Duration.ofMillis(100)));
+        Assert.assertEquals(source.getAsyncCommits(), 2);
+        Assert.assertEquals(committedOffset(source), 1L);
+        source.close();
+    }
+
+    @Test
+    public void async_commits_07() {
+        // Non-retriable failures are not retried since a later commit supersedes them
+        MockKafkaEventSource<Integer, String> source =
+                createAsyncSource(createSampleData(1), false, Duration.ZERO, 1);
+        source.setAsyncCommitFailure(new CommitFailedException());
+        source.processed(List.of(source.poll(Duration.ofSeconds(3))));
+        Assert.assertEquals(source.getAsyncCommits(), 1);
+
+        source.setAsyncCommitFailure(null);
+        Assert.assertNull(source.poll(Duration.ofMillis(100)));
+        Assert.assertEquals(source.getAsyncCommits(), 1);
+        Assert.assertNull(committedOffset(source));
+        source.close();
+    }
+
+    @Test
+    public void async_commits_06() {
+        // Pending offsets are committed synchronously before partitions are revoked
+        MockKafkaEventSource<Integer, String> source =
+                createAsyncSource(createSampleData(100), false, Duration.ofHours(1), 1_000);
+        pollEvents(source, 9);
+        source.processed(List.of(source.poll(Duration.ofSeconds(3))));
+        Assert.assertEquals(source.getAsyncCommits(), 0);
+        Assert.assertEquals(source.getSyncCommits(), 0);
+
+        source.getMockConsumer().rebalance(Collections.emptyList());
+        Assert.assertEquals(source.getSyncCommits(), 1);
+        Assert.assertEquals(source.getLastCommitted().get(PARTITION).offset(), 10L);
+        source.close();
+    }
+
+    @Test
+    public void async_commits_08() {
+        // Offsets tracked prior to partitions being revoked are never committed once those partitions are reassigned
+        MockKafkaEventSource<Integer, String> source =
+                createAsyncSource(createSampleData(20), true, Duration.ofHours(1), 1_000);
+        pollEvents(source, 5);
+        MockConsumer<Integer, String> mock = source.getMockConsumer();
+        mock.rebalance(Collections.emptyList());
+
+        // Meanwhile another consumer is assigned the partition and moves it on
+        mock.commitSync(Map.of(PARTITION, new OffsetAndMetadata(12)));
+        mock.rebalance(List.of(PARTITION));
+
+        // Events we had buffered prior to the revocation that are behind our new position are discarded
+        Event<Integer, String> event = source.poll(Duration.ofSeconds(3));
+        Assert.assertNotNull(event);
+        Assert.assertEquals(event.key(), 12);
+        pollEvents(source, 2);
+        source.close();
+        Assert.assertEquals(source.getLastCommitted().get(PARTITION).offset(), 15L);
+    }
+
+    @Test
+    public void async_commits_09() {
+        // Events buffered for partitions that have been revoked are discarded, only the offsets of events returned prior
+        // to the revocation are committed
+        MockKafkaEventSource<Integer, String> source =
+                createAsyncSource(createSampleData(20), true, Duration.ofHours(1), 1_000);
+        pollEvents(source, 5);
+        source.getMockConsumer().rebalance(Collections.emptyList());
+
+        Assert.assertNull(source.poll(Duration.ofMillis(100)));
+        source.close();
+        Assert.assertEquals(source.getLastCommitted().get(PARTITION).offset(), 5L);
+    }
+
+    @Test
+    public void async_commits_12() {
+        // Auto-commit offsets tracked for partitions being revoked are committed synchronously before they are fenced
+        MockKafkaEventSource<Integer, String> source =
+                createAsyncSource(createSampleData(20), true, Duration.ofHours(1), 1_000);
+        pollEvents(source, 3);
+        Assert.assertEquals(source.pollBatch(4, Duration.ofSeconds(3)).size(), 4);
+        Assert.assertEquals(source.getAsyncCommits(), 0);
+        Assert.assertEquals(source.getSyncCommits(), 0);
+
+        source.getMockConsumer().rebalance(Collections.emptyList());
+        Assert.assertEquals(source.getSyncCommits(), 1);
+        Assert.assertEquals(source.getLastCommitted().get(PARTITION).offset(), 7L);
+        source.close();
+        Assert.assertEquals(source.getSyncCommits(), 1);
+    }
+
+    @Test
+    public void async_commits_10() {
+        // Offsets are tracked for events returned both individually and in batches
+        MockKafkaEventSource<Integer, String> source =
+                createAsyncSource(createSampleData(20), true, Duration.ofHours(1), 1_000);
+        pollEvents(source, 3);
+        Assert.assertEquals(source.pollBatch(4, Duration.ofSeconds(3)).size(), 4);
+        pollEvents(source, 2);
+        source.close();
+        Assert.assertEquals(source.getLastCommitted().get(PARTITION).offset(), 9L);
+    }
+
+    @Test
+    public void async_commits_11() {
+        // Offsets of processed events are committed using the shared topic partition instances
+        MockKafkaEventSource<Integer, String> source =
+                createAsyncSource(createSampleData(10), false, Duration.ZERO, 1);
+        source.processed(List.copyOf(source.pollBatch(5, Duration.ofSeconds(3))));
+        TopicPartition committed = source.getLastCommitted().keySet().iterator().next();
+        Assert.assertSame(committed, KafkaEvent.topicPartition(TEST_TOPIC, 0));
+        Assert.assertEquals(source.getLastCommitted().get(committed).offset(), 5L);
+        source.close();
+    }
+}
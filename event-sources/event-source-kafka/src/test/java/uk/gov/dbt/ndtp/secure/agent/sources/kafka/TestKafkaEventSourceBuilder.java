@@ -90,6 +90,94 @@ public class TestKafkaEventSourceBuilder {
                         .build();
     }
 
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*prefetchBatches.*>= 0")
+    public void kafka_builder_bad_08() {
+        KafkaEventSource.create()
+                        .bootstrapServers("localhost:9092")
+                        .topic("test")
+                        .consumerGroup("consumer")
+                        .keyDeserializer(BytesDeserializer.class)
+                        .valueDeserializer(BytesDeserializer.class)
+                        .prefetch(-1)
+                        .build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*pending commits.*>= 1")
+    public void kafka_builder_bad_09() {
+        KafkaEventSource.create()
+                        .bootstrapServers("localhost:9092")
+                        .topic("test")
+                        .consumerGroup("consumer")
+                        .keyDeserializer(BytesDeserializer.class)
+                        .valueDeserializer(BytesDeserializer.class)
+                        .asyncCommits(Duration.ofSeconds(1), 0)
+                        .build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*interval.*>= 0")
+    public void kafka_builder_bad_10() {
+        KafkaEventSource.create()
+                        .bootstrapServers("localhost:9092")
+                        .topic("test")
+                        .consumerGroup("consumer")
+                        .keyDeserializer(BytesDeserializer.class)
+                        .valueDeserializer(BytesDeserializer.class)
+                        .asyncCommits(Duration.ofSeconds(-1), 1)
+                        .build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class,
+            expectedExceptionsMessageRegExp = ".*partitionPauseThreshold.*>= 0")
+    public void kafka_builder_bad_11() {
+        KafkaEventSource.create()
+                        .bootstrapServers("localhost:9092")
+                        .topic("test")
+                        .consumerGroup("consumer")
+                        .keyDeserializer(BytesDeserializer.class)
+                        .valueDeserializer(BytesDeserializer.class)
+                        .perPartitionBuffering(-1)
+                        .build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*prefetching")
+    public void kafka_builder_bad_12() {
+        KafkaEventSource.create()
+                        .bootstrapServers("localhost:9092")
+                        .topic("test")
+                        .consumerGroup("consumer")
+                        .keyDeserializer(BytesDeserializer.class)
+                        .valueDeserializer(BytesDeserializer.class)
+                        .perPartitionBuffering()
+                        .prefetch(2)
+                        .build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class,
+            expectedExceptionsMessageRegExp = ".*maxBufferedBytes.*>= 0")
+    public void kafka_builder_bad_13() {
+        KafkaEventSource.create()
+                        .bootstrapServers("localhost:9092")
+                        .topic("test")
+                        .consumerGroup("consumer")
+                        .keyDeserializer(BytesDeserializer.class)
+                        .valueDeserializer(BytesDeserializer.class)
+                        .maxBufferedBytes(-1)
+                        .build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class,
+            expectedExceptionsMessageRegExp = ".*deserializationThreads.*>= 0")
+    public void kafka_builder_bad_14() {
+        KafkaEventSource.create()
+                        .bootstrapServers("localhost:9092")
+                        .topic("test")
+                        .consumerGroup("consumer")
+                        .keyDeserializer(BytesDeserializer.class)
+                        .valueDeserializer(BytesDeserializer.class)
+                        .parallelDeserialization(-1)
+                        .build();
+    }
+
     @Test
     public void kafka_builder_01() {
         KafkaEventSource<Bytes, Bytes> source
@@ -161,4 +249,52 @@ public class TestKafkaEventSourceBuilder {
         Assert.assertNull(source.remaining());
         Assert.assertEquals(source.toString(), "localhost:9092,localhost:9093,localhost:9094/test");
     }
+
+    @Test
+    public void kafka_builder_05() {
+        KafkaEventSource<Bytes, Bytes> source
+                = KafkaEventSource.<Bytes, Bytes>create()
+                                  .bootstrapServers("localhost:9092")
+                                  .topic("test")
+                                  .consumerGroup("consumer")
+                                  .keyDeserializer(BytesDeserializer.class)
+                                  .valueDeserializer(BytesDeserializer.class)
+                                  .parallelDeserialization()
+                                  .build();
+        Assert.assertNotNull(source);
+        source.close();
+    }
+
+    @Test
+    public void kafka_builder_06() {
+        KafkaEventSource<Bytes, Bytes> source
+                = KafkaEventSource.<Bytes, Bytes>create()
+                                  .bootstrapServers("localhost:9092")
+                                  .topic("test")
+                                  .consumerGroup("consumer")
+                                  .keyDeserializer(BytesDeserializer.class)
+                                  .valueDeserializer(BytesDeserializer.class)
+                                  .lazyValueDeserialization()
+                                  .filter(e -> e.lastHeader("Skip") == null)
+                                  .build();
+        Assert.assertNotNull(source);
+        source.close();
+    }
+
+    @Test
+    public void kafka_builder_07() {
+        KafkaEventSource<Bytes, Bytes> source
+                = KafkaEventSource.<Bytes, Bytes>create()
+                                  .bootstrapServers("localhost:9092")
+                                  .topic("test")
+                                  .consumerGroup("consumer")
+                                  .keyDeserializer(BytesDeserializer.class)
+                                  .valueDeserializer(BytesDeserializer.class)
+                                  .lazyValueDeserialization()
+                                  .eagerValueDeserialization()
+                                  .filter(null)
+                                  .build();
+        Assert.assertNotNull(source);
+        source.close();
+    }
 }
@@ -0,0 +1,243 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import static uk.gov.dbt.ndtp.secure.agent.sources.kafka.TestKafkaEventSource.DEFAULT_BOOTSTRAP_SERVERS;
+import static uk.gov.dbt.ndtp.secure.agent.sources.kafka.TestKafkaEventSource.TEST_GROUP;
+import static uk.gov.dbt.ndtp.secure.agent.sources.kafka.TestKafkaEventSource.TEST_TOPIC;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RecordDeserializationException;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.IntegerDeserializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.Header;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.KafkaReadPolicies;
+import uk.gov.dbt.ndtp.secure.agent.sources.memory.SimpleEvent;
+
+public class TestKafkaEventSourceDecodeOptions {
+
+    private static final TopicPartition PARTITION_0 = new TopicPartition(TEST_TOPIC, 0);
+    private static final String SKIP_HEADER = "Skip";
+
+    private static MockKafkaEventSource<Integer, Integer> createSource(Collection<Event<Integer, Integer>> events,
+                                                                       DecodeOptions<Integer, Integer> options) {
+        return new MockKafkaEventSource<>(DEFAULT_BOOTSTRAP_SERVERS, Set.of(TEST_TOPIC), TEST_GROUP,
+                                          IntegerDeserializer.class.getCanonicalName(),
+                                          IntegerDeserializer.class.getCanonicalName(), 100,
+                                          KafkaReadPolicies.fromBeginning(), true, events, 0, null,
+                                          KafkaEventSource.DEFAULT_ASYNC_COMMIT_MAX_PENDING, FlowControl.NONE, options);
+    }
+
+    private static void addRecords(MockConsumer<byte[], byte[]> mock, int count) {
+        addRecords(mock, 0, count);
+    }
+
+    private static void addRecords(MockConsumer<byte[], byte[]> mock, int first, int count) {
+        mock.updateEndOffsets(Map.of(PARTITION_0, (long) first + count));
+        try (IntegerSerializer serializer = new IntegerSerializer()) {
+            for (int i = first; i < first + count; i++) {
+                // Every odd record is flagged to be skipped, and has a value that is not a valid integer
+                boolean skip = i % 2 == 1;
+                RecordHeaders headers = new RecordHeaders();
+                if (skip) {
+                    headers.add(new RecordHeader(SKIP_HEADER, "true".getBytes(StandardCharsets.UTF_8)));
+                }
+                byte[] value = skip ? new byte[] { 1, 2, 3 } : serializer.serialize(TEST_TOPIC, i * 10);
+                mock.addRecord(new ConsumerRecord<>(TEST_TOPIC, 0, i, ConsumerRecord.NO_TIMESTAMP,
+                                                    TimestampType.NO_TIMESTAMP_TYPE, -1, -1,
+                                                    serializer.serialize(TEST_TOPIC, i), value, headers,
+                                                    Optional.empty()));
+            }
+        }
+    }
+
+    private static List<Event<Integer, Integer>> pollAll(MockKafkaEventSource<Integer, Integer> source) {
+        List<Event<Integer, Integer>> events = new ArrayList<>();
+        Event<Integer, Integer> event;
+        while ((event = source.poll(Duration.ofMillis(250))) != null) {
+            events.add(event);
+        }
+        return events;
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*>= 0")
+    public void decode_options_bad_01() {
+        new DecodeOptions<>(-1, false, null);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class, expectedExceptionsMessageRegExp = ".*decodeOptions.*")
+    public void decode_options_bad_02() {
+        createSource(Collections.emptyList(), null);
+    }
+
+    @Test
+    public void decode_options_01() {
+        Assert.assertFalse(DecodeOptions.defaults().fetchRaw());
+        Assert.assertFalse(new DecodeOptions<>(0, false, e -> true).fetchRaw());
+        Assert.assertTrue(new DecodeOptions<>(0, true, null).fetchRaw());
+        Assert.assertTrue(new DecodeOptions<>(2, false, null).fetchRaw());
+    }
+
+    @Test
+    public void filter_01() {
+        // Events rejected by the filter are never returned, but their offsets are still committed
+        List<Event<Integer, Integer>> events =
+                IntStream.range(0, 100).mapToObj(i -> (Event<Integer, Integer>) new SimpleEvent<>(
+                        Collections.emptyList(), i, i * 10)).toList();
+        MockKafkaEventSource<Integer, Integer> source =
+                createSource(events, new DecodeOptions<>(0, false, e -> e.key() % 2 == 0));
+        Assert.assertNotNull(source.getMockConsumer());
+
+        List<Event<Integer, Integer>> received = pollAll(source);
+        Assert.assertEquals(received.size(), 50);
+        for (int i = 0; i < received.size(); i++) {
+            Assert.assertEquals(received.get(i).key(), i * 2);
+            Assert.assertEquals(received.get(i).value(), i * 20);
+        }
+        source.close();
+        Assert.assertEquals(source.getLastCommitted().get(PARTITION_0).offset(), 100L);
+    }
+
+    @Test
+    public void filter_02() {
+        // A batch is never returned empty just because every event in the first slices of the buffer was rejected
+        List<Event<Integer, Integer>> events =
+                IntStream.range(0, 100).mapToObj(i -> (Event<Integer, Integer>) new SimpleEvent<>(
+                        Collections.emptyList(), i, i * 10)).toList();
+        MockKafkaEventSource<Integer, Integer> source =
+                createSource(events, new DecodeOptions<>(0, false, e -> e.key() >= 90));
+
+        List<Event<Integer, Integer>> batch = source.pollBatch(10, Duration.ofSeconds(3));
+        Assert.assertEquals(batch.size(), 10);
+        for (int i = 0; i < batch.size(); i++) {
+            Assert.assertEquals(batch.get(i).key(), 90 + i);
+        }
+        source.close();
+        Assert.assertEquals(source.getLastCommitted().get(PARTITION_0).offset(), 100L);
+    }
+
+    @Test
+    public void filter_03() {
+        // Polling carries on refilling the buffer, within the timeout, when every event fetched was rejected
+        MockKafkaEventSource<Integer, Integer> source =
+                createSource(Collections.emptyList(), new DecodeOptions<>(0, true, e -> e.key() >= 5));
+        MockConsumer<byte[], byte[]> mock = source.getRawMockConsumer();
+        mock.schedulePollTask(() -> addRecords(mock, 0, 5));
+        mock.schedulePollTask(() -> addRecords(mock, 5, 1));
+
+        Event<Integer, Integer> event = source.poll(Duration.ofSeconds(3));
+        Assert.assertNotNull(event);
+        Assert.assertEquals(event.key(), 5);
+        source.close();
+    }
+
+    @Test
+    public void lazy_values_01() {
+        // Filtering on headers means rejected events never have their values deserialized
+        MockKafkaEventSource<Integer, Integer> source =
+                createSource(Collections.emptyList(),
+                             new DecodeOptions<>(0, true, e -> e.lastHeader(SKIP_HEADER) == null));
+        Assert.assertNull(source.getMockConsumer());
+        MockConsumer<byte[], byte[]> mock = source.getRawMockConsumer();
+        mock.schedulePollTask(() -> addRecords(mock, 100));
+
+        List<Event<Integer, Integer>> received = pollAll(source);
+        Assert.assertEquals(received.size(), 50);
+        for (int i = 0; i < received.size(); i++) {
+            KafkaEvent<Integer, Integer> event = (KafkaEvent<Integer, Integer>) received.get(i);
+            LazyConsumerRecord<Integer, Integer> record =
+                    (LazyConsumerRecord<Integer, Integer>) event.getConsumerRecord();
+            Assert.assertEquals(event.key(), i * 2);
+            Assert.assertFalse(record.isDecoded());
+            Assert.assertEquals(event.value(), i * 20);
+            Assert.assertTrue(record.isDecoded());
+        }
+        source.close();
+        Assert.assertEquals(source.getLastCommitted().get(PARTITION_0).offset(), 100L);
+    }
+
+    @Test
+    public void lazy_values_02() {
+        // Malformed values are only reported when accessed
+        MockKafkaEventSource<Integer, Integer> source =
+                createSource(Collections.emptyList(), new DecodeOptions<>(2, true, null));
+        MockConsumer<byte[], byte[]> mock = source.getRawMockConsumer();
+        mock.schedulePollTask(() -> addRecords(mock, 2));
+
+        List<Event<Integer, Integer>> received = pollAll(source);
+        Assert.assertEquals(received.size(), 2);
+        Assert.assertEquals(received.get(0).value(), 0);
+        Assert.assertEquals(received.get(1).lastHeader(SKIP_HEADER), "true");
+        try {
+            received.get(1).value();
+            Assert.fail("Expected a deserialization error");
+        } catch (RecordDeserializationException e) {
+            Assert.assertEquals(e.topicPartition(), PARTITION_0);
+            Assert.assertEquals(e.offset(), 1L);
+        } finally {
+            source.close();
+        }
+    }
+
+    @Test
+    public void lazy_values_03() {
+        // Replacing keys and headers on a lazy event does not force the value to be deserialized
+        MockKafkaEventSource<Integer, Integer> source =
+                createSource(Collections.emptyList(), new DecodeOptions<>(0, true, null));
+        MockConsumer<byte[], byte[]> mock = source.getRawMockConsumer();
+        mock.schedulePollTask(() -> addRecords(mock, 1));
+
+        KafkaEvent<Integer, Integer> event = (KafkaEvent<Integer, Integer>) source.poll(Duration.ofSeconds(3));
+        Assert.assertNotNull(event);
+        KafkaEvent<String, Integer> replaced =
+                (KafkaEvent<String, Integer>) event.replaceKey("key").addHeaders(Stream.of(new Header("a", "b")));
+        Assert.assertTrue(replaced.getConsumerRecord() instanceof LazyConsumerRecord<String, Integer>);
+        Assert.assertFalse(((LazyConsumerRecord<Integer, Integer>) event.getConsumerRecord()).isDecoded());
+        Assert.assertEquals(replaced.key(), "key");
+        Assert.assertEquals(replaced.lastHeader("a"), "b");
+        Assert.assertEquals(replaced.value(), 0);
+        Assert.assertEquals(event.value(), 0);
+        source.close();
+    }
+}
@@ -0,0 +1,133 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import static uk.gov.dbt.ndtp.secure.agent.sources.kafka.TestKafkaEventSource.DEFAULT_BOOTSTRAP_SERVERS;
+import static uk.gov.dbt.ndtp.secure.agent.sources.kafka.TestKafkaEventSource.TEST_GROUP;
+import static uk.gov.dbt.ndtp.secure.agent.sources.kafka.TestKafkaEventSource.TEST_TOPIC;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RecordDeserializationException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.IntegerDeserializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.EventSourceException;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.KafkaReadPolicies;
+
+public class TestKafkaEventSourceParallelDeserialization {
+
+    private static final TopicPartition PARTITION_0 = new TopicPartition(TEST_TOPIC, 0);
+
+    private static MockKafkaEventSource<Integer, String> createSource(int deserializationThreads) {
+        return new MockKafkaEventSource<>(DEFAULT_BOOTSTRAP_SERVERS, Set.of(TEST_TOPIC), TEST_GROUP,
+                                          IntegerDeserializer.class.getCanonicalName(),
+                                          StringDeserializer.class.getCanonicalName(), 100,
+                                          KafkaReadPolicies.fromBeginning(), true, Collections.emptyList(), 0, null,
+                                          KafkaEventSource.DEFAULT_ASYNC_COMMIT_MAX_PENDING, FlowControl.NONE,
+                                          new DecodeOptions<>(deserializationThreads, false, null));
+    }
+
+    private static void addRecord(MockConsumer<byte[], byte[]> mock, long offset, byte[] value) {
+        try (IntegerSerializer serializer = new IntegerSerializer()) {
+            mock.addRecord(new ConsumerRecord<>(TEST_TOPIC, 0, offset, serializer.serialize(TEST_TOPIC, (int) offset),
+                                                value));
+        }
+    }
+
+    private static void addRecords(MockConsumer<byte[], byte[]> mock, int count) {
+        mock.updateEndOffsets(Map.of(PARTITION_0, (long) count));
+        for (int i = 0; i < count; i++) {
+            addRecord(mock, i, ("Event " + i).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*>= 0")
+    public void parallel_deserialization_bad_01() {
+        createSource(-1);
+    }
+
+    @Test
+    public void parallel_deserialization_01() {
+        // Consumer fetches raw bytes
+        MockKafkaEventSource<Integer, String> source = createSource(2);
+        Assert.assertNull(source.getMockConsumer());
+        Assert.assertEquals(source.getConsumerProperties().get(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG),
+                            ByteArrayDeserializer.class.getCanonicalName());
+        Assert.assertEquals(source.getConsumerProperties().get(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG),
+                            ByteArrayDeserializer.class.getCanonicalName());
+
+        // Events are deserialized and returned in order
+        MockConsumer<byte[], byte[]> mock = source.getRawMockConsumer();
+        mock.schedulePollTask(() -> addRecords(mock, 1_000));
+        for (int i = 0; i < 1_000; i++) {
+            Event<Integer, String> event = source.poll(Duration.ofSeconds(3));
+            Assert.assertNotNull(event);
+            Assert.assertEquals(event.key(), i);
+            Assert.assertEquals(event.value(), "Event " + i);
+        }
+        Assert.assertNull(source.poll(Duration.ofMillis(100)));
+        source.close();
+        Assert.assertEquals(source.getLastCommitted().get(PARTITION_0).offset(), 1_000L);
+        Assert.assertTrue(mock.closed());
+    }
+
+    @Test
+    public void parallel_deserialization_02() {
+        // Malformed records are reported just as they would be by the Kafka consumer
+        MockKafkaEventSource<Integer, String> source = createSource(2);
+        MockConsumer<byte[], byte[]> mock = source.getRawMockConsumer();
+        mock.schedulePollTask(() -> {
+            addRecord(mock, 0, "Event 0".getBytes(StandardCharsets.UTF_8));
+            mock.addRecord(new ConsumerRecord<>(TEST_TOPIC, 0, 1, new byte[] { 1, 2, 3 }, null));
+        });
+        Event<Integer, String> event = source.poll(Duration.ofSeconds(3));
+        Assert.assertNotNull(event);
+        Assert.assertEquals(event.value(), "Event 0");
+
+        try {
+            source.poll(Duration.ofSeconds(3));
+            Assert.fail("Expected a deserialization error");
+        } catch (EventSourceException e) {
+            Assert.assertTrue(e.getCause() instanceof RecordDeserializationException);
+            RecordDeserializationException deserErr = (RecordDeserializationException) e.getCause();
+            Assert.assertEquals(deserErr.topicPartition(), PARTITION_0);
+            Assert.assertEquals(deserErr.offset(), 1L);
+        } finally {
+            source.close();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.KafkaReadPolicies;
+
+public class TestKafkaEventSourcePartitionBuffers extends TestKafkaEventSource {
+
+    private static final TopicPartition PARTITION_0 = new TopicPartition(TEST_TOPIC, 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition(TEST_TOPIC, 1);
+
+    @Override
+    protected MockKafkaEventSource<Integer, String> createMockKafkaEventSource(
+            Collection<Event<Integer, String>> events) {
+        return createBufferingSource(events, 10, 100);
+    }
+
+    private MockKafkaEventSource<Integer, String> createBufferingSource(Collection<Event<Integer, String>> events,
+                                                                       int pauseThreshold, int maxPollRecords) {
+        return createBufferingSource(events, pauseThreshold, maxPollRecords, 0);
+    }
+
+    private MockKafkaEventSource<Integer, String> createBufferingSource(Collection<Event<Integer, String>> events,
+                                                                       int pauseThreshold, int maxPollRecords,
+                                                                       long maxBufferedBytes) {
+        return new MockKafkaEventSource<>(DEFAULT_BOOTSTRAP_SERVERS, Set.of(TEST_TOPIC), TEST_GROUP,
+                                          StringSerializer.class.getCanonicalName(),
+                                          StringSerializer.class.getCanonicalName(), maxPollRecords,
+                                          KafkaReadPolicies.fromBeginning(), true, events, 0, null,
+                                          KafkaEventSource.DEFAULT_ASYNC_COMMIT_MAX_PENDING,
+                                          new FlowControl(pauseThreshold, maxBufferedBytes));
+    }
+
+    private static void addRecords(MockConsumer<Integer, String> mock, TopicPartition partition, int count) {
+        for (int i = 0; i < count; i++) {
+            mock.addRecord(new ConsumerRecord<>(partition.topic(), partition.partition(), i, i, partition + "-" + i));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*prefetching")
+    public void partition_buffers_bad_01() {
+        new MockKafkaEventSource<>(DEFAULT_BOOTSTRAP_SERVERS, Set.of(TEST_TOPIC), TEST_GROUP,
+                                   StringSerializer.class.getCanonicalName(),
+                                   StringSerializer.class.getCanonicalName(), 100, KafkaReadPolicies.fromBeginning(),
+                                   true, Collections.emptyList(), 1, null,
+                                   KafkaEventSource.DEFAULT_ASYNC_COMMIT_MAX_PENDING, new FlowControl(10, 0));
+    }
+
+    @Test
+    public void partition_buffers_01() {
+        // Records from a quiet partition are interleaved with those from a partition with a large backlog
+        MockKafkaEventSource<Integer, String> source =
+                createBufferingSource(Collections.emptyList(), 1_000, 10);
+        Assert.assertNull(source.poll(Duration.ofMillis(100)));
+        MockConsumer<Integer, String> mock = source.getMockConsumer();
+        mock.updateBeginningOffsets(Map.of(PARTITION_1, 0L));
+        mock.updateEndOffsets(Map.of(PARTITION_0, 100L, PARTITION_1, 5L));
+        mock.rebalance(List.of(PARTITION_0, PARTITION_1));
+        addRecords(mock, PARTITION_0, 100);
+        addRecords(mock, PARTITION_1, 5);
+
+        List<Integer> partitions = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Event<Integer, String> event = source.poll(Duration.ofSeconds(3));
+            Assert.assertNotNull(event);
+            partitions.add(((KafkaEvent<Integer, String>) event).getConsumerRecord().partition());
+        }
+        Assert.assertEquals(Collections.frequency(partitions, 1), 5);
+        Assert.assertEquals(source.remaining(), 95L);
+        source.close();
+    }
+
+    @Test
+    public void partition_buffers_02() {
+        // Partition is paused once too many records are buffered for it, and resumed once the caller catches up
+        MockKafkaEventSource<Integer, String> source = createBufferingSource(createSampleData(1_000), 10, 4);
+        Assert.assertNotNull(source.poll(Duration.ofSeconds(3)));
+        MockConsumer<Integer, String> mock = source.getMockConsumer();
+        Assert.assertEquals(mock.paused(), Set.of(PARTITION_0));
+
+        int received = 1;
+        while (source.poll(Duration.ofMillis(100)) != null) {
+            received++;
+        }
+        Assert.assertEquals(received, 1_000);
+        Assert.assertTrue(mock.paused().isEmpty());
+        source.close();
+        Assert.assertEquals(source.getLastCommitted().get(PARTITION_0).offset(), 1_000L);
+    }
+
+    @Test
+    public void partition_buffers_03() {
+        // All partitions are paused while over the byte budget, and resumed once the caller catches up
+        MockKafkaEventSource<Integer, String> source =
+                createBufferingSource(Collections.emptyList(), 1_000, 10, 1_000);
+        Assert.assertNull(source.poll(Duration.ofMillis(100)));
+        MockConsumer<Integer, String> mock = source.getMockConsumer();
+        mock.updateEndOffsets(Map.of(PARTITION_0, 50L));
+        for (int i = 0; i < 50; i++) {
+            mock.addRecord(new ConsumerRecord<>(TEST_TOPIC, 0, i, 0L, TimestampType.CREATE_TIME, -1, 100, null,
+                                                "value", new RecordHeaders(), Optional.empty()));
+        }
+
+        Assert.assertNotNull(source.poll(Duration.ofSeconds(3)));
+        Assert.assertEquals(source.bufferedBytes(), 4_900L);
+        Assert.assertEquals(mock.paused(), Set.of(PARTITION_0));
+
+        int received = 1;
+        while (source.poll(Duration.ofMillis(100)) != null) {
+            received++;
+        }
+        Assert.assertEquals(received, 50);
+        Assert.assertEquals(source.bufferedBytes(), 0L);
+        Assert.assertTrue(mock.paused().isEmpty());
+        source.close();
+    }
+
+    @Test
+    public void partition_buffers_04() {
+        // A byte budget also lowers the consumer fetch sizes
+        MockKafkaEventSource<Integer, String> source =
+                createBufferingSource(Collections.emptyList(), 1_000, 10, 1_000_000);
+        Assert.assertEquals(source.getConsumerProperties().getProperty(ConsumerConfig.FETCH_MAX_BYTES_CONFIG),
+                            "1000000");
+        Assert.assertEquals(
+                source.getConsumerProperties().getProperty(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG),
+                "1000000");
+        source.close();
+
+        source = createBufferingSource(Collections.emptyList(), 1_000, 10, 0);
+        Assert.assertNull(source.getConsumerProperties().getProperty(ConsumerConfig.FETCH_MAX_BYTES_CONFIG));
+        Assert.assertEquals(
+                source.getConsumerProperties().getProperty(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG),
+                Integer.toString(KafkaEventSource.MAX_PARTITION_FETCH_BYTES));
+        source.close();
+    }
+}
@@ -0,0 +1,143 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.EventSource;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.KafkaReadPolicies;
+
+public class TestKafkaEventSourcePrefetch extends TestKafkaEventSource {
+
+    @Override
+    protected MockKafkaEventSource<Integer, String> createMockKafkaEventSource(
+            Collection<Event<Integer, String>> events) {
+        return createPrefetchingSource(events, true);
+    }
+
+    private MockKafkaEventSource<Integer, String> createPrefetchingSource(Collection<Event<Integer, String>> events,
+                                                                         boolean autoCommit) {
+        return new MockKafkaEventSource<>(DEFAULT_BOOTSTRAP_SERVERS, Set.of(TEST_TOPIC), TEST_GROUP,
+                                          StringSerializer.class.getCanonicalName(),
+                                          StringSerializer.class.getCanonicalName(), 100,
+                                          KafkaReadPolicies.fromBeginning(), autoCommit, events,
+                                          KafkaEventSource.DEFAULT_PREFETCH_BATCHES);
+    }
+
+    private static Long committedOffset(MockConsumer<Integer, String> mock, TopicPartition partition) {
+        Map<TopicPartition, OffsetAndMetadata> committed = mock.committed(Set.of(partition));
+        OffsetAndMetadata offset = committed.get(partition);
+        return offset != null ? offset.offset() : null;
+    }
+
+    @Test
+    @Override
+    public void kafka_poll_failures_recoverable() {
+        EventSource<Integer, String> source = createSource(createSampleData(10));
+        MockConsumer<Integer, String> mock = this.kafkaEventSource.getMockConsumer();
+        mock.wakeup();
+
+        // With prefetching a recoverable error is simply retried by the prefetch thread so the caller still gets events
+        Assert.assertNotNull(source.poll(Duration.ofSeconds(3)));
+        source.close();
+    }
+
+    @Test
+    public void kafka_prefetch_01() {
+        EventSource<Integer, String> source = createSource(createSampleData(1_000));
+
+        // All events should be returned in order
+        for (int i = 0; i < 1_000; i++) {
+            Event<Integer, String> event = source.poll(Duration.ofSeconds(3));
+            Assert.assertNotNull(event, "Missing event " + i);
+            Assert.assertEquals(event.key(), i);
+        }
+        Assert.assertNull(source.poll(Duration.ofMillis(250)));
+        source.close();
+    }
+
+    @Test
+    public void kafka_prefetch_02() {
+        EventSource<Integer, String> source = createSource(createSampleData(1_000));
+        TopicPartition partition = new TopicPartition(TEST_TOPIC, 0);
+
+        // Only read some events, the prefetch thread will have read ahead of this
+        for (int i = 0; i < 150; i++) {
+            Assert.assertNotNull(source.poll(Duration.ofSeconds(3)));
+        }
+
+        // On close should only commit the offset of the next event we would have read, not the prefetch position
+        source.close();
+        Assert.assertEquals(this.kafkaEventSource.getLastCommitted().get(partition).offset(), 150L);
+    }
+
+    @Test
+    public void kafka_prefetch_03() throws InterruptedException {
+        MockKafkaEventSource<Integer, String> source = createPrefetchingSource(createSampleData(500), false);
+        MockConsumer<Integer, String> mock = source.getMockConsumer();
+        TopicPartition partition = new TopicPartition(TEST_TOPIC, 0);
+
+        Event<Integer, String> event = null;
+        for (int i = 0; i < 50; i++) {
+            event = source.poll(Duration.ofSeconds(3));
+            Assert.assertNotNull(event);
+        }
+
+        // Processed commits are carried out asynchronously by the prefetch thread
+        source.processed(List.of(event));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (committedOffset(mock, partition) == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(committedOffset(mock, partition), 50L);
+
+        // Without auto-commit nothing further is committed on close
+        source.close();
+        Assert.assertEquals(source.getLastCommitted().get(partition).offset(), 50L);
+    }
+
+    @Test
+    public void kafka_prefetch_04() {
+        EventSource<Integer, String> source = createSource(createSampleData(1_000));
+
+        // Once the first batch is taken there should be further batches prefetched so remaining should account for
+        // those
+        Assert.assertNotNull(source.poll(Duration.ofSeconds(3)));
+        Long remaining = source.remaining();
+        Assert.assertNotNull(remaining);
+        Assert.assertEquals(remaining, 999L);
+        source.close();
+    }
+}
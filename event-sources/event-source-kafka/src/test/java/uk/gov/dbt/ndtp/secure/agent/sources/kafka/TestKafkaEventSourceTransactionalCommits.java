@@ -0,0 +1,102 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.KafkaReadPolicies;
+import uk.gov.dbt.ndtp.secure.agent.sources.memory.SimpleEvent;
+
+public class TestKafkaEventSourceTransactionalCommits {
+
+    private MockKafkaEventSource<String, String> createSource(boolean autoCommit, int prefetchBatches) {
+        List<Event<String, String>> events = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            events.add(new SimpleEvent<>(List.of(), "key-" + i, "value-" + i));
+        }
+        return new MockKafkaEventSource<>("transactional-commits-mock:9092", Set.of("test"), "transactional",
+                                          StringDeserializer.class.getCanonicalName(),
+                                          StringDeserializer.class.getCanonicalName(), 100,
+                                          KafkaReadPolicies.fromBeginning(), autoCommit, events, prefetchBatches);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void transactional_commits_bad_01() {
+        MockKafkaEventSource<String, String> source = createSource(true, 0);
+        try {
+            source.enableTransactionalCommits(null);
+        } finally {
+            source.close();
+        }
+    }
+
+    @Test
+    public void transactional_commits_01() {
+        // Given
+        MockKafkaEventSource<String, String> source = createSource(false, 0);
+        try {
+            source.enableTransactionalCommits(null);
+            Collection<Event> read = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                read.add(source.poll(Duration.ofSeconds(1)));
+            }
+
+            // When
+            source.processed(read);
+
+            // Then
+            Assert.assertEquals(source.getSyncCommits(), 0);
+            Assert.assertTrue(source.getLastCommitted().isEmpty());
+        } finally {
+            source.close();
+        }
+    }
+
+    @Test
+    public void transactional_commits_02() {
+        // Given
+        MockKafkaEventSource<String, String> source = createSource(false, 2);
+        try {
+            Assert.assertNotNull(source.poll(Duration.ofSeconds(1)));
+
+            // When
+            ConsumerGroupMetadata metadata = source.groupMetadata();
+
+            // Then
+            Assert.assertNotNull(metadata);
+            Assert.assertNotNull(metadata.groupId());
+        } finally {
+            source.close();
+        }
+    }
+}
@@ -25,9 +25,12 @@
 package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.header.internals.RecordHeader;
@@ -36,6 +39,9 @@ import org.apache.kafka.common.record.RecordBatch;
 import org.apache.kafka.common.record.TimestampType;
 import org.testng.Assert;
 import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.sources.PreEncodedHeaders;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.sinks.KafkaSink;
+import uk.gov.dbt.ndtp.secure.agent.sources.memory.SimpleEvent;
 
 public class TestKafkaEvents {
 
@@ -171,7 +177,108 @@ public class TestKafkaEvents {
         Assert.assertNull(event.lastHeader("foo"));
     }
 
+    @Test
+    public void kafka_event_pre_encoded_headers_01() {
+        // Given
+        uk.gov.dbt.ndtp.secure.agent.sources.Header fixed = PreEncodedHeaders.create("Kafka-Pre-Encoded", "fixed");
+        KafkaEvent<Integer, String> event = new KafkaEvent<>(createConsumerRecord(TEST_KEY, TEST_VALUE), null);
+
+        // When
+        KafkaEvent<Integer, String> first = (KafkaEvent<Integer, String>) event.addHeaders(Stream.of(fixed));
+        KafkaEvent<Integer, String> second = (KafkaEvent<Integer, String>) event.addHeaders(Stream.of(fixed));
+
+        // Then
+        Assert.assertEquals(first.lastHeader("Kafka-Pre-Encoded"), "fixed");
+        Assert.assertSame(first.getConsumerRecord().headers().lastHeader("Kafka-Pre-Encoded"),
+                          second.getConsumerRecord().headers().lastHeader("Kafka-Pre-Encoded"));
+        Assert.assertSame(KafkaSink.toKafkaHeader(fixed), KafkaSink.toKafkaHeader(fixed));
+    }
+
+    @Test
+    public void kafka_event_pre_encoded_headers_02() {
+        // Given
+        uk.gov.dbt.ndtp.secure.agent.sources.Header perEvent =
+                new uk.gov.dbt.ndtp.secure.agent.sources.Header("Kafka-Per-Event", "value");
+
+        // When
+        Header first = KafkaSink.toKafkaHeader(perEvent);
+        Header second = KafkaSink.toKafkaHeader(perEvent);
+
+        // Then
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(first.value(), "value".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void kafka_event_to_kafka_headers_01() {
+        // Given
+        Headers headers = new RecordHeaders(new Header[] {
+                new RecordHeader("Content-Type", "application/json".getBytes(StandardCharsets.UTF_8)),
+                new RecordHeader("Empty", null)
+        });
+        KafkaEvent<Integer, String> event = new KafkaEvent<>(createConsumerRecord(TEST_KEY, TEST_VALUE, headers), null);
+
+        // When
+        Iterable<Header> kafkaHeaders = KafkaSink.toKafkaHeaders(event);
+
+        // Then
+        Assert.assertSame(kafkaHeaders, headers);
+    }
+
+    @Test
+    public void kafka_event_to_kafka_headers_02() {
+        // Given
+        SimpleEvent<Integer, String> event = new SimpleEvent<>(
+                List.of(new uk.gov.dbt.ndtp.secure.agent.sources.Header("Content-Type", "text/plain"),
+                        PreEncodedHeaders.create("Exec-Path", "kafka-events-test")), TEST_KEY, TEST_VALUE);
+
+        // When
+        List<Header> kafkaHeaders = new ArrayList<>();
+        KafkaSink.toKafkaHeaders(event).forEach(kafkaHeaders::add);
+
+        // Then
+        Assert.assertEquals(kafkaHeaders, KafkaSink.toKafkaHeaders(event.headers()));
+        Assert.assertEquals(kafkaHeaders.get(0).key(), "Content-Type");
+        Assert.assertEquals(kafkaHeaders.get(1).value(), "kafka-events-test".getBytes(StandardCharsets.UTF_8));
+    }
+
     @SuppressWarnings("AssertBetweenInconvertibleTypes")
+    @Test
+    public void kafka_event_topic_partition() {
+        KafkaEvent<Integer, String> event = new KafkaEvent<>(createConsumerRecord(TEST_KEY, TEST_VALUE), null);
+        Assert.assertEquals(KafkaEvent.topicPartition(event), new TopicPartition(TEST_TOPIC, TEST_PARTITION));
+        Assert.assertEquals(KafkaEvent.topicPartition(event.replaceValue("other")),
+                            new TopicPartition(TEST_TOPIC, TEST_PARTITION));
+        Assert.assertNull(KafkaEvent.topicPartition(new SimpleEvent<>(List.of(), TEST_KEY, TEST_VALUE)));
+
+        // The same instance is reused for every event from the same partition
+        Assert.assertSame(KafkaEvent.topicPartition(event), KafkaEvent.topicPartition(event.replaceValue("other")));
+        KafkaEvent<Integer, String> other = new KafkaEvent<>(
+                new ConsumerRecord<>(TEST_TOPIC, TEST_PARTITION + 3, TEST_OFFSET, TEST_KEY, TEST_VALUE), null);
+        Assert.assertEquals(KafkaEvent.topicPartition(other), new TopicPartition(TEST_TOPIC, TEST_PARTITION + 3));
+        Assert.assertSame(KafkaEvent.topicPartition(other), KafkaEvent.topicPartition(other));
+        Assert.assertSame(KafkaEvent.topicPartition(event), KafkaEvent.topicPartition(event));
+    }
+
+    @Test
+    public void kafka_event_timestamp_and_topic() {
+        KafkaEvent<Integer, String> event = new KafkaEvent<>(createConsumerRecord(TEST_KEY, TEST_VALUE), null);
+        Assert.assertNull(KafkaEvent.timestamp(event));
+        Assert.assertEquals(KafkaEvent.topic(event), TEST_TOPIC);
+
+        KafkaEvent<Integer, String> timestamped = new KafkaEvent<>(
+                new ConsumerRecord<>(TEST_TOPIC, TEST_PARTITION, TEST_OFFSET, 12345L, TimestampType.CREATE_TIME,
+                                     ConsumerRecord.NULL_SIZE, ConsumerRecord.NULL_SIZE, TEST_KEY, TEST_VALUE,
+                                     new RecordHeaders(), Optional.empty()), null);
+        Assert.assertEquals(KafkaEvent.timestamp(timestamped), 12345L);
+        Assert.assertEquals(KafkaEvent.timestamp(timestamped.replaceValue("other")), 12345L);
+
+        SimpleEvent<Integer, String> simple = new SimpleEvent<>(List.of(), TEST_KEY, TEST_VALUE);
+        Assert.assertNull(KafkaEvent.timestamp(simple));
+        Assert.assertNull(KafkaEvent.topic(simple));
+    }
+
     @Test
     public void event_equality() {
         KafkaEvent<Integer, String> event = new KafkaEvent<>(createConsumerRecord(TEST_KEY, TEST_VALUE), null);
@@ -0,0 +1,292 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import static uk.gov.dbt.ndtp.secure.agent.sources.kafka.TestKafkaEventSource.TEST_GROUP;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.BytesDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.common.utils.Bytes;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.KafkaReadPolicies;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.KafkaReadPolicy;
+import uk.gov.dbt.ndtp.secure.agent.sources.memory.SimpleEvent;
+
+public class TestParallelKafkaEventSource {
+
+    /**
+     * Use cluster addresses distinct from those used by other tests so mock and real sources are clearly separated
+     */
+    private static final String MOCK_BOOTSTRAP_SERVERS = "parallel-mock:9092";
+    private static final String REAL_BOOTSTRAP_SERVERS = "localhost:19092";
+
+    private static MockKafkaEventSource<Integer, String> createChild(String topic, int count, boolean autoCommit) {
+        List<Event<Integer, String>> events =
+                IntStream.range(0, count)
+                         .mapToObj(i -> (Event<Integer, String>) new SimpleEvent<>(Collections.emptyList(), i,
+                                                                                    topic + "-" + i))
+                         .toList();
+        return new MockKafkaEventSource<>(MOCK_BOOTSTRAP_SERVERS, Set.of(topic), TEST_GROUP,
+                                          StringSerializer.class.getCanonicalName(),
+                                          StringSerializer.class.getCanonicalName(), 100,
+                                          KafkaReadPolicies.fromBeginning(), autoCommit, events,
+                                          KafkaEventSource.DEFAULT_PREFETCH_BATCHES);
+    }
+
+    private static List<Event<Integer, String>> pollAll(ParallelKafkaEventSource<Integer, String> source,
+                                                        int expected) {
+        // Consumers may take a while to start returning events, so keep polling until all the expected events arrive
+        // or the deadline passes, rather than stopping at the first empty poll
+        List<Event<Integer, String>> events = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (events.size() < expected && System.currentTimeMillis() < deadline) {
+            Event<Integer, String> event = source.poll(Duration.ofMillis(500));
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    private static Long committedOffset(MockConsumer<Integer, String> mock, TopicPartition partition) {
+        OffsetAndMetadata offset = mock.committed(Set.of(partition)).get(partition);
+        return offset != null ? offset.offset() : null;
+    }
+
+    private static void waitForCommit(MockConsumer<Integer, String> mock, TopicPartition partition, long expected)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!Long.valueOf(expected).equals(committedOffset(mock, partition))
+               && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(committedOffset(mock, partition), expected);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*empty")
+    public void parallel_source_bad_01() {
+        new ParallelKafkaEventSource<Integer, String>(Collections.emptyList());
+    }
+
+    @Test
+    public void parallel_source_01() {
+        // Events from all consumers are returned, with each partition's events in order
+        List<MockKafkaEventSource<Integer, String>> children =
+                List.of(createChild("a", 500, true), createChild("b", 300, true), createChild("c", 0, true));
+        ParallelKafkaEventSource<Integer, String> source = new ParallelKafkaEventSource<>(children);
+        Assert.assertTrue(source.isAutoCommitting());
+
+        List<Event<Integer, String>> events = pollAll(source, 800);
+        Assert.assertEquals(events.size(), 800);
+        Map<String, Integer> expected = new HashMap<>();
+        for (Event<Integer, String> event : events) {
+            String topic = KafkaEvent.topic(event);
+            int next = expected.getOrDefault(topic, 0);
+            Assert.assertEquals(event.key(), next);
+            Assert.assertEquals(event.value(), topic + "-" + next);
+            expected.put(topic, next + 1);
+        }
+        Assert.assertEquals(expected, Map.of("a", 500, "b", 300));
+        Assert.assertEquals(source.remaining(), 0L);
+
+        // With auto-commit each consumer commits the offsets of the events returned from it
+        source.close();
+        Assert.assertEquals(children.get(0).getLastCommitted().get(new TopicPartition("a", 0)).offset(), 500L);
+        Assert.assertEquals(children.get(1).getLastCommitted().get(new TopicPartition("b", 0)).offset(), 300L);
+        Assert.assertTrue(children.stream().allMatch(KafkaEventSource::isClosed));
+    }
+
+    @SuppressWarnings("rawtypes")
+    @Test
+    public void parallel_source_02() throws InterruptedException {
+        // Processed events are committed by the consumer that read them
+        MockKafkaEventSource<Integer, String> a = createChild("a", 200, false);
+        MockKafkaEventSource<Integer, String> b = createChild("b", 100, false);
+        ParallelKafkaEventSource<Integer, String> source = new ParallelKafkaEventSource<>(List.of(a, b));
+        Assert.assertFalse(source.isAutoCommitting());
+
+        List<Event> events = new ArrayList<>(pollAll(source, 300));
+        Assert.assertEquals(events.size(), 300);
+        source.processed(events);
+        waitForCommit(a.getMockConsumer(), new TopicPartition("a", 0), 200L);
+        waitForCommit(b.getMockConsumer(), new TopicPartition("b", 0), 100L);
+        Assert.assertFalse(a.getLastCommitted().containsKey(new TopicPartition("b", 0)));
+        Assert.assertFalse(b.getLastCommitted().containsKey(new TopicPartition("a", 0)));
+
+        // Events not read by this source are ignored
+        source.processed(List.of(new SimpleEvent<>(Collections.emptyList(), 1, "other")));
+        source.close();
+    }
+
+    @Test
+    public void parallel_source_03() {
+        // Batches can be polled across consumers
+        ParallelKafkaEventSource<Integer, String> source =
+                new ParallelKafkaEventSource<>(List.of(createChild("a", 100, true), createChild("b", 100, true)));
+        Assert.assertFalse(source.availableImmediately());
+        Assert.assertNotNull(source.poll(Duration.ofSeconds(3)));
+
+        int total = 1;
+        while (total < 200) {
+            List<Event<Integer, String>> batch = source.pollBatch(50, Duration.ofSeconds(3));
+            Assert.assertFalse(batch.isEmpty());
+            Assert.assertTrue(batch.size() <= 50);
+            total += batch.size();
+        }
+        Assert.assertEquals(total, 200);
+        Assert.assertFalse(source.availableImmediately());
+        source.close();
+    }
+
+    @Test
+    public void parallel_source_04() {
+        // Polling with nothing available waits for the timeout
+        ParallelKafkaEventSource<Integer, String> source =
+                new ParallelKafkaEventSource<>(List.of(createChild("a", 0, true), createChild("b", 0, true)));
+        long start = System.currentTimeMillis();
+        Assert.assertNull(source.poll(Duration.ofMillis(300)));
+        Assert.assertTrue(System.currentTimeMillis() - start >= 250);
+        Assert.assertFalse(source.isExhausted());
+
+        source.close();
+        Assert.assertTrue(source.isClosed());
+        Assert.assertTrue(source.isExhausted());
+        Assert.assertFalse(source.availableImmediately());
+        // Closing again is a no-op
+        source.close();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void parallel_source_05() {
+        ParallelKafkaEventSource<Integer, String> source =
+                new ParallelKafkaEventSource<>(List.of(createChild("a", 10, true)));
+        source.close();
+        source.poll(Duration.ofMillis(10));
+    }
+
+    private static ParallelKafkaEventSource.Builder<Bytes, Bytes> builder() {
+        return ParallelKafkaEventSource.<Bytes, Bytes>create()
+                                       .bootstrapServers(REAL_BOOTSTRAP_SERVERS)
+                                       .topic("test")
+                                       .consumerGroup("consumer")
+                                       .keyDeserializer(BytesDeserializer.class)
+                                       .valueDeserializer(BytesDeserializer.class);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*>= 1")
+    public void parallel_source_builder_bad_01() {
+        builder().consumers(0).build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*readPolicies.*")
+    public void parallel_source_builder_bad_02() {
+        // A single read policy instance can't be shared between consumers
+        builder().consumers(2).readPolicy(KafkaReadPolicies.fromEarliest()).build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*subscriptions")
+    public void parallel_source_builder_bad_03() {
+        builder().consumers(2).readPolicies(KafkaReadPolicies::manualFromBeginning).build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*per-partition.*")
+    public void parallel_source_builder_bad_04() {
+        builder().perPartitionBuffering().build();
+    }
+
+    @Test
+    public void parallel_source_builder_01() {
+        ParallelKafkaEventSource<Bytes, Bytes> source = builder().consumers(3).fromLatest().build();
+        Assert.assertEquals(source.sources().size(), 3);
+        Assert.assertEquals(source.sources().stream().distinct().count(), 3);
+        source.close();
+    }
+
+    @Test
+    public void parallel_source_builder_02() {
+        // A single consumer may use an explicit read policy instance
+        ParallelKafkaEventSource<Bytes, Bytes> source =
+                builder().consumers(1).readPolicy(KafkaReadPolicies.fromEarliest()).build();
+        Assert.assertEquals(source.sources().size(), 1);
+        source.close();
+    }
+
+    @Test
+    public void parallel_source_builder_03() {
+        // Seeking read policies share their seek state so a partition that moves between consumers is not re-seeked
+        List<KafkaReadPolicy<Bytes, Bytes>> policies = new ArrayList<>();
+        ParallelKafkaEventSource.Builder<Bytes, Bytes> builder = new ParallelKafkaEventSource.Builder<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            KafkaEventSource<Bytes, Bytes> createSource(KafkaReadPolicy<Bytes, Bytes> policy) {
+                policies.add(policy);
+                return Mockito.mock(KafkaEventSource.class);
+            }
+        };
+        builder.bootstrapServers(REAL_BOOTSTRAP_SERVERS)
+               .topic("test")
+               .consumerGroup("consumer")
+               .keyDeserializer(BytesDeserializer.class)
+               .valueDeserializer(BytesDeserializer.class)
+               .consumers(2)
+               .fromBeginning()
+               .build();
+        Assert.assertEquals(policies.size(), 2);
+        @SuppressWarnings("unchecked")
+        KafkaConsumer<Bytes, Bytes> first = Mockito.mock(KafkaConsumer.class);
+        @SuppressWarnings("unchecked")
+        KafkaConsumer<Bytes, Bytes> second = Mockito.mock(KafkaConsumer.class);
+        policies.get(0).setConsumer(first);
+        policies.get(1).setConsumer(second);
+
+        List<TopicPartition> partitions = List.of(new TopicPartition("test", 0));
+        policies.get(0).onPartitionsAssigned(partitions);
+        policies.get(0).onPartitionsRevoked(partitions);
+        policies.get(1).onPartitionsAssigned(partitions);
+
+        Mockito.verify(first).seekToBeginning(partitions);
+        Mockito.verify(second, Mockito.never()).seekToBeginning(Mockito.any());
+
+        // While a partition newly assigned to the second consumer is still seeked
+        List<TopicPartition> other = List.of(new TopicPartition("test", 1));
+        policies.get(1).onPartitionsAssigned(other);
+        Mockito.verify(second).seekToBeginning(other);
+    }
+}
@@ -0,0 +1,236 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestPartitionBuffers {
+
+    private static final TopicPartition A = new TopicPartition("test", 0);
+    private static final TopicPartition B = new TopicPartition("test", 1);
+    private static final TopicPartition C = new TopicPartition("test", 2);
+
+    private static ConsumerRecords<Integer, String> records(TopicPartition partition, int start, int count) {
+        List<ConsumerRecord<Integer, String>> records = new ArrayList<>();
+        for (int i = start; i < start + count; i++) {
+            records.add(new ConsumerRecord<>(partition.topic(), partition.partition(), i, i, partition + "-" + i));
+        }
+        return new ConsumerRecords<>(Map.of(partition, records), Map.of());
+    }
+
+    private static ConsumerRecords<Integer, String> sizedRecords(TopicPartition partition, int count, int valueSize) {
+        List<ConsumerRecord<Integer, String>> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            records.add(new ConsumerRecord<>(partition.topic(), partition.partition(), i, 0L, TimestampType.CREATE_TIME,
+                                             -1, valueSize, null, "value", new RecordHeaders(), Optional.empty()));
+        }
+        return new ConsumerRecords<>(Map.of(partition, records), Map.of());
+    }
+
+    private static MockConsumer<Integer, String> assignedConsumer(TopicPartition... partitions) {
+        MockConsumer<Integer, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(List.of(partitions));
+        return consumer;
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void partition_buffers_bad_01() {
+        new PartitionBuffers<Integer, String>(0, new BufferedBytes(0));
+    }
+
+    @Test
+    public void partition_buffers_01() {
+        PartitionBuffers<Integer, String> buffers = new PartitionBuffers<>(10, new BufferedBytes(0));
+        Assert.assertTrue(buffers.isEmpty());
+
+        Queue<ConsumerRecord<Integer, String>> out = new ArrayDeque<>();
+        Assert.assertEquals(buffers.drainTo(out, 100), 0);
+        Assert.assertTrue(out.isEmpty());
+    }
+
+    @Test
+    public void partition_buffers_02() {
+        // A busy partition does not starve the quieter partitions
+        PartitionBuffers<Integer, String> buffers = new PartitionBuffers<>(1_000, new BufferedBytes(0));
+        buffers.add(records(A, 0, 100));
+        buffers.add(records(B, 0, 2));
+        buffers.add(records(C, 0, 1));
+        Assert.assertEquals(buffers.size(), 103);
+        Assert.assertEquals(buffers.size(A), 100);
+
+        Queue<ConsumerRecord<Integer, String>> out = new ArrayDeque<>();
+        Assert.assertEquals(buffers.drainTo(out, 6), 6);
+        List<TopicPartition> order = new ArrayList<>();
+        for (ConsumerRecord<Integer, String> record : out) {
+            order.add(new TopicPartition(record.topic(), record.partition()));
+        }
+        Assert.assertEquals(order, List.of(A, B, C, A, B, A));
+        Assert.assertEquals(buffers.size(), 97);
+        Assert.assertEquals(buffers.size(B), 0);
+        Assert.assertEquals(buffers.size(C), 0);
+    }
+
+    @Test
+    public void partition_buffers_03() {
+        // Order within a partition is preserved
+        PartitionBuffers<Integer, String> buffers = new PartitionBuffers<>(1_000, new BufferedBytes(0));
+        buffers.add(records(A, 0, 50));
+        buffers.add(records(B, 0, 50));
+        buffers.add(records(A, 50, 50));
+
+        Queue<ConsumerRecord<Integer, String>> out = new ArrayDeque<>();
+        Assert.assertEquals(buffers.drainTo(out, 1_000), 150);
+        Assert.assertTrue(buffers.isEmpty());
+        long expectedA = 0, expectedB = 0;
+        for (ConsumerRecord<Integer, String> record : out) {
+            if (record.partition() == A.partition()) {
+                Assert.assertEquals(record.offset(), expectedA++);
+            } else {
+                Assert.assertEquals(record.offset(), expectedB++);
+            }
+        }
+        Assert.assertEquals(expectedA, 100);
+        Assert.assertEquals(expectedB, 50);
+    }
+
+    @Test
+    public void partition_buffers_04() {
+        // Partitions are paused when over the threshold and resumed once drained to half the threshold
+        MockConsumer<Integer, String> consumer = assignedConsumer(A, B);
+        PartitionBuffers<Integer, String> buffers = new PartitionBuffers<>(10, new BufferedBytes(0));
+        buffers.add(records(A, 0, 11));
+        buffers.add(records(B, 0, 10));
+        buffers.updatePaused(consumer);
+        Assert.assertEquals(consumer.paused(), Set.of(A));
+        Assert.assertEquals(buffers.paused(), Set.of(A));
+
+        // Still above the resume threshold
+        Queue<ConsumerRecord<Integer, String>> out = new ArrayDeque<>();
+        buffers.drainTo(out, 10);
+        Assert.assertEquals(buffers.size(A), 6);
+        buffers.updatePaused(consumer);
+        Assert.assertEquals(consumer.paused(), Set.of(A));
+
+        // At the resume threshold
+        buffers.drainTo(out, 2);
+        Assert.assertEquals(buffers.size(A), 5);
+        buffers.updatePaused(consumer);
+        Assert.assertTrue(consumer.paused().isEmpty());
+        Assert.assertTrue(buffers.paused().isEmpty());
+    }
+
+    @Test
+    public void partition_buffers_05() {
+        // Partitions paused by the application are not resumed by us
+        MockConsumer<Integer, String> consumer = assignedConsumer(A, B);
+        consumer.pause(List.of(B));
+        PartitionBuffers<Integer, String> buffers = new PartitionBuffers<>(10, new BufferedBytes(0));
+        buffers.add(records(B, 0, 1));
+        buffers.updatePaused(consumer);
+        Assert.assertEquals(consumer.paused(), Set.of(B));
+    }
+
+    @Test
+    public void partition_buffers_06() {
+        // Records for partitions that are no longer assigned are discarded
+        MockConsumer<Integer, String> consumer = assignedConsumer(A, B);
+        PartitionBuffers<Integer, String> buffers = new PartitionBuffers<>(10, new BufferedBytes(0));
+        buffers.add(records(A, 0, 20));
+        buffers.add(records(B, 0, 5));
+        buffers.updatePaused(consumer);
+        Assert.assertEquals(buffers.paused(), Set.of(A));
+
+        consumer.assign(List.of(B));
+        buffers.updatePaused(consumer);
+        Assert.assertEquals(buffers.size(), 5);
+        Assert.assertEquals(buffers.size(A), 0);
+        Assert.assertTrue(buffers.paused().isEmpty());
+
+        Queue<ConsumerRecord<Integer, String>> out = new ArrayDeque<>();
+        Assert.assertEquals(buffers.drainTo(out, 100), 5);
+        Assert.assertTrue(out.stream().allMatch(r -> r.partition() == B.partition()));
+    }
+
+    @Test
+    public void partition_buffers_07() {
+        // All assigned partitions are paused while over the byte budget, even those with nothing buffered
+        MockConsumer<Integer, String> consumer = assignedConsumer(A, B);
+        BufferedBytes bytes = new BufferedBytes(1_000);
+        PartitionBuffers<Integer, String> buffers = new PartitionBuffers<>(1_000, bytes);
+        ConsumerRecords<Integer, String> records = sizedRecords(A, 20, 100);
+        buffers.add(records);
+        bytes.add(records);
+        buffers.updatePaused(consumer);
+        Assert.assertEquals(bytes.bufferedBytes(), 2_000);
+        Assert.assertEquals(consumer.paused(), Set.of(A, B));
+
+        // Still paused until back down to half the budget
+        Queue<ConsumerRecord<Integer, String>> out = new ArrayDeque<>();
+        buffers.drainTo(out, 14);
+        out.forEach(bytes::release);
+        buffers.updatePaused(consumer);
+        Assert.assertEquals(consumer.paused(), Set.of(A, B));
+
+        out.clear();
+        buffers.drainTo(out, 1);
+        out.forEach(bytes::release);
+        Assert.assertEquals(bytes.bufferedBytes(), 500);
+        buffers.updatePaused(consumer);
+        Assert.assertTrue(consumer.paused().isEmpty());
+    }
+
+    @Test
+    public void partition_buffers_08() {
+        // Discarding records for revoked partitions releases their bytes
+        MockConsumer<Integer, String> consumer = assignedConsumer(A, B);
+        BufferedBytes bytes = new BufferedBytes(0);
+        PartitionBuffers<Integer, String> buffers = new PartitionBuffers<>(1_000, bytes);
+        for (ConsumerRecords<Integer, String> records : List.of(sizedRecords(A, 10, 100), sizedRecords(B, 5, 10))) {
+            buffers.add(records);
+            bytes.add(records);
+        }
+        Assert.assertEquals(bytes.bufferedBytes(), 1_050);
+
+        consumer.assign(List.of(B));
+        buffers.updatePaused(consumer);
+        Assert.assertEquals(bytes.bufferedBytes(), 50);
+        Assert.assertEquals(buffers.size(), 5);
+    }
+}
@@ -0,0 +1,187 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestPartitionOffsets {
+
+    @Test
+    public void partition_offsets_01() {
+        PartitionOffsets offsets = new PartitionOffsets();
+        Assert.assertTrue(offsets.isEmpty());
+        Assert.assertTrue(offsets.toCommitMap().isEmpty());
+        Assert.assertEquals(offsets.nextOffset("test", 0), -1);
+    }
+
+    @Test
+    public void partition_offsets_02() {
+        PartitionOffsets offsets = new PartitionOffsets();
+        offsets.track("test", 0, 1);
+        offsets.track("test", 0, 2);
+        offsets.track("test", 0, 3);
+
+        Assert.assertFalse(offsets.isEmpty());
+        Assert.assertEquals(offsets.nextOffset("test", 0), 3);
+        Assert.assertEquals(offsets.toCommitMap(), Map.of(new TopicPartition("test", 0), new OffsetAndMetadata(3)));
+    }
+
+    @Test
+    public void partition_offsets_03() {
+        // Partitions seen out of order, and sparsely, across multiple topics
+        PartitionOffsets offsets = new PartitionOffsets();
+        offsets.track("a", 5, 10);
+        offsets.track("b", 0, 20);
+        offsets.track("a", 1, 30);
+        offsets.track("b", 7, 40);
+        offsets.track("a", 5, 11);
+
+        Assert.assertEquals(offsets.nextOffset("a", 5), 11);
+        Assert.assertEquals(offsets.nextOffset("a", 1), 30);
+        Assert.assertEquals(offsets.nextOffset("a", 0), -1);
+        Assert.assertEquals(offsets.nextOffset("b", 0), 20);
+        Assert.assertEquals(offsets.nextOffset("b", 7), 40);
+        Assert.assertEquals(offsets.nextOffset("c", 0), -1);
+        Assert.assertEquals(offsets.toCommitMap(),
+                            Map.of(new TopicPartition("a", 5), new OffsetAndMetadata(11), new TopicPartition("a", 1),
+                                   new OffsetAndMetadata(30), new TopicPartition("b", 0), new OffsetAndMetadata(20),
+                                   new TopicPartition("b", 7), new OffsetAndMetadata(40)));
+    }
+
+    @Test
+    public void partition_offsets_04() {
+        // More partitions than the initial capacity
+        PartitionOffsets offsets = new PartitionOffsets();
+        for (int i = 0; i < 100; i++) {
+            offsets.track("test", i, i * 2);
+        }
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(offsets.nextOffset("test", i), i * 2);
+        }
+        Assert.assertEquals(offsets.toCommitMap().size(), 100);
+    }
+
+    @Test
+    public void partition_offsets_05() {
+        // Commit map is a fresh copy each time so modifying it does not affect the tracked offsets
+        PartitionOffsets offsets = new PartitionOffsets();
+        offsets.track("test", 0, 5);
+        Map<TopicPartition, OffsetAndMetadata> commit = offsets.toCommitMap();
+        commit.clear();
+
+        offsets.track("test", 0, 6);
+        Assert.assertTrue(commit.isEmpty());
+        Assert.assertEquals(offsets.toCommitMap().get(new TopicPartition("test", 0)).offset(), 6);
+    }
+
+    @Test
+    public void partition_offsets_06() {
+        // Removed partitions are forgotten, the remaining partitions are unaffected
+        PartitionOffsets offsets = new PartitionOffsets();
+        for (int i = 0; i < 10; i++) {
+            offsets.track("test", i, i + 100);
+        }
+        offsets.remove(List.of(new TopicPartition("test", 0), new TopicPartition("test", 5),
+                               new TopicPartition("other", 0)));
+
+        Assert.assertEquals(offsets.nextOffset("test", 0), -1);
+        Assert.assertEquals(offsets.nextOffset("test", 5), -1);
+        Assert.assertEquals(offsets.toCommitMap().size(), 8);
+        for (int i = 1; i < 10; i++) {
+            if (i != 5) {
+                Assert.assertEquals(offsets.nextOffset("test", i), i + 100);
+            }
+        }
+
+        // Removed partitions may be tracked again
+        offsets.track("test", 0, 7);
+        offsets.track("test", 9, 200);
+        Assert.assertEquals(offsets.nextOffset("test", 0), 7);
+        Assert.assertEquals(offsets.nextOffset("test", 9), 200);
+        Assert.assertEquals(offsets.toCommitMap().size(), 9);
+
+        offsets.remove(offsets.toCommitMap().keySet());
+        Assert.assertTrue(offsets.isEmpty());
+    }
+
+    @Test
+    public void partition_offsets_07() {
+        // Fencing a partition discards its offset, and ignores any offsets that are not beyond the fence
+        PartitionOffsets offsets = new PartitionOffsets();
+        TopicPartition partition = new TopicPartition("test", 0);
+        offsets.track("test", 0, 5);
+        offsets.track("test", 1, 5);
+        offsets.fence(partition, 10);
+        Assert.assertEquals(offsets.nextOffset("test", 0), -1);
+        Assert.assertEquals(offsets.toCommitMap(), Map.of(new TopicPartition("test", 1), new OffsetAndMetadata(5)));
+
+        offsets.track("test", 0, 6);
+        offsets.track("test", 0, 10);
+        Assert.assertEquals(offsets.nextOffset("test", 0), -1);
+        offsets.track("test", 0, 11);
+        Assert.assertEquals(offsets.nextOffset("test", 0), 11);
+    }
+
+    @Test
+    public void partition_offsets_08() {
+        // Fencing a partition not previously seen
+        PartitionOffsets offsets = new PartitionOffsets();
+        offsets.track("a", 0, 1);
+        offsets.fence(new TopicPartition("b", 3), 10);
+        Assert.assertTrue(offsets.toCommitMap().keySet().stream().noneMatch(p -> p.topic().equals("b")));
+
+        offsets.track("b", 3, 9);
+        offsets.track("a", 0, 2);
+        Assert.assertEquals(offsets.nextOffset("b", 3), -1);
+        Assert.assertEquals(offsets.nextOffset("a", 0), 2);
+
+        // Removing a fenced partition also removes its fence
+        offsets.remove(List.of(new TopicPartition("b", 3)));
+        offsets.track("b", 3, 9);
+        Assert.assertEquals(offsets.nextOffset("b", 3), 9);
+    }
+
+    @Test
+    public void partition_offsets_09() {
+        // Fences are reported so records read during a previous assignment can be identified
+        PartitionOffsets offsets = new PartitionOffsets();
+        offsets.track("test", 0, 5);
+        Assert.assertEquals(offsets.floor("test", 0), -1);
+        Assert.assertEquals(offsets.floor("test", 1), -1);
+        Assert.assertEquals(offsets.floor("other", 0), -1);
+
+        offsets.fence(new TopicPartition("test", 0), Long.MAX_VALUE);
+        offsets.fence(new TopicPartition("test", 1), 20);
+        Assert.assertEquals(offsets.floor("test", 0), Long.MAX_VALUE);
+        Assert.assertEquals(offsets.floor("test", 1), 20);
+        offsets.track("test", 0, 6);
+        Assert.assertTrue(offsets.isEmpty());
+    }
+}
@@ -0,0 +1,289 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.KafkaReadPolicies;
+
+public class TestTopicMetadataCache {
+
+    /**
+     * Creates a mock admin client where only the given topics exist
+     *
+     * @param existing Topics that exist, may be modified by the caller to simulate topics being created
+     * @return Mock admin client
+     */
+    @SuppressWarnings("unchecked")
+    private static AdminClient mockAdminClient(Set<String> existing) {
+        AdminClient adminClient = mock(AdminClient.class);
+        when(adminClient.describeTopics(anyCollection())).thenAnswer(invocation -> {
+            Map<String, KafkaFuture<TopicDescription>> results = new HashMap<>();
+            for (String topic : (Collection<String>) invocation.getArgument(0)) {
+                KafkaFutureImpl<TopicDescription> future = new KafkaFutureImpl<>();
+                if (existing.contains(topic)) {
+                    future.complete(new TopicDescription(topic, false, List.of()));
+                } else {
+                    future.completeExceptionally(new UnknownTopicOrPartitionException(topic));
+                }
+                results.put(topic, future);
+            }
+            DescribeTopicsResult result = mock(DescribeTopicsResult.class);
+            when(result.topicNameValues()).thenReturn(results);
+            return result;
+        });
+        return adminClient;
+    }
+
+    private static Properties clusterProperties(String bootstrapServers) {
+        Properties props = new Properties();
+        props.put(CommonClientConfigs.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        return props;
+    }
+
+    @Test
+    public void topic_metadata_cache_01() {
+        // Callers using the same cluster share a cache, and its admin client
+        AtomicInteger created = new AtomicInteger();
+        AdminClient adminClient = mockAdminClient(Set.of());
+        Properties props = clusterProperties("shared-01:9092");
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "a");
+        TopicMetadataCache a = TopicMetadataCache.acquire(props, () -> {
+            created.incrementAndGet();
+            return adminClient;
+        });
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "b");
+        TopicMetadataCache b = TopicMetadataCache.acquire(props, () -> {
+            created.incrementAndGet();
+            return adminClient;
+        });
+        Assert.assertSame(a, b);
+        Assert.assertSame(a.adminClient(), adminClient);
+        Assert.assertEquals(created.get(), 1);
+
+        // Admin client only closed once all references are released
+        a.release();
+        Assert.assertFalse(a.isClosed());
+        verify(adminClient, never()).close();
+        b.release();
+        Assert.assertTrue(a.isClosed());
+        verify(adminClient, times(1)).close();
+
+        // Once closed a new cache is created for subsequent callers
+        TopicMetadataCache c = TopicMetadataCache.acquire(props, () -> {
+            created.incrementAndGet();
+            return mockAdminClient(Set.of());
+        });
+        Assert.assertNotSame(a, c);
+        Assert.assertEquals(created.get(), 2);
+        c.release();
+    }
+
+    @Test
+    public void topic_metadata_cache_02() {
+        // Different clusters, or security configuration, are not shared
+        TopicMetadataCache a = TopicMetadataCache.acquire(clusterProperties("shared-02a:9092"),
+                                                          () -> mockAdminClient(Set.of()));
+        TopicMetadataCache b = TopicMetadataCache.acquire(clusterProperties("shared-02b:9092"),
+                                                          () -> mockAdminClient(Set.of()));
+        Properties secure = clusterProperties("shared-02a:9092");
+        secure.put(CommonClientConfigs.SECURITY_PROTOCOL_CONFIG, "SASL_SSL");
+        TopicMetadataCache c = TopicMetadataCache.acquire(secure, () -> mockAdminClient(Set.of()));
+        Assert.assertNotSame(a, b);
+        Assert.assertNotSame(a, c);
+        a.release();
+        b.release();
+        c.release();
+    }
+
+    @Test
+    public void topic_metadata_cache_03() {
+        Assert.assertNull(TopicMetadataCache.acquire(clusterProperties("shared-03:9092"), () -> null));
+    }
+
+    @Test
+    public void topic_metadata_cache_04() {
+        // All topics are looked up in a single request
+        AdminClient adminClient = mockAdminClient(Set.of("a", "b"));
+        TopicMetadataCache cache = new TopicMetadataCache(adminClient, Duration.ofHours(1));
+        cache.register(List.of("a", "b", "c"));
+        verify(adminClient, times(1)).describeTopics(anyCollection());
+
+        Assert.assertTrue(cache.awaitAnyExists(List.of("a", "c"), Duration.ofSeconds(1)));
+        Assert.assertEquals(cache.exists("a"), Boolean.TRUE);
+        Assert.assertEquals(cache.exists("b"), Boolean.TRUE);
+        Assert.assertEquals(cache.exists("c"), Boolean.FALSE);
+        Assert.assertNull(cache.exists("d"));
+        Assert.assertFalse(cache.awaitAnyExists(List.of("c"), Duration.ofMillis(100)));
+
+        // Registering already known topics doesn't trigger another lookup
+        cache.register(List.of("a", "b", "c"));
+        verify(adminClient, times(1)).describeTopics(anyCollection());
+        cache.release();
+        verify(adminClient, times(1)).close();
+    }
+
+    @Test
+    public void topic_metadata_cache_05() {
+        // Topics not known to exist are looked up again in the background
+        Set<String> existing = new CopyOnWriteArraySet<>();
+        AdminClient adminClient = mockAdminClient(existing);
+        TopicMetadataCache cache = new TopicMetadataCache(adminClient, Duration.ofMillis(50));
+        cache.register(List.of("a"));
+        Assert.assertFalse(cache.awaitAnyExists(List.of("a"), Duration.ofMillis(100)));
+
+        existing.add("a");
+        Assert.assertTrue(cache.awaitAnyExists(List.of("a"), Duration.ofSeconds(5)));
+        cache.release();
+
+        // Waiting on a closed cache returns immediately
+        Assert.assertTrue(cache.awaitAnyExists(List.of("a"), Duration.ofSeconds(5)));
+        Assert.assertFalse(cache.awaitAnyExists(List.of("b"), Duration.ofSeconds(5)));
+    }
+
+    @Test
+    public void topic_metadata_cache_06() {
+        // Only the bootstrap servers and security configuration identify a cluster
+        Properties a = clusterProperties("localhost:9092");
+        a.put(ConsumerConfig.GROUP_ID_CONFIG, "a");
+        a.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "10");
+        Properties b = clusterProperties("localhost:9092");
+        b.put(ConsumerConfig.GROUP_ID_CONFIG, "b");
+        Assert.assertEquals(TopicMetadataCache.clusterKey(a), TopicMetadataCache.clusterKey(b));
+
+        b.put("sasl.mechanism", "PLAIN");
+        Assert.assertNotEquals(TopicMetadataCache.clusterKey(a), TopicMetadataCache.clusterKey(b));
+    }
+
+    @Test
+    public void topic_metadata_cache_07() {
+        Assert.assertFalse(KafkaEventSource.overridesCreateAdminClient(KafkaEventSource.class));
+        Assert.assertTrue(KafkaEventSource.overridesCreateAdminClient(MockKafkaEventSource.class));
+        Assert.assertNotNull(TopicMetadataCache.create(mockAdminClient(Set.of())));
+        Assert.assertNull(TopicMetadataCache.create(null));
+    }
+
+    private static MockKafkaEventSource<Integer, String> createMockSource(String bootstrapServers,
+                                                                          AdminClient adminClient) {
+        return new MockKafkaEventSource<>(bootstrapServers, Set.of("test"), "test",
+                                          StringDeserializer.class.getCanonicalName(),
+                                          StringDeserializer.class.getCanonicalName(), 100,
+                                          KafkaReadPolicies.fromBeginning(), false, List.of()) {
+            @Override
+            protected AdminClient createAdminClient(Properties props) {
+                return adminClient;
+            }
+        };
+    }
+
+    @Test
+    public void topic_metadata_cache_08() {
+        // A source whose admin client override returns null doesn't use an existing shared cache
+        AdminClient shared = mockAdminClient(Set.of());
+        TopicMetadataCache cache = TopicMetadataCache.acquire(clusterProperties("shared-08:9092"), () -> shared);
+        MockKafkaEventSource<Integer, String> source = createMockSource("shared-08:9092", null);
+
+        // Releasing our reference closes the cache as the source never acquired one
+        cache.release();
+        Assert.assertTrue(cache.isClosed());
+        verify(shared, times(1)).close();
+        source.close();
+    }
+
+    @Test
+    public void topic_metadata_cache_09() {
+        // A source whose admin client override returns an admin client uses that rather than an existing shared cache
+        AdminClient shared = mockAdminClient(Set.of());
+        AdminClient own = mockAdminClient(Set.of());
+        TopicMetadataCache cache = TopicMetadataCache.acquire(clusterProperties("shared-09:9092"), () -> shared);
+        MockKafkaEventSource<Integer, String> source = createMockSource("shared-09:9092", own);
+
+        // Closing the source closes its own admin client only
+        source.close();
+        verify(own, times(1)).close();
+        verify(shared, never()).close();
+        Assert.assertFalse(cache.isClosed());
+        cache.release();
+        verify(shared, times(1)).close();
+    }
+
+    @Test
+    public void topic_existence_checker_01() {
+        // Without an admin client all topics are assumed to exist
+        TopicExistenceChecker checker =
+                new TopicExistenceChecker((TopicMetadataCache) null, "localhost:9092", List.of("a"), null);
+        Assert.assertTrue(checker.anyTopicExists(Duration.ofMillis(100)));
+        Assert.assertTrue(checker.allTopicsExist(Duration.ofMillis(100)));
+        checker.close();
+    }
+
+    @Test
+    public void topic_existence_checker_02() {
+        AdminClient adminClient = mockAdminClient(Set.of("a"));
+        TopicExistenceChecker checker = new TopicExistenceChecker(adminClient, "localhost:9092", List.of("a", "b"), null);
+        Assert.assertTrue(checker.anyTopicExists(Duration.ofSeconds(1)));
+        Assert.assertFalse(checker.allTopicsExist(Duration.ofSeconds(1)));
+        checker.close();
+        verify(adminClient, times(1)).close();
+
+        // Closed checker still answers from the cached results
+        Assert.assertTrue(checker.anyTopicExists(Duration.ofSeconds(1)));
+    }
+
+    @Test
+    public void topic_existence_checker_03() {
+        AdminClient adminClient = mockAdminClient(Set.of());
+        TopicExistenceChecker checker = new TopicExistenceChecker(adminClient, "localhost:9092", List.of("a"), null);
+        long start = System.currentTimeMillis();
+        Assert.assertFalse(checker.anyTopicExists(Duration.ofMillis(300)));
+        Assert.assertTrue(System.currentTimeMillis() - start >= 250);
+        checker.close();
+    }
+}
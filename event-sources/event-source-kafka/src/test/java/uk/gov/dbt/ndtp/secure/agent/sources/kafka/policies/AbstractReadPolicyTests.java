@@ -25,6 +25,7 @@
 package uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyCollection;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.atMost;
@@ -37,11 +38,13 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.OptionalLong;
 import java.util.Properties;
 import java.util.Set;
@@ -50,6 +53,7 @@ import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.Node;
 import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.TimeoutException;
 import org.mockito.exceptions.base.MockitoAssertionError;
 import org.mockito.internal.invocation.InvocationMarker;
 import org.mockito.internal.invocation.InvocationsFinder;
@@ -58,6 +62,7 @@ import org.mockito.verification.VerificationMode;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 import uk.gov.dbt.ndtp.secure.agent.sources.kafka.TestKafkaEventSource;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.automatic.AbstractAutoSeekingPolicy;
 
 public abstract class AbstractReadPolicyTests<TKey, TValue> {
 
@@ -350,6 +355,29 @@ public abstract class AbstractReadPolicyTests<TKey, TValue> {
         }
     }
 
+    @Test
+    public void read_policy_rebalance_listener_05() {
+        KafkaReadPolicy<TKey, TValue> first = createPolicy();
+        KafkaReadPolicy<TKey, TValue> second = createPolicy();
+        if (second instanceof AbstractAutoSeekingPolicy<?, ?> seeking) {
+            seeking.shareSeekedPartitions((AbstractAutoSeekingPolicy<?, ?>) first);
+        }
+        KafkaConsumer firstConsumer = mock(KafkaConsumer.class);
+        KafkaConsumer secondConsumer = mock(KafkaConsumer.class);
+        first.setConsumer(firstConsumer);
+        second.setConsumer(secondConsumer);
+
+        // A partition that moves to another policy sharing its seek state MUST NOT be seeked again
+        List<TopicPartition> partitions =
+                Collections.singletonList(new TopicPartition(TestKafkaEventSource.TEST_TOPIC, 0));
+        first.onPartitionsAssigned(partitions);
+        first.onPartitionsRevoked(partitions);
+        second.onPartitionsAssigned(partitions);
+
+        verifySeek(firstConsumer, seeksOnAssignment() ? atMostOnce() : never());
+        verifySeek(secondConsumer, never());
+    }
+
     private void verifySeek(KafkaConsumer consumer, VerificationMode verificationMode) {
         verify(consumer, verificationMode).seek(any(), any());
         verify(consumer, verificationMode).seek(any(), anyLong());
@@ -403,4 +431,77 @@ public abstract class AbstractReadPolicyTests<TKey, TValue> {
         Long remaining = policy.currentLag("test");
         Assert.assertNull(remaining);
     }
+
+    @Test
+    public void read_policy_remaining_05() {
+        // Partitions whose lag isn't known from the consumer's fetch metadata fall back to the cached end offsets
+        KafkaReadPolicy<TKey, TValue> policy = createPolicy();
+        KafkaConsumer consumer = mock(KafkaConsumer.class);
+        TopicPartition p0 = new TopicPartition("test", 0), p1 = new TopicPartition("test", 1);
+        when(consumer.currentLag(eq(p0))).thenReturn(OptionalLong.of(100));
+        when(consumer.currentLag(eq(p1))).thenReturn(OptionalLong.empty());
+        when(consumer.position(eq(p1), any(Duration.class))).thenReturn(100L);
+        when(consumer.assignment()).thenReturn(Set.of(p0, p1));
+        policy.setConsumer(consumer);
+        EndOffsetCache cache = new EndOffsetCache();
+        cache.update(Map.of(p1, 150L));
+        policy.setEndOffsetCache(cache);
+
+        Long remaining = policy.currentLag("test");
+        Assert.assertEquals(remaining, 150L);
+        verify(consumer, never()).endOffsets(anyCollection());
+        verify(consumer, never()).endOffsets(anyCollection(), any());
+    }
+
+    @Test
+    public void read_policy_remaining_06() {
+        // Cached end offsets can't be used if the position isn't known locally
+        KafkaReadPolicy<TKey, TValue> policy = createPolicy();
+        KafkaConsumer consumer = mock(KafkaConsumer.class);
+        TopicPartition p0 = new TopicPartition("test", 0);
+        when(consumer.currentLag(eq(p0))).thenReturn(OptionalLong.empty());
+        when(consumer.position(eq(p0), any(Duration.class))).thenThrow(new TimeoutException());
+        when(consumer.assignment()).thenReturn(Set.of(p0));
+        policy.setConsumer(consumer);
+        EndOffsetCache cache = new EndOffsetCache();
+        cache.update(Map.of(p0, 150L));
+        policy.setEndOffsetCache(cache);
+
+        Assert.assertNull(policy.currentLag("test"));
+    }
+
+    @Test
+    public void read_policy_remaining_07() {
+        // Stale cached end offsets never produce a negative lag
+        KafkaReadPolicy<TKey, TValue> policy = createPolicy();
+        KafkaConsumer consumer = mock(KafkaConsumer.class);
+        TopicPartition p0 = new TopicPartition("test", 0);
+        when(consumer.currentLag(eq(p0))).thenReturn(OptionalLong.empty());
+        when(consumer.position(eq(p0), any(Duration.class))).thenReturn(200L);
+        when(consumer.assignment()).thenReturn(Set.of(p0));
+        policy.setConsumer(consumer);
+        EndOffsetCache cache = new EndOffsetCache();
+        cache.update(Map.of(p0, 150L));
+        policy.setEndOffsetCache(cache);
+
+        Assert.assertEquals(policy.currentLag("test"), 0L);
+    }
+
+    @Test
+    public void read_policy_log_positions_01() {
+        // Logging positions never blocks on broker round trips
+        KafkaReadPolicy<TKey, TValue> policy = createPolicy();
+        KafkaConsumer consumer = mock(KafkaConsumer.class);
+        TopicPartition p0 = new TopicPartition("test", 0), p1 = new TopicPartition("test", 1);
+        when(consumer.currentLag(any())).thenReturn(OptionalLong.empty());
+        when(consumer.position(eq(p0), any(Duration.class))).thenReturn(10L);
+        when(consumer.position(eq(p1), any(Duration.class))).thenThrow(new TimeoutException());
+        when(consumer.assignment()).thenReturn(Set.of(p0, p1));
+        policy.setConsumer(consumer);
+
+        policy.logReadPositions("test");
+        verify(consumer, never()).endOffsets(anyCollection());
+        verify(consumer, never()).endOffsets(anyCollection(), any());
+        verify(consumer, never()).position(any());
+    }
 }
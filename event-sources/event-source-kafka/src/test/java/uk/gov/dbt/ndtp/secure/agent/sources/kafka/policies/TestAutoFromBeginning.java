@@ -26,6 +26,7 @@ package uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies;
 
 import org.testng.annotations.Test;
 import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.automatic.AutoFromBeginning;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.automatic.AutoFromEnd;
 
 @Test
 public class TestAutoFromBeginning extends AbstractReadPolicyTests<String, String> {
@@ -43,4 +44,9 @@ public class TestAutoFromBeginning extends AbstractReadPolicyTests<String, Strin
     protected boolean seeksOnAssignment() {
         return true;
     }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*different types.*")
+    public void auto_from_beginning_share_bad_01() {
+        new AutoFromBeginning<String, String>().shareSeekedPartitions(new AutoFromEnd<String, String>());
+    }
 }
@@ -0,0 +1,146 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.TopicPartition;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.TestKafkaEventSource;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.automatic.AutoFromTimestamp;
+
+public class TestAutoFromTimestamp extends AbstractReadPolicyTests<String, String> {
+
+    private static final TopicPartition PARTITION_0 = new TopicPartition(TestKafkaEventSource.TEST_TOPIC, 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition(TestKafkaEventSource.TEST_TOPIC, 1);
+
+    @Override
+    protected KafkaReadPolicy<String, String> createPolicy() {
+        return KafkaReadPolicies.fromTimestamp(Instant.now());
+    }
+
+    @Override
+    protected boolean modifiesConsumerConfiguration() {
+        return false;
+    }
+
+    @Override
+    protected boolean seeksOnAssignment() {
+        return true;
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void auto_from_timestamp_bad_01() {
+        KafkaReadPolicies.fromTimestamp(null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void auto_from_timestamp_bad_02() {
+        KafkaReadPolicies.fromTimestamp(Instant.EPOCH.minusMillis(1));
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void auto_from_timestamp_bad_03() {
+        KafkaReadPolicies.fromDuration(null);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*>= 0")
+    public void auto_from_timestamp_bad_04() {
+        KafkaReadPolicies.fromDuration(Duration.ofMinutes(-1));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void auto_from_timestamp_01() {
+        // Partitions seek to the offsets for the timestamp, or to the end if they have no events since then
+        Instant timestamp = Instant.parse("2025-01-01T09:00:00Z");
+        AutoFromTimestamp<String, String> policy = new AutoFromTimestamp<>(timestamp);
+        KafkaConsumer<String, String> consumer = mock(KafkaConsumer.class);
+        when(consumer.offsetsForTimes(anyMap())).thenAnswer(
+                invocation -> {
+                    Map<TopicPartition, Long> timestamps = invocation.getArgument(0);
+                    Assert.assertEquals(timestamps, Map.of(PARTITION_0, timestamp.toEpochMilli(), PARTITION_1,
+                                                           timestamp.toEpochMilli()));
+                    return Map.of(PARTITION_0, new OffsetAndTimestamp(1234, timestamp.toEpochMilli() + 10));
+                });
+        policy.setConsumer(consumer);
+
+        policy.onPartitionsAssigned(List.of(PARTITION_0, PARTITION_1));
+        verify(consumer).seek(PARTITION_0, 1234L);
+        verify(consumer).seekToEnd(List.of(PARTITION_1));
+        verify(consumer, never()).seekToBeginning(any());
+        Assert.assertEquals(policy.getTimestamp(), timestamp);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void auto_from_timestamp_02() {
+        // The timestamp is calculated when partitions are first assigned and reused thereafter
+        AutoFromTimestamp<String, String> policy = new AutoFromTimestamp<>(Duration.ofHours(1));
+        Assert.assertNull(policy.getTimestamp());
+        KafkaConsumer<String, String> consumer = mock(KafkaConsumer.class);
+        when(consumer.offsetsForTimes(anyMap())).thenReturn(
+                Map.of(PARTITION_0, new OffsetAndTimestamp(10, 0), PARTITION_1, new OffsetAndTimestamp(20, 0)));
+        policy.setConsumer(consumer);
+
+        Instant before = Instant.now().minus(Duration.ofHours(1));
+        policy.onPartitionsAssigned(List.of(PARTITION_0));
+        Instant after = Instant.now().minus(Duration.ofHours(1));
+        Instant timestamp = policy.getTimestamp();
+        Assert.assertNotNull(timestamp);
+        Assert.assertFalse(timestamp.isBefore(before));
+        Assert.assertFalse(timestamp.isAfter(after));
+        verify(consumer).seek(PARTITION_0, 10L);
+
+        policy.onPartitionsAssigned(List.of(PARTITION_1));
+        Assert.assertEquals(policy.getTimestamp(), timestamp);
+        verify(consumer).seek(PARTITION_1, 20L);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void auto_from_timestamp_03() {
+        // A duration longer than the epoch is clamped to the epoch
+        AutoFromTimestamp<String, String> policy = new AutoFromTimestamp<>(Duration.ofDays(365 * 1000));
+        KafkaConsumer<String, String> consumer = mock(KafkaConsumer.class);
+        policy.setConsumer(consumer);
+
+        policy.onPartitionsAssigned(List.of(PARTITION_0));
+        Assert.assertEquals(policy.getTimestamp(), Instant.EPOCH);
+        verify(consumer).seekToEnd(List.of(PARTITION_0));
+    }
+}
@@ -0,0 +1,72 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka.sinks;
+
+import java.util.Properties;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+/**
+ * Test fixture that builds {@link KafkaSink}'s whose producer is a {@link MockProducer}
+ * <p>
+ * The mock producer, and the producer configuration the sink supplied, are captured when the sink is built.
+ * </p>
+ */
+final class MockSinkProducer {
+
+    private final boolean autoComplete;
+    MockProducer<String, String> mock;
+    Properties properties;
+
+    /**
+     * Creates a new fixture
+     *
+     * @param autoComplete Whether the mock producer immediately completes sends
+     */
+    MockSinkProducer(boolean autoComplete) {
+        this.autoComplete = autoComplete;
+    }
+
+    /**
+     * Creates a builder for a sink that writes strings to the {@code output} topic via the mock producer
+     *
+     * @return Builder
+     */
+    KafkaSink.KafkaSinkBuilder<String, String> builder() {
+        return KafkaSink.<String, String>create()
+                        .bootstrapServers("mock:9092")
+                        .topic("output")
+                        .keySerializer(StringSerializer.class)
+                        .valueSerializer(StringSerializer.class)
+                        .producerFactory(this::createProducer);
+    }
+
+    private Producer<String, String> createProducer(Properties props) {
+        this.properties = props;
+        this.mock = new MockProducer<>(this.autoComplete, null, new StringSerializer(), new StringSerializer());
+        return this.mock;
+    }
+}
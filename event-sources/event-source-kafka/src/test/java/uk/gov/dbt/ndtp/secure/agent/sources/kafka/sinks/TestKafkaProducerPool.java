@@ -0,0 +1,241 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka.sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.BytesSerializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.common.utils.Bytes;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.KafkaEventSource;
+import uk.gov.dbt.ndtp.secure.agent.sources.memory.SimpleEvent;
+
+public class TestKafkaProducerPool {
+
+    private static Properties config(String bootstrapServers, Class<?> keySerializer, Class<?> valueSerializer) {
+        Properties props = new Properties();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, keySerializer.getCanonicalName());
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, valueSerializer.getCanonicalName());
+        return props;
+    }
+
+    @Test
+    public void pool_01() {
+        // Given
+        MockProducerPool pool = new MockProducerPool();
+        Properties props = config("pool:9092", StringSerializer.class, StringSerializer.class);
+
+        // When
+        Producer<String, String> a = pool.acquire(props);
+        Producer<String, String> b = pool.acquire(props);
+
+        // Then
+        Assert.assertNotSame(a, b);
+        Assert.assertEquals(pool.size(), 1);
+        Assert.assertEquals(pool.getReferenceCount(props), 2);
+        Assert.assertEquals(pool.mocks.size(), 1);
+        a.close();
+        b.close();
+    }
+
+    @Test
+    public void pool_02() {
+        // Given
+        MockProducerPool pool = new MockProducerPool();
+        Producer<String, String> strings =
+                pool.acquire(config("pool:9092", StringSerializer.class, StringSerializer.class));
+        Producer<Integer, Bytes> other =
+                pool.acquire(config("pool:9092", IntegerSerializer.class, BytesSerializer.class));
+
+        // When
+        strings.send(new ProducerRecord<>("strings", "key", "value"));
+        other.send(new ProducerRecord<>("other", 1234, Bytes.wrap(new byte[] { 1, 2, 3 })));
+
+        // Then
+        Assert.assertEquals(pool.size(), 1);
+        List<ProducerRecord<byte[], byte[]>> history = pool.mocks.get(0).history();
+        Assert.assertEquals(history.size(), 2);
+        Assert.assertEquals(history.get(0).topic(), "strings");
+        Assert.assertEquals(new String(history.get(0).key(), StandardCharsets.UTF_8), "key");
+        Assert.assertEquals(new String(history.get(0).value(), StandardCharsets.UTF_8), "value");
+        Assert.assertEquals(history.get(1).topic(), "other");
+        Assert.assertEquals(history.get(1).key(), new IntegerSerializer().serialize("other", 1234));
+        Assert.assertEquals(history.get(1).value(), new byte[] { 1, 2, 3 });
+        strings.close();
+        other.close();
+    }
+
+    @Test
+    public void pool_03() {
+        // Given
+        MockProducerPool pool = new MockProducerPool();
+
+        // When
+        Producer<String, String> a = pool.acquire(config("a:9092", StringSerializer.class, StringSerializer.class));
+        Properties lingering = config("a:9092", StringSerializer.class, StringSerializer.class);
+        lingering.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        Producer<String, String> b = pool.acquire(lingering);
+        Producer<String, String> c = pool.acquire(config("b:9092", StringSerializer.class, StringSerializer.class));
+
+        // Then
+        Assert.assertEquals(pool.size(), 3);
+        a.close();
+        b.close();
+        c.close();
+        Assert.assertEquals(pool.size(), 0);
+    }
+
+    @Test
+    public void pool_04() {
+        // Given
+        MockProducerPool pool = new MockProducerPool();
+        Properties props = config("pool:9092", StringSerializer.class, StringSerializer.class);
+        Producer<String, String> a = pool.acquire(props);
+        Producer<String, String> b = pool.acquire(props);
+        MockProducer<byte[], byte[]> mock = pool.mocks.get(0);
+
+        // When
+        a.close();
+        a.close();
+
+        // Then
+        Assert.assertFalse(mock.closed());
+        Assert.assertTrue(mock.flushed());
+        Assert.assertEquals(pool.getReferenceCount(props), 1);
+
+        // And
+        b.close();
+        Assert.assertTrue(mock.closed());
+        Assert.assertEquals(pool.getReferenceCount(props), 0);
+        Assert.assertEquals(pool.size(), 0);
+
+        // And
+        Producer<String, String> c = pool.acquire(props);
+        Assert.assertEquals(pool.mocks.size(), 2);
+        c.close();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void pool_bad_01() {
+        MockProducerPool pool = new MockProducerPool();
+        Producer<String, String> producer =
+                pool.acquire(config("pool:9092", StringSerializer.class, StringSerializer.class));
+        producer.close();
+        producer.send(new ProducerRecord<>("topic", "key", "value"));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void pool_bad_02() {
+        MockProducerPool pool = new MockProducerPool();
+        try (Producer<String, String> producer = pool.acquire(
+                config("pool:9092", StringSerializer.class, StringSerializer.class))) {
+            producer.initTransactions();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void pool_bad_03() {
+        Properties props = config("pool:9092", StringSerializer.class, StringSerializer.class);
+        props.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, "test");
+        new MockProducerPool().acquire(props);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void pool_bad_04() {
+        Properties props = config("pool:9092", StringSerializer.class, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, "no.such.Serializer");
+        new MockProducerPool().acquire(props);
+    }
+
+    @Test
+    public void shared_sinks_01() {
+        // Given
+        MockProducerPool pool = new MockProducerPool();
+        KafkaSink<String, String> a = KafkaSink.<String, String>create()
+                                               .bootstrapServers("pool:9092")
+                                               .topic("a")
+                                               .keySerializer(StringSerializer.class)
+                                               .valueSerializer(StringSerializer.class)
+                                               .sharedProducer(pool)
+                                               .build();
+        KafkaSink<String, String> b = KafkaSink.<String, String>create()
+                                               .bootstrapServers("pool:9092")
+                                               .topic("b")
+                                               .keySerializer(StringSerializer.class)
+                                               .valueSerializer(StringSerializer.class)
+                                               .sharedProducer(pool)
+                                               .build();
+
+        // When
+        a.send(new SimpleEvent<>(Collections.emptyList(), "key", "a"));
+        b.send(new SimpleEvent<>(Collections.emptyList(), "key", "b"));
+        a.close();
+
+        // Then
+        MockProducer<byte[], byte[]> mock = pool.mocks.get(0);
+        Assert.assertEquals(pool.mocks.size(), 1);
+        Assert.assertEquals(mock.history().stream().map(ProducerRecord::topic).toList(), List.of("a", "b"));
+        Assert.assertFalse(mock.closed());
+        b.close();
+        Assert.assertTrue(mock.closed());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void shared_sinks_bad_01() {
+        KafkaSink.<String, String>create()
+                 .bootstrapServers("pool:9092")
+                 .topic("a")
+                 .keySerializer(StringSerializer.class)
+                 .valueSerializer(StringSerializer.class)
+                 .sharedProducer(new MockProducerPool())
+                 .transactional("test", Mockito.mock(KafkaEventSource.class))
+                 .build();
+    }
+
+    private static final class MockProducerPool extends KafkaProducerPool {
+        private final List<MockProducer<byte[], byte[]>> mocks = new ArrayList<>();
+
+        @Override
+        protected Producer<byte[], byte[]> createProducer(Properties props) {
+            MockProducer<byte[], byte[]> mock =
+                    new MockProducer<>(true, null, new ByteArraySerializer(), new ByteArraySerializer());
+            this.mocks.add(mock);
+            return mock;
+        }
+    }
+}
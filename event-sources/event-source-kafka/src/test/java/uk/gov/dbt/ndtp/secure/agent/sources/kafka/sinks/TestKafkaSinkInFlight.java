@@ -0,0 +1,225 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka.sinks;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.common.KafkaException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.projectors.SinkException;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.memory.SimpleEvent;
+
+public class TestKafkaSinkInFlight {
+
+    private static final Event<String, String> EVENT = new SimpleEvent<>(Collections.emptyList(), "key", "value");
+
+    private static KafkaSink<String, String> inFlightSink(MockSinkProducer producer, boolean async,
+                                                         Integer maxInFlight) {
+        KafkaSink.KafkaSinkBuilder<String, String> builder = producer.builder();
+        if (!async) {
+            builder.noAsync();
+        }
+        if (maxInFlight != null) {
+            builder.maxInFlight(maxInFlight);
+        }
+        return builder.build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void in_flight_bad_01() {
+        inFlightSink(new MockSinkProducer(false), true, 0);
+    }
+
+    @Test
+    public void in_flight_01() {
+        // Given
+        MockSinkProducer producer = new MockSinkProducer(false);
+        KafkaSink<String, String> sink = inFlightSink(producer, true, null);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            sink.send(EVENT);
+        }
+
+        // Then
+        Assert.assertEquals(sink.getInFlight(), 100);
+        while (producer.mock.completeNext()) {
+            // Keep completing sends
+        }
+        Assert.assertEquals(sink.getInFlight(), 0);
+        Assert.assertEquals(sink.getErrorCount(), 0);
+        sink.close();
+    }
+
+    @Test
+    public void in_flight_02() throws Exception {
+        // Given
+        MockSinkProducer producer = new MockSinkProducer(false);
+        KafkaSink<String, String> sink = inFlightSink(producer, true, 2);
+        sink.send(EVENT);
+        sink.send(EVENT);
+
+        // When
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> sink.send(EVENT));
+
+        // Then
+        Thread.sleep(250);
+        Assert.assertFalse(blocked.isDone());
+        Assert.assertEquals(sink.getInFlight(), 2);
+
+        // And
+        Assert.assertTrue(producer.mock.completeNext());
+        blocked.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(sink.getInFlight(), 2);
+        Assert.assertEquals(producer.mock.history().size(), 3);
+        producer.mock.flush();
+        Assert.assertEquals(sink.getInFlight(), 0);
+        sink.close();
+    }
+
+    @Test
+    public void in_flight_03() {
+        // Given
+        MockSinkProducer producer = new MockSinkProducer(true);
+        KafkaSink<String, String> sink = inFlightSink(producer, false, 1);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            sink.send(EVENT);
+        }
+
+        // Then
+        Assert.assertEquals(sink.getInFlight(), 0);
+        Assert.assertEquals(producer.mock.history().size(), 10);
+        sink.close();
+    }
+
+    @Test
+    public void in_flight_04() {
+        // Given
+        MockSinkProducer producer = new MockSinkProducer(false);
+        KafkaSink<String, String> sink = inFlightSink(producer, true, 2);
+        sink.send(EVENT);
+
+        // When
+        CompletableFuture<Void> future = sink.sendAsync(EVENT);
+        Assert.assertFalse(future.isDone());
+
+        // Then
+        Assert.assertEquals(sink.getInFlight(), 2);
+        Assert.assertTrue(producer.mock.completeNext());
+        Assert.assertTrue(producer.mock.completeNext());
+        future.join();
+        Assert.assertEquals(sink.getInFlight(), 0);
+        sink.close();
+    }
+
+    @Test
+    public void errors_01() {
+        // Given
+        MockSinkProducer producer = new MockSinkProducer(false);
+        KafkaSink<String, String> sink = inFlightSink(producer, true, null);
+        sink.send(EVENT);
+        sink.send(EVENT);
+
+        // When
+        Assert.assertTrue(producer.mock.errorNext(new KafkaException("Failed")));
+        Assert.assertTrue(producer.mock.errorNext(new KafkaException("Failed")));
+
+        // Then
+        Assert.assertEquals(sink.getErrorCount(), 2);
+        Assert.assertEquals(sink.getInFlight(), 0);
+        try {
+            sink.send(EVENT);
+            Assert.fail("Expected async errors to be reported");
+        } catch (SinkException e) {
+            Assert.assertEquals(e.getSuppressed().length, 2);
+        }
+
+        // And
+        producer.mock.completeNext();
+        sink.send(EVENT);
+        producer.mock.completeNext();
+        Assert.assertEquals(sink.getErrorCount(), 2);
+        sink.close();
+    }
+
+    @Test
+    public void errors_02() {
+        // Given
+        MockSinkProducer producer = new MockSinkProducer(true);
+        KafkaSink<String, String> sink = inFlightSink(producer, true, 1);
+        producer.mock.sendException = new KafkaException("Failed");
+
+        // When
+        Assert.assertThrows(KafkaException.class, () -> sink.send(EVENT));
+
+        // Then
+        Assert.assertEquals(sink.getInFlight(), 0);
+        Assert.assertEquals(sink.getErrorCount(), 1);
+        producer.mock.sendException = null;
+        sink.send(EVENT);
+        Assert.assertEquals(sink.getInFlight(), 0);
+        sink.close();
+    }
+
+    @Test
+    public void errors_03() {
+        // Given
+        MockSinkProducer producer = new MockSinkProducer(false);
+        KafkaSink<String, String> sink = inFlightSink(producer, true, null);
+        sink.send(EVENT);
+        Assert.assertTrue(producer.mock.errorNext(new KafkaException("Failed")));
+
+        // When and Then
+        Assert.assertThrows(SinkException.class, sink::close);
+        Assert.assertEquals(sink.getErrorCount(), 1);
+    }
+
+    @Test(timeOut = 10_000L)
+    public void in_flight_05() throws Exception {
+        // Given a sink using synchronous batches whose only in-flight permit is taken
+        MockSinkProducer producer = new MockSinkProducer(false);
+        KafkaSink<String, String> sink =
+                producer.builder().syncBatch(1_000, Duration.ofMinutes(1)).maxInFlight(1).build();
+        sink.send(EVENT);
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> sink.send(EVENT));
+        Thread.sleep(250);
+        Assert.assertFalse(blocked.isDone());
+
+        // When completing the batch, which requires the sink's lock
+        sink.completeBatch();
+
+        // Then the blocked send wasn't holding the lock while waiting for a permit, and proceeds once the batch completes
+        blocked.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(producer.mock.history().size(), 2);
+        sink.close();
+        Assert.assertEquals(sink.getInFlight(), 0);
+    }
+}
@@ -0,0 +1,258 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka.sinks;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.projectors.SinkException;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.memory.SimpleEvent;
+
+public class TestKafkaSinkSyncBatch {
+
+    private static final Event<String, String> EVENT = new SimpleEvent<>(Collections.emptyList(), "key", "value");
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void sync_batch_bad_01() {
+        new MockSinkProducer(false).builder().syncBatch(0, Duration.ofMinutes(1)).build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void sync_batch_bad_02() {
+        new MockSinkProducer(false).builder().syncBatch(10, Duration.ZERO).build();
+    }
+
+    @Test
+    public void sync_batch_01() {
+        // Given
+        MockSinkProducer producer = new MockSinkProducer(false);
+        KafkaSink<String, String> sink = producer.builder().syncBatch(3, Duration.ofMinutes(1)).build();
+
+        // When
+        sink.send(EVENT);
+        sink.send(EVENT);
+
+        // Then
+        Assert.assertEquals(producer.mock.history().size(), 2);
+        Assert.assertEquals(sink.getInFlight(), 2);
+
+        // And
+        sink.send(EVENT);
+        Assert.assertEquals(producer.mock.history().size(), 3);
+        Assert.assertEquals(sink.getInFlight(), 0);
+        Assert.assertEquals(sink.getErrorCount(), 0);
+        sink.close();
+    }
+
+    @Test
+    public void sync_batch_02() {
+        // Given
+        MockSinkProducer producer = new MockSinkProducer(false);
+        KafkaSink<String, String> sink = producer.builder().syncBatch(3, Duration.ofMinutes(1)).build();
+        sink.send(EVENT);
+        sink.send(EVENT);
+        KafkaException error = new KafkaException("Failed");
+        Assert.assertTrue(producer.mock.errorNext(error));
+
+        // When
+        SinkException e = Assert.expectThrows(SinkException.class, () -> sink.send(EVENT));
+
+        // Then
+        Assert.assertTrue(e.getMessage().startsWith("1 of 3 events"));
+        Assert.assertEquals(e.getSuppressed().length, 1);
+        Assert.assertTrue(e.getSuppressed()[0].getMessage().startsWith("Event 1 of 3"));
+        Assert.assertSame(e.getSuppressed()[0].getCause(), error);
+        Assert.assertEquals(sink.getInFlight(), 0);
+        Assert.assertEquals(sink.getErrorCount(), 1);
+
+        // And
+        sink.send(EVENT);
+        sink.completeBatch();
+        sink.close();
+    }
+
+    @Test
+    public void sync_batch_03() throws InterruptedException {
+        // Given
+        MockSinkProducer producer = new MockSinkProducer(false);
+        KafkaSink<String, String> sink = producer.builder().syncBatch(1_000, Duration.ofMillis(100)).build();
+        sink.send(EVENT);
+        Assert.assertEquals(sink.getInFlight(), 1);
+
+        // When
+        awaitNoneInFlight(sink);
+
+        // Then
+        Assert.assertEquals(sink.getInFlight(), 0);
+        Assert.assertEquals(producer.mock.history().size(), 1);
+        sink.send(EVENT);
+        Assert.assertEquals(sink.getInFlight(), 1);
+        sink.close();
+    }
+
+    @Test
+    public void sync_batch_04() {
+        // Given
+        MockSinkProducer producer = new MockSinkProducer(false);
+        KafkaSink<String, String> sink = producer.builder().syncBatch(1_000, Duration.ofMinutes(1)).build();
+        sink.send(EVENT);
+        sink.send(EVENT);
+        Assert.assertEquals(sink.getInFlight(), 2);
+
+        // When
+        sink.completeBatch();
+
+        // Then
+        Assert.assertEquals(sink.getInFlight(), 0);
+        sink.completeBatch();
+        sink.close();
+    }
+
+    @Test
+    public void sync_batch_05() {
+        // Given
+        MockSinkProducer producer = new MockSinkProducer(false);
+        KafkaSink<String, String> sink = producer.builder().syncBatch(1_000, Duration.ofMinutes(1)).build();
+        sink.send(EVENT);
+        sink.send(EVENT);
+        Assert.assertTrue(producer.mock.completeNext());
+        Assert.assertTrue(producer.mock.errorNext(new KafkaException("Failed")));
+
+        // When
+        SinkException e = Assert.expectThrows(SinkException.class, sink::close);
+
+        // Then
+        Assert.assertTrue(e.getMessage().startsWith("1 of 2 events"));
+        Assert.assertTrue(e.getSuppressed()[0].getMessage().startsWith("Event 2 of 2"));
+        Assert.assertTrue(producer.mock.closed());
+    }
+
+    @Test
+    public void sync_batch_06() {
+        // Given
+        MockSinkProducer producer = new MockSinkProducer(false);
+        KafkaSink<String, String> sink = producer.builder().syncBatch(2, Duration.ofMinutes(1)).async().build();
+
+        // When
+        sink.send(EVENT);
+        sink.send(EVENT);
+        sink.completeBatch();
+
+        // Then
+        Assert.assertEquals(sink.getInFlight(), 2);
+        producer.mock.flush();
+        sink.close();
+    }
+
+    @Test
+    public void sync_batch_07() throws InterruptedException {
+        // Given
+        MockSinkProducer producer = new MockSinkProducer(false);
+        KafkaSink<String, String> sink = producer.builder().syncBatch(1_000, Duration.ofMillis(100)).build();
+        sink.send(EVENT);
+        sink.send(EVENT);
+        KafkaException error = new KafkaException("Failed");
+        Assert.assertTrue(producer.mock.errorNext(error));
+        Assert.assertEquals(sink.getInFlight(), 1);
+
+        // When
+        awaitNoneInFlight(sink);
+
+        // Then
+        SinkException e = Assert.expectThrows(SinkException.class, () -> sink.send(EVENT));
+        Assert.assertEquals(e.getSuppressed().length, 1);
+        Assert.assertTrue(e.getSuppressed()[0].getMessage().startsWith("1 of 2 events"));
+        Assert.assertSame(e.getSuppressed()[0].getSuppressed()[0].getCause(), error);
+        Assert.assertEquals(sink.getErrorCount(), 1);
+
+        // And
+        sink.send(EVENT);
+        sink.close();
+    }
+
+    @Test
+    public void sync_batch_08() throws InterruptedException {
+        // Given
+        MockSinkProducer producer = new MockSinkProducer(false);
+        KafkaSink<String, String> sink = producer.builder().syncBatch(1_000, Duration.ofMillis(100)).build();
+        sink.send(EVENT);
+        sink.send(EVENT);
+        Assert.assertTrue(producer.mock.errorNext(new KafkaException("Failed")));
+        awaitNoneInFlight(sink);
+
+        // When and Then
+        Assert.assertThrows(SinkException.class, sink::completeBatch);
+        sink.completeBatch();
+        sink.close();
+    }
+
+    @Test(timeOut = 10_000L)
+    public void sync_batch_09() throws InterruptedException {
+        // Given a producer that is slow to flush the batch once its maximum wait has elapsed
+        CountDownLatch flushing = new CountDownLatch(1), release = new CountDownLatch(1);
+        MockSinkProducer producer = new MockSinkProducer(false);
+        KafkaSink<String, String> sink = producer.builder().syncBatch(1_000, Duration.ofMillis(50)).producerFactory(
+                props -> new MockProducer<>(false, null, new StringSerializer(), new StringSerializer()) {
+                    @Override
+                    public void flush() {
+                        flushing.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        super.flush();
+                    }
+                }).build();
+        sink.send(EVENT);
+        Assert.assertTrue(flushing.await(5, TimeUnit.SECONDS));
+
+        // When and Then sends aren't held up while the expired batch is completed
+        sink.send(EVENT);
+        Assert.assertEquals(sink.getInFlight(), 2);
+
+        // And
+        release.countDown();
+        sink.completeBatch();
+        Assert.assertEquals(sink.getInFlight(), 0);
+        sink.close();
+    }
+
+    private static void awaitNoneInFlight(KafkaSink<?, ?> sink) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (sink.getInFlight() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // Expired batches are completed in the background, so also wait for any failures to have been recorded
+        sink.awaitExpiredBatches();
+    }
+}
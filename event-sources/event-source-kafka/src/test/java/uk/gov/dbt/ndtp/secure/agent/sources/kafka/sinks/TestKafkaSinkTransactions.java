@@ -0,0 +1,364 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources.kafka.sinks;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.projectors.SinkException;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.KafkaEvent;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.KafkaEventSource;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.MockKafkaEventSource;
+import uk.gov.dbt.ndtp.secure.agent.sources.kafka.policies.KafkaReadPolicies;
+import uk.gov.dbt.ndtp.secure.agent.sources.memory.SimpleEvent;
+
+public class TestKafkaSinkTransactions {
+
+    private static final String TOPIC = "input";
+
+    private MockKafkaEventSource<String, String> createSource(boolean autoCommit) {
+        return new MockKafkaEventSource<>("transactions-mock:9092", Set.of(TOPIC), "transactions",
+                                          StringDeserializer.class.getCanonicalName(),
+                                          StringDeserializer.class.getCanonicalName(), 100,
+                                          KafkaReadPolicies.fromBeginning(), autoCommit, Collections.emptyList());
+    }
+
+    private static Event<String, String> event(KafkaEventSource<String, String> source, int partition, long offset) {
+        return new KafkaEvent<>(new ConsumerRecord<>(TOPIC, partition, offset, "key", "value-" + offset), source);
+    }
+
+    private static Map<TopicPartition, OffsetAndMetadata> committedOffsets(MockProducer<String, String> producer,
+                                                                          int transaction) {
+        List<Map<String, Map<TopicPartition, OffsetAndMetadata>>> history = producer.consumerGroupOffsetsHistory();
+        Assert.assertEquals(history.get(transaction).size(), 1);
+        return history.get(transaction).values().iterator().next();
+    }
+
+    private static KafkaSink<String, String> transactionalSink(MockSinkProducer producer,
+                                                              KafkaEventSource<?, ?> source, int maxEvents,
+                                                              Duration maxInterval) {
+        KafkaSink.KafkaSinkBuilder<String, String> builder = producer.builder();
+        if (source != null) {
+            builder.transactional("test-transactions", source).transactionBatching(maxEvents, maxInterval);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void transactions_01() {
+        // Given
+        MockKafkaEventSource<String, String> source = createSource(false);
+        MockSinkProducer producer = new MockSinkProducer(true);
+        KafkaSink<String, String> sink = transactionalSink(producer, source, 3, Duration.ofMinutes(1));
+
+        // When
+        sink.send(event(source, 0, 0));
+        sink.send(event(source, 0, 1));
+
+        // Then
+        Assert.assertTrue(sink.isTransactional());
+        Assert.assertTrue(producer.mock.transactionInFlight());
+        Assert.assertEquals(producer.mock.commitCount(), 0);
+        Assert.assertEquals(producer.mock.uncommittedRecords().size(), 2);
+
+        // And
+        sink.send(event(source, 1, 5));
+        Assert.assertFalse(producer.mock.transactionInFlight());
+        Assert.assertTrue(producer.mock.transactionCommitted());
+        Assert.assertEquals(producer.mock.commitCount(), 1);
+        Assert.assertEquals(producer.mock.history().size(), 3);
+        Map<TopicPartition, OffsetAndMetadata> offsets = committedOffsets(producer.mock, 0);
+        Assert.assertEquals(offsets.get(new TopicPartition(TOPIC, 0)).offset(), 2);
+        Assert.assertEquals(offsets.get(new TopicPartition(TOPIC, 1)).offset(), 6);
+        sink.close();
+    }
+
+    @Test
+    public void transactions_02() throws InterruptedException {
+        // Given
+        MockKafkaEventSource<String, String> source = createSource(false);
+        MockSinkProducer producer = new MockSinkProducer(true);
+        KafkaSink<String, String> sink = transactionalSink(producer, source, 1_000, Duration.ofMillis(50));
+
+        // When
+        sink.send(event(source, 0, 0));
+        Thread.sleep(100);
+        sink.send(event(source, 0, 1));
+
+        // Then
+        Assert.assertEquals(producer.mock.commitCount(), 1);
+        Assert.assertEquals(committedOffsets(producer.mock, 0).get(new TopicPartition(TOPIC, 0)).offset(), 2);
+        sink.close();
+    }
+
+    @Test
+    public void transactions_03() {
+        // Given
+        MockKafkaEventSource<String, String> source = createSource(false);
+        MockSinkProducer producer = new MockSinkProducer(true);
+        KafkaSink<String, String> sink = transactionalSink(producer, source, 1_000, Duration.ofMinutes(1));
+        sink.send(event(source, 0, 0));
+        sink.send(new SimpleEvent<>(Collections.emptyList(), "other", "not-from-source"));
+
+        // When
+        sink.close();
+
+        // Then
+        Assert.assertTrue(producer.mock.closed());
+        Assert.assertEquals(producer.mock.commitCount(), 1);
+        Assert.assertEquals(producer.mock.history().size(), 2);
+        Assert.assertEquals(committedOffsets(producer.mock, 0).size(), 1);
+    }
+
+    @Test
+    public void transactions_04() {
+        // Given
+        MockKafkaEventSource<String, String> source = createSource(false);
+        MockSinkProducer producer = new MockSinkProducer(true);
+        KafkaSink<String, String> sink = transactionalSink(producer, source, 1_000, Duration.ofMinutes(1));
+
+        // When
+        sink.commitTransaction();
+        sink.send(event(source, 0, 0));
+        sink.commitTransaction();
+        sink.commitTransaction();
+
+        // Then
+        Assert.assertEquals(producer.mock.commitCount(), 1);
+        sink.close();
+        Assert.assertEquals(producer.mock.commitCount(), 1);
+    }
+
+    @Test
+    public void transactions_05() {
+        // Given
+        MockKafkaEventSource<String, String> source = createSource(false);
+        MockSinkProducer producer = new MockSinkProducer(true);
+        KafkaSink<String, String> sink = transactionalSink(producer, source, 2, Duration.ofMinutes(1));
+        sink.send(event(source, 0, 0));
+        producer.mock.commitTransactionException = new KafkaException("Commit failed");
+
+        // When and Then
+        Assert.assertThrows(SinkException.class, () -> sink.send(event(source, 0, 1)));
+        Assert.assertTrue(producer.mock.transactionAborted());
+        Assert.assertEquals(producer.mock.commitCount(), 0);
+
+        // And
+        producer.mock.commitTransactionException = null;
+        sink.send(event(source, 0, 1));
+        sink.send(event(source, 0, 2));
+        Assert.assertEquals(producer.mock.commitCount(), 1);
+        Assert.assertEquals(committedOffsets(producer.mock, 0).get(new TopicPartition(TOPIC, 0)).offset(), 3);
+        sink.close();
+    }
+
+    @Test
+    public void transactions_06() {
+        // Given
+        MockKafkaEventSource<String, String> source = createSource(false);
+        MockSinkProducer producer = new MockSinkProducer(true);
+        KafkaSink<String, String> sink = transactionalSink(producer, source, 10, Duration.ofMinutes(1));
+        sink.send(event(source, 0, 0));
+        producer.mock.sendException = new KafkaException("Send failed");
+
+        // When and Then
+        Assert.assertThrows(KafkaException.class, () -> sink.send(event(source, 0, 1)));
+        Assert.assertTrue(producer.mock.transactionAborted());
+        Assert.assertFalse(producer.mock.transactionInFlight());
+        producer.mock.sendException = null;
+        sink.close();
+        Assert.assertEquals(producer.mock.commitCount(), 0);
+    }
+
+    @Test
+    public void transactions_07() {
+        // Given
+        MockKafkaEventSource<String, String> source = createSource(false);
+        MockSinkProducer producer = new MockSinkProducer(true);
+        KafkaSink<String, String> sink = transactionalSink(producer, source, 1, Duration.ofMinutes(1));
+
+        // When
+        sink.sendAsync(event(source, 0, 0)).join();
+
+        // Then
+        Assert.assertEquals(producer.mock.commitCount(), 1);
+        Assert.assertEquals(committedOffsets(producer.mock, 0).get(new TopicPartition(TOPIC, 0)).offset(), 1);
+        sink.close();
+    }
+
+    @Test
+    public void transactions_08() {
+        // Given
+        MockKafkaEventSource<String, String> source = createSource(false);
+        MockSinkProducer producer = new MockSinkProducer(true);
+        KafkaSink<String, String> sink = transactionalSink(producer, source, 1, Duration.ofMinutes(1));
+
+        // When
+        sink.send(event(source, 0, 0));
+
+        // Then
+        Assert.assertEquals(producer.properties.get(ProducerConfig.TRANSACTIONAL_ID_CONFIG), "test-transactions");
+        Assert.assertEquals(producer.properties.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG), true);
+        sink.close();
+    }
+
+    @Test
+    public void transactions_09() {
+        // Given
+        MockKafkaEventSource<String, String> source = createSource(false);
+        MockSinkProducer producer = new MockSinkProducer(true);
+        KafkaSink<String, String> sink = transactionalSink(producer, source, 1_000, Duration.ofMinutes(1));
+        Assert.assertNull(source.poll(Duration.ofMillis(100)));
+        sink.send(event(source, 0, 0));
+        sink.send(event(source, 0, 1));
+        Assert.assertTrue(producer.mock.transactionInFlight());
+
+        // When
+        source.getMockConsumer().rebalance(Collections.emptyList());
+
+        // Then
+        Assert.assertFalse(producer.mock.transactionInFlight());
+        Assert.assertEquals(producer.mock.commitCount(), 1);
+        Assert.assertEquals(committedOffsets(producer.mock, 0).get(new TopicPartition(TOPIC, 0)).offset(), 2);
+        sink.close();
+        source.close();
+    }
+
+    @Test
+    public void transactions_10() {
+        // Given
+        MockKafkaEventSource<String, String> source = createSource(false);
+        MockSinkProducer producer = new MockSinkProducer(true);
+        KafkaSink<String, String> sink = transactionalSink(producer, source, 1_000, Duration.ofMinutes(1));
+        Assert.assertNull(source.poll(Duration.ofMillis(100)));
+        sink.send(event(source, 0, 0));
+        producer.mock.commitTransactionException = new KafkaException("Commit failed");
+
+        // When
+        source.getMockConsumer().rebalance(Collections.emptyList());
+
+        // Then
+        Assert.assertTrue(producer.mock.transactionAborted());
+        producer.mock.commitTransactionException = null;
+        Assert.assertThrows(SinkException.class, () -> sink.send(event(source, 0, 1)));
+        sink.send(event(source, 0, 1));
+        sink.close();
+        Assert.assertEquals(producer.mock.commitCount(), 1);
+        source.close();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = ".*auto-commit.*")
+    public void transactions_bad_01() {
+        transactionalSink(new MockSinkProducer(true), createSource(true), 1, Duration.ofMinutes(1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void transactions_bad_02() {
+        transactionalSink(new MockSinkProducer(true), createSource(false), 0, Duration.ofMinutes(1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void transactions_bad_03() {
+        transactionalSink(new MockSinkProducer(true), createSource(false), 1, Duration.ZERO);
+    }
+
+    @Test
+    public void no_transactions_01() {
+        // Given
+        MockSinkProducer producer = new MockSinkProducer(true);
+        KafkaSink<String, String> sink = transactionalSink(producer, null, 1, Duration.ofMinutes(1));
+
+        // When
+        sink.send(new SimpleEvent<>(Collections.emptyList(), "key", "value"));
+
+        // Then
+        Assert.assertFalse(sink.isTransactional());
+        Assert.assertFalse(producer.mock.transactionInitialized());
+        Assert.assertEquals(producer.mock.history().size(), 1);
+        Assert.assertNull(producer.properties.get(ProducerConfig.TRANSACTIONAL_ID_CONFIG));
+        sink.close();
+    }
+
+    @Test(timeOut = 10_000L)
+    public void no_transactions_02() throws Exception {
+        // Given a non-transactional sink whose producer blocks sending a particular event
+        CountDownLatch blocked = new CountDownLatch(1), release = new CountDownLatch(1);
+        KafkaSink<String, String> sink = new MockSinkProducer(true).builder().producerFactory(
+                props -> new MockProducer<>(true, null, new StringSerializer(), new StringSerializer()) {
+                    @Override
+                    public Future<RecordMetadata> send(ProducerRecord<String, String> record, Callback callback) {
+                        if ("block".equals(record.value())) {
+                            blocked.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                        return super.send(record, callback);
+                    }
+                }).build();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> blockedSend =
+                    executor.submit(() -> sink.send(new SimpleEvent<>(Collections.emptyList(), "key", "block")));
+            Assert.assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+            // When and Then other sends aren't held up behind the blocked send as plain sinks never take a lock
+            CompletableFuture<Void> future =
+                    sink.sendAsync(new SimpleEvent<>(Collections.emptyList(), "key", "value"));
+            Assert.assertFalse(blockedSend.isDone());
+            release.countDown();
+            blockedSend.get(5, TimeUnit.SECONDS);
+            future.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+            sink.close();
+        }
+    }
+}
@@ -38,6 +38,7 @@ import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.builder.AbstractForwardingS
 import uk.gov.dbt.ndtp.secure.agent.sources.Event;
 import uk.gov.dbt.ndtp.secure.agent.sources.Header;
 import uk.gov.dbt.ndtp.secure.agent.sources.IANodeHeaders;
+import uk.gov.dbt.ndtp.secure.agent.sources.PreEncodedHeaders;
 
 /**
  * A forwarding sink that optionally adds one/more headers onto the event before forwarding it
@@ -65,16 +66,20 @@ public class EventHeaderSink<TKey, TValue> extends AbstractTransformingSink<Even
 
     @Override
     protected Event<TKey, TValue> transform(Event<TKey, TValue> event) {
-        //@formatter:off
-        List<Header> additionalHeaders =
-                this.headerGenerators.stream()
-                                     .map(g -> g.apply(event))
-                                     .filter(Objects::nonNull)
-                                     .toList();
-        //@formatter:on
+        // This runs for every event so deliberately avoids streams for generating the headers
+        List<Header> additionalHeaders = null;
+        for (Function<Event<TKey, TValue>, Header> generator : this.headerGenerators) {
+            Header header = generator.apply(event);
+            if (header != null) {
+                if (additionalHeaders == null) {
+                    additionalHeaders = new ArrayList<>(this.headerGenerators.size());
+                }
+                additionalHeaders.add(header);
+            }
+        }
 
         // Either add the additional headers (if any) or return unmodified
-        if (!additionalHeaders.isEmpty()) {
+        if (additionalHeaders != null) {
             return event.addHeaders(additionalHeaders.stream());
         }
         return event;
@@ -214,6 +219,10 @@ public class EventHeaderSink<TKey, TValue> extends AbstractTransformingSink<Even
          * Use {@link #headerGenerator(Function)} if the generated header needs to have different values, or not exist
          * at all, depending on the input event.
          * </p>
+         * <p>
+         * The same header instance is added to every event, and its value is pre-encoded via {@link PreEncodedHeaders}
+         * so sinks that write events out need not re-encode it for every event.
+         * </p>
          *
          * @param name  Header Name
          * @param value Header Value
@@ -221,7 +230,8 @@ public class EventHeaderSink<TKey, TValue> extends AbstractTransformingSink<Even
          */
         public Builder<TKey, TValue> fixedHeader(String name, String value) {
             if (StringUtils.isNoneBlank(name, value)) {
-                return this.headerGenerator(e -> new Header(name, value));
+                Header header = PreEncodedHeaders.create(name, value);
+                return this.headerGenerator(e -> header);
             } else {
                 return this;
             }
@@ -237,6 +247,9 @@ public class EventHeaderSink<TKey, TValue> extends AbstractTransformingSink<Even
          * Use {@link #headerGenerator(Function)} if the generated header needs to have different values, or not exist
          * at all, depending on the input event.
          * </p>
+         * <p>
+         * As with {@link #fixedHeader(String, String)} the header value is pre-encoded.
+         * </p>
          *
          * @param name  Header Name
          * @param value Header Value
@@ -244,8 +257,8 @@ public class EventHeaderSink<TKey, TValue> extends AbstractTransformingSink<Even
          */
         public Builder<TKey, TValue> fixedHeaderIfMissing(String name, String value) {
             if (StringUtils.isNoneBlank(name, value)) {
-                return this.headerGenerator(e -> e.headers(name).findAny().isEmpty() ?
-                                                 new Header(name, value) : null);
+                Header header = PreEncodedHeaders.create(name, value);
+                return this.headerGenerator(e -> e.headers(name).findAny().isEmpty() ? header : null);
             } else {
                 return this;
             }
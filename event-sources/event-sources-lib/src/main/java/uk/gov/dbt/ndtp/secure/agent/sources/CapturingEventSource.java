@@ -26,6 +26,7 @@ package uk.gov.dbt.ndtp.secure.agent.sources;
 
 import java.time.Duration;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -82,15 +83,28 @@ public class CapturingEventSource<TKey, TValue> implements EventSource<TKey, TVa
     public Event<TKey, TValue> poll(Duration timeout) {
         Event<TKey, TValue> next = this.underlying.poll(timeout);
         if (next != null) {
-            try {
-                this.capture.send(next);
-            } catch (SinkException e) {
-                LOGGER.warn("Failed to capture event: {}", e.getMessage());
-            }
+            capture(next);
         }
         return next;
     }
 
+    @Override
+    public List<Event<TKey, TValue>> pollBatch(int maxEvents, Duration timeout) {
+        List<Event<TKey, TValue>> batch = this.underlying.pollBatch(maxEvents, timeout);
+        for (Event<TKey, TValue> next : batch) {
+            capture(next);
+        }
+        return batch;
+    }
+
+    private void capture(Event<TKey, TValue> next) {
+        try {
+            this.capture.send(next);
+        } catch (SinkException e) {
+            LOGGER.warn("Failed to capture event: {}", e.getMessage());
+        }
+    }
+
     @Override
     public Long remaining() {
         return this.underlying.remaining();
@@ -100,4 +114,14 @@ public class CapturingEventSource<TKey, TValue> implements EventSource<TKey, TVa
     public void processed(Collection<Event> processedEvents) {
         this.underlying.processed(processedEvents);
     }
+
+    @Override
+    public Object completionLane(Event<TKey, TValue> event) {
+        return this.underlying.completionLane(event);
+    }
+
+    @Override
+    public boolean isAutoCommitting() {
+        return this.underlying.isAutoCommitting();
+    }
 }
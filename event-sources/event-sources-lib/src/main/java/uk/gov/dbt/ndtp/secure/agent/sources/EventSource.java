@@ -25,7 +25,10 @@
 package uk.gov.dbt.ndtp.secure.agent.sources;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Represents a source of events
@@ -102,6 +105,51 @@ public interface EventSource<TKey, TValue> {
      */
     Event<TKey, TValue> poll(Duration timeout);
 
+    /**
+     * Polls for a batch of events from the source, potentially blocking until at least one event is available.
+     * <p>
+     * Semantically this is equivalent to calling {@link #poll(Duration)} with the given timeout and then continuing to
+     * call it for as long as {@link #availableImmediately()} returns {@code true}, up to the maximum number of events.
+     * That is exactly what the default implementation does, however implementations that buffer events internally
+     * <strong>SHOULD</strong> override this to return their buffered events more efficiently.
+     * </p>
+     * <p>
+     * If no events can be provided within the given timeout then an empty list is returned.  The returned events
+     * <strong>MUST</strong> be in the same order they would have been returned by successive calls to
+     * {@link #poll(Duration)}.
+     * </p>
+     *
+     * @param maxEvents Maximum number of events to return
+     * @param timeout   Maximum time to wait for the first event before returning an empty list
+     * @return Batch of events, may be empty if no events are currently available
+     * @throws IllegalArgumentException Thrown if {@code maxEvents} is less than 1
+     * @throws IllegalStateException    Thrown if this is called after the event source has been closed
+     * @throws EventSourceException     Thrown if the event source encounters an unrecoverable error
+     */
+    default List<Event<TKey, TValue>> pollBatch(int maxEvents, Duration timeout) {
+        if (maxEvents < 1) {
+            throw new IllegalArgumentException("maxEvents must be >= 1");
+        }
+
+        Event<TKey, TValue> first = poll(timeout);
+        if (first == null) {
+            return Collections.emptyList();
+        } else if (maxEvents == 1) {
+            return Collections.singletonList(first);
+        }
+
+        List<Event<TKey, TValue>> batch = new ArrayList<>();
+        batch.add(first);
+        while (batch.size() < maxEvents && availableImmediately()) {
+            Event<TKey, TValue> next = poll(Duration.ZERO);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
     /**
      * Reports the total remaining events at the time of calling (if known).
      * <p>
@@ -133,4 +181,37 @@ public interface EventSource<TKey, TValue> {
      */
     @SuppressWarnings("rawtypes")
     void processed(Collection<Event> processedEvents);
+
+    /**
+     * Gets the completion lane of an event, i.e. the subset of this source's events within which it tracks its read
+     * position
+     * <p>
+     * Events in different lanes may be reported via {@link #processed(Collection)} in a different order to that in
+     * which they were polled without the source committing past an unprocessed event, e.g. Kafka tracks offsets
+     * independently for each topic partition.  The default implementation returns {@code null} i.e. all events share a
+     * single lane, which is always safe.
+     * </p>
+     *
+     * @param event Event
+     * @return Completion lane, or {@code null} for the default lane
+     */
+    default Object completionLane(Event<TKey, TValue> event) {
+        return null;
+    }
+
+    /**
+     * Gets whether the source automatically commits its read position as events are polled, i.e. without waiting for
+     * them to be reported via {@link #processed(Collection)}
+     * <p>
+     * Such a source treats events as processed once a subsequent poll is made, so callers that keep polling while
+     * earlier events are still being processed, e.g. on other threads, cannot provide at-least-once processing with
+     * it.  The default implementation returns {@code false}, implementations that wrap other sources
+     * <strong>SHOULD</strong> return {@code true} if any wrapped source does.
+     * </p>
+     *
+     * @return True if the source automatically commits as events are polled, false otherwise
+     */
+    default boolean isAutoCommitting() {
+        return false;
+    }
 }
@@ -0,0 +1,588 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An event source that merges the events from several underlying event sources.
+ * <p>
+ * Each underlying source is polled on its own background thread, with up to a configurable number of events buffered
+ * for each source.  When events are polled from the merged source they are taken from the buffered events using
+ * smooth weighted round-robin scheduling, so over time each source with events available receives a share of the
+ * polls proportional to its weight.  A source with no events available does not hold up the other sources.  The
+ * relative ordering of events from the same source is preserved, there is no ordering between events from different
+ * sources.
+ * </p>
+ * <p>
+ * Since each underlying source is only ever accessed from its background thread while that thread is running, calls to
+ * {@link #processed(Collection)} and {@link #remaining()} are handed off to the relevant background thread(s).  This
+ * means underlying sources, such as Kafka, that are not thread-safe can be safely merged.  Processed events are routed
+ * back to the underlying source that produced them based upon {@link Event#source()}, any events that do not originate
+ * from one of the underlying sources are ignored.
+ * </p>
+ * <p>
+ * The merged source is exhausted only once all the underlying sources are exhausted and all buffered events have been
+ * polled.  Closing the merged source closes all the underlying sources.
+ * </p>
+ *
+ * @param <TKey>   Event key type
+ * @param <TValue> Event value type
+ */
+public class MergedEventSource<TKey, TValue> implements EventSource<TKey, TValue> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MergedEventSource.class);
+
+    /**
+     * Default maximum number of events buffered for each underlying source
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1_000;
+    /**
+     * Default weight for each underlying source
+     */
+    public static final int DEFAULT_WEIGHT = 1;
+
+    private static final Duration SOURCE_POLL_TIMEOUT = Duration.ofMillis(100);
+    private static final Runnable WAKE_UP = () -> {
+    };
+
+    private final List<Input<TKey, TValue>> inputs = new ArrayList<>();
+    private final Map<EventSource<?, ?>, Input<TKey, TValue>> inputsBySource = new IdentityHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = this.lock.newCondition();
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a new merged event source
+     *
+     * @param sources    Underlying sources
+     * @param weights    Weights for each underlying source, must be the same size as the list of sources
+     * @param bufferSize Maximum number of events buffered for each underlying source
+     */
+    MergedEventSource(List<EventSource<TKey, TValue>> sources, List<Integer> weights, int bufferSize) {
+        Objects.requireNonNull(sources, "Sources cannot be null");
+        Objects.requireNonNull(weights, "Weights cannot be null");
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("At least one source must be merged");
+        }
+        if (sources.size() != weights.size()) {
+            throw new IllegalArgumentException("Must provide a weight for each source");
+        }
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be >= 1");
+        }
+
+        for (int i = 0; i < sources.size(); i++) {
+            EventSource<TKey, TValue> source = Objects.requireNonNull(sources.get(i), "Sources cannot contain nulls");
+            int weight = Objects.requireNonNull(weights.get(i), "Weights cannot contain nulls");
+            if (weight < 1) {
+                throw new IllegalArgumentException("Source weights must be >= 1");
+            }
+            if (this.inputsBySource.containsKey(source)) {
+                throw new IllegalArgumentException("The same source cannot be merged more than once");
+            }
+            Input<TKey, TValue> input = new Input<>(source, weight, bufferSize);
+            this.inputs.add(input);
+            this.inputsBySource.put(source, input);
+        }
+        for (int i = 0; i < this.inputs.size(); i++) {
+            Input<TKey, TValue> input = this.inputs.get(i);
+            input.thread = new Thread(() -> pollSource(input), "MergedEventSource-" + i);
+            input.thread.setDaemon(true);
+            input.thread.start();
+        }
+    }
+
+    /**
+     * Background polling loop for an underlying source
+     *
+     * @param input Input
+     */
+    private void pollSource(Input<TKey, TValue> input) {
+        try {
+            while (!this.closed) {
+                input.runTasks();
+                if (input.failure.get() != null || input.buffer.remainingCapacity() == 0) {
+                    // Wait for the buffer to be drained, or any previous failure to be handed over, before polling again
+                    input.awaitTask();
+                    continue;
+                }
+                if (input.source.isExhausted()) {
+                    break;
+                }
+
+                input.inTransit = true;
+                try {
+                    input.buffer.addAll(input.source.pollBatch(input.buffer.remainingCapacity(), SOURCE_POLL_TIMEOUT));
+                } catch (Throwable e) {
+                    LOGGER.warn("Merged event source {} failed to poll: {}", input.thread.getName(), e.getMessage());
+                    input.failure.set(e);
+                } finally {
+                    input.inTransit = false;
+                }
+                signalAvailable();
+            }
+        } finally {
+            input.finished = true;
+            input.runTasks();
+            signalAvailable();
+        }
+    }
+
+    private void signalAvailable() {
+        this.lock.lock();
+        try {
+            this.available.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void checkNotClosed() {
+        if (this.closed) {
+            throw new IllegalStateException("Event Source is closed");
+        }
+    }
+
+    @Override
+    public boolean availableImmediately() {
+        if (this.closed) {
+            return false;
+        }
+        for (Input<TKey, TValue> input : this.inputs) {
+            if (!input.buffer.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isExhausted() {
+        if (this.closed) {
+            return true;
+        }
+        for (Input<TKey, TValue> input : this.inputs) {
+            if (!input.isExhausted()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        for (Input<TKey, TValue> input : this.inputs) {
+            input.tasks.offer(WAKE_UP);
+        }
+        for (Input<TKey, TValue> input : this.inputs) {
+            try {
+                input.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Background threads have now finished so safe to close the underlying sources from this thread
+        for (Input<TKey, TValue> input : this.inputs) {
+            input.buffer.clear();
+            try {
+                input.source.close();
+            } catch (Throwable e) {
+                LOGGER.warn("Failed to close merged event source: {}", e.getMessage());
+            }
+        }
+        signalAvailable();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    @Override
+    public Event<TKey, TValue> poll(Duration timeout) {
+        checkNotClosed();
+
+        long remaining = timeout.toNanos();
+        long deadline = System.nanoTime() + remaining;
+        this.lock.lock();
+        try {
+            while (true) {
+                Event<TKey, TValue> next = next(true);
+                if (next != null) {
+                    return next;
+                }
+                if (this.closed || isExhausted() || remaining <= 0) {
+                    return null;
+                }
+                try {
+                    this.available.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+                remaining = deadline - System.nanoTime();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Event<TKey, TValue>> pollBatch(int maxEvents, Duration timeout) {
+        if (maxEvents < 1) {
+            throw new IllegalArgumentException("maxEvents must be >= 1");
+        }
+
+        Event<TKey, TValue> first = poll(timeout);
+        if (first == null) {
+            return Collections.emptyList();
+        }
+        List<Event<TKey, TValue>> batch = new ArrayList<>(Math.min(maxEvents, DEFAULT_BUFFER_SIZE));
+        batch.add(first);
+        this.lock.lock();
+        try {
+            while (batch.size() < maxEvents) {
+                // Any failure is surfaced on the next poll so that the events already in this batch are not lost
+                Event<TKey, TValue> next = next(false);
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        return batch;
+    }
+
+    /**
+     * Selects the next event using smooth weighted round-robin across the inputs that currently have buffered events
+     *
+     * @param throwFailures Whether to throw any failure from an input whose buffer has been fully drained
+     * @return Next event, or {@code null} if no events are currently buffered
+     */
+    private Event<TKey, TValue> next(boolean throwFailures) {
+        Input<TKey, TValue> selected = null;
+        int totalWeight = 0;
+        for (Input<TKey, TValue> input : this.inputs) {
+            if (input.buffer.isEmpty()) {
+                if (throwFailures) {
+                    input.throwFailure();
+                }
+                continue;
+            }
+            input.currentWeight += input.weight;
+            totalWeight += input.weight;
+            if (selected == null || input.currentWeight > selected.currentWeight) {
+                selected = input;
+            }
+        }
+        if (selected == null) {
+            return null;
+        }
+        selected.currentWeight -= totalWeight;
+
+        boolean wasFull = selected.buffer.remainingCapacity() == 0;
+        Event<TKey, TValue> next = selected.buffer.poll();
+        if (wasFull) {
+            selected.tasks.offer(WAKE_UP);
+        }
+        return next;
+    }
+
+    @Override
+    public Long remaining() {
+        if (this.closed) {
+            return null;
+        }
+        long total = 0;
+        for (Input<TKey, TValue> input : this.inputs) {
+            Long remaining = input.call(() -> {
+                Long sourceRemaining = input.source.remaining();
+                return sourceRemaining != null ? sourceRemaining + input.buffer.size() : null;
+            });
+            if (remaining == null) {
+                return null;
+            }
+            total += remaining;
+        }
+        return total;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void processed(Collection<Event> processedEvents) {
+        Map<Input<TKey, TValue>, List<Event>> bySource = new IdentityHashMap<>();
+        for (Event event : processedEvents) {
+            Input<TKey, TValue> input = this.inputsBySource.get(event.source());
+            if (input != null) {
+                bySource.computeIfAbsent(input, k -> new ArrayList<>()).add(event);
+            }
+        }
+        for (Map.Entry<Input<TKey, TValue>, List<Event>> entry : bySource.entrySet()) {
+            Input<TKey, TValue> input = entry.getKey();
+            List<Event> events = entry.getValue();
+            input.submit(() -> {
+                try {
+                    input.source.processed(events);
+                } catch (Throwable e) {
+                    LOGGER.warn("Merged event source failed to process events: {}", e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Gets the completion lane of an event from the underlying source that produced it
+     * <p>
+     * Should two underlying sources use equal lanes then their events merely share a lane, which is always safe.
+     * </p>
+     *
+     * @param event Event
+     * @return Completion lane, or {@code null} if the event did not originate from one of the underlying sources
+     */
+    @Override
+    public Object completionLane(Event<TKey, TValue> event) {
+        Input<TKey, TValue> input = this.inputsBySource.get(event.source());
+        return input != null ? input.source.completionLane(event) : null;
+    }
+
+    @Override
+    public boolean isAutoCommitting() {
+        return this.inputs.stream().anyMatch(input -> input.source.isAutoCommitting());
+    }
+
+    /**
+     * Creates a new builder for merged event sources
+     *
+     * @param <TKey>   Key type
+     * @param <TValue> Value type
+     * @return Builder
+     */
+    public static <TKey, TValue> Builder<TKey, TValue> create() {
+        return new Builder<>();
+    }
+
+    /**
+     * Holds the state for an underlying source
+     *
+     * @param <TKey>   Event key type
+     * @param <TValue> Event value type
+     */
+    private static final class Input<TKey, TValue> {
+        private final EventSource<TKey, TValue> source;
+        private final int weight;
+        private final BlockingQueue<Event<TKey, TValue>> buffer;
+        private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private Thread thread;
+        private int currentWeight = 0;
+        private volatile boolean inTransit = false, finished = false;
+
+        private Input(EventSource<TKey, TValue> source, int weight, int bufferSize) {
+            this.source = source;
+            this.weight = weight;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        /**
+         * Gets whether this input is exhausted i.e. its source is exhausted and all its events have been polled
+         * <p>
+         * The source is checked first, and the buffer last, so that events currently being moved from the source into
+         * the buffer by the background thread are never missed.
+         * </p>
+         *
+         * @return True if exhausted, false otherwise
+         */
+        private boolean isExhausted() {
+            return this.source.isExhausted() && !this.inTransit && this.buffer.isEmpty()
+                   && this.failure.get() == null;
+        }
+
+        /**
+         * Throws, and clears, any failure encountered by the background thread
+         */
+        private void throwFailure() {
+            Throwable e = this.failure.getAndSet(null);
+            if (e == null) {
+                return;
+            }
+            this.tasks.offer(WAKE_UP);
+            if (e instanceof RuntimeException runtime) {
+                throw runtime;
+            } else if (e instanceof Error error) {
+                throw error;
+            }
+            throw new EventSourceException(e);
+        }
+
+        /**
+         * Submits a task to be run against the underlying source by its background thread, or by the calling thread if
+         * the background thread has already finished
+         *
+         * @param task Task
+         */
+        private void submit(Runnable task) {
+            this.tasks.offer(task);
+            if (this.finished) {
+                runTasks();
+            }
+        }
+
+        /**
+         * Submits a task to be run against the underlying source and waits for its result
+         *
+         * @param callable Task
+         * @param <T>      Result type
+         * @return Result
+         */
+        private <T> T call(Callable<T> callable) {
+            FutureTask<T> task = new FutureTask<>(callable);
+            submit(task);
+            try {
+                return task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new EventSourceException(e.getCause());
+            }
+        }
+
+        /**
+         * Runs any pending tasks
+         */
+        private synchronized void runTasks() {
+            Runnable task;
+            while ((task = this.tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        /**
+         * Waits briefly for a task to be submitted, running it if one is
+         */
+        private void awaitTask() {
+            try {
+                Runnable task = this.tasks.poll(SOURCE_POLL_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+                if (task != null) {
+                    synchronized (this) {
+                        task.run();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Builder for merged event sources
+     *
+     * @param <TKey>   Key type
+     * @param <TValue> Value type
+     */
+    public static class Builder<TKey, TValue> {
+
+        private final List<EventSource<TKey, TValue>> sources = new ArrayList<>();
+        private final List<Integer> weights = new ArrayList<>();
+        private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+        /**
+         * Adds a source to be merged with the default weight
+         *
+         * @param source Source
+         * @return Builder
+         */
+        public Builder<TKey, TValue> source(EventSource<TKey, TValue> source) {
+            return source(source, DEFAULT_WEIGHT);
+        }
+
+        /**
+         * Adds a source to be merged with the given weight
+         * <p>
+         * When several sources have events available each receives a share of polls proportional to its weight, e.g.
+         * a source with weight {@code 3} receives three times as many events as a source with weight {@code 1}.
+         * </p>
+         *
+         * @param source Source
+         * @param weight Weight, must be >= 1
+         * @return Builder
+         */
+        public Builder<TKey, TValue> source(EventSource<TKey, TValue> source, int weight) {
+            this.sources.add(source);
+            this.weights.add(weight);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of events buffered for each source
+         *
+         * @param bufferSize Buffer size
+         * @return Builder
+         */
+        public Builder<TKey, TValue> bufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Builds a new merged event source, this starts polling the underlying sources in the background
+         *
+         * @return Merged event source
+         */
+        public MergedEventSource<TKey, TValue> build() {
+            return new MergedEventSource<>(this.sources, this.weights, this.bufferSize);
+        }
+    }
+}
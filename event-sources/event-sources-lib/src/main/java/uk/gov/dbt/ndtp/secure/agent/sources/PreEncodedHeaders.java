@@ -0,0 +1,114 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A process wide cache of the UTF-8 encoded values of headers that never change, e.g. those added by the
+ * {@link uk.gov.dbt.ndtp.secure.agent.projectors.sinks.events.EventHeaderSink} fixed header methods
+ * <p>
+ * Sinks that need the encoded form of a header, e.g. when writing events to Kafka, call {@link #encodeValue(Header)}
+ * which returns the cached encoding for a pre-encoded header, so fixed headers are only encoded once rather than for
+ * every event.  Any other header is simply encoded on demand, and is not cached, so headers with per-event values, e.g.
+ * request IDs, do not grow the cache.
+ * </p>
+ * <p>
+ * The cache is bounded to {@value #MAX_SIZE} headers, once full further headers are not pre-encoded, this merely
+ * means they are encoded on demand instead.
+ * </p>
+ */
+public final class PreEncodedHeaders {
+
+    /**
+     * Maximum number of distinct headers that are cached
+     */
+    public static final int MAX_SIZE = 10_000;
+
+    private static final Map<Header, byte[]> ENCODED = new ConcurrentHashMap<>();
+
+    private PreEncodedHeaders() {
+    }
+
+    /**
+     * Creates a header whose encoded value is cached
+     * <p>
+     * This should only be used for headers whose key and value are fixed, and that will be added to many events, e.g.
+     * those configured when building a pipeline.
+     * </p>
+     *
+     * @param key   Key
+     * @param value Value
+     * @return Header
+     */
+    public static Header create(String key, String value) {
+        return preEncode(new Header(key, value));
+    }
+
+    /**
+     * Pre-encodes the given header, caching its encoded value if the cache is not yet full
+     *
+     * @param header Header
+     * @return The same header
+     */
+    public static Header preEncode(Header header) {
+        Objects.requireNonNull(header, "Header cannot be null");
+        if (header.value() != null && ENCODED.size() < MAX_SIZE) {
+            ENCODED.computeIfAbsent(header, h -> h.value().getBytes(StandardCharsets.UTF_8));
+        }
+        return header;
+    }
+
+    /**
+     * Gets the UTF-8 encoded value of the given header
+     * <p>
+     * For pre-encoded headers this returns the cached encoding, which is shared and thus <strong>MUST NOT</strong> be
+     * modified by the caller.  Otherwise the value is encoded on demand.
+     * </p>
+     *
+     * @param header Header
+     * @return Encoded value, or {@code null} if the header has a {@code null} value
+     */
+    public static byte[] encodeValue(Header header) {
+        byte[] encoded = ENCODED.get(header);
+        if (encoded != null) {
+            return encoded;
+        }
+        return header.value() != null ? header.value().getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Gets whether the given header has been pre-encoded
+     *
+     * @param header Header
+     * @return True if pre-encoded, false otherwise
+     */
+    public static boolean isPreEncoded(Header header) {
+        return ENCODED.containsKey(header);
+    }
+}
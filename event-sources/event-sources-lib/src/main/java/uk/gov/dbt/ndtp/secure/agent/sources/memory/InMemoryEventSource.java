@@ -25,8 +25,11 @@
 package uk.gov.dbt.ndtp.secure.agent.sources.memory;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
 import org.apache.commons.collections4.CollectionUtils;
@@ -86,6 +89,24 @@ public class InMemoryEventSource<TKey, TValue> implements EventSource<TKey, TVal
         return null;
     }
 
+    @Override
+    public List<Event<TKey, TValue>> pollBatch(int maxEvents, Duration timeout) {
+        if (maxEvents < 1) {
+            throw new IllegalArgumentException("maxEvents must be >= 1");
+        }
+        checkNotClosed();
+
+        int size = Math.min(maxEvents, this.events.size());
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        List<Event<TKey, TValue>> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            batch.add(this.events.poll());
+        }
+        return batch;
+    }
+
     private void checkNotClosed() {
         if (this.closed) {
             throw new IllegalStateException("Event Source has been closed");
@@ -31,6 +31,8 @@ import static uk.gov.dbt.ndtp.secure.agent.sources.IANodeHeaders.INPUT_REQUEST_I
 import static uk.gov.dbt.ndtp.secure.agent.sources.IANodeHeaders.REQUEST_ID;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
@@ -43,6 +45,7 @@ import org.testng.annotations.Test;
 import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.CollectorSink;
 import uk.gov.dbt.ndtp.secure.agent.sources.Event;
 import uk.gov.dbt.ndtp.secure.agent.sources.Header;
+import uk.gov.dbt.ndtp.secure.agent.sources.PreEncodedHeaders;
 
 public class TestEventHeaderSink extends AbstractEventSinkCommonMethods {
 
@@ -114,6 +117,27 @@ public class TestEventHeaderSink extends AbstractEventSinkCommonMethods {
         }
     }
 
+    @Test
+    public void givenFixedHeader_whenSendingEvents_thenSamePreEncodedHeaderIsAdded() {
+        // Given
+        try (CollectorSink<Event<String, String>> collector = CollectorSink.of()) {
+            try (EventHeaderSink<String, String> sink = EventHeaderSink.<String, String>create()
+                                                                       .fixedHeader("Pre-Encoded", "test")
+                                                                       .addDataSourceHeaders("source", "text/csv")
+                                                                       .destination(collector)
+                                                                       .build()) {
+                // When
+                sendTestEvents(sink);
+
+                // Then
+                Set<Header> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+                collector.get().forEach(e -> e.headers().forEach(distinct::add));
+                Assert.assertEquals(distinct.size(), 3);
+                distinct.forEach(h -> Assert.assertTrue(PreEncodedHeaders.isPreEncoded(h)));
+            }
+        }
+    }
+
     @Test
     public void givenConditionalFixedHeader_whenSendingEvents_thenHeaderIsAddedWhenNeeded() {
         // Given
@@ -338,4 +338,92 @@ public abstract class AbstractEventSourceTests<TKey, TValue> {
             source.close();
         }
     }
+
+    @Test
+    public void givenEmptySource_whenPollingBatch_thenEmptyBatchIsReturned() {
+        // Given
+        EventSource<TKey, TValue> source = createEmptySource();
+        try {
+            // When and Then
+            Assert.assertTrue(source.pollBatch(10, Duration.ofSeconds(1)).isEmpty());
+        } finally {
+            source.close();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void givenEmptySource_whenPollingBatchWithInvalidSize_thenErrors() {
+        // Given
+        EventSource<TKey, TValue> source = createEmptySource();
+        try {
+            // When and Then
+            source.pollBatch(0, Duration.ofSeconds(1));
+        } finally {
+            source.close();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void givenEmptySource_whenClosed_thenPollingBatchThrowsError() {
+        // Given
+        EventSource<TKey, TValue> source = createEmptySource();
+
+        // When
+        source.close();
+
+        // Then
+        source.pollBatch(10, Duration.ofSeconds(1));
+    }
+
+    @Test(dataProvider = "sample-data-sizes")
+    public void givenPopulatedEventSource_whenPollingBatches_thenAllEventsAreReturnedInOrder(int size) {
+        // Given
+        List<Event<TKey, TValue>> sampleData = new ArrayList<>(this.createSampleData(size));
+        EventSource<TKey, TValue> source = createSource(sampleData);
+
+        try {
+            // When
+            List<Event<TKey, TValue>> received = new ArrayList<>();
+            while (received.size() < size) {
+                List<Event<TKey, TValue>> batch = source.pollBatch(33, Duration.ofSeconds(5));
+
+                // Then
+                Assert.assertFalse(batch.isEmpty(), "Expected a non-empty batch as events remain");
+                Assert.assertTrue(batch.size() <= 33, "Batch exceeded the requested maximum size");
+                received.addAll(batch);
+            }
+            Assert.assertEquals(received, sampleData);
+
+            // And
+            Assert.assertFalse(source.availableImmediately());
+            Assert.assertNotEquals(source.isExhausted(), isUnbounded());
+            Assert.assertTrue(source.pollBatch(33, Duration.ofMillis(100)).isEmpty());
+            Assert.assertEquals(source.remaining(), 0L);
+        } finally {
+            verifySourceClosure(source);
+        }
+    }
+
+    @Test
+    public void givenPopulatedEventSource_whenMixingPollAndPollBatch_thenAllEventsAreReturnedInOrder() {
+        // Given
+        List<Event<TKey, TValue>> sampleData = new ArrayList<>(this.createSampleData(100));
+        EventSource<TKey, TValue> source = createSource(sampleData);
+
+        try {
+            // When
+            List<Event<TKey, TValue>> received = new ArrayList<>();
+            while (received.size() < sampleData.size()) {
+                Event<TKey, TValue> next = source.poll(Duration.ofSeconds(5));
+                Assert.assertNotNull(next);
+                received.add(next);
+                received.addAll(source.pollBatch(5, Duration.ofSeconds(5)));
+            }
+
+            // Then
+            Assert.assertEquals(received, sampleData);
+        } finally {
+            source.close();
+        }
+    }
 }
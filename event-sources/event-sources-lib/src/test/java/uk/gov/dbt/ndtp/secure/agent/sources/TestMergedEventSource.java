@@ -0,0 +1,309 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.sources.memory.InMemoryEventSource;
+import uk.gov.dbt.ndtp.secure.agent.sources.memory.SimpleEvent;
+
+public class TestMergedEventSource extends AbstractEventSourceTests<Integer, String> {
+    @Override
+    protected EventSource<Integer, String> createEmptySource() {
+        return MergedEventSource.<Integer, String>create()
+                                .source(new InMemoryEventSource<>(Collections.emptyList()))
+                                .source(new InMemoryEventSource<>(Collections.emptyList()))
+                                .build();
+    }
+
+    @Override
+    protected EventSource<Integer, String> createSource(Collection<Event<Integer, String>> events) {
+        return MergedEventSource.<Integer, String>create()
+                                .source(new InMemoryEventSource<>(events))
+                                .source(new InMemoryEventSource<>(Collections.emptyList()))
+                                .build();
+    }
+
+    @Override
+    protected Collection<Event<Integer, String>> createSampleData(int size) {
+        AtomicInteger counter = new AtomicInteger(0);
+        return createSampleStrings(size).stream()
+                                        .map(s -> new SimpleEvent<>(Collections.emptyList(), counter.incrementAndGet(),
+                                                                    s))
+                                        .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean guaranteesImmediateAvailability() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnbounded() {
+        return false;
+    }
+
+    /**
+     * An in-memory source whose events refer back to the source, and that records the events it is told have been
+     * processed along with the thread that told it
+     */
+    private static final class SelfReferencingSource extends InMemoryEventSource<Integer, String> {
+        private final List<Event> processed = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> processedThreads = Collections.synchronizedList(new ArrayList<>());
+        private int failuresRemaining;
+
+        private SelfReferencingSource(String prefix, int size, int failures) {
+            super(createEvents(prefix, size));
+            this.failuresRemaining = failures;
+        }
+
+        private static List<Event<Integer, String>> createEvents(String prefix, int size) {
+            List<Event<Integer, String>> events = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                events.add(new SimpleEvent<>(Collections.emptyList(), i, prefix + i));
+            }
+            return events;
+        }
+
+        private Event<Integer, String> attach(Event<Integer, String> event) {
+            return new SimpleEvent<>(Collections.emptyList(), event.key(), event.value(), this);
+        }
+
+        @Override
+        public Event<Integer, String> poll(Duration timeout) {
+            Event<Integer, String> next = super.poll(timeout);
+            return next != null ? attach(next) : null;
+        }
+
+        @Override
+        public List<Event<Integer, String>> pollBatch(int maxEvents, Duration timeout) {
+            if (this.failuresRemaining > 0) {
+                this.failuresRemaining--;
+                throw new EventSourceException("Temporary failure");
+            }
+            return super.pollBatch(maxEvents, timeout).stream().map(this::attach).toList();
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public void processed(Collection<Event> processedEvents) {
+            this.processed.addAll(processedEvents);
+            this.processedThreads.add(Thread.currentThread().getName());
+        }
+    }
+
+    private static void awaitBuffered(MergedEventSource<?, ?> merged, EventSource<?, ?>... sources)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        for (EventSource<?, ?> source : sources) {
+            while (!source.isExhausted() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+        }
+        Assert.assertTrue(merged.availableImmediately());
+    }
+
+    @Test
+    public void merged_01() {
+        // Given
+        SelfReferencingSource a = new SelfReferencingSource("a", 5_000, 0);
+        SelfReferencingSource b = new SelfReferencingSource("b", 3_000, 0);
+        MergedEventSource<Integer, String> merged =
+                MergedEventSource.<Integer, String>create().source(a).source(b).bufferSize(100).build();
+
+        try {
+            // When
+            List<Event<Integer, String>> received = new ArrayList<>();
+            while (!merged.isExhausted()) {
+                received.addAll(merged.pollBatch(77, Duration.ofSeconds(1)));
+            }
+
+            // Then
+            Assert.assertEquals(received.size(), 8_000);
+            List<Integer> fromA = received.stream().filter(e -> e.source() == a).map(Event::key).toList();
+            List<Integer> fromB = received.stream().filter(e -> e.source() == b).map(Event::key).toList();
+            Assert.assertEquals(fromA.size(), 5_000);
+            Assert.assertEquals(fromB.size(), 3_000);
+            for (int i = 0; i < fromA.size(); i++) {
+                Assert.assertEquals(fromA.get(i), i);
+            }
+            for (int i = 0; i < fromB.size(); i++) {
+                Assert.assertEquals(fromB.get(i), i);
+            }
+            Assert.assertEquals(merged.remaining(), 0L);
+        } finally {
+            merged.close();
+        }
+        Assert.assertTrue(a.isClosed());
+        Assert.assertTrue(b.isClosed());
+    }
+
+    @Test
+    public void merged_02() throws InterruptedException {
+        // Given
+        SelfReferencingSource a = new SelfReferencingSource("a", 100, 0);
+        SelfReferencingSource b = new SelfReferencingSource("b", 100, 0);
+        MergedEventSource<Integer, String> merged =
+                MergedEventSource.<Integer, String>create().source(a, 3).source(b).build();
+
+        try {
+            awaitBuffered(merged, a, b);
+
+            // When
+            List<Event<Integer, String>> received = merged.pollBatch(40, Duration.ofSeconds(1));
+
+            // Then
+            Assert.assertEquals(received.size(), 40);
+            Assert.assertEquals(received.stream().filter(e -> e.source() == a).count(), 30);
+            Assert.assertEquals(received.stream().filter(e -> e.source() == b).count(), 10);
+            Assert.assertEquals(merged.remaining(), 160L);
+        } finally {
+            merged.close();
+        }
+    }
+
+    @Test
+    public void merged_03() throws InterruptedException {
+        // Given
+        SelfReferencingSource a = new SelfReferencingSource("a", 10, 0);
+        SelfReferencingSource b = new SelfReferencingSource("b", 10, 0);
+        MergedEventSource<Integer, String> merged =
+                MergedEventSource.<Integer, String>create().source(a).source(b).build();
+
+        try {
+            awaitBuffered(merged, a, b);
+            List<Event<Integer, String>> received = merged.pollBatch(20, Duration.ofSeconds(1));
+            Assert.assertEquals(received.size(), 20);
+
+            // When
+            List<Event> processed = new ArrayList<>(received);
+            processed.add(new SimpleEvent<>(Collections.emptyList(), 1, "unknown"));
+            merged.processed(processed);
+
+            // Then
+            long deadline = System.currentTimeMillis() + 5_000;
+            while ((a.processed.size() < 10 || b.processed.size() < 10) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            Assert.assertEquals(a.processed.size(), 10);
+            Assert.assertEquals(b.processed.size(), 10);
+            Assert.assertTrue(a.processed.stream().allMatch(e -> e.source() == a));
+            Assert.assertTrue(b.processed.stream().allMatch(e -> e.source() == b));
+        } finally {
+            merged.close();
+        }
+    }
+
+    @Test
+    public void merged_04() {
+        // Given
+        SelfReferencingSource a = new SelfReferencingSource("a", 10, 1);
+        MergedEventSource<Integer, String> merged = MergedEventSource.<Integer, String>create().source(a).build();
+
+        try {
+            // When and Then
+            Assert.assertThrows(EventSourceException.class, () -> merged.poll(Duration.ofSeconds(5)));
+
+            // And
+            List<Event<Integer, String>> received = new ArrayList<>();
+            while (!merged.isExhausted()) {
+                received.addAll(merged.pollBatch(100, Duration.ofSeconds(1)));
+            }
+            Assert.assertEquals(received.size(), 10);
+        } finally {
+            merged.close();
+        }
+    }
+
+    @Test
+    public void merged_05() {
+        // Given
+        SelfReferencingSource a = new SelfReferencingSource("a", 0, 0);
+        SelfReferencingSource b = new SelfReferencingSource("b", 0, 0);
+        MergedEventSource<Integer, String> merged =
+                MergedEventSource.<Integer, String>create().source(a).source(b).build();
+
+        // When
+        merged.close();
+
+        // Then
+        Assert.assertTrue(merged.isClosed());
+        Assert.assertTrue(merged.isExhausted());
+        Assert.assertTrue(a.isClosed());
+        Assert.assertTrue(b.isClosed());
+    }
+
+    @Test
+    public void merged_auto_committing_01() {
+        // A merged source is auto-committing if any of its sources are
+        MergedEventSource<Integer, String> plain = (MergedEventSource<Integer, String>) createEmptySource();
+        Assert.assertFalse(plain.isAutoCommitting());
+        plain.close();
+
+        MergedEventSource<Integer, String> merged =
+                MergedEventSource.<Integer, String>create()
+                                 .source(new InMemoryEventSource<>(Collections.emptyList()))
+                                 .source(new InMemoryEventSource<Integer, String>(Collections.emptyList()) {
+                                     @Override
+                                     public boolean isAutoCommitting() {
+                                         return true;
+                                     }
+                                 })
+                                 .build();
+        Assert.assertTrue(merged.isAutoCommitting());
+        merged.close();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void merged_bad_01() {
+        MergedEventSource.<Integer, String>create().build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void merged_bad_02() {
+        MergedEventSource.<Integer, String>create().source(new InMemoryEventSource<>(Collections.emptyList()), 0).build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void merged_bad_03() {
+        EventSource<Integer, String> source = new InMemoryEventSource<>(Collections.emptyList());
+        MergedEventSource.<Integer, String>create().source(source).source(source).build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void merged_bad_04() {
+        MergedEventSource.<Integer, String>create()
+                         .source(new InMemoryEventSource<>(Collections.emptyList()))
+                         .bufferSize(0)
+                         .build();
+    }
+}
@@ -0,0 +1,100 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.sources;
+
+import java.nio.charset.StandardCharsets;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestPreEncodedHeaders {
+
+    @Test
+    public void pre_encoded_01() {
+        // Given
+        Header header = PreEncodedHeaders.create("Pre-Encoded-01", "fixed");
+
+        // When
+        byte[] first = PreEncodedHeaders.encodeValue(header);
+        byte[] second = PreEncodedHeaders.encodeValue(header);
+
+        // Then
+        Assert.assertTrue(PreEncodedHeaders.isPreEncoded(header));
+        Assert.assertSame(first, second);
+        Assert.assertEquals(first, "fixed".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void pre_encoded_02() {
+        // Given
+        PreEncodedHeaders.create("Pre-Encoded-02", "fixed");
+
+        // When
+        Header equal = new Header("Pre-Encoded-02", "fixed");
+
+        // Then
+        Assert.assertTrue(PreEncodedHeaders.isPreEncoded(equal));
+        Assert.assertSame(PreEncodedHeaders.encodeValue(equal),
+                          PreEncodedHeaders.encodeValue(new Header("Pre-Encoded-02", "fixed")));
+    }
+
+    @Test
+    public void pre_encoded_03() {
+        // Given
+        Header header = new Header("Pre-Encoded-03", "per-event");
+
+        // When
+        byte[] first = PreEncodedHeaders.encodeValue(header);
+        byte[] second = PreEncodedHeaders.encodeValue(header);
+
+        // Then
+        Assert.assertFalse(PreEncodedHeaders.isPreEncoded(header));
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(first, second);
+    }
+
+    @Test
+    public void pre_encoded_04() {
+        // Given
+        Header header = PreEncodedHeaders.create("Pre-Encoded-04", null);
+
+        // When and Then
+        Assert.assertFalse(PreEncodedHeaders.isPreEncoded(header));
+        Assert.assertNull(PreEncodedHeaders.encodeValue(header));
+    }
+
+    @Test
+    public void pre_encoded_05() {
+        // Given
+        Header header = PreEncodedHeaders.create("Pre-Encoded-05", "ünïcödé");
+
+        // When and Then
+        Assert.assertEquals(new String(PreEncodedHeaders.encodeValue(header), StandardCharsets.UTF_8), "ünïcödé");
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void pre_encoded_bad_01() {
+        PreEncodedHeaders.preEncode(null);
+    }
+}
@@ -41,4 +41,9 @@ public class AttributeNames {
      * Attribute for the ID of a given unique instance of a metric producer
      */
     public static final String INSTANCE_ID = "instance.id";
+
+    /**
+     * Attribute for the name of a stage within a pipeline of sinks
+     */
+    public static final String STAGE = "stage";
 }
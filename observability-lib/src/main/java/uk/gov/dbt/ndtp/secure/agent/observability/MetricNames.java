@@ -92,4 +92,26 @@ public class MetricNames {
      * Metric description for unmodified suppressed metric
      */
     public static final String UNMODIFIED_SUPPRESSED_DESCRIPTION = "Number of unmodified duplicate items suppressed";
+
+    /**
+     * Metric for the self-time of a stage within a pipeline of sinks
+     */
+    public static final String STAGE_TIME = "items.stage_time";
+
+    /**
+     * Metric description for stage time metric
+     */
+    public static final String STAGE_TIME_DESCRIPTION =
+            "Time spent processing an item within a single stage of a sink pipeline, excluding time spent in subsequent stages";
+
+    /**
+     * Metric for the number of items dropped by a stage
+     */
+    public static final String STAGE_DROPPED = "items.stage_dropped";
+
+    /**
+     * Metric description for stage dropped metric
+     */
+    public static final String STAGE_DROPPED_DESCRIPTION =
+            "Number of items a stage of a sink pipeline did not forward onto the next stage";
 }
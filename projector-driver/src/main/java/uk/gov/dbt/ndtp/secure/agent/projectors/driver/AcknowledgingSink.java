@@ -0,0 +1,91 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.driver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import uk.gov.dbt.ndtp.secure.agent.projectors.AsyncSink;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Sink;
+
+/**
+ * A sink that wraps the driver's output sink in order to track when the outputs produced for an event have actually
+ * been processed by that sink.
+ * <p>
+ * If the wrapped sink is an {@link AsyncSink} then items are sent via {@link AsyncSink#sendAsync(Object)} and the
+ * resulting futures collected, otherwise items are sent via {@link Sink#send(Object)} and are considered processed as
+ * soon as that returns.  After projecting an event the driver calls {@link #completion()} to obtain a future that
+ * completes once all the outputs sent since the previous call have been processed.
+ * </p>
+ * <p>
+ * This sink never closes the wrapped sink, that remains the responsibility of the driver.
+ * </p>
+ *
+ * @param <T> Item type
+ */
+final class AcknowledgingSink<T> implements Sink<T> {
+
+    private static final CompletableFuture<Void> COMPLETED = CompletableFuture.completedFuture(null);
+
+    private final Sink<T> sink;
+    private final AsyncSink<T> asyncSink;
+    private final List<CompletableFuture<Void>> outstanding = new ArrayList<>();
+
+    /**
+     * Creates a new acknowledging sink
+     *
+     * @param sink Sink to wrap
+     */
+    AcknowledgingSink(Sink<T> sink) {
+        this.sink = Objects.requireNonNull(sink, "Sink cannot be null");
+        this.asyncSink = sink instanceof AsyncSink<T> async ? async : null;
+    }
+
+    @Override
+    public void send(T item) {
+        if (this.asyncSink != null) {
+            this.outstanding.add(this.asyncSink.sendAsync(item));
+        } else {
+            this.sink.send(item);
+        }
+    }
+
+    /**
+     * Gets a future that completes once all items sent since the last call to this method have been processed
+     *
+     * @return Completion future
+     */
+    CompletableFuture<Void> completion() {
+        if (this.outstanding.isEmpty()) {
+            return COMPLETED;
+        }
+        CompletableFuture<Void> completion = this.outstanding.size() == 1 ? this.outstanding.get(0) :
+                                             CompletableFuture.allOf(
+                                                     this.outstanding.toArray(new CompletableFuture[0]));
+        this.outstanding.clear();
+        return completion;
+    }
+}
@@ -0,0 +1,165 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.driver;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A feedback controller that adapts the batch size and poll timeout used by a {@link ProjectorDriver} at runtime.
+ * <p>
+ * The batch size is controlled using an Additive Increase Multiplicative Decrease (AIMD) scheme against a target
+ * latency for projecting a batch.  Whenever the event source fills a requested batch, i.e. it has more events
+ * available, and that batch was projected within the target latency then the batch size is increased by a fixed step.
+ * Whenever a batch takes longer than the target latency to project the batch size is halved.  Thus the batch size
+ * settles around the largest batch that can be projected within the target latency, maximising throughput without
+ * letting the time taken to project a batch grow unbounded.
+ * </p>
+ * <p>
+ * The poll timeout is shrunk towards its minimum while the event source is returning events, so that any lull is
+ * detected promptly and completed events are reported back to the source without delay, and grown towards its maximum
+ * while the event source is returning no events, so that an idle driver does not repeatedly poll the source.
+ * </p>
+ * <p>
+ * The controller is only ever updated from the driver thread, its current decisions may be safely read from any thread
+ * e.g. for reporting metrics.
+ * </p>
+ */
+public final class AdaptivePollController {
+
+    /**
+     * Default minimum poll timeout
+     */
+    public static final Duration DEFAULT_MIN_POLL_TIMEOUT = Duration.ofMillis(100);
+    /**
+     * Number of additive increases needed to grow the batch size from its minimum to its maximum
+     */
+    static final int INCREASE_STEPS = 32;
+
+    private final long targetLatencyNanos;
+    private final int minBatchSize, maxBatchSize, increaseStep;
+    private final long minPollTimeoutMillis, maxPollTimeoutMillis;
+    private volatile int batchSize;
+    private volatile long pollTimeoutMillis;
+
+    /**
+     * Creates a new controller
+     *
+     * @param targetLatency  Target latency for projecting a batch of events
+     * @param minBatchSize   Minimum batch size, this is also the initial batch size
+     * @param maxBatchSize   Maximum batch size
+     * @param minPollTimeout Minimum poll timeout
+     * @param maxPollTimeout Maximum poll timeout, this is also the initial poll timeout
+     */
+    public AdaptivePollController(Duration targetLatency, int minBatchSize, int maxBatchSize, Duration minPollTimeout,
+                                  Duration maxPollTimeout) {
+        Objects.requireNonNull(targetLatency, "Target Latency cannot be null");
+        Objects.requireNonNull(minPollTimeout, "Minimum Poll Timeout cannot be null");
+        Objects.requireNonNull(maxPollTimeout, "Maximum Poll Timeout cannot be null");
+        if (targetLatency.isNegative() || targetLatency.isZero()) {
+            throw new IllegalArgumentException("Target Latency must be > 0");
+        }
+        if (minBatchSize < 1) {
+            throw new IllegalArgumentException("Minimum Batch Size must be >= 1");
+        }
+        if (maxBatchSize < minBatchSize) {
+            throw new IllegalArgumentException("Maximum Batch Size must be >= Minimum Batch Size");
+        }
+        if (minPollTimeout.isNegative()) {
+            throw new IllegalArgumentException("Minimum Poll Timeout must be >= 0");
+        }
+        if (maxPollTimeout.compareTo(minPollTimeout) < 0) {
+            throw new IllegalArgumentException("Maximum Poll Timeout must be >= Minimum Poll Timeout");
+        }
+
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.increaseStep = Math.max(1, (maxBatchSize - minBatchSize) / INCREASE_STEPS);
+        this.minPollTimeoutMillis = minPollTimeout.toMillis();
+        this.maxPollTimeoutMillis = maxPollTimeout.toMillis();
+        this.batchSize = minBatchSize;
+        this.pollTimeoutMillis = this.maxPollTimeoutMillis;
+    }
+
+    /**
+     * Gets the batch size that should be requested on the next poll
+     *
+     * @return Batch size
+     */
+    public int batchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * Gets the poll timeout that should be used on the next poll
+     *
+     * @return Poll timeout
+     */
+    public Duration pollTimeout() {
+        return Duration.ofMillis(this.pollTimeoutMillis);
+    }
+
+    /**
+     * Gets the poll timeout that should be used on the next poll in milliseconds
+     *
+     * @return Poll timeout in milliseconds
+     */
+    public long pollTimeoutMillis() {
+        return this.pollTimeoutMillis;
+    }
+
+    /**
+     * Records the outcome of a poll, and the subsequent projection of any events it returned, adjusting the batch size
+     * and poll timeout accordingly
+     *
+     * @param requested      Number of events requested
+     * @param received       Number of events received
+     * @param projectionTime Time taken to project the received events, in nanoseconds
+     */
+    public void record(int requested, int received, long projectionTime) {
+        if (received == 0) {
+            this.pollTimeoutMillis = Math.min(this.maxPollTimeoutMillis, Math.max(1, this.pollTimeoutMillis * 2));
+            return;
+        }
+        this.pollTimeoutMillis = Math.max(this.minPollTimeoutMillis, this.pollTimeoutMillis / 2);
+
+        if (projectionTime > this.targetLatencyNanos) {
+            this.batchSize = Math.max(this.minBatchSize, this.batchSize / 2);
+        } else if (received >= requested && requested >= this.batchSize) {
+            // Only grow when the source could fill the batch we asked for, otherwise a larger batch gains us nothing
+            this.batchSize = (int) Math.min(this.maxBatchSize, (long) this.batchSize + this.increaseStep);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptivePollController{targetLatency=" + TimeUnit.NANOSECONDS.toMillis(this.targetLatencyNanos)
+               + "ms, batchSize=" + this.batchSize + " [" + this.minBatchSize + "-" + this.maxBatchSize
+               + "], pollTimeout=" + this.pollTimeoutMillis + "ms [" + this.minPollTimeoutMillis + "-"
+               + this.maxPollTimeoutMillis + "ms]}";
+    }
+}
@@ -0,0 +1,278 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.driver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import uk.gov.dbt.ndtp.secure.agent.projectors.SinkException;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.EventSource;
+
+/**
+ * Tracks events that have been handed off for projection but whose projection may not yet have completed.
+ * <p>
+ * Events are tracked in the order they were received from the {@link EventSource} and may complete in any order,
+ * however {@link #drainCompleted()} only ever returns the contiguous prefix of completed events.  This ensures that an
+ * event is only reported back to its source as processed once every event that preceded it has also been processed,
+ * which is what event sources such as Kafka require in order to safely commit offsets.
+ * </p>
+ * <p>
+ * Optionally events may be tracked in independent lanes, see {@link #CompletionTracker(Function)}, in which case the
+ * contiguous prefix is determined separately for each lane.
+ * </p>
+ * <p>
+ * An event may also fail, e.g. because an asynchronous write of its outputs was rejected, in which case
+ * {@link #drainCompleted()} never progresses beyond it since neither it nor any subsequent event can be safely
+ * reported as processed.  Callers should use {@link #checkFailure()} to detect this.
+ * </p>
+ * <p>
+ * This class is not thread-safe, {@link #track(Event, long)} and {@link #drainCompleted()} <strong>MUST</strong> only
+ * be called from the driver thread.  {@link Pending#complete()} may be safely called from any thread.
+ * </p>
+ *
+ * @param <TKey>   Event key type
+ * @param <TValue> Event value type
+ */
+final class CompletionTracker<TKey, TValue> {
+
+    private final Function<Event<TKey, TValue>, ?> laneKey;
+    private final Map<Object, Deque<Pending<TKey, TValue>>> lanes = new LinkedHashMap<>();
+    private int inFlight = 0;
+    private long nextSequence = 0;
+
+    /**
+     * Creates a new tracker that tracks all events in a single lane
+     */
+    CompletionTracker() {
+        this(e -> null);
+    }
+
+    /**
+     * Creates a new tracker that tracks events in independent lanes
+     * <p>
+     * Events are only required to complete contiguously with respect to other events in the same lane, so a slow event
+     * only holds up the reporting of later events in its own lane.  This is appropriate when an event source tracks its
+     * position independently for different subsets of its events, e.g. Kafka tracks offsets per topic partition.
+     * </p>
+     *
+     * @param laneKey Function that extracts the lane key from an event
+     */
+    CompletionTracker(Function<Event<TKey, TValue>, ?> laneKey) {
+        this.laneKey = Objects.requireNonNull(laneKey, "Lane Key function cannot be null");
+    }
+
+    /**
+     * Starts tracking an event
+     *
+     * @param event    Event
+     * @param polledAt Time at which the event was polled from the event source, in milliseconds since the epoch
+     * @return Pending completion for the event
+     */
+    Pending<TKey, TValue> track(Event<TKey, TValue> event, long polledAt) {
+        Pending<TKey, TValue> pending = new Pending<>(event, this.nextSequence++, polledAt);
+        this.lanes.computeIfAbsent(this.laneKey.apply(event), k -> new ArrayDeque<>()).addLast(pending);
+        this.inFlight++;
+        return pending;
+    }
+
+    /**
+     * Removes and returns the contiguous prefix of tracked events whose projection has completed within each lane
+     *
+     * @return Completed events, in the order they were originally tracked within each lane, may be empty
+     */
+    List<Pending<TKey, TValue>> drainCompleted() {
+        List<Pending<TKey, TValue>> completed = new ArrayList<>();
+        Iterator<Deque<Pending<TKey, TValue>>> iter = this.lanes.values().iterator();
+        while (iter.hasNext()) {
+            Deque<Pending<TKey, TValue>> lane = iter.next();
+            while (!lane.isEmpty() && lane.peekFirst().isCompleted()) {
+                completed.add(lane.pollFirst());
+                this.inFlight--;
+            }
+            if (lane.isEmpty()) {
+                iter.remove();
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Checks whether the oldest tracked event in any lane has failed, if so throws an error since no further events in
+     * that lane can be drained
+     *
+     * @throws SinkException Thrown if the oldest tracked event in any lane has failed
+     */
+    void checkFailure() {
+        for (Deque<Pending<TKey, TValue>> lane : this.lanes.values()) {
+            lane.peekFirst().checkFailed();
+        }
+    }
+
+    /**
+     * Waits for the oldest tracked event to either complete or fail
+     *
+     * @param timeout Maximum time to wait in milliseconds
+     * @throws InterruptedException Thrown if interrupted while waiting
+     */
+    void awaitOldest(long timeout) throws InterruptedException {
+        Pending<TKey, TValue> oldest = null;
+        for (Deque<Pending<TKey, TValue>> lane : this.lanes.values()) {
+            Pending<TKey, TValue> head = lane.peekFirst();
+            if (oldest == null || head.sequence < oldest.sequence) {
+                oldest = head;
+            }
+        }
+        if (oldest != null) {
+            oldest.await(timeout);
+        }
+    }
+
+    /**
+     * Gets the number of events currently being tracked i.e. those that have not yet been drained
+     *
+     * @return In-flight event count
+     */
+    int inFlight() {
+        return this.inFlight;
+    }
+
+    /**
+     * Represents an event whose projection may not yet have completed
+     *
+     * @param <TKey>   Event key type
+     * @param <TValue> Event value type
+     */
+    static final class Pending<TKey, TValue> {
+        private final Event<TKey, TValue> event;
+        private final long sequence, polledAt;
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        private Pending(Event<TKey, TValue> event, long sequence, long polledAt) {
+            this.event = event;
+            this.sequence = sequence;
+            this.polledAt = polledAt;
+        }
+
+        /**
+         * Gets the event
+         *
+         * @return Event
+         */
+        Event<TKey, TValue> event() {
+            return this.event;
+        }
+
+        /**
+         * Gets the time at which the event was polled from the event source
+         *
+         * @return Time in milliseconds since the epoch
+         */
+        long polledAt() {
+            return this.polledAt;
+        }
+
+        /**
+         * Marks the event as having been completed
+         */
+        void complete() {
+            this.completion.complete(null);
+        }
+
+        /**
+         * Marks the event as having failed
+         *
+         * @param cause Cause of the failure
+         */
+        void fail(Throwable cause) {
+            this.completion.completeExceptionally(cause);
+        }
+
+        /**
+         * Marks the event as completed, or failed, when the given future completes
+         *
+         * @param future Future
+         */
+        void completeWhen(CompletableFuture<?> future) {
+            future.whenComplete((r, e) -> {
+                if (e != null) {
+                    fail(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                } else {
+                    complete();
+                }
+            });
+        }
+
+        /**
+         * Gets whether the event has completed successfully
+         *
+         * @return True if completed, false otherwise
+         */
+        boolean isCompleted() {
+            return this.completion.isDone() && !this.completion.isCompletedExceptionally();
+        }
+
+        /**
+         * Checks whether the event has failed, throwing an error if so
+         *
+         * @throws SinkException Thrown if the event has failed
+         */
+        void checkFailed() {
+            if (this.completion.isCompletedExceptionally()) {
+                try {
+                    this.completion.join();
+                } catch (CompletionException e) {
+                    throw new SinkException("Failed to write projection outputs for an event, see cause for details",
+                                            e.getCause());
+                }
+            }
+        }
+
+        /**
+         * Waits for the event to complete, or fail
+         *
+         * @param timeout Maximum time to wait in milliseconds
+         * @throws InterruptedException Thrown if interrupted while waiting
+         */
+        void await(long timeout) throws InterruptedException {
+            try {
+                this.completion.get(timeout, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                // Caller is responsible for checking the outcome
+            }
+        }
+    }
+}
@@ -52,6 +52,77 @@ public class DriverMetricNames {
     public static final String STALLS_TOTAL_DESCRIPTION =
             "Total number of times that the event source was stalled i.e. returned no new events";
 
+    /**
+     * Metric used to track the batch size currently chosen by the adaptive poll controller
+     */
+    public static final String ADAPTIVE_BATCH_SIZE = "messaging.adaptive.batch_size";
+
+    /**
+     * Description of the adaptive batch size metric
+     */
+    public static final String ADAPTIVE_BATCH_SIZE_DESCRIPTION =
+            "Batch size currently requested from the event source by the adaptive poll controller";
+
+    /**
+     * Metric used to track the poll timeout currently chosen by the adaptive poll controller
+     */
+    public static final String ADAPTIVE_POLL_TIMEOUT = "messaging.adaptive.poll_timeout";
+
+    /**
+     * Description of the adaptive poll timeout metric
+     */
+    public static final String ADAPTIVE_POLL_TIMEOUT_DESCRIPTION =
+            "Poll timeout, in milliseconds, currently used by the adaptive poll controller";
+
+    /**
+     * Metric used to track the time between an event being produced and it being polled from the event source
+     */
+    public static final String FRESHNESS_PRODUCED_TO_POLLED = "messaging.freshness.produced_to_polled";
+
+    /**
+     * Description of the produced to polled freshness metric
+     */
+    public static final String FRESHNESS_PRODUCED_TO_POLLED_DESCRIPTION =
+            "Time, in seconds, between an event being produced and it being polled from the event source";
+
+    /**
+     * Metric used to track the time between an event being polled from the event source and its projection completing
+     */
+    public static final String FRESHNESS_POLLED_TO_PROJECTED = "messaging.freshness.polled_to_projected";
+
+    /**
+     * Description of the polled to projected freshness metric
+     */
+    public static final String FRESHNESS_POLLED_TO_PROJECTED_DESCRIPTION =
+            "Time, in seconds, between an event being polled from the event source and its projection completing";
+
+    /**
+     * Metric used to track the time between an event being produced and its projection completing
+     */
+    public static final String FRESHNESS_PRODUCED_TO_PROJECTED = "messaging.freshness.produced_to_projected";
+
+    /**
+     * Description of the produced to projected freshness metric
+     */
+    public static final String FRESHNESS_PRODUCED_TO_PROJECTED_DESCRIPTION =
+            "Time, in seconds, between an event being produced and its projection completing i.e. end-to-end latency";
+
+    /**
+     * Metric used to track how far behind the projection is for each topic
+     */
+    public static final String FRESHNESS_SECONDS_BEHIND = "messaging.freshness.seconds_behind";
+
+    /**
+     * Description of the seconds behind metric
+     */
+    public static final String FRESHNESS_SECONDS_BEHIND_DESCRIPTION =
+            "How far behind, in seconds, the most recently projected event for a topic was when its projection completed";
+
+    /**
+     * Attribute used to label freshness metrics with the topic the events were read from
+     */
+    public static final String TOPIC_ATTRIBUTE = "messaging.topic";
+
     private DriverMetricNames() {
     }
 }
@@ -0,0 +1,184 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.driver;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import uk.gov.dbt.ndtp.secure.agent.observability.IANodeMetrics;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+
+/**
+ * Records freshness, i.e. end-to-end latency, metrics for the events projected by a {@link ProjectorDriver}
+ * <p>
+ * Three histograms are recorded, the time between an event being produced and being polled, the time between an event
+ * being polled and its projection completing, and the time between an event being produced and its projection
+ * completing.  Additionally, a gauge reports, for each topic, how far behind the most recently projected event was at
+ * the time its projection completed.  Metrics are labelled with the topic if the configured topic function returns a
+ * non-null topic for an event.
+ * </p>
+ * <p>
+ * When an event was produced is determined via the configured timestamp function, events for which this returns
+ * {@code null} are only included in the polled to projected metric.
+ * </p>
+ * <p>
+ * {@link #polled(List, long)} and {@link #projected(Event, long, long)} <strong>MUST</strong> only be called from the
+ * driver thread.
+ * </p>
+ *
+ * @param <TKey>   Event key type
+ * @param <TValue> Event value type
+ */
+final class FreshnessTracker<TKey, TValue> {
+
+    private static final double MILLIS_PER_SECOND = 1000d;
+    private static final Object NO_TOPIC = new Object();
+
+    private final Function<Event<TKey, TValue>, Long> timestamp;
+    private final Function<Event<TKey, TValue>, ?> topic;
+    private final Attributes baseAttributes;
+    private final Map<Object, Attributes> topicAttributes = new ConcurrentHashMap<>();
+    private final Map<Object, Long> millisBehind = new ConcurrentHashMap<>();
+    private final DoubleHistogram producedToPolled, polledToProjected, producedToProjected;
+
+    /**
+     * Creates a new freshness tracker
+     *
+     * @param timestamp      Function that extracts the time, in milliseconds since the epoch, at which an event was
+     *                       produced, may return {@code null} if unknown
+     * @param topic          Function that extracts the topic from an event, may return {@code null} if unknown
+     * @param baseAttributes Base metric attributes
+     */
+    FreshnessTracker(Function<Event<TKey, TValue>, Long> timestamp, Function<Event<TKey, TValue>, ?> topic,
+                     Attributes baseAttributes) {
+        this.timestamp = Objects.requireNonNull(timestamp, "Timestamp function cannot be null");
+        this.topic = Objects.requireNonNull(topic, "Topic function cannot be null");
+        this.baseAttributes = Objects.requireNonNull(baseAttributes, "Base attributes cannot be null");
+
+        Meter meter = IANodeMetrics.getMeter(Library.NAME);
+        this.producedToPolled = meter.histogramBuilder(DriverMetricNames.FRESHNESS_PRODUCED_TO_POLLED)
+                                     .setDescription(DriverMetricNames.FRESHNESS_PRODUCED_TO_POLLED_DESCRIPTION)
+                                     .setUnit("seconds")
+                                     .build();
+        this.polledToProjected = meter.histogramBuilder(DriverMetricNames.FRESHNESS_POLLED_TO_PROJECTED)
+                                      .setDescription(DriverMetricNames.FRESHNESS_POLLED_TO_PROJECTED_DESCRIPTION)
+                                      .setUnit("seconds")
+                                      .build();
+        this.producedToProjected = meter.histogramBuilder(DriverMetricNames.FRESHNESS_PRODUCED_TO_PROJECTED)
+                                        .setDescription(DriverMetricNames.FRESHNESS_PRODUCED_TO_PROJECTED_DESCRIPTION)
+                                        .setUnit("seconds")
+                                        .build();
+        meter.gaugeBuilder(DriverMetricNames.FRESHNESS_SECONDS_BEHIND)
+             .setDescription(DriverMetricNames.FRESHNESS_SECONDS_BEHIND_DESCRIPTION)
+             .setUnit("seconds")
+             .buildWithCallback(measure -> this.millisBehind.forEach(
+                     (t, behind) -> measure.record(behind / MILLIS_PER_SECOND, this.topicAttributes.get(t))));
+    }
+
+    /**
+     * Records that events were polled from the event source
+     *
+     * @param events   Events
+     * @param polledAt Time at which the events were polled, in milliseconds since the epoch
+     */
+    void polled(List<Event<TKey, TValue>> events, long polledAt) {
+        for (Event<TKey, TValue> event : events) {
+            polled(event, polledAt);
+        }
+    }
+
+    /**
+     * Records that an event was polled from the event source
+     *
+     * @param event    Event
+     * @param polledAt Time at which the event was polled, in milliseconds since the epoch
+     */
+    void polled(Event<TKey, TValue> event, long polledAt) {
+        Long producedAt = this.timestamp.apply(event);
+        if (producedAt != null) {
+            this.producedToPolled.record(seconds(polledAt - producedAt), attributes(event));
+        }
+    }
+
+    /**
+     * Records that the projection of an event has completed
+     *
+     * @param event       Event
+     * @param polledAt    Time at which the event was polled, in milliseconds since the epoch
+     * @param projectedAt Time at which the projection of the event completed, in milliseconds since the epoch
+     */
+    void projected(Event<TKey, TValue> event, long polledAt, long projectedAt) {
+        Object key = topicKey(event);
+        Attributes attributes = attributes(key);
+        this.polledToProjected.record(seconds(projectedAt - polledAt), attributes);
+        Long producedAt = this.timestamp.apply(event);
+        if (producedAt != null) {
+            long behind = Math.max(0, projectedAt - producedAt);
+            this.producedToProjected.record(behind / MILLIS_PER_SECOND, attributes);
+            this.millisBehind.put(key, behind);
+        }
+    }
+
+    /**
+     * Records that the projection of several events, all polled at the same time, has completed
+     *
+     * @param events      Events
+     * @param polledAt    Time at which the events were polled, in milliseconds since the epoch
+     * @param projectedAt Time at which the projection of the events completed, in milliseconds since the epoch
+     */
+    void projected(List<Event<TKey, TValue>> events, long polledAt, long projectedAt) {
+        for (Event<TKey, TValue> event : events) {
+            projected(event, polledAt, projectedAt);
+        }
+    }
+
+    private static double seconds(long millis) {
+        return Math.max(0, millis) / MILLIS_PER_SECOND;
+    }
+
+    private Object topicKey(Event<TKey, TValue> event) {
+        Object t = this.topic.apply(event);
+        return t != null ? t : NO_TOPIC;
+    }
+
+    private Attributes attributes(Event<TKey, TValue> event) {
+        return attributes(topicKey(event));
+    }
+
+    private Attributes attributes(Object key) {
+        return this.topicAttributes.computeIfAbsent(key, t -> t == NO_TOPIC ? this.baseAttributes :
+                                                             this.baseAttributes.toBuilder()
+                                                                                .put(AttributeKey.stringKey(
+                                                                                             DriverMetricNames.TOPIC_ATTRIBUTE),
+                                                                                     t.toString())
+                                                                                .build());
+    }
+}
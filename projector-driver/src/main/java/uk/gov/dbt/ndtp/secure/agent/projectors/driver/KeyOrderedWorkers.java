@@ -0,0 +1,166 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.driver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Projector;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Sink;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+
+/**
+ * A fixed pool of worker threads that project events in parallel while preserving the relative ordering of events that
+ * share an ordering key.
+ * <p>
+ * Each event is routed to a worker based upon the hash of its ordering key, so all events with the same key are always
+ * projected by the same worker, in the order they were submitted.  Each worker has its own output sink obtained from
+ * the configured sink supplier so sinks do not need to be thread-safe provided the supplier creates a new sink each
+ * time it is called.
+ * </p>
+ * <p>
+ * An event is only marked as completed once it has been projected and, if the worker's sink is an
+ * {@link uk.gov.dbt.ndtp.secure.agent.projectors.AsyncSink}, once all the outputs it produced have been acknowledged by
+ * that sink.
+ * </p>
+ *
+ * @param <TKey>    Event key type
+ * @param <TValue>  Event value type
+ * @param <TOutput> Output type
+ */
+final class KeyOrderedWorkers<TKey, TValue, TOutput> extends ProjectionWorkers<TKey, TValue, TOutput> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KeyOrderedWorkers.class);
+
+    private final Projector<Event<TKey, TValue>, TOutput> projector;
+    private final Function<Event<TKey, TValue>, ?> orderingKey;
+    private final List<BlockingQueue<CompletionTracker.Pending<TKey, TValue>>> queues = new ArrayList<>();
+    private final List<Sink<TOutput>> sinks = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running = true, aborted = false;
+
+    /**
+     * Creates and starts a new pool of workers
+     *
+     * @param workers       Number of workers
+     * @param queueCapacity Maximum number of events that may be queued for each worker
+     * @param projector     Projector
+     * @param sinkSupplier  Sink supplier, called once per worker
+     * @param orderingKey   Function that extracts the ordering key from an event
+     */
+    KeyOrderedWorkers(int workers, int queueCapacity, Projector<Event<TKey, TValue>, TOutput> projector,
+                      Supplier<Sink<TOutput>> sinkSupplier, Function<Event<TKey, TValue>, ?> orderingKey) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Number of workers must be >= 1");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Worker queue capacity must be >= 1");
+        }
+        this.projector = Objects.requireNonNull(projector, "Projector cannot be null");
+        this.orderingKey = Objects.requireNonNull(orderingKey, "Ordering Key function cannot be null");
+
+        Set<Sink<TOutput>> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < workers; i++) {
+            Sink<TOutput> sink = sinkSupplier.get();
+            Objects.requireNonNull(sink, "Sink Supplier returned a null sink");
+            distinct.add(sink);
+            this.sinks.add(sink);
+            this.queues.add(new ArrayBlockingQueue<>(queueCapacity));
+        }
+        if (distinct.size() < workers) {
+            LOGGER.warn(
+                    "Sink Supplier returned the same sink instance for multiple workers, the sink MUST be thread-safe, or a supplier that creates a new sink on each call should be used instead");
+        }
+
+        for (int i = 0; i < workers; i++) {
+            final int id = i;
+            Thread thread = new Thread(() -> work(id), "ProjectorDriver-Worker-" + i);
+            thread.setDaemon(true);
+            this.threads.add(thread);
+            thread.start();
+        }
+    }
+
+    @Override
+    void submit(CompletionTracker.Pending<TKey, TValue> pending) throws InterruptedException {
+        Object key = this.orderingKey.apply(pending.event());
+        BlockingQueue<CompletionTracker.Pending<TKey, TValue>> queue =
+                this.queues.get(Math.floorMod(Objects.hashCode(key), this.queues.size()));
+        while (!queue.offer(pending, WORKER_POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+            checkFailure();
+        }
+    }
+
+    private void work(int id) {
+        BlockingQueue<CompletionTracker.Pending<TKey, TValue>> queue = this.queues.get(id);
+        AcknowledgingSink<TOutput> sink = new AcknowledgingSink<>(this.sinks.get(id));
+        try {
+            while (!this.aborted) {
+                CompletionTracker.Pending<TKey, TValue> pending =
+                        queue.poll(WORKER_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (pending == null) {
+                    if (!this.running) {
+                        break;
+                    }
+                    continue;
+                }
+                this.projector.project(pending.event(), sink);
+                pending.completeWhen(sink.completion());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            failed(Integer.toString(id), e);
+        }
+    }
+
+    @Override
+    void shutdown(boolean abort) {
+        this.running = false;
+        if (abort) {
+            this.aborted = true;
+        }
+        for (Thread thread : this.threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        closeSinks(this.sinks);
+    }
+}
@@ -0,0 +1,112 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.driver;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Sink;
+
+/**
+ * Abstract base class for pools of worker threads that project events on behalf of a {@link ProjectorDriver}
+ *
+ * @param <TKey>    Event key type
+ * @param <TValue>  Event value type
+ * @param <TOutput> Output type
+ */
+abstract class ProjectionWorkers<TKey, TValue, TOutput> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectionWorkers.class);
+
+    /**
+     * How long, in milliseconds, workers and the driver wait before re-checking their state when blocked
+     */
+    static final long WORKER_POLL_INTERVAL = 50;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /**
+     * Submits an event for projection, blocking if the workers are currently at capacity
+     *
+     * @param pending Pending event
+     * @throws InterruptedException Thrown if interrupted while waiting to submit the event
+     */
+    abstract void submit(CompletionTracker.Pending<TKey, TValue> pending) throws InterruptedException;
+
+    /**
+     * Shuts down the workers, waiting for them to terminate and then closing their sinks
+     *
+     * @param abort Whether to abort, if {@code true} then any events not yet projected are abandoned, if {@code false}
+     *              then workers finish projecting all submitted events before terminating
+     */
+    abstract void shutdown(boolean abort);
+
+    /**
+     * Records a worker failure, only the first failure is retained
+     *
+     * @param worker Worker description
+     * @param e      Failure
+     */
+    protected final void failed(String worker, Throwable e) {
+        LOGGER.error("Projector Driver worker {} failed: {}", worker, e.getMessage());
+        this.failure.compareAndSet(null, e);
+    }
+
+    /**
+     * Checks whether any worker has failed, if so rethrows the failure on the calling thread
+     */
+    final void checkFailure() {
+        Throwable e = this.failure.get();
+        if (e instanceof RuntimeException runtime) {
+            throw runtime;
+        } else if (e instanceof Error error) {
+            throw error;
+        } else if (e != null) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Closes the given sinks, ensuring each distinct sink instance is only closed once
+     *
+     * @param sinks Sinks
+     */
+    protected static <T> void closeSinks(Collection<Sink<T>> sinks) {
+        Set<Sink<T>> closed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Sink<T> sink : sinks) {
+            if (closed.add(sink)) {
+                try {
+                    sink.close();
+                } catch (Throwable e) {
+                    LOGGER.warn("Failed to close worker sink: {}", e.getMessage());
+                }
+            }
+        }
+    }
+}
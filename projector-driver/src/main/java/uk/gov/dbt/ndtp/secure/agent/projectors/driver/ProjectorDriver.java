@@ -30,17 +30,24 @@ import io.opentelemetry.api.metrics.LongCounter;
 import io.opentelemetry.api.metrics.Meter;
 import io.opentelemetry.api.metrics.ObservableLongGauge;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import org.apache.jena.atlas.logging.FmtLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.dbt.ndtp.secure.agent.observability.AttributeNames;
 import uk.gov.dbt.ndtp.secure.agent.observability.IANodeMetrics;
+import uk.gov.dbt.ndtp.secure.agent.projectors.AsyncSink;
+import uk.gov.dbt.ndtp.secure.agent.projectors.BatchProjector;
 import uk.gov.dbt.ndtp.secure.agent.projectors.Library;
 import uk.gov.dbt.ndtp.secure.agent.projectors.Projector;
 import uk.gov.dbt.ndtp.secure.agent.projectors.Sink;
+import uk.gov.dbt.ndtp.secure.agent.projectors.SinkException;
 import uk.gov.dbt.ndtp.secure.agent.projectors.utils.ThroughputTracker;
 import uk.gov.dbt.ndtp.secure.agent.sources.Event;
 import uk.gov.dbt.ndtp.secure.agent.sources.EventSource;
@@ -52,6 +59,34 @@ import uk.gov.dbt.ndtp.secure.agent.sources.EventSource;
  * events through a {@link Projector}.  It includes automated management of the polling loop alongside throughput
  * monitoring and reporting.
  * </p>
+ * <p>
+ * By default events are projected sequentially on the driver thread.  Optionally the driver may be configured with a
+ * degree of parallelism, see {@link ProjectorDriverBuilder#parallel(int)}, in which case events are projected by a pool
+ * of worker threads, each with its own output sink, while preserving the relative ordering of events that share the
+ * same ordering key.  In this mode the driver reports events back to the source via
+ * {@link EventSource#processed(java.util.Collection)} only once they, and all events that preceded them, have been
+ * projected.
+ * </p>
+ * <p>
+ * The driver may also be configured with a batch size, see {@link ProjectorDriverBuilder#batchSize(int)}, in which case
+ * it polls the event source for batches of events via {@link EventSource#pollBatch(int, Duration)} and handles each
+ * batch as a whole.  If the projector is a {@link BatchProjector} then it is given the whole batch to project.
+ * </p>
+ * <p>
+ * Rather than a fixed batch size and poll timeout the driver may instead be configured with an
+ * {@link AdaptivePollController}, see {@link ProjectorDriverBuilder#adaptive(Duration, int)}, which adjusts both at
+ * runtime based upon how long batches take to project and whether the event source is keeping up.
+ * </p>
+ * <p>
+ * The driver may also record freshness metrics, see {@link ProjectorDriverBuilder#freshness(Function, Function)}, i.e.
+ * how long after an event was produced it was polled and projected.
+ * </p>
+ * <p>
+ * Finally, the driver may be configured with an in-flight window, see {@link ProjectorDriverBuilder#maxInFlight(int)},
+ * in which case outputs sent to an {@link AsyncSink} are sent asynchronously and events are only reported back to the
+ * source as processed once all their outputs, and those of all events that preceded them, have been acknowledged by the
+ * sink.  Once the window is full the driver stops polling for further events until earlier outputs are acknowledged.
+ * </p>
  *
  * @param <TKey>    Event key type
  * @param <TValue>  Event value type
@@ -79,12 +114,20 @@ public class ProjectorDriver<TKey, TValue, TOutput> implements Runnable {
     private static final Logger LOGGER = LoggerFactory.getLogger(ProjectorDriver.class);
 
     private static final String ITEM_TYPE_EVENTS = "events";
+    private static final long IN_FLIGHT_WAIT_INTERVAL = 100;
 
     private final EventSource<TKey, TValue> source;
     private final Duration pollTimeout;
     private final Projector<Event<TKey, TValue>, TOutput> projector;
     private final Supplier<Sink<TOutput>> sinkSupplier;
     private final long limit, maxStalls;
+    private final int parallelism, workerQueueSize, processedBatchSize, batchSize, maxInFlight;
+    private final BatchProjector<Event<TKey, TValue>, TOutput> batchProjector;
+    private final Function<Event<TKey, TValue>, ?> orderingKey, completionLane;
+    private final boolean unordered;
+    private final AdaptivePollController pollController;
+    private final FreshnessTracker<TKey, TValue> freshness;
+    private final List<Event<TKey, TValue>> completedBatch = new ArrayList<>();
     private long consecutiveStallsCount;
     private final ThroughputTracker tracker;
     private volatile boolean shouldRun = true;
@@ -104,14 +147,87 @@ public class ProjectorDriver<TKey, TValue, TOutput> implements Runnable {
      *                           to return any new events, after which projection should be aborted.
      * @param reportBatchSize    Reporting batch size i.e. how often the driver should report throughput statistics
      */
-    @SuppressWarnings("resource")
     ProjectorDriver(EventSource<TKey, TValue> source, Duration pollTimeout,
                     Projector<Event<TKey, TValue>, TOutput> projector, Supplier<Sink<TOutput>> outputSinkSupplier,
                     long limit, long maxStalls, long reportBatchSize) {
+        this(source, pollTimeout, projector, outputSinkSupplier, limit, maxStalls, reportBatchSize, 1, Event::key,
+             ProjectorDriverBuilder.DEFAULT_WORKER_QUEUE_SIZE, ProjectorDriverBuilder.DEFAULT_PROCESSED_BATCH_SIZE, 1, 0, false,
+             e -> null, null, null, e -> null);
+    }
+
+    /**
+     * Creates a new driver
+     *
+     * @param source             Event source from which to read events
+     * @param pollTimeout        Maximum time to wait for an {@link EventSource#poll(Duration)} operation to succeed
+     * @param projector          Projector to project the events with
+     * @param outputSinkSupplier A supplier that can provide a sink to which projected events will be output, when
+     *                           parallelism is greater than 1 this is called once per worker
+     * @param limit              The maximum number of events to project before stopping, negative values are
+     *                           interpreted as no limit
+     * @param maxStalls          The maximum number of consecutive stalls, i.e. occasions where the event source fails
+     *                           to return any new events, after which projection should be aborted.
+     * @param reportBatchSize    Reporting batch size i.e. how often the driver should report throughput statistics
+     * @param parallelism        Number of worker threads used to project events, {@code 1} means events are projected
+     *                           sequentially on the driver thread
+     * @param orderingKey        Function that extracts the ordering key from an event, events with equal ordering keys
+     *                           are always projected in the order they were received
+     * @param workerQueueSize    Maximum number of events that may be queued for each worker
+     * @param processedBatchSize How many completed events are accumulated before reporting them to the source via
+     *                           {@link EventSource#processed(java.util.Collection)}
+     * @param batchSize          Maximum number of events to poll from the event source at once, {@code 1} means events
+     *                           are polled one at a time
+     * @param maxInFlight        Maximum number of events whose outputs may be awaiting acknowledgement from the output
+     *                           sink, {@code 0} means no in-flight tracking is done when projecting sequentially and no
+     *                           limit is imposed when projecting in parallel
+     * @param unordered          Whether events are projected by a work-stealing pool of workers without regard to their
+     *                           ordering key, only applies when parallelism is greater than 1
+     * @param completionLane     Function that extracts the completion lane from an event, completed events are reported
+     *                           to the event source in the order they were received relative to other events in the
+     *                           same lane
+     * @param pollController     Controller that adapts the batch size and poll timeout at runtime, if {@code null} then
+     *                           the configured batch size and poll timeout are always used
+     * @param freshnessTimestamp Function that extracts the time, in milliseconds since the epoch, at which an event was
+     *                           produced, if {@code null} then no freshness metrics are recorded
+     * @param freshnessTopic     Function that extracts the topic from an event, used to label freshness metrics
+     */
+    @SuppressWarnings({ "resource", "unchecked" })
+    ProjectorDriver(EventSource<TKey, TValue> source, Duration pollTimeout,
+                    Projector<Event<TKey, TValue>, TOutput> projector, Supplier<Sink<TOutput>> outputSinkSupplier,
+                    long limit, long maxStalls, long reportBatchSize, int parallelism,
+                    Function<Event<TKey, TValue>, ?> orderingKey, int workerQueueSize, int processedBatchSize,
+                    int batchSize, int maxInFlight, boolean unordered,
+                    Function<Event<TKey, TValue>, ?> completionLane, AdaptivePollController pollController,
+                    Function<Event<TKey, TValue>, Long> freshnessTimestamp,
+                    Function<Event<TKey, TValue>, ?> freshnessTopic) {
         Objects.requireNonNull(source, "Event Source cannot be null");
         Objects.requireNonNull(projector, "Projector cannot be null");
         Objects.requireNonNull(outputSinkSupplier, "Sink Supplier cannot be null");
         Objects.requireNonNull(pollTimeout, "Poll Timeout cannot be null");
+        Objects.requireNonNull(orderingKey, "Ordering Key function cannot be null");
+        Objects.requireNonNull(completionLane, "Completion Lane function cannot be null");
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be >= 1");
+        }
+        if (workerQueueSize < 1) {
+            throw new IllegalArgumentException("Worker Queue Size must be >= 1");
+        }
+        if (processedBatchSize < 1) {
+            throw new IllegalArgumentException("Processed Batch Size must be >= 1");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch Size must be >= 1");
+        }
+        if (maxInFlight < 0) {
+            throw new IllegalArgumentException("Max In-Flight must be >= 0");
+        }
+        if (source.isAutoCommitting() && (parallelism > 1 || maxInFlight > 0)) {
+            // The source would commit events as soon as the next poll is made, while they may still be being projected,
+            // or their outputs awaiting acknowledgement, so a failure would lose them
+            throw new IllegalArgumentException(
+                    "Parallel projection and in-flight tracking cannot be used with an auto-committing Event Source, " +
+                    "disable auto-commit on the source so events are only committed once reported as processed");
+        }
 
         this.source = source;
         this.pollTimeout = pollTimeout;
@@ -119,6 +235,17 @@ public class ProjectorDriver<TKey, TValue, TOutput> implements Runnable {
         this.sinkSupplier = outputSinkSupplier;
         this.limit = limit;
         this.maxStalls = maxStalls;
+        this.parallelism = parallelism;
+        this.orderingKey = orderingKey;
+        this.workerQueueSize = workerQueueSize;
+        this.processedBatchSize = processedBatchSize;
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.unordered = unordered;
+        this.completionLane = completionLane;
+        this.pollController = pollController;
+        this.batchProjector = projector instanceof BatchProjector<?, ?> batch ?
+                              (BatchProjector<Event<TKey, TValue>, TOutput>) batch : null;
 
         this.metricAttributes = Attributes.of(AttributeKey.stringKey(AttributeNames.ITEMS_TYPE), ITEM_TYPE_EVENTS,
                                               AttributeKey.stringKey(AttributeNames.INSTANCE_ID),
@@ -133,6 +260,26 @@ public class ProjectorDriver<TKey, TValue, TOutput> implements Runnable {
                                                      .buildWithCallback(
                                                              measure -> measure.record(getConsecutiveStalls(),
                                                                                        this.metricAttributes));
+        if (this.pollController != null) {
+            ObservableLongGauge adaptiveBatchSize = meter.gaugeBuilder(DriverMetricNames.ADAPTIVE_BATCH_SIZE)
+                                                         .setDescription(
+                                                                 DriverMetricNames.ADAPTIVE_BATCH_SIZE_DESCRIPTION)
+                                                         .ofLongs()
+                                                         .buildWithCallback(measure -> measure.record(
+                                                                 this.pollController.batchSize(),
+                                                                 this.metricAttributes));
+            ObservableLongGauge adaptivePollTimeout = meter.gaugeBuilder(DriverMetricNames.ADAPTIVE_POLL_TIMEOUT)
+                                                           .setDescription(
+                                                                   DriverMetricNames.ADAPTIVE_POLL_TIMEOUT_DESCRIPTION)
+                                                           .setUnit("ms")
+                                                           .ofLongs()
+                                                           .buildWithCallback(measure -> measure.record(
+                                                                   this.pollController.pollTimeoutMillis(),
+                                                                   this.metricAttributes));
+        }
+
+        this.freshness = freshnessTimestamp != null ?
+                         new FreshnessTracker<>(freshnessTimestamp, freshnessTopic, this.metricAttributes) : null;
 
         this.tracker = ThroughputTracker.create()
                                         .logger(LOGGER)
@@ -148,13 +295,26 @@ public class ProjectorDriver<TKey, TValue, TOutput> implements Runnable {
         return this.consecutiveStallsCount;
     }
 
-   @Override
+    @Override
     public void run() {
         try {
             Thread.currentThread().setName("ProjectorDriver");
         } catch (Throwable e) {
             // Ignore if unable to set thread name
         }
+        if (this.pollController != null) {
+            LOGGER.info("Adapting batch size and poll timeout at runtime: {}", this.pollController);
+        }
+
+        if (this.parallelism > 1) {
+            runParallel();
+            return;
+        }
+
+        if (this.maxInFlight > 0) {
+            runTracked();
+            return;
+        }
 
         try (Sink<TOutput> sink = this.sinkSupplier.get()) {
             this.tracker.start();
@@ -166,8 +326,16 @@ public class ProjectorDriver<TKey, TValue, TOutput> implements Runnable {
                     break;
                 }
 
-                Event<TKey, TValue> event = this.source.poll(this.pollTimeout);
-                handleEvent(event, sink);
+                if (this.batchSize > 1 || this.pollController != null) {
+                    int requested = nextBatchSize();
+                    List<Event<TKey, TValue>> batch = this.source.pollBatch(requested, pollTimeout());
+                    long start = System.nanoTime();
+                    handleBatch(batch, sink, recordPolled(batch));
+                    adapt(requested, batch.size(), start);
+                } else {
+                    Event<TKey, TValue> event = this.source.poll(this.pollTimeout);
+                    handleEvent(event, sink, recordPolled(event));
+                }
             }
         } finally {
             this.tracker.reportThroughput();
@@ -176,6 +344,222 @@ public class ProjectorDriver<TKey, TValue, TOutput> implements Runnable {
         }
     }
 
+    private void runTracked() {
+        CompletionTracker<TKey, TValue> completions = new CompletionTracker<>(this.completionLane);
+        SinkException writeFailure = null;
+        try (Sink<TOutput> sink = this.sinkSupplier.get()) {
+            AcknowledgingSink<TOutput> acknowledgingSink = new AcknowledgingSink<>(sink);
+            this.tracker.start();
+
+            while (this.shouldRun) {
+                checkSourceClosed();
+                completions.checkFailure();
+
+                if (checkEventLimitReached() || checkSourceExhausted()) {
+                    break;
+                }
+
+                int requested = nextBatchSize();
+                List<Event<TKey, TValue>> batch = this.source.pollBatch(requested, pollTimeout());
+                long polledAt = recordPolled(batch);
+                long start = System.nanoTime();
+                if (batch.isEmpty()) {
+                    reportCompleted(completions, true);
+                    handleEventTimeout(!this.source.availableImmediately());
+                } else {
+                    this.consecutiveStallsCount = 0;
+                    this.tracker.itemsReceived(batch.size());
+                    projectTracked(batch, polledAt, acknowledgingSink, completions);
+                }
+                adapt(requested, batch.size(), start);
+            }
+        } finally {
+            // NB - The sink has been closed at this point so any outstanding asynchronous writes will have completed
+            writeFailure = reportOutstanding(completions);
+            this.tracker.reportThroughput();
+            this.shouldRun = false;
+            closeSource();
+        }
+
+        if (writeFailure != null) {
+            throw writeFailure;
+        }
+    }
+
+    /**
+     * Projects events tracking their completion, waiting for space in the in-flight window first if necessary
+     *
+     * @param events      Events to project
+     * @param polledAt    Time at which the events were polled, in milliseconds since the epoch
+     * @param sink        Acknowledging sink
+     * @param completions Completion tracker
+     */
+    private void projectTracked(List<Event<TKey, TValue>> events, long polledAt, AcknowledgingSink<TOutput> sink,
+                                CompletionTracker<TKey, TValue> completions) {
+        awaitInFlightCapacity(completions, events.size());
+
+        List<CompletionTracker.Pending<TKey, TValue>> pending = new ArrayList<>(events.size());
+        for (Event<TKey, TValue> event : events) {
+            pending.add(completions.track(event, polledAt));
+        }
+        if (events.size() > 1 && this.batchProjector != null) {
+            // Can't tell which outputs belong to which events so the whole batch completes together
+            this.batchProjector.projectBatch(events, sink);
+            CompletableFuture<Void> completion = sink.completion();
+            pending.forEach(p -> p.completeWhen(completion));
+        } else {
+            for (int i = 0; i < events.size(); i++) {
+                this.projector.project(events.get(i), sink);
+                pending.get(i).completeWhen(sink.completion());
+            }
+        }
+
+        reportCompleted(completions, false);
+    }
+
+    /**
+     * Waits until the in-flight window has capacity for the given number of events
+     * <p>
+     * If more events are requested than the window permits then this waits for the window to be entirely empty.
+     * </p>
+     *
+     * @param completions Completion tracker
+     * @param required    Number of events that will be added to the window
+     */
+    private void awaitInFlightCapacity(CompletionTracker<TKey, TValue> completions, int required) {
+        if (this.maxInFlight <= 0) {
+            return;
+        }
+        reportCompleted(completions, false);
+        while (this.shouldRun && completions.inFlight() > 0
+               && completions.inFlight() + required > this.maxInFlight) {
+            try {
+                completions.awaitOldest(IN_FLIGHT_WAIT_INTERVAL);
+            } catch (InterruptedException e) {
+                LOGGER.warn("Interrupted while waiting for in-flight events to complete, aborting projection");
+                Thread.currentThread().interrupt();
+                this.shouldRun = false;
+            }
+            reportCompleted(completions, false);
+        }
+    }
+
+    /**
+     * Reports any outstanding completed events back to the event source when the driver stops
+     *
+     * @param completions Completion tracker
+     * @return Failure that prevented some events being reported, or {@code null} if no failure
+     */
+    private SinkException reportOutstanding(CompletionTracker<TKey, TValue> completions) {
+        SinkException failure = null;
+        try {
+            reportCompleted(completions, true);
+        } catch (SinkException e) {
+            LOGGER.error("Failed to write projection outputs: {}", e.getMessage());
+            failure = e;
+        }
+        if (completions.inFlight() > 0) {
+            FmtLog.warn(LOGGER, "%,d events were not projected successfully and have not been reported as processed",
+                        completions.inFlight());
+        }
+        return failure;
+    }
+
+    private void runParallel() {
+        CompletionTracker<TKey, TValue> completions = new CompletionTracker<>(this.completionLane);
+        SinkException writeFailure = null;
+        try {
+            ProjectionWorkers<TKey, TValue, TOutput> workers = this.unordered ?
+                                                               new UnorderedWorkers<>(this.parallelism,
+                                                                                      this.workerQueueSize,
+                                                                                      this.projector,
+                                                                                      this.sinkSupplier) :
+                                                               new KeyOrderedWorkers<>(this.parallelism,
+                                                                                       this.workerQueueSize,
+                                                                                       this.projector,
+                                                                                       this.sinkSupplier,
+                                                                                       this.orderingKey);
+            boolean aborted = true;
+            try {
+                this.tracker.start();
+
+                while (this.shouldRun) {
+                    workers.checkFailure();
+                    completions.checkFailure();
+                    checkSourceClosed();
+
+                    if (checkEventLimitReached() || checkSourceExhausted()) {
+                        break;
+                    }
+
+                    int requested = nextBatchSize();
+                    List<Event<TKey, TValue>> batch = this.source.pollBatch(requested, pollTimeout());
+                    long polledAt = recordPolled(batch);
+                    long start = System.nanoTime();
+                    if (batch.isEmpty()) {
+                        reportCompleted(completions, true);
+                        handleEventTimeout(!this.source.availableImmediately());
+                    } else {
+                        this.consecutiveStallsCount = 0;
+                        this.tracker.itemsReceived(batch.size());
+                        awaitInFlightCapacity(completions, batch.size());
+                        for (Event<TKey, TValue> event : batch) {
+                            workers.submit(completions.track(event, polledAt));
+                        }
+                        reportCompleted(completions, false);
+                    }
+                    adapt(requested, batch.size(), start);
+                }
+                aborted = false;
+            } catch (InterruptedException e) {
+                LOGGER.warn("Interrupted while waiting to submit events to workers, aborting projection");
+                Thread.currentThread().interrupt();
+            } finally {
+                workers.shutdown(aborted);
+                writeFailure = reportOutstanding(completions);
+            }
+
+            // Workers may have failed after the last event was submitted, in which case we still need to surface that
+            workers.checkFailure();
+        } finally {
+            this.tracker.reportThroughput();
+            this.shouldRun = false;
+            closeSource();
+        }
+
+        if (writeFailure != null) {
+            throw writeFailure;
+        }
+    }
+
+    /**
+     * Reports the contiguous prefix of completed events back to the event source
+     *
+     * @param completions Completion tracker
+     * @param force       Whether to report regardless of whether the processed batch size has been reached
+     */
+    @SuppressWarnings("unchecked")
+    private void reportCompleted(CompletionTracker<TKey, TValue> completions, boolean force) {
+        List<CompletionTracker.Pending<TKey, TValue>> completed = completions.drainCompleted();
+        long projectedAt = this.freshness != null ? System.currentTimeMillis() : 0;
+        for (CompletionTracker.Pending<TKey, TValue> pending : completed) {
+            this.tracker.itemProcessed();
+            this.completedBatch.add(pending.event());
+            if (this.freshness != null) {
+                this.freshness.projected(pending.event(), pending.polledAt(), projectedAt);
+            }
+        }
+
+        if (this.completedBatch.size() >= this.processedBatchSize || (force && !this.completedBatch.isEmpty())) {
+            if (!this.source.isClosed()) {
+                this.source.processed(new ArrayList<>(this.completedBatch));
+            }
+            this.completedBatch.clear();
+        }
+
+        completions.checkFailure();
+    }
+
     private void checkSourceClosed() {
         if (this.source.isClosed()) {
             LOGGER.warn("Event Source has been closed outside of our control, aborting projection");
@@ -184,7 +568,7 @@ public class ProjectorDriver<TKey, TValue, TOutput> implements Runnable {
     }
 
     private boolean checkEventLimitReached() {
-        if (this.limit >= 0 && this.tracker.processedCount() >= this.limit) {
+        if (this.limit >= 0 && this.tracker.receivedCount() >= this.limit) {
             FmtLog.info(LOGGER, "Reached configured event limit of %,d events", this.limit);
             this.shouldRun = false;
             return true;
@@ -201,7 +585,7 @@ public class ProjectorDriver<TKey, TValue, TOutput> implements Runnable {
         return false;
     }
 
-    private void handleEvent(Event<TKey, TValue> event, Sink<TOutput> sink) {
+    private void handleEvent(Event<TKey, TValue> event, Sink<TOutput> sink, long polledAt) {
         boolean expectToBlock = !this.source.availableImmediately();
 
         if (event == null) {
@@ -211,11 +595,115 @@ public class ProjectorDriver<TKey, TValue, TOutput> implements Runnable {
             this.tracker.itemReceived();
             this.projector.project(event, sink);
             this.tracker.itemProcessed();
+            recordProjected(event, polledAt);
+        }
+    }
+
+    /**
+     * Calculates the size of the next batch to poll for, this is the configured, or adaptive, batch size unless that
+     * would take us over the configured limit
+     *
+     * @return Next batch size
+     */
+    private int nextBatchSize() {
+        int size = this.pollController != null ? this.pollController.batchSize() : this.batchSize;
+        if (this.limit < 0) {
+            return size;
+        }
+        return (int) Math.max(1, Math.min(size, this.limit - this.tracker.receivedCount()));
+    }
+
+    /**
+     * Gets the timeout to use for the next poll, this is the configured, or adaptive, poll timeout
+     *
+     * @return Poll timeout
+     */
+    private Duration pollTimeout() {
+        return this.pollController != null ? this.pollController.pollTimeout() : this.pollTimeout;
+    }
+
+    /**
+     * Feeds back the outcome of a poll to the adaptive poll controller, if any
+     *
+     * @param requested Number of events requested
+     * @param received  Number of events received
+     * @param start     Time at which projection of the received events started, as given by {@link System#nanoTime()}
+     */
+    private void adapt(int requested, int received, long start) {
+        if (this.pollController != null) {
+            this.pollController.record(requested, received, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records the freshness of events that have just been polled, if freshness metrics are enabled
+     *
+     * @param events Polled events
+     * @return Time at which the events were polled, in milliseconds since the epoch, or {@code 0} if freshness metrics
+     * are not enabled
+     */
+    private long recordPolled(List<Event<TKey, TValue>> events) {
+        if (this.freshness == null) {
+            return 0;
+        }
+        long polledAt = System.currentTimeMillis();
+        this.freshness.polled(events, polledAt);
+        return polledAt;
+    }
+
+    /**
+     * Records the freshness of an event that has just been polled, if freshness metrics are enabled
+     *
+     * @param event Polled event, may be {@code null} if no event was available
+     * @return Time at which the event was polled, in milliseconds since the epoch, or {@code 0} if freshness metrics are
+     * not enabled
+     */
+    private long recordPolled(Event<TKey, TValue> event) {
+        if (this.freshness == null) {
+            return 0;
+        }
+        long polledAt = System.currentTimeMillis();
+        if (event != null) {
+            this.freshness.polled(event, polledAt);
+        }
+        return polledAt;
+    }
+
+    /**
+     * Records the freshness of an event whose projection has just completed, if freshness metrics are enabled
+     *
+     * @param event    Event
+     * @param polledAt Time at which the event was polled, in milliseconds since the epoch
+     */
+    private void recordProjected(Event<TKey, TValue> event, long polledAt) {
+        if (this.freshness != null) {
+            this.freshness.projected(event, polledAt, System.currentTimeMillis());
+        }
+    }
+
+    private void handleBatch(List<Event<TKey, TValue>> batch, Sink<TOutput> sink, long polledAt) {
+        if (batch.isEmpty()) {
+            handleEventTimeout(!this.source.availableImmediately());
+        } else {
+            this.consecutiveStallsCount = 0;
+            this.tracker.itemsReceived(batch.size());
+            if (this.batchProjector != null) {
+                this.batchProjector.projectBatch(batch, sink);
+                if (this.freshness != null) {
+                    this.freshness.projected(batch, polledAt, System.currentTimeMillis());
+                }
+            } else {
+                for (Event<TKey, TValue> event : batch) {
+                    this.projector.project(event, sink);
+                    recordProjected(event, polledAt);
+                }
+            }
+            this.tracker.itemsProcessed(batch.size());
         }
     }
 
     private void handleEventTimeout(boolean expectToBlock) {
-        LOGGER.debug("Timed out waiting for Event Source to return more events, waited {}", this.pollTimeout);
+        LOGGER.debug("Timed out waiting for Event Source to return more events, waited {}", pollTimeout());
         this.stalls.add(1, this.metricAttributes);
         this.consecutiveStallsCount++;
 
@@ -26,6 +26,7 @@ package uk.gov.dbt.ndtp.secure.agent.projectors.driver;
 
 import java.time.Duration;
 import java.time.temporal.TemporalUnit;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import uk.gov.dbt.ndtp.secure.agent.projectors.Projector;
 import uk.gov.dbt.ndtp.secure.agent.projectors.Sink;
@@ -42,11 +43,29 @@ import uk.gov.dbt.ndtp.secure.agent.sources.EventSource;
  */
 public class ProjectorDriverBuilder<TKey, TValue, TOutput> {
 
+    /**
+     * Default maximum number of events that may be queued for each worker when running in parallel mode
+     */
+    public static final int DEFAULT_WORKER_QUEUE_SIZE = 1_000;
+    /**
+     * Default number of completed events accumulated before they are reported to the source as processed when running
+     * in parallel mode
+     */
+    public static final int DEFAULT_PROCESSED_BATCH_SIZE = 1_000;
+
     private EventSource<TKey, TValue> source;
     private Duration pollTimeout = Duration.ofSeconds(30);
     private Projector<Event<TKey, TValue>, TOutput> projector;
     private Supplier<Sink<TOutput>> sinkSupplier;
     private long limit = -1, maxStalls = 0, reportBatchSize = 10_000L;
+    private int parallelism = 1, workerQueueSize = DEFAULT_WORKER_QUEUE_SIZE,
+            processedBatchSize = DEFAULT_PROCESSED_BATCH_SIZE, batchSize = 1, maxInFlight = 0;
+    private Function<Event<TKey, TValue>, ?> orderingKey = Event::key, completionLane = null;
+    private boolean sourceCompletionLanes = true;
+    private boolean unordered = false;
+    private AdaptivePollController pollController;
+    private Function<Event<TKey, TValue>, Long> freshnessTimestamp;
+    private Function<Event<TKey, TValue>, ?> freshnessTopic = e -> null;
 
     /**
      * Specifies the event source for the projector driver
@@ -186,13 +205,260 @@ public class ProjectorDriverBuilder<TKey, TValue, TOutput> {
         return this;
     }
 
+    /**
+     * Specifies the maximum number of events that the driver polls from the event source at once
+     * <p>
+     * When greater than {@code 1} the driver uses {@link EventSource#pollBatch(int, Duration)} to obtain events and
+     * carries out its bookkeeping once per batch rather than once per event.  If the configured projector is a
+     * {@link uk.gov.dbt.ndtp.secure.agent.projectors.BatchProjector} then it is given each batch to project as a whole,
+     * otherwise each event in the batch is projected in turn.
+     * </p>
+     *
+     * @param batchSize Batch size
+     * @return Builder
+     */
+    public ProjectorDriverBuilder<TKey, TValue, TOutput> batchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Specifies that events should be projected sequentially on the driver thread, this is the default behaviour
+     *
+     * @return Builder
+     */
+    public ProjectorDriverBuilder<TKey, TValue, TOutput> sequential() {
+        return parallel(1);
+    }
+
+    /**
+     * Specifies the number of worker threads used to project events in parallel
+     * <p>
+     * When greater than {@code 1} events are projected by a pool of worker threads, events are routed to workers based
+     * upon their ordering key (see {@link #orderingKey(Function)}) so events with the same ordering key are always
+     * projected in the order they were received.  Each worker obtains its own output sink from the configured
+     * destination sink supplier so a supplier that creates a new sink each time it is called, e.g.
+     * {@link #destinationBuilder(SinkBuilder)}, should be used.  If a single sink instance is configured via
+     * {@link #destination(Sink)} then it will be shared by all workers and <strong>MUST</strong> be thread-safe.
+     * </p>
+     * <p>
+     * In this mode events are reported back to the event source as processed once they, and all events that preceded
+     * them, have been projected, see {@link #processedBatchSize(int)}.  Therefore the event source <strong>MUST
+     * NOT</strong> be auto-committing, see {@link EventSource#isAutoCommitting()}, as such a source would consider
+     * events processed while they were still being projected, building the driver fails if it is.
+     * </p>
+     *
+     * @param workers Number of worker threads
+     * @return Builder
+     */
+    public ProjectorDriverBuilder<TKey, TValue, TOutput> parallel(int workers) {
+        this.parallelism = workers;
+        this.unordered = false;
+        return this;
+    }
+
+    /**
+     * Specifies that events should be projected in parallel, without regard to their ordering, using one worker thread
+     * per available processor
+     *
+     * @return Builder
+     * @see #unordered(int)
+     */
+    public ProjectorDriverBuilder<TKey, TValue, TOutput> unordered() {
+        return unordered(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Specifies the number of worker threads used to project events in parallel without regard to their ordering
+     * <p>
+     * When greater than {@code 1} events are projected by a work-stealing pool of worker threads, so an idle worker can
+     * pick up work that would otherwise be waiting behind a slow event.  Unlike {@link #parallel(int)} there is no
+     * guarantee as to the order in which events are projected, or their outputs written, so this mode is only suitable
+     * where the projection is insensitive to ordering.  The ordering key (see {@link #orderingKey(Function)}) is not
+     * used in this mode.  The same considerations around output sinks as for {@link #parallel(int)} apply.
+     * </p>
+     * <p>
+     * Events are still reported back to the event source as processed in the order they were received within each
+     * completion lane, by default the event source's own lanes, e.g. topic partitions for Kafka, so a slow event only
+     * holds up the reporting of events in its own lane, see {@link #completionLanes(Function)}.
+     * </p>
+     *
+     * @param workers Number of worker threads
+     * @return Builder
+     */
+    public ProjectorDriverBuilder<TKey, TValue, TOutput> unordered(int workers) {
+        this.parallelism = workers;
+        this.unordered = true;
+        return this;
+    }
+
+    /**
+     * Specifies the function used to assign events to completion lanes when tracking which events have been processed
+     * <p>
+     * Events are only reported back to the event source as processed once every earlier event in the same lane has also
+     * been processed.  Where an event source tracks its position independently for subsets of its events, e.g. Kafka
+     * tracks offsets per topic partition, then using a matching lane function means a slow event does not hold up
+     * reporting of events from other subsets.  By default the lanes are those of the event source, see
+     * {@link EventSource#completionLane(Event)}, so Kafka sources use a lane per topic partition while sources that
+     * don't declare lanes have all their events share a single lane, which is always safe.
+     * </p>
+     * <p>
+     * This only applies when running in parallel mode (see {@link #parallel(int)} and {@link #unordered(int)}), or
+     * when in-flight tracking is enabled (see {@link #maxInFlight(int)}).
+     * </p>
+     *
+     * @param completionLane Completion lane function
+     * @return Builder
+     */
+    public ProjectorDriverBuilder<TKey, TValue, TOutput> completionLanes(
+            Function<Event<TKey, TValue>, ?> completionLane) {
+        this.completionLane = completionLane;
+        this.sourceCompletionLanes = false;
+        return this;
+    }
+
+    /**
+     * Specifies the function used to extract the ordering key from events when running in parallel mode, events with
+     * equal ordering keys are always projected in the order they were received.  Defaults to the event key.
+     *
+     * @param orderingKey Ordering key function
+     * @return Builder
+     */
+    public ProjectorDriverBuilder<TKey, TValue, TOutput> orderingKey(Function<Event<TKey, TValue>, ?> orderingKey) {
+        this.orderingKey = orderingKey;
+        return this;
+    }
+
+    /**
+     * Specifies the maximum number of events that may be queued for each worker when running in parallel mode, once a
+     * worker's queue is full the driver blocks until that worker catches up.
+     *
+     * @param workerQueueSize Worker queue size
+     * @return Builder
+     */
+    public ProjectorDriverBuilder<TKey, TValue, TOutput> workerQueueSize(int workerQueueSize) {
+        this.workerQueueSize = workerQueueSize;
+        return this;
+    }
+
+    /**
+     * Specifies how many completed events are accumulated before they are reported back to the event source via
+     * {@link EventSource#processed(java.util.Collection)} when running in parallel mode.  Any completed events are also
+     * reported whenever the event source stalls and when the driver stops.
+     *
+     * @param processedBatchSize Processed batch size
+     * @return Builder
+     */
+    public ProjectorDriverBuilder<TKey, TValue, TOutput> processedBatchSize(int processedBatchSize) {
+        this.processedBatchSize = processedBatchSize;
+        return this;
+    }
+
+    /**
+     * Specifies the maximum number of events whose outputs may be in-flight i.e. awaiting acknowledgement from the
+     * destination sink
+     * <p>
+     * When greater than {@code 0} outputs sent to a destination sink that is an
+     * {@link uk.gov.dbt.ndtp.secure.agent.projectors.AsyncSink} are sent asynchronously, and events are reported back
+     * to the event source via {@link EventSource#processed(java.util.Collection)} only once all their outputs, and the
+     * outputs of all events that preceded them, have been acknowledged, see {@link #processedBatchSize(int)}.  Once
+     * this many events are in-flight the driver waits for earlier outputs to be acknowledged before projecting further
+     * events.  Outputs sent to other sinks are considered acknowledged as soon as the sink returns.
+     * </p>
+     * <p>
+     * Since the driver takes responsibility for reporting events as processed an
+     * {@link uk.gov.dbt.ndtp.secure.agent.projectors.sinks.events.EventProcessedSink} should not also be used in this
+     * mode.  In parallel mode (see {@link #parallel(int)}) events are always reported only once acknowledged, and this
+     * merely limits how many events may be in-flight.  Defaults to {@code 0} i.e. no in-flight tracking.
+     * </p>
+     * <p>
+     * As with parallel mode the event source <strong>MUST NOT</strong> be auto-committing, see
+     * {@link EventSource#isAutoCommitting()}, building the driver fails if it is.
+     * </p>
+     *
+     * @param maxInFlight Maximum in-flight events
+     * @return Builder
+     */
+    public ProjectorDriverBuilder<TKey, TValue, TOutput> maxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * Specifies that the batch size and poll timeout should be adapted at runtime to meet a target latency for projecting
+     * each batch of events
+     * <p>
+     * The batch size starts at the configured batch size (see {@link #batchSize(int)}) and is adjusted between that and
+     * the given maximum batch size.  The poll timeout is adjusted between
+     * {@link AdaptivePollController#DEFAULT_MIN_POLL_TIMEOUT}, or the configured poll timeout if that is lower, and
+     * the configured poll timeout (see {@link #pollTimeout(Duration)}).  Thus this should be called after configuring
+     * those.  See {@link AdaptivePollController} for details of how the adjustments are made.
+     * </p>
+     *
+     * @param targetLatency Target latency for projecting a batch of events
+     * @param maxBatchSize  Maximum batch size
+     * @return Builder
+     */
+    public ProjectorDriverBuilder<TKey, TValue, TOutput> adaptive(Duration targetLatency, int maxBatchSize) {
+        Duration minPollTimeout = this.pollTimeout != null && this.pollTimeout.compareTo(
+                AdaptivePollController.DEFAULT_MIN_POLL_TIMEOUT) < 0 ? this.pollTimeout :
+                                  AdaptivePollController.DEFAULT_MIN_POLL_TIMEOUT;
+        return adaptive(new AdaptivePollController(targetLatency, this.batchSize, maxBatchSize, minPollTimeout,
+                                                   this.pollTimeout));
+    }
+
+    /**
+     * Specifies a controller that adapts the batch size and poll timeout at runtime, overriding the configured batch size
+     * and poll timeout
+     *
+     * @param pollController Adaptive poll controller, {@code null} to disable adaptation
+     * @return Builder
+     */
+    public ProjectorDriverBuilder<TKey, TValue, TOutput> adaptive(AdaptivePollController pollController) {
+        this.pollController = pollController;
+        return this;
+    }
+
+    /**
+     * Specifies that freshness, i.e. end-to-end latency, metrics should be recorded
+     * <p>
+     * For each event the driver records how long after it was produced it was polled from the event source, how long
+     * after it was polled its projection completed, and how long after it was produced its projection completed.  It
+     * also reports how far behind the most recently projected event for each topic was.  When events are projected in
+     * parallel (see {@link #parallel(int)}) or with an in-flight window (see {@link #maxInFlight(int)}) an event's
+     * projection is considered complete once all its outputs have been acknowledged.
+     * </p>
+     * <p>
+     * For Kafka event sources use {@code KafkaEvent::timestamp} and {@code KafkaEvent::topic} as the functions.
+     * </p>
+     *
+     * @param timestamp Function that extracts the time, in milliseconds since the epoch, at which an event was produced,
+     *                  may return {@code null} if unknown, {@code null} to disable freshness metrics
+     * @param topic     Function that extracts the topic from an event, used to label the metrics, may return
+     *                  {@code null} if unknown
+     * @return Builder
+     */
+    public ProjectorDriverBuilder<TKey, TValue, TOutput> freshness(Function<Event<TKey, TValue>, Long> timestamp,
+                                                                   Function<Event<TKey, TValue>, ?> topic) {
+        this.freshnessTimestamp = timestamp;
+        this.freshnessTopic = topic != null ? topic : e -> null;
+        return this;
+    }
+
     /**
      * Builds a new projector driver
      *
      * @return Projector Driver
      */
     public ProjectorDriver<TKey, TValue, TOutput> build() {
+        Function<Event<TKey, TValue>, ?> lanes = this.completionLane;
+        if (this.sourceCompletionLanes) {
+            EventSource<TKey, TValue> lanesSource = this.source;
+            lanes = lanesSource != null ? lanesSource::completionLane : e -> null;
+        }
         return new ProjectorDriver<>(source, pollTimeout, projector, sinkSupplier, limit, maxStalls,
-                                     reportBatchSize);
+                                     reportBatchSize, parallelism, orderingKey, workerQueueSize, processedBatchSize,
+                                     batchSize, maxInFlight, unordered, lanes, pollController,
+                                     freshnessTimestamp, freshnessTopic);
     }
 }
@@ -0,0 +1,179 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.driver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Projector;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Sink;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+
+/**
+ * A work-stealing pool of worker threads that project events in parallel without any ordering guarantees.
+ * <p>
+ * Events are submitted to a {@link ForkJoinPool} so an idle worker can steal work from a busy one, meaning a handful of
+ * slow events does not leave the remaining workers idle as can happen with {@link KeyOrderedWorkers}.  The trade-off is
+ * that events may be projected, and their outputs written, in any order.  Reporting of processed events back to the
+ * event source remains ordered since that is governed by the {@link CompletionTracker}.
+ * </p>
+ * <p>
+ * Each event is projected using an output sink that no other worker is using at that time.  Sinks are obtained lazily
+ * from the configured sink supplier and returned to an idle pool once an event has been projected, so at most one sink
+ * per worker is ever created.  Thus sinks do not need to be thread-safe provided the supplier creates a new sink each
+ * time it is called.
+ * </p>
+ *
+ * @param <TKey>    Event key type
+ * @param <TValue>  Event value type
+ * @param <TOutput> Output type
+ */
+final class UnorderedWorkers<TKey, TValue, TOutput> extends ProjectionWorkers<TKey, TValue, TOutput> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UnorderedWorkers.class);
+    private static final long SHUTDOWN_WAIT_INTERVAL = 5;
+
+    private final Projector<Event<TKey, TValue>, TOutput> projector;
+    private final Supplier<Sink<TOutput>> sinkSupplier;
+    private final ForkJoinPool pool;
+    private final Semaphore capacity;
+    private final Queue<AcknowledgingSink<TOutput>> idleSinks = new ConcurrentLinkedQueue<>();
+    private final List<Sink<TOutput>> sinks = new ArrayList<>();
+    private final Set<Sink<TOutput>> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+    private volatile boolean aborted = false;
+    private boolean warnedSharedSink = false;
+
+    /**
+     * Creates and starts a new pool of workers
+     *
+     * @param workers       Number of workers
+     * @param queueCapacity Maximum number of events that may be queued per worker, the pool as a whole permits
+     *                      {@code workers * queueCapacity} events to be outstanding at any one time
+     * @param projector     Projector
+     * @param sinkSupplier  Sink supplier, called at most once per worker
+     */
+    UnorderedWorkers(int workers, int queueCapacity, Projector<Event<TKey, TValue>, TOutput> projector,
+                     Supplier<Sink<TOutput>> sinkSupplier) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Number of workers must be >= 1");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Worker queue capacity must be >= 1");
+        }
+        this.projector = Objects.requireNonNull(projector, "Projector cannot be null");
+        this.sinkSupplier = Objects.requireNonNull(sinkSupplier, "Sink Supplier cannot be null");
+        this.capacity = new Semaphore(Math.multiplyExact(workers, queueCapacity));
+
+        AtomicInteger threadIds = new AtomicInteger(0);
+        this.pool = new ForkJoinPool(workers, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("ProjectorDriver-Worker-" + threadIds.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }, null, true);
+    }
+
+    @Override
+    void submit(CompletionTracker.Pending<TKey, TValue> pending) throws InterruptedException {
+        while (!this.capacity.tryAcquire(WORKER_POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+            checkFailure();
+        }
+        try {
+            this.pool.execute(() -> work(pending));
+        } catch (Throwable e) {
+            this.capacity.release();
+            throw e;
+        }
+    }
+
+    private void work(CompletionTracker.Pending<TKey, TValue> pending) {
+        AcknowledgingSink<TOutput> sink = null;
+        try {
+            if (this.aborted) {
+                return;
+            }
+            sink = acquireSink();
+            this.projector.project(pending.event(), sink);
+            pending.completeWhen(sink.completion());
+        } catch (Throwable e) {
+            failed(Thread.currentThread().getName(), e);
+        } finally {
+            if (sink != null) {
+                this.idleSinks.offer(sink);
+            }
+            this.capacity.release();
+        }
+    }
+
+    private AcknowledgingSink<TOutput> acquireSink() {
+        AcknowledgingSink<TOutput> sink = this.idleSinks.poll();
+        if (sink == null) {
+            Sink<TOutput> destination = this.sinkSupplier.get();
+            Objects.requireNonNull(destination, "Sink Supplier returned a null sink");
+            synchronized (this.sinks) {
+                this.sinks.add(destination);
+                if (!this.distinct.add(destination) && !this.warnedSharedSink) {
+                    this.warnedSharedSink = true;
+                    LOGGER.warn(
+                            "Sink Supplier returned the same sink instance for multiple workers, the sink MUST be thread-safe, or a supplier that creates a new sink on each call should be used instead");
+                }
+            }
+            sink = new AcknowledgingSink<>(destination);
+        }
+        return sink;
+    }
+
+    @Override
+    void shutdown(boolean abort) {
+        if (abort) {
+            this.aborted = true;
+        }
+        this.pool.shutdown();
+        try {
+            while (!this.pool.awaitTermination(SHUTDOWN_WAIT_INTERVAL, TimeUnit.SECONDS)) {
+                LOGGER.info("Waiting for Projector Driver workers to finish projecting outstanding events...");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this.sinks) {
+            closeSinks(this.sinks);
+        }
+    }
+}
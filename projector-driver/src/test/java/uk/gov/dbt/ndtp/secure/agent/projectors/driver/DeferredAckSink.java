@@ -0,0 +1,122 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.driver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import uk.gov.dbt.ndtp.secure.agent.projectors.AsyncSink;
+import uk.gov.dbt.ndtp.secure.agent.projectors.SinkException;
+
+/**
+ * An asynchronous sink whose sends are only acknowledged when the test explicitly requests it, or upon close
+ */
+public class DeferredAckSink implements AsyncSink<Integer> {
+
+    private final Map<Integer, CompletableFuture<Void>> outstanding = new ConcurrentHashMap<>();
+    private final List<Integer> acknowledged = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger maxOutstanding = new AtomicInteger(0);
+    private final Integer failOn;
+
+    /**
+     * Creates a sink that acknowledges everything successfully
+     */
+    public DeferredAckSink() {
+        this(null);
+    }
+
+    /**
+     * Creates a sink that fails the send of the given item
+     *
+     * @param failOn Item whose send will fail
+     */
+    public DeferredAckSink(Integer failOn) {
+        this.failOn = failOn;
+    }
+
+    @Override
+    public CompletableFuture<Void> sendAsync(Integer item) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        this.outstanding.put(item, future);
+        this.maxOutstanding.accumulateAndGet(this.outstanding.size(), Math::max);
+        return future;
+    }
+
+    /**
+     * Acknowledges all currently outstanding sends, in ascending order
+     */
+    public synchronized void ackAll() {
+        List<Integer> items = new ArrayList<>(this.outstanding.keySet());
+        Collections.sort(items);
+        for (Integer item : items) {
+            CompletableFuture<Void> future = this.outstanding.remove(item);
+            if (future == null) {
+                continue;
+            }
+            if (item.equals(this.failOn)) {
+                future.completeExceptionally(new SinkException("Rejected " + item));
+            } else {
+                this.acknowledged.add(item);
+                future.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of currently outstanding sends
+     *
+     * @return Outstanding sends
+     */
+    public int outstanding() {
+        return this.outstanding.size();
+    }
+
+    /**
+     * Gets the maximum number of outstanding sends observed
+     *
+     * @return Maximum outstanding sends
+     */
+    public int maxOutstanding() {
+        return this.maxOutstanding.get();
+    }
+
+    /**
+     * Gets the acknowledged items
+     *
+     * @return Acknowledged items
+     */
+    public List<Integer> acknowledged() {
+        return new ArrayList<>(this.acknowledged);
+    }
+
+    @Override
+    public void close() {
+        ackAll();
+    }
+}
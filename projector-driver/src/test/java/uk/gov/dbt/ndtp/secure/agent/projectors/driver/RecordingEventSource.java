@@ -0,0 +1,91 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.driver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.memory.InMemoryEventSource;
+
+/**
+ * An in-memory event source that records the events it is informed have been processed
+ */
+public class RecordingEventSource<TKey, TValue> extends InMemoryEventSource<TKey, TValue> {
+
+    private final List<Event<TKey, TValue>> processed = Collections.synchronizedList(new ArrayList<>());
+    private int processedCalls = 0;
+
+    public RecordingEventSource(Collection<Event<TKey, TValue>> events) {
+        super(events);
+    }
+
+    @Override
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void processed(Collection<Event> processedEvents) {
+        super.processed(processedEvents);
+        this.processedCalls++;
+        for (Event event : processedEvents) {
+            this.processed.add((Event<TKey, TValue>) event);
+        }
+    }
+
+    /**
+     * Creates a recording event source that reports itself as auto-committing
+     *
+     * @param events   Events
+     * @param <TKey>   Key type
+     * @param <TValue> Value type
+     * @return Auto-committing event source
+     */
+    public static <TKey, TValue> RecordingEventSource<TKey, TValue> autoCommitting(
+            Collection<Event<TKey, TValue>> events) {
+        return new RecordingEventSource<>(events) {
+            @Override
+            public boolean isAutoCommitting() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Gets the events that have been reported as processed, in the order they were reported
+     *
+     * @return Processed events
+     */
+    public List<Event<TKey, TValue>> getProcessed() {
+        return new ArrayList<>(this.processed);
+    }
+
+    /**
+     * Gets how many times {@link #processed(Collection)} was called
+     *
+     * @return Processed calls
+     */
+    public int getProcessedCalls() {
+        return this.processedCalls;
+    }
+}
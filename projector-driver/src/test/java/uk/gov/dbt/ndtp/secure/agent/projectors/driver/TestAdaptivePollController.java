@@ -0,0 +1,251 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.driver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.projectors.BatchProjector;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Sink;
+import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.NullSink;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.memory.SimpleEvent;
+
+public class TestAdaptivePollController {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterClass
+    public void cleanup() {
+        this.executor.shutdownNow();
+    }
+
+    private static AdaptivePollController createController() {
+        return new AdaptivePollController(Duration.ofMillis(100), 1, 321, Duration.ofMillis(10), Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void adaptive_01() {
+        // Given
+        AdaptivePollController controller = createController();
+
+        // Then
+        Assert.assertEquals(controller.batchSize(), 1);
+        Assert.assertEquals(controller.pollTimeout(), Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void adaptive_02() {
+        // Given
+        AdaptivePollController controller = createController();
+
+        // When
+        for (int i = 0; i < AdaptivePollController.INCREASE_STEPS; i++) {
+            int requested = controller.batchSize();
+            controller.record(requested, requested, FAST);
+        }
+
+        // Then
+        Assert.assertEquals(controller.batchSize(), 321);
+        Assert.assertEquals(controller.pollTimeout(), Duration.ofMillis(10));
+
+        // And
+        controller.record(321, 321, FAST);
+        Assert.assertEquals(controller.batchSize(), 321);
+    }
+
+    @Test
+    public void adaptive_03() {
+        // Given
+        AdaptivePollController controller = createController();
+        for (int i = 0; i < 10; i++) {
+            int requested = controller.batchSize();
+            controller.record(requested, requested, FAST);
+        }
+        Assert.assertEquals(controller.batchSize(), 101);
+
+        // When
+        controller.record(101, 101, SLOW);
+
+        // Then
+        Assert.assertEquals(controller.batchSize(), 50);
+
+        // And
+        for (int i = 0; i < 10; i++) {
+            controller.record(controller.batchSize(), controller.batchSize(), SLOW);
+        }
+        Assert.assertEquals(controller.batchSize(), 1);
+    }
+
+    @Test
+    public void adaptive_04() {
+        // Given
+        AdaptivePollController controller = createController();
+        controller.record(1, 1, FAST);
+        Assert.assertEquals(controller.batchSize(), 11);
+
+        // When the source can't fill the batch
+        controller.record(11, 5, FAST);
+
+        // Then
+        Assert.assertEquals(controller.batchSize(), 11);
+    }
+
+    @Test
+    public void adaptive_05() {
+        // Given
+        AdaptivePollController controller = createController();
+        controller.record(1, 1, FAST);
+        controller.record(11, 11, FAST);
+        Assert.assertEquals(controller.pollTimeout(), Duration.ofMillis(250));
+
+        // When
+        controller.record(21, 0, 0);
+
+        // Then
+        Assert.assertEquals(controller.pollTimeout(), Duration.ofMillis(500));
+        Assert.assertEquals(controller.batchSize(), 21);
+
+        // And
+        for (int i = 0; i < 10; i++) {
+            controller.record(21, 0, 0);
+        }
+        Assert.assertEquals(controller.pollTimeout(), Duration.ofSeconds(1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void adaptive_bad_01() {
+        new AdaptivePollController(Duration.ZERO, 1, 100, Duration.ZERO, Duration.ofSeconds(1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void adaptive_bad_02() {
+        new AdaptivePollController(Duration.ofMillis(100), 100, 10, Duration.ZERO, Duration.ofSeconds(1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void adaptive_bad_03() {
+        new AdaptivePollController(Duration.ofMillis(100), 0, 10, Duration.ZERO, Duration.ofSeconds(1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void adaptive_bad_04() {
+        new AdaptivePollController(Duration.ofMillis(100), 1, 10, Duration.ofSeconds(2), Duration.ofSeconds(1));
+    }
+
+    private static List<Event<Integer, Integer>> createEvents(int count) {
+        List<Event<Integer, Integer>> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new SimpleEvent<>(Collections.emptyList(), i, i));
+        }
+        return events;
+    }
+
+    /**
+     * A batch projector that records the size of each batch it is given, optionally sleeping for each event
+     */
+    private static final class RecordingBatchProjector implements BatchProjector<Event<Integer, Integer>, Integer> {
+        private final List<Integer> batchSizes = new ArrayList<>();
+        private final long sleepPerEvent;
+
+        private RecordingBatchProjector(long sleepPerEvent) {
+            this.sleepPerEvent = sleepPerEvent;
+        }
+
+        @Override
+        public void project(Event<Integer, Integer> event, Sink<Integer> sink) {
+            projectBatch(List.of(event), sink);
+        }
+
+        @Override
+        public void projectBatch(List<Event<Integer, Integer>> inputs, Sink<Integer> sink) {
+            this.batchSizes.add(inputs.size());
+            if (this.sleepPerEvent > 0) {
+                try {
+                    Thread.sleep(this.sleepPerEvent * inputs.size());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            inputs.forEach(e -> sink.send(e.value()));
+        }
+    }
+
+    @Test
+    public void adaptive_driver_01() throws ExecutionException, InterruptedException, TimeoutException {
+        // Given
+        RecordingEventSource<Integer, Integer> source = new RecordingEventSource<>(createEvents(100_000));
+        RecordingBatchProjector projector = new RecordingBatchProjector(0);
+        ProjectorDriver<Integer, Integer, Integer> driver =
+                ProjectorDriver.<Integer, Integer, Integer>create()
+                               .source(source)
+                               .projector(projector)
+                               .destination(NullSink.of())
+                               .adaptive(Duration.ofSeconds(1), 1_000)
+                               .build();
+
+        // When
+        this.executor.submit(driver).get(5, TimeUnit.SECONDS);
+
+        // Then
+        Assert.assertEquals(projector.batchSizes.get(0), 1);
+        Assert.assertEquals(projector.batchSizes.stream().mapToInt(Integer::intValue).max().orElse(0), 1_000);
+        Assert.assertEquals(projector.batchSizes.stream().mapToInt(Integer::intValue).sum(), 100_000);
+    }
+
+    @Test
+    public void adaptive_driver_02() throws ExecutionException, InterruptedException, TimeoutException {
+        // Given a projector that takes 1ms per event and a target of 20ms per batch
+        RecordingEventSource<Integer, Integer> source = new RecordingEventSource<>(createEvents(2_000));
+        RecordingBatchProjector projector = new RecordingBatchProjector(1);
+        ProjectorDriver<Integer, Integer, Integer> driver =
+                ProjectorDriver.<Integer, Integer, Integer>create()
+                               .source(source)
+                               .projector(projector)
+                               .destination(NullSink.of())
+                               .adaptive(Duration.ofMillis(20), 1_000)
+                               .build();
+
+        // When
+        this.executor.submit(driver).get(10, TimeUnit.SECONDS);
+
+        // Then the batch size never grows much beyond the target
+        Assert.assertTrue(projector.batchSizes.stream().mapToInt(Integer::intValue).max().orElse(0) < 100,
+                          "Batch size should have been held down by the target latency");
+        Assert.assertEquals(projector.batchSizes.stream().mapToInt(Integer::intValue).sum(), 2_000);
+    }
+}
@@ -0,0 +1,234 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.driver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Projector;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Sink;
+import uk.gov.dbt.ndtp.secure.agent.projectors.SinkException;
+import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.CollectorSink;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.memory.SimpleEvent;
+
+public class TestAsyncProjectorDriver {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterClass
+    public void cleanup() {
+        this.executor.shutdownNow();
+    }
+
+    private static List<Event<Integer, Integer>> createEvents(int count) {
+        List<Event<Integer, Integer>> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new SimpleEvent<>(Collections.emptyList(), i, i));
+        }
+        return events;
+    }
+
+    private static final Projector<Event<Integer, Integer>, Integer> VALUE_PROJECTOR =
+            (event, sink) -> sink.send(event.value());
+
+    private static ProjectorDriverBuilder<Integer, Integer, Integer> driver(RecordingEventSource<Integer, Integer> source,
+                                                                          Sink<Integer> sink) {
+        return ProjectorDriver.<Integer, Integer, Integer>create()
+                              .source(source)
+                              .projector(VALUE_PROJECTOR)
+                              .destination(sink)
+                              .unlimitedStalls()
+                              .processedBatchSize(1);
+    }
+
+    private static void verifyProcessedInOrder(List<Event<Integer, Integer>> processed, int expected) {
+        Assert.assertEquals(processed.size(), expected);
+        for (int i = 0; i < processed.size(); i++) {
+            Assert.assertEquals(processed.get(i).value(), i, "Processed events not reported in source order");
+        }
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                Assert.fail("Condition not met within timeout");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void async_driver_01() throws InterruptedException, ExecutionException, TimeoutException {
+        // Given
+        RecordingEventSource<Integer, Integer> source = new RecordingEventSource<>(createEvents(100));
+        DeferredAckSink sink = new DeferredAckSink();
+        ProjectorDriver<Integer, Integer, Integer> driver = driver(source, sink).maxInFlight(10).build();
+
+        // When
+        Future<?> future = this.executor.submit(driver);
+
+        // Then
+        // Driver can only project as many events as permitted by the in-flight window
+        waitFor(() -> sink.outstanding() == 10);
+        Thread.sleep(100);
+        Assert.assertEquals(sink.outstanding(), 10);
+        Assert.assertTrue(source.getProcessed().isEmpty());
+
+        // And
+        // As events are acknowledged they are reported as processed and the driver continues
+        while (!future.isDone()) {
+            sink.ackAll();
+            Thread.sleep(5);
+        }
+        future.get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(sink.maxOutstanding() <= 10);
+        Assert.assertEquals(sink.acknowledged().size(), 100);
+        verifyProcessedInOrder(source.getProcessed(), 100);
+    }
+
+    @Test
+    public void async_driver_02() throws InterruptedException, ExecutionException, TimeoutException {
+        // Given
+        RecordingEventSource<Integer, Integer> source = new RecordingEventSource<>(createEvents(1_000));
+        DeferredAckSink sink = new DeferredAckSink();
+        ProjectorDriver<Integer, Integer, Integer> driver = driver(source, sink).maxInFlight(2_000).build();
+
+        // When
+        this.executor.submit(driver).get(5, TimeUnit.SECONDS);
+
+        // Then
+        // Window is larger than the number of events so nothing is acknowledged until the sink is closed, at which
+        // point all events are reported as processed
+        Assert.assertEquals(sink.maxOutstanding(), 1_000);
+        verifyProcessedInOrder(source.getProcessed(), 1_000);
+    }
+
+    @Test
+    public void async_driver_03() throws InterruptedException, TimeoutException {
+        // Given
+        RecordingEventSource<Integer, Integer> source = new RecordingEventSource<>(createEvents(100));
+        DeferredAckSink sink = new DeferredAckSink(50);
+        ProjectorDriver<Integer, Integer, Integer> driver = driver(source, sink).maxInFlight(10).build();
+
+        // When
+        Future<?> future = this.executor.submit(driver);
+        while (!future.isDone()) {
+            sink.ackAll();
+            Thread.sleep(5);
+        }
+
+        // Then
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("Expected the driver to fail");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SinkException);
+        }
+
+        // And
+        // Only the events prior to the failed event can be reported as processed
+        verifyProcessedInOrder(source.getProcessed(), 50);
+    }
+
+    @Test
+    public void async_driver_04() throws InterruptedException, ExecutionException, TimeoutException {
+        // Given
+        RecordingEventSource<Integer, Integer> source = new RecordingEventSource<>(createEvents(1_000));
+        List<Integer> output = Collections.synchronizedList(new ArrayList<>());
+        ProjectorDriver<Integer, Integer, Integer> driver =
+                driver(source, output::add).maxInFlight(10).processedBatchSize(100).batchSize(25).build();
+
+        // When
+        this.executor.submit(driver).get(5, TimeUnit.SECONDS);
+
+        // Then
+        // A synchronous sink acknowledges immediately
+        Assert.assertEquals(output.size(), 1_000);
+        verifyProcessedInOrder(source.getProcessed(), 1_000);
+        Assert.assertEquals(source.getProcessedCalls(), 10);
+    }
+
+    @Test
+    public void async_driver_05() throws InterruptedException, ExecutionException, TimeoutException {
+        // Given
+        RecordingEventSource<Integer, Integer> source = new RecordingEventSource<>(createEvents(1_000));
+        DeferredAckSink sink = new DeferredAckSink();
+        ProjectorDriver<Integer, Integer, Integer> driver =
+                driver(source, sink).parallel(4).maxInFlight(50).processedBatchSize(10).build();
+
+        // When
+        Future<?> future = this.executor.submit(driver);
+
+        // Then
+        waitFor(() -> sink.outstanding() >= 50);
+        Thread.sleep(100);
+        Assert.assertTrue(source.getProcessed().isEmpty());
+
+        // And
+        while (!future.isDone()) {
+            sink.ackAll();
+            Thread.sleep(5);
+        }
+        future.get(5, TimeUnit.SECONDS);
+        verifyProcessedInOrder(source.getProcessed(), 1_000);
+    }
+
+    @Test
+    public void async_driver_06() throws InterruptedException, ExecutionException, TimeoutException {
+        // Given
+        RecordingEventSource<Integer, Integer> source = new RecordingEventSource<>(createEvents(100));
+        try (CollectorSink<Integer> sink = CollectorSink.of()) {
+            ProjectorDriver<Integer, Integer, Integer> driver = driver(source, sink).build();
+
+            // When
+            this.executor.submit(driver).get(5, TimeUnit.SECONDS);
+
+            // Then
+            // No in-flight tracking by default so nothing reported as processed by the driver
+            Assert.assertTrue(source.getProcessed().isEmpty());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Max In-Flight.*")
+    public void async_driver_bad_01() {
+        driver(new RecordingEventSource<>(createEvents(1)), new DeferredAckSink()).maxInFlight(-1).build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*auto-committing.*")
+    public void async_driver_bad_02() {
+        driver(RecordingEventSource.autoCommitting(createEvents(1)), new DeferredAckSink()).maxInFlight(10).build();
+    }
+}
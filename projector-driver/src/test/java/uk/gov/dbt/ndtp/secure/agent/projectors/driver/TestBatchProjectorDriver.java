@@ -0,0 +1,190 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.driver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.projectors.BatchProjector;
+import uk.gov.dbt.ndtp.secure.agent.projectors.NoOpProjector;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Sink;
+import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.NullSink;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.memory.SimpleEvent;
+
+public class TestBatchProjectorDriver {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterClass
+    public void cleanup() {
+        this.executor.shutdownNow();
+    }
+
+    private static List<Event<Integer, Integer>> createEvents(int count) {
+        List<Event<Integer, Integer>> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new SimpleEvent<>(Collections.emptyList(), i, i));
+        }
+        return events;
+    }
+
+    /**
+     * A batch projector that records the size of each batch it is given
+     */
+    private static final class RecordingBatchProjector implements BatchProjector<Event<Integer, Integer>, Integer> {
+        private final List<Integer> batchSizes = new ArrayList<>();
+        private int singleProjections = 0;
+
+        @Override
+        public void project(Event<Integer, Integer> event, Sink<Integer> sink) {
+            this.singleProjections++;
+            sink.send(event.value());
+        }
+
+        @Override
+        public void projectBatch(List<Event<Integer, Integer>> inputs, Sink<Integer> sink) {
+            this.batchSizes.add(inputs.size());
+            for (Event<Integer, Integer> input : inputs) {
+                sink.send(input.value());
+            }
+        }
+    }
+
+    private static void verifyInOrder(List<Integer> values, int expected) {
+        Assert.assertEquals(values.size(), expected);
+        for (int i = 0; i < values.size(); i++) {
+            Assert.assertEquals(values.get(i), i);
+        }
+    }
+
+    @Test
+    public void batch_driver_01() throws ExecutionException, InterruptedException, TimeoutException {
+        // Given
+        RecordingEventSource<Integer, Integer> source = new RecordingEventSource<>(createEvents(10_000));
+        RecordingBatchProjector projector = new RecordingBatchProjector();
+        List<Integer> output = new ArrayList<>();
+        ProjectorDriver<Integer, Integer, Integer> driver =
+                ProjectorDriver.<Integer, Integer, Integer>create()
+                               .source(source)
+                               .projector(projector)
+                               .destination(output::add)
+                               .batchSize(100)
+                               .build();
+
+        // When
+        this.executor.submit(driver).get(5, TimeUnit.SECONDS);
+
+        // Then
+        Assert.assertTrue(source.isClosed());
+        verifyInOrder(output, 10_000);
+        Assert.assertEquals(projector.batchSizes.size(), 100);
+        Assert.assertTrue(projector.batchSizes.stream().allMatch(s -> s == 100));
+        Assert.assertEquals(projector.singleProjections, 0);
+    }
+
+    @Test
+    public void batch_driver_02() throws ExecutionException, InterruptedException, TimeoutException {
+        // Given a regular projector
+        RecordingEventSource<Integer, Integer> source = new RecordingEventSource<>(createEvents(1_234));
+        List<Integer> output = new ArrayList<>();
+        ProjectorDriver<Integer, Integer, Integer> driver =
+                ProjectorDriver.<Integer, Integer, Integer>create()
+                               .source(source)
+                               .projector((event, s) -> s.send(event.value()))
+                               .destination(output::add)
+                               .batchSize(100)
+                               .build();
+
+        // When
+        this.executor.submit(driver).get(5, TimeUnit.SECONDS);
+
+        // Then
+        verifyInOrder(output, 1_234);
+    }
+
+    @Test
+    public void batch_driver_03() throws ExecutionException, InterruptedException, TimeoutException {
+        // Given a limit that isn't a multiple of the batch size
+        InfiniteEventSource source = new InfiniteEventSource("Event %,d", 0);
+        ProjectorDriver<Integer, String, Event<Integer, String>> driver =
+                ProjectorDriver.<Integer, String, Event<Integer, String>>create()
+                               .source(source)
+                               .projector(new NoOpProjector<>())
+                               .destination(NullSink.of())
+                               .batchSize(100)
+                               .limit(1_050)
+                               .build();
+
+        // When
+        this.executor.submit(driver).get(5, TimeUnit.SECONDS);
+
+        // Then
+        Assert.assertTrue(source.isClosed());
+        Assert.assertEquals(source.eventsYielded(), 1_050);
+    }
+
+    @Test
+    public void batch_driver_04() throws ExecutionException, InterruptedException, TimeoutException {
+        // Given batching combined with parallel projection
+        RecordingEventSource<Integer, Integer> source = new RecordingEventSource<>(createEvents(5_000));
+        ProjectorDriver<Integer, Integer, Integer> driver =
+                ProjectorDriver.<Integer, Integer, Integer>create()
+                               .source(source)
+                               .projector((event, s) -> s.send(event.value()))
+                               .destination(() -> NullSink.of())
+                               .batchSize(100)
+                               .parallel(4)
+                               .build();
+
+        // When
+        this.executor.submit(driver).get(5, TimeUnit.SECONDS);
+
+        // Then
+        List<Event<Integer, Integer>> processed = source.getProcessed();
+        Assert.assertEquals(processed.size(), 5_000);
+        for (int i = 0; i < processed.size(); i++) {
+            Assert.assertEquals(processed.get(i).value(), i);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void batch_driver_bad_01() {
+        ProjectorDriver.<Integer, String, Event<Integer, String>>create()
+                       .source(new InfiniteEventSource("Event %,d", 0))
+                       .projector(new NoOpProjector<>())
+                       .destination(NullSink.of())
+                       .batchSize(0)
+                       .build();
+    }
+}
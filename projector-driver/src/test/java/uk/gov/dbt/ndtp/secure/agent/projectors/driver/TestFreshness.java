@@ -0,0 +1,190 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.driver;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.observability.AttributeNames;
+import uk.gov.dbt.ndtp.secure.agent.observability.metrics.MetricTestUtils;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Sink;
+import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.NullSink;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.memory.SimpleEvent;
+
+public class TestFreshness {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @BeforeClass
+    public void setup() {
+        MetricTestUtils.enableMetricsCapture();
+    }
+
+    @AfterClass
+    public void teardown() {
+        MetricTestUtils.disableMetricsCapture();
+        this.executor.shutdownNow();
+    }
+
+    private static List<Event<Integer, Long>> createEvents(int count, long producedAt) {
+        List<Event<Integer, Long>> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new SimpleEvent<>(Collections.emptyList(), i, producedAt));
+        }
+        return events;
+    }
+
+    private static Attributes attributes(String label) {
+        return Attributes.of(AttributeKey.stringKey(AttributeNames.ITEMS_TYPE), label);
+    }
+
+    private static Attributes attributes(String label, String topic) {
+        return attributes(label).toBuilder()
+                                .put(AttributeKey.stringKey(DriverMetricNames.TOPIC_ATTRIBUTE), topic)
+                                .build();
+    }
+
+    @Test
+    public void freshness_01() {
+        // Given
+        FreshnessTracker<Integer, Long> tracker =
+                new FreshnessTracker<>(Event::value, e -> e.key() % 2 == 0 ? "even" : "odd",
+                                       attributes("freshness_01"));
+        List<Event<Integer, Long>> events = createEvents(10, 1_000);
+
+        // When
+        tracker.polled(events, 3_000);
+        tracker.projected(events, 3_000, 3_500);
+
+        // Then
+        for (String topic : List.of("even", "odd")) {
+            Attributes attributes = attributes("freshness_01", topic);
+            Assert.assertEquals(MetricTestUtils.getReportedMetric(DriverMetricNames.FRESHNESS_PRODUCED_TO_POLLED,
+                                                                  attributes), 10.0);
+            Assert.assertEquals(MetricTestUtils.getReportedMetric(
+                    DriverMetricNames.FRESHNESS_PRODUCED_TO_POLLED + ".count", attributes), 5.0);
+            Assert.assertEquals(MetricTestUtils.getReportedMetric(DriverMetricNames.FRESHNESS_POLLED_TO_PROJECTED,
+                                                                  attributes), 2.5);
+            Assert.assertEquals(MetricTestUtils.getReportedMetric(DriverMetricNames.FRESHNESS_PRODUCED_TO_PROJECTED,
+                                                                  attributes), 12.5);
+            Assert.assertEquals(
+                    MetricTestUtils.getReportedMetric(DriverMetricNames.FRESHNESS_SECONDS_BEHIND, attributes), 2.5);
+        }
+    }
+
+    @Test
+    public void freshness_02() {
+        // Given no timestamps or topics
+        FreshnessTracker<Integer, Long> tracker =
+                new FreshnessTracker<>(e -> null, e -> null, attributes("freshness_02"));
+        List<Event<Integer, Long>> events = createEvents(4, 1_000);
+
+        // When
+        tracker.polled(events, 3_000);
+        tracker.projected(events, 3_000, 3_250);
+
+        // Then only polled to projected is recorded
+        Assert.assertEquals(MetricTestUtils.getReportedMetric(DriverMetricNames.FRESHNESS_POLLED_TO_PROJECTED,
+                                                              attributes("freshness_02")), 1.0);
+        Assert.assertThrows(IllegalStateException.class, () -> MetricTestUtils.getReportedMetric(
+                DriverMetricNames.FRESHNESS_PRODUCED_TO_POLLED, attributes("freshness_02")));
+    }
+
+    @Test
+    public void freshness_03() {
+        // Given a producer clock that is ahead of ours
+        FreshnessTracker<Integer, Long> tracker =
+                new FreshnessTracker<>(Event::value, e -> "ahead", attributes("freshness_03"));
+        List<Event<Integer, Long>> events = createEvents(1, 5_000);
+
+        // When
+        tracker.polled(events, 3_000);
+        tracker.projected(events, 3_000, 3_100);
+
+        // Then latencies are never negative
+        Attributes attributes = attributes("freshness_03", "ahead");
+        Assert.assertEquals(
+                MetricTestUtils.getReportedMetric(DriverMetricNames.FRESHNESS_PRODUCED_TO_POLLED, attributes), 0.0);
+        Assert.assertEquals(
+                MetricTestUtils.getReportedMetric(DriverMetricNames.FRESHNESS_SECONDS_BEHIND, attributes), 0.0);
+    }
+
+    @DataProvider(name = "modes")
+    public Object[][] modes() {
+        return new Object[][] {
+                { 1, 1, 0 }, { 1, 100, 0 }, { 1, 100, 500 }, { 4, 100, 0 }
+        };
+    }
+
+    @Test(dataProvider = "modes")
+    public void freshness_driver_01(int parallelism, int batchSize, int maxInFlight) throws ExecutionException,
+            InterruptedException, TimeoutException {
+        // Given
+        AtomicInteger timestamps = new AtomicInteger();
+        Function<Event<Integer, Long>, Long> timestamp = e -> {
+            timestamps.incrementAndGet();
+            return e.value();
+        };
+        AtomicInteger projected = new AtomicInteger();
+        Supplier<Sink<Event<Integer, Long>>> sinks = NullSink::of;
+        ProjectorDriver<Integer, Long, Event<Integer, Long>> driver =
+                ProjectorDriver.<Integer, Long, Event<Integer, Long>>create()
+                               .source(new RecordingEventSource<>(
+                                       createEvents(1_000, System.currentTimeMillis() - 1_000)))
+                               .projector((e, s) -> {
+                                   projected.incrementAndGet();
+                                   s.send(e);
+                               })
+                               .destination(sinks)
+                               .parallel(parallelism)
+                               .batchSize(batchSize)
+                               .maxInFlight(maxInFlight)
+                               .freshness(timestamp, e -> "test")
+                               .build();
+
+        // When
+        this.executor.submit(driver).get(5, TimeUnit.SECONDS);
+
+        // Then each event's timestamp was used once when polled and once when projected
+        Assert.assertEquals(timestamps.get(), 2_000);
+        Assert.assertEquals(projected.get(), 1_000);
+    }
+}
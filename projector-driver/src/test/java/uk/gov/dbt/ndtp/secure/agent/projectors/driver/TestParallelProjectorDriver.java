@@ -0,0 +1,347 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.driver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.projectors.NoOpProjector;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Projector;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Sink;
+import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.NullSink;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.memory.SimpleEvent;
+
+public class TestParallelProjectorDriver {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterClass
+    public void cleanup() {
+        this.executor.shutdownNow();
+    }
+
+    private static List<Event<Integer, Integer>> createEvents(int count, int distinctKeys) {
+        List<Event<Integer, Integer>> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new SimpleEvent<>(Collections.emptyList(), i % distinctKeys, i));
+        }
+        return events;
+    }
+
+    /**
+     * A projector that records the order in which values were projected for each key, and introduces some random
+     * jitter into projection so that workers progress at different rates
+     */
+    private static final class OrderRecordingProjector implements Projector<Event<Integer, Integer>, Integer> {
+        private final Map<Object, List<Integer>> projected = new ConcurrentHashMap<>();
+
+        @Override
+        public void project(Event<Integer, Integer> event, Sink<Integer> sink) {
+            if (ThreadLocalRandom.current().nextInt(100) == 0) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            this.projected.computeIfAbsent(event.key(), k -> Collections.synchronizedList(new ArrayList<>()))
+                          .add(event.value());
+            sink.send(event.value());
+        }
+    }
+
+    private static void verifyAscending(List<Integer> values) {
+        for (int i = 1; i < values.size(); i++) {
+            Assert.assertTrue(values.get(i - 1) < values.get(i),
+                              "Values out of order at index " + i + ": " + values.get(i - 1) + " >= " + values.get(
+                                      i));
+        }
+    }
+
+    private static void verifyProcessedPrefix(List<Event<Integer, Integer>> processed) {
+        for (int i = 0; i < processed.size(); i++) {
+            Assert.assertEquals(processed.get(i).value(), i, "Processed events not reported in source order");
+        }
+    }
+
+    @Test
+    public void parallel_driver_01() throws ExecutionException, InterruptedException, TimeoutException {
+        // Given
+        RecordingEventSource<Integer, Integer> source = new RecordingEventSource<>(createEvents(10_000, 25));
+        OrderRecordingProjector projector = new OrderRecordingProjector();
+        ProjectorDriver<Integer, Integer, Integer> driver =
+                ProjectorDriver.<Integer, Integer, Integer>create()
+                               .source(source)
+                               .projector(projector)
+                               .destination(() -> NullSink.of())
+                               .parallel(4)
+                               .processedBatchSize(100)
+                               .build();
+
+        // When
+        this.executor.submit(driver).get(10, TimeUnit.SECONDS);
+
+        // Then
+        Assert.assertTrue(source.isClosed());
+        Assert.assertEquals(projector.projected.size(), 25);
+        int total = 0;
+        for (List<Integer> values : projector.projected.values()) {
+            verifyAscending(values);
+            total += values.size();
+        }
+        Assert.assertEquals(total, 10_000);
+
+        // And
+        List<Event<Integer, Integer>> processed = source.getProcessed();
+        Assert.assertEquals(processed.size(), 10_000);
+        verifyProcessedPrefix(processed);
+        Assert.assertTrue(source.getProcessedCalls() > 0);
+    }
+
+    @Test
+    public void parallel_driver_02() throws ExecutionException, InterruptedException, TimeoutException {
+        // Given
+        InfiniteEventSource source = new InfiniteEventSource("Event %,d", 0);
+        ProjectorDriver<Integer, String, Event<Integer, String>> driver =
+                ProjectorDriver.<Integer, String, Event<Integer, String>>create()
+                               .source(source)
+                               .projector(new NoOpProjector<>())
+                               .destination(() -> NullSink.of())
+                               .parallel(3)
+                               .limit(5_000)
+                               .build();
+
+        // When
+        this.executor.submit(driver).get(5, TimeUnit.SECONDS);
+
+        // Then
+        Assert.assertTrue(source.isClosed());
+        Assert.assertEquals(source.eventsYielded(), 5_000);
+    }
+
+    @Test
+    public void parallel_driver_03() throws InterruptedException, TimeoutException {
+        // Given
+        RecordingEventSource<Integer, Integer> source = new RecordingEventSource<>(createEvents(10_000, 10));
+        ProjectorDriver<Integer, Integer, Integer> driver =
+                ProjectorDriver.<Integer, Integer, Integer>create()
+                               .source(source)
+                               .projector((event, sink) -> {
+                                   if (event.value() == 5_000) {
+                                       throw new IllegalStateException("Bad event");
+                                   }
+                                   sink.send(event.value());
+                               })
+                               .destination(() -> NullSink.of())
+                               .parallel(4)
+                               .processedBatchSize(10)
+                               .build();
+
+        // When
+        Future<?> future = this.executor.submit(driver);
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            Assert.fail("Expected the worker failure to be propagated");
+        } catch (ExecutionException e) {
+            // Then
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+            Assert.assertEquals(e.getCause().getMessage(), "Bad event");
+        }
+
+        // And
+        Assert.assertTrue(source.isClosed());
+        List<Event<Integer, Integer>> processed = source.getProcessed();
+        Assert.assertTrue(processed.size() <= 5_000);
+        verifyProcessedPrefix(processed);
+    }
+
+    @Test
+    public void parallel_driver_04() throws ExecutionException, InterruptedException, TimeoutException {
+        // Given
+        RecordingEventSource<Integer, Integer> source = new RecordingEventSource<>(createEvents(1_000, 100));
+        AtomicInteger created = new AtomicInteger(0);
+        AtomicInteger closed = new AtomicInteger(0);
+        ProjectorDriver<Integer, Integer, Integer> driver =
+                ProjectorDriver.<Integer, Integer, Integer>create()
+                               .source(source)
+                               .projector(new OrderRecordingProjector())
+                               .destination(() -> {
+                                   created.incrementAndGet();
+                                   return new Sink<>() {
+                                       @Override
+                                       public void send(Integer item) {
+                                           // No-op
+                                       }
+
+                                       @Override
+                                       public void close() {
+                                           closed.incrementAndGet();
+                                       }
+                                   };
+                               })
+                               .parallel(5)
+                               .build();
+
+        // When
+        this.executor.submit(driver).get(5, TimeUnit.SECONDS);
+
+        // Then
+        Assert.assertEquals(created.get(), 5);
+        Assert.assertEquals(closed.get(), 5);
+        Assert.assertEquals(source.getProcessed().size(), 1_000);
+    }
+
+    @Test
+    public void parallel_driver_05() throws ExecutionException, InterruptedException, TimeoutException {
+        // Given
+        RecordingEventSource<Integer, Integer> source = new RecordingEventSource<>(createEvents(5_000, 5_000));
+        OrderRecordingProjector projector = new OrderRecordingProjector();
+        Map<Object, List<Integer>> byParity = new ConcurrentHashMap<>();
+        ProjectorDriver<Integer, Integer, Integer> driver =
+                ProjectorDriver.<Integer, Integer, Integer>create()
+                               .source(source)
+                               .projector((event, sink) -> {
+                                   projector.project(event, sink);
+                                   byParity.computeIfAbsent(event.value() % 2,
+                                                            k -> Collections.synchronizedList(new ArrayList<>()))
+                                           .add(event.value());
+                               })
+                               .destination(() -> NullSink.of())
+                               .parallel(4)
+                               // Order by parity rather than by event key
+                               .orderingKey(e -> e.value() % 2)
+                               .build();
+
+        // When
+        this.executor.submit(driver).get(10, TimeUnit.SECONDS);
+
+        // Then
+        Assert.assertEquals(byParity.size(), 2);
+        byParity.values().forEach(TestParallelProjectorDriver::verifyAscending);
+        verifyProcessedPrefix(source.getProcessed());
+        Assert.assertEquals(source.getProcessed().size(), 5_000);
+    }
+
+    @Test
+    public void parallel_driver_06() throws ExecutionException, InterruptedException, TimeoutException {
+        // Given a single shared sink, which is permitted provided it is thread-safe
+        RecordingEventSource<Integer, Integer> source = new RecordingEventSource<>(createEvents(1_000, 10));
+        AtomicInteger closed = new AtomicInteger(0);
+        AtomicInteger received = new AtomicInteger(0);
+        Sink<Integer> shared = new Sink<>() {
+            @Override
+            public void send(Integer item) {
+                received.incrementAndGet();
+            }
+
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+            }
+        };
+        ProjectorDriver<Integer, Integer, Integer> driver =
+                ProjectorDriver.<Integer, Integer, Integer>create()
+                               .source(source)
+                               .projector((event, sink) -> sink.send(event.value()))
+                               .destination(shared)
+                               .parallel(3)
+                               .build();
+
+        // When
+        this.executor.submit(driver).get(5, TimeUnit.SECONDS);
+
+        // Then
+        Assert.assertEquals(received.get(), 1_000);
+        Assert.assertEquals(closed.get(), 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void parallel_driver_bad_01() {
+        ProjectorDriver.<Integer, String, Event<Integer, String>>create()
+                       .source(new InfiniteEventSource("Event %,d", 0))
+                       .projector(new NoOpProjector<>())
+                       .destination(() -> NullSink.of())
+                       .parallel(0)
+                       .build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void parallel_driver_bad_02() {
+        ProjectorDriver.<Integer, String, Event<Integer, String>>create()
+                       .source(new InfiniteEventSource("Event %,d", 0))
+                       .projector(new NoOpProjector<>())
+                       .destination(() -> NullSink.of())
+                       .parallel(2)
+                       .processedBatchSize(0)
+                       .build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*auto-committing.*")
+    public void parallel_driver_bad_03() {
+        ProjectorDriver.<Integer, Integer, Integer>create()
+                       .source(RecordingEventSource.autoCommitting(createEvents(10, 10)))
+                       .projector(new OrderRecordingProjector())
+                       .destination(() -> NullSink.of())
+                       .parallel(2)
+                       .build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*auto-committing.*")
+    public void parallel_driver_bad_04() {
+        ProjectorDriver.<Integer, Integer, Integer>create()
+                       .source(RecordingEventSource.autoCommitting(createEvents(10, 10)))
+                       .projector(new OrderRecordingProjector())
+                       .destination(() -> NullSink.of())
+                       .unordered(2)
+                       .build();
+    }
+
+    @Test
+    public void parallel_driver_07() {
+        // Sequential projection is still permitted with an auto-committing source
+        ProjectorDriver<Integer, Integer, Integer> driver =
+                ProjectorDriver.<Integer, Integer, Integer>create()
+                               .source(RecordingEventSource.autoCommitting(createEvents(10, 10)))
+                               .projector(new OrderRecordingProjector())
+                               .destination(() -> NullSink.of())
+                               .parallel(1)
+                               .build();
+        Assert.assertNotNull(driver);
+    }
+}
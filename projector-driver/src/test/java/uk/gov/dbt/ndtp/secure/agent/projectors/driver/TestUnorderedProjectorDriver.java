@@ -0,0 +1,294 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.driver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.projectors.NoOpProjector;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Sink;
+import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.NullSink;
+import uk.gov.dbt.ndtp.secure.agent.sources.Event;
+import uk.gov.dbt.ndtp.secure.agent.sources.memory.SimpleEvent;
+
+public class TestUnorderedProjectorDriver {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterClass
+    public void cleanup() {
+        this.executor.shutdownNow();
+    }
+
+    private static List<Event<Integer, Integer>> createEvents(int count) {
+        List<Event<Integer, Integer>> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new SimpleEvent<>(Collections.emptyList(), i, i));
+        }
+        return events;
+    }
+
+    private static void verifyProcessedPrefix(List<Event<Integer, Integer>> processed) {
+        for (int i = 0; i < processed.size(); i++) {
+            Assert.assertEquals(processed.get(i).value(), i, "Processed events not reported in source order");
+        }
+    }
+
+    /**
+     * An event source that does not consider itself exhausted until explicitly released, so the driver keeps polling,
+     * and reporting completed events, while the test holds up projection of some events
+     */
+    private static final class HeldEventSource extends RecordingEventSource<Integer, Integer> {
+        private final boolean parityLanes;
+        private volatile boolean released = false;
+
+        HeldEventSource(List<Event<Integer, Integer>> events) {
+            this(events, false);
+        }
+
+        HeldEventSource(List<Event<Integer, Integer>> events, boolean parityLanes) {
+            super(events);
+            this.parityLanes = parityLanes;
+        }
+
+        @Override
+        public Object completionLane(Event<Integer, Integer> event) {
+            return this.parityLanes ? event.value() % 2 : null;
+        }
+
+        void release() {
+            this.released = true;
+        }
+
+        @Override
+        public boolean isExhausted() {
+            return this.released && super.isExhausted();
+        }
+    }
+
+    @Test
+    public void unordered_driver_01() throws ExecutionException, InterruptedException, TimeoutException {
+        // Given
+        RecordingEventSource<Integer, Integer> source = new RecordingEventSource<>(createEvents(10_000));
+        Set<Integer> projected = ConcurrentHashMap.newKeySet();
+        AtomicInteger created = new AtomicInteger(0);
+        AtomicInteger closed = new AtomicInteger(0);
+        ProjectorDriver<Integer, Integer, Integer> driver =
+                ProjectorDriver.<Integer, Integer, Integer>create()
+                               .source(source)
+                               .projector((event, sink) -> {
+                                   projected.add(event.value());
+                                   sink.send(event.value());
+                               })
+                               .destination(() -> {
+                                   created.incrementAndGet();
+                                   return new Sink<>() {
+                                       @Override
+                                       public void send(Integer item) {
+                                           // No-op
+                                       }
+
+                                       @Override
+                                       public void close() {
+                                           closed.incrementAndGet();
+                                       }
+                                   };
+                               })
+                               .unordered(4)
+                               .processedBatchSize(100)
+                               .build();
+
+        // When
+        this.executor.submit(driver).get(10, TimeUnit.SECONDS);
+
+        // Then
+        Assert.assertTrue(source.isClosed());
+        Assert.assertEquals(projected.size(), 10_000);
+        Assert.assertTrue(created.get() >= 1 && created.get() <= 4, "Expected at most one sink per worker");
+        Assert.assertEquals(closed.get(), created.get());
+
+        // And
+        List<Event<Integer, Integer>> processed = source.getProcessed();
+        Assert.assertEquals(processed.size(), 10_000);
+        verifyProcessedPrefix(processed);
+    }
+
+    @Test
+    public void unordered_driver_02() throws ExecutionException, InterruptedException, TimeoutException {
+        // Given an event that blocks its worker until we release it, and completion lanes based on parity
+        HeldEventSource source = new HeldEventSource(createEvents(1_000));
+        verifyHeldLane(source, ProjectorDriver.<Integer, Integer, Integer>create().completionLanes(e -> e.value() % 2));
+    }
+
+    @Test
+    public void unordered_driver_05() throws ExecutionException, InterruptedException, TimeoutException {
+        // Given an event that blocks its worker until we release it, and a source whose lanes are based on parity, the
+        // driver uses the source's lanes by default
+        HeldEventSource source = new HeldEventSource(createEvents(1_000), true);
+        verifyHeldLane(source, ProjectorDriver.create());
+    }
+
+    private void verifyHeldLane(HeldEventSource source, ProjectorDriverBuilder<Integer, Integer, Integer> builder)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        CountDownLatch release = new CountDownLatch(1);
+        ProjectorDriver<Integer, Integer, Integer> driver =
+                builder.source(source)
+                       .pollTimeout(Duration.ofMillis(10))
+                       .projector((event, sink) -> {
+                           if (event.value() == 0) {
+                               try {
+                                   release.await();
+                               } catch (InterruptedException e) {
+                                   Thread.currentThread().interrupt();
+                               }
+                           }
+                           sink.send(event.value());
+                       })
+                       .destination(() -> NullSink.of())
+                       .unordered(4)
+                       .processedBatchSize(1)
+                       .build();
+
+        // When
+        Future<?> future = this.executor.submit(driver);
+
+        // Then all the odd events are reported while the even lane remains held up behind the blocked event
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (source.getProcessed().size() < 500 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        List<Event<Integer, Integer>> processed = source.getProcessed();
+        Assert.assertEquals(processed.size(), 500);
+        for (Event<Integer, Integer> event : processed) {
+            Assert.assertEquals(event.value() % 2, 1, "Events from the held lane should not have been reported");
+        }
+
+        // And once released everything is reported
+        release.countDown();
+        source.release();
+        future.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(source.getProcessed().size(), 1_000);
+        List<Integer> even = source.getProcessed()
+                                   .stream()
+                                   .map(Event::value)
+                                   .filter(v -> v % 2 == 0)
+                                   .toList();
+        for (int i = 0; i < even.size(); i++) {
+            Assert.assertEquals(even.get(i), i * 2, "Events within a lane not reported in source order");
+        }
+    }
+
+    @Test
+    public void unordered_driver_03() throws InterruptedException, TimeoutException {
+        // Given
+        RecordingEventSource<Integer, Integer> source = new RecordingEventSource<>(createEvents(10_000));
+        ProjectorDriver<Integer, Integer, Integer> driver =
+                ProjectorDriver.<Integer, Integer, Integer>create()
+                               .source(source)
+                               .projector((event, sink) -> {
+                                   if (event.value() == 5_000) {
+                                       throw new IllegalStateException("Bad event");
+                                   }
+                                   sink.send(event.value());
+                               })
+                               .destination(() -> NullSink.of())
+                               .unordered(4)
+                               .processedBatchSize(10)
+                               .build();
+
+        // When
+        Future<?> future = this.executor.submit(driver);
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            Assert.fail("Expected the worker failure to be propagated");
+        } catch (ExecutionException e) {
+            // Then
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+            Assert.assertEquals(e.getCause().getMessage(), "Bad event");
+        }
+
+        // And
+        Assert.assertTrue(source.isClosed());
+        List<Event<Integer, Integer>> processed = source.getProcessed();
+        Assert.assertTrue(processed.size() <= 5_000);
+        verifyProcessedPrefix(processed);
+    }
+
+    @Test
+    public void unordered_driver_04() throws ExecutionException, InterruptedException, TimeoutException {
+        // Given
+        InfiniteEventSource source = new InfiniteEventSource("Event %,d", 0);
+        ProjectorDriver<Integer, String, Event<Integer, String>> driver =
+                ProjectorDriver.<Integer, String, Event<Integer, String>>create()
+                               .source(source)
+                               .projector(new NoOpProjector<>())
+                               .destination(() -> NullSink.of())
+                               .unordered()
+                               .limit(5_000)
+                               .build();
+
+        // When
+        this.executor.submit(driver).get(5, TimeUnit.SECONDS);
+
+        // Then
+        Assert.assertTrue(source.isClosed());
+        Assert.assertEquals(source.eventsYielded(), 5_000);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void unordered_driver_bad_01() {
+        ProjectorDriver.<Integer, String, Event<Integer, String>>create()
+                       .source(new InfiniteEventSource("Event %,d", 0))
+                       .projector(new NoOpProjector<>())
+                       .destination(() -> NullSink.of())
+                       .unordered(0)
+                       .build();
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void unordered_driver_bad_02() {
+        ProjectorDriver.<Integer, String, Event<Integer, String>>create()
+                       .source(new InfiniteEventSource("Event %,d", 0))
+                       .projector(new NoOpProjector<>())
+                       .destination(() -> NullSink.of())
+                       .unordered(2)
+                       .completionLanes(null)
+                       .build();
+    }
+}
@@ -0,0 +1,77 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Interface for sinks that process items asynchronously
+ * <p>
+ * In addition to the normal {@link #send(Object)} method these sinks provide {@link #sendAsync(Object)} which returns a
+ * future that completes once the item has actually been processed, e.g. once a remote system has acknowledged it.
+ * This allows callers to have many items in-flight at once while still knowing precisely when each item has been
+ * processed, which is required if callers wish to provide at-least-once delivery guarantees.
+ * </p>
+ *
+ * @param <T> Item type
+ */
+public interface AsyncSink<T> extends Sink<T> {
+
+    /**
+     * Sends an item to the sink asynchronously
+     * <p>
+     * If the item cannot be processed then the returned future completes exceptionally, although implementations
+     * <strong>MAY</strong> also throw a {@link SinkException} immediately if they can determine that the item cannot be
+     * processed without needing to wait.
+     * </p>
+     *
+     * @param item Item
+     * @return Future that completes once the item has been processed
+     */
+    CompletableFuture<Void> sendAsync(T item);
+
+    /**
+     * Sends an item to the sink, waiting for it to be processed
+     * <p>
+     * The default implementation calls {@link #sendAsync(Object)} and waits for the returned future to complete,
+     * implementations <strong>MAY</strong> override this if they have a more efficient way to process a single item.
+     * </p>
+     *
+     * @param item Item
+     * @throws SinkException Thrown if the item cannot be processed
+     */
+    @Override
+    default void send(T item) {
+        try {
+            sendAsync(item).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SinkException sinkException) {
+                throw sinkException;
+            }
+            throw new SinkException("Failed to process item, see cause for details", e.getCause());
+        }
+    }
+}
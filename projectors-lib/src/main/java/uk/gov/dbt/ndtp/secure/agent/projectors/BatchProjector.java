@@ -0,0 +1,57 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors;
+
+import java.util.List;
+
+/**
+ * A projector that is capable of projecting a batch of inputs at once
+ * <p>
+ * Projectors that can amortise some per-input overhead across many inputs, e.g. preparing some state once and reusing
+ * it for the entire batch, may implement this interface.  Callers that are able to supply inputs in batches will call
+ * {@link #projectBatch(List, Sink)} in preference to {@link #project(Object, Sink)}.
+ * </p>
+ *
+ * @param <TInput>  Input type
+ * @param <TOutput> Output type
+ */
+public interface BatchProjector<TInput, TOutput> extends Projector<TInput, TOutput> {
+
+    /**
+     * Projects a batch of inputs to the output sink
+     * <p>
+     * Implementations <strong>MUST</strong> project the inputs in the order they appear in the batch.  The default
+     * implementation simply calls {@link #project(Object, Sink)} for each input in turn.
+     * </p>
+     *
+     * @param inputs Inputs
+     * @param sink   Output sink
+     */
+    default void projectBatch(List<TInput> inputs, Sink<TOutput> sink) {
+        for (TInput input : inputs) {
+            project(input, sink);
+        }
+    }
+}
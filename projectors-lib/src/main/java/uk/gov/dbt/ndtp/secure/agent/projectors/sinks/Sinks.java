@@ -128,4 +128,14 @@ public class Sinks {
     public static <T> ThroughputSink.Builder<T> throughput() {
         return ThroughputSink.create();
     }
+
+    /**
+     * Creates a new fused sink pipeline builder
+     *
+     * @param <T> Item type
+     * @return Fused sink builder
+     */
+    public static <T> FusedSink.Builder<T, T> pipeline() {
+        return FusedSink.create();
+    }
 }
@@ -0,0 +1,226 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.sinks;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import org.apache.commons.lang3.StringUtils;
+import uk.gov.dbt.ndtp.secure.agent.observability.AttributeNames;
+import uk.gov.dbt.ndtp.secure.agent.observability.IANodeMetrics;
+import uk.gov.dbt.ndtp.secure.agent.observability.MetricNames;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Library;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Sink;
+import uk.gov.dbt.ndtp.secure.agent.projectors.SinkException;
+
+/**
+ * Records per-stage timing and drop metrics for a pipeline of sinks
+ * <p>
+ * Each stage of the pipeline is wrapped via {@link #wrap(Sink)}, typically by configuring
+ * {@link uk.gov.dbt.ndtp.secure.agent.projectors.sinks.builder.AbstractForwardingSinkBuilder#timings(StageTimings)} on
+ * the pipeline builder.  For sampled items the self-time of each stage, i.e. the time spent within that stage excluding
+ * time spent in subsequent wrapped stages, is recorded in the {@value MetricNames#STAGE_TIME} histogram.  For every
+ * item that a forwarding stage does not pass onto the next stage the {@value MetricNames#STAGE_DROPPED} counter is
+ * incremented, drops are only counted for stages whose destination is itself a wrapped stage.  Both metrics are
+ * labelled with the configured metrics label and the name of the stage.
+ * </p>
+ * <p>
+ * Timing every item would add noticeable overhead to high throughput pipelines, so only one in every
+ * {@code sampleInterval} items passing through the pipeline is timed.  The sampling decision is made when an item enters
+ * the outermost stage, so a sampled item is timed through every stage it reaches.
+ * </p>
+ * <p>
+ * Like sinks, an instance is not thread-safe and <strong>MUST</strong> only be used for a single pipeline that is only
+ * used from a single thread.
+ * </p>
+ */
+public final class StageTimings {
+
+    /**
+     * The default sampling interval
+     */
+    public static final int DEFAULT_SAMPLE_INTERVAL = 100;
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final String metricsLabel;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final int sampleInterval;
+    private final DoubleHistogram timingMetric;
+    private final LongCounter droppedMetric;
+    private final Map<String, Integer> names = new HashMap<>();
+
+    private int depth = 0;
+    private long items = 0;
+    private long entries = 0;
+    private long childNanos = 0;
+    private boolean sampling = false;
+
+    /**
+     * Creates new stage timings using the {@link #DEFAULT_SAMPLE_INTERVAL}
+     *
+     * @param metricsLabel Metrics label
+     */
+    public StageTimings(String metricsLabel) {
+        this(metricsLabel, DEFAULT_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * Creates new stage timings
+     *
+     * @param metricsLabel   Metrics label
+     * @param sampleInterval Sampling interval, one in every {@code sampleInterval} items is timed, {@code 1} times
+     *                       every item
+     */
+    public StageTimings(String metricsLabel, int sampleInterval) {
+        if (StringUtils.isBlank(metricsLabel)) {
+            throw new IllegalArgumentException("Metrics Label cannot be blank");
+        }
+        if (sampleInterval < 1) {
+            throw new IllegalArgumentException("Sample Interval must be >= 1");
+        }
+        this.metricsLabel = metricsLabel;
+        this.sampleInterval = sampleInterval;
+
+        Meter meter = IANodeMetrics.getMeter(Library.NAME);
+        //@formatter:off
+        this.timingMetric = meter.histogramBuilder(MetricNames.STAGE_TIME)
+                                 .setDescription(MetricNames.STAGE_TIME_DESCRIPTION)
+                                 .setUnit("seconds")
+                                 .build();
+        this.droppedMetric = meter.counterBuilder(MetricNames.STAGE_DROPPED)
+                                  .setDescription(MetricNames.STAGE_DROPPED_DESCRIPTION)
+                                  .build();
+        //@formatter:on
+    }
+
+    /**
+     * Gets the sampling interval
+     *
+     * @return Sampling interval
+     */
+    public int sampleInterval() {
+        return this.sampleInterval;
+    }
+
+    /**
+     * Gets the metric attributes used for a stage
+     *
+     * @param stage Stage name
+     * @return Metric attributes
+     */
+    Attributes attributes(String stage) {
+        return Attributes.of(AttributeKey.stringKey(AttributeNames.ITEMS_TYPE), this.metricsLabel,
+                             AttributeKey.stringKey(AttributeNames.INSTANCE_ID), this.instanceId,
+                             AttributeKey.stringKey(AttributeNames.STAGE), stage);
+    }
+
+    /**
+     * Wraps a stage so that its timings are recorded
+     * <p>
+     * Stages are named after the simple class name of the sink, with a numeric suffix if several stages of the same type
+     * are wrapped.  Wrapping a sink that has already been wrapped returns it unchanged.
+     * </p>
+     *
+     * @param stage Stage to wrap
+     * @param <T>   Item type
+     * @return Wrapped stage
+     */
+    public <T> Sink<T> wrap(Sink<T> stage) {
+        Objects.requireNonNull(stage, "Stage cannot be null");
+        if (stage instanceof TimedSink<?> timed && timed.timings == this) {
+            return stage;
+        }
+        String name = StringUtils.defaultIfBlank(stage.getClass().getSimpleName(), "Sink");
+        int count = this.names.merge(name, 1, Integer::sum);
+        if (count > 1) {
+            name = name + "-" + count;
+        }
+        return new TimedSink<>(this, stage, name);
+    }
+
+    /**
+     * A sink that records timings for the stage it wraps
+     *
+     * @param <T> Item type
+     */
+    private static final class TimedSink<T> implements Sink<T> {
+        private final StageTimings timings;
+        private final Sink<T> stage;
+        private final boolean forwarding;
+        private final Attributes attributes;
+
+        private TimedSink(StageTimings timings, Sink<T> stage, String name) {
+            this.timings = timings;
+            this.stage = stage;
+            this.forwarding = stage instanceof AbstractTransformingSink<?, ?> transforming
+                              && transforming.destination instanceof TimedSink<?> next && next.timings == timings;
+            this.attributes = timings.attributes(name);
+        }
+
+        @Override
+        public void send(T item) throws SinkException {
+            StageTimings t = this.timings;
+            if (t.depth == 0) {
+                t.sampling = t.items++ % t.sampleInterval == 0;
+            }
+            t.entries++;
+            t.depth++;
+            long entriesBefore = t.entries;
+            try {
+                if (t.sampling) {
+                    long parentChildNanos = t.childNanos;
+                    t.childNanos = 0;
+                    long start = System.nanoTime();
+                    try {
+                        this.stage.send(item);
+                    } finally {
+                        long elapsed = System.nanoTime() - start;
+                        t.timingMetric.record((elapsed - t.childNanos) / NANOS_PER_SECOND, this.attributes);
+                        t.childNanos = parentChildNanos + elapsed;
+                    }
+                } else {
+                    this.stage.send(item);
+                }
+                if (this.forwarding && t.entries == entriesBefore) {
+                    t.droppedMetric.add(1, this.attributes);
+                }
+            } finally {
+                t.depth--;
+            }
+        }
+
+        @Override
+        public void close() {
+            this.stage.close();
+        }
+    }
+}
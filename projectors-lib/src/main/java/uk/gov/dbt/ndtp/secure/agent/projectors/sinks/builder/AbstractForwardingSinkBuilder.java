@@ -33,6 +33,7 @@ import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.FilterSink;
 import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.JacksonJsonSink;
 import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.NullSink;
 import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.Sinks;
+import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.StageTimings;
 import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.SuppressDuplicatesSink;
 import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.SuppressUnmodifiedSink;
 import uk.gov.dbt.ndtp.secure.agent.projectors.sinks.ThroughputSink;
@@ -51,6 +52,7 @@ public abstract class AbstractForwardingSinkBuilder<TInput, TOutput, TSink exten
         implements SinkBuilder<TInput, TSink> {
 
     private Sink<TOutput> destination;
+    private StageTimings timings;
 
     /**
      * Returns the builder instance
@@ -62,6 +64,40 @@ public abstract class AbstractForwardingSinkBuilder<TInput, TOutput, TSink exten
         return (TBuilder) this;
     }
 
+    /**
+     * Enables per-stage timing instrumentation for the pipeline being built
+     * <p>
+     * When enabled the destination of this sink is wrapped via {@link StageTimings#wrap(Sink)}, and the timings are
+     * passed on to any builders created by the convenience methods on this builder, e.g. {@link #filter(Function)}, so
+     * that every stage of the pipeline is instrumented.  Use {@link #buildTimed()} to also instrument the outermost
+     * stage.  This <strong>MUST</strong> be called before the destination is set.
+     * </p>
+     *
+     * @param timings Stage timings
+     * @return Builder
+     */
+    public TBuilder timings(StageTimings timings) {
+        if (this.destination != null) {
+            throw new IllegalStateException("Timings must be configured before the destination is set");
+        }
+        this.timings = timings;
+        return self();
+    }
+
+    /**
+     * Passes the stage timings, if any, onto the builder for a subsequent stage
+     *
+     * @param builder Builder
+     * @param <T>     Builder type
+     * @return Builder
+     */
+    private <T extends AbstractForwardingSinkBuilder<?, ?, ?, ?>> T inherit(T builder) {
+        if (this.timings != null) {
+            builder.timings(this.timings);
+        }
+        return builder;
+    }
+
     /**
      * Sets the destination sink for this sink
      *
@@ -83,7 +119,7 @@ public abstract class AbstractForwardingSinkBuilder<TInput, TOutput, TSink exten
         if (this.destination != null) {
             throw new IllegalStateException("Destination has already been set");
         }
-        this.destination = destination;
+        this.destination = this.timings != null && destination != null ? this.timings.wrap(destination) : destination;
         return self();
     }
 
@@ -112,7 +148,7 @@ public abstract class AbstractForwardingSinkBuilder<TInput, TOutput, TSink exten
      * @return Builder
      */
     public TBuilder filter(Function<FilterSink.Builder<TOutput>, SinkBuilder<TOutput, FilterSink<TOutput>>> f) {
-        return this.destination(f.apply(Sinks.filter()).build());
+        return this.destination(f.apply(inherit(Sinks.filter())).build());
     }
 
     /**
@@ -122,7 +158,7 @@ public abstract class AbstractForwardingSinkBuilder<TInput, TOutput, TSink exten
      * @return Builder
      */
     public TBuilder reject(Function<RejectSink.Builder<TOutput>, SinkBuilder<TOutput, RejectSink<TOutput>>> f) {
-        return this.destination(f.apply(Sinks.reject()).build());
+        return this.destination(f.apply(inherit(Sinks.reject())).build());
     }
 
     /**
@@ -132,7 +168,7 @@ public abstract class AbstractForwardingSinkBuilder<TInput, TOutput, TSink exten
      * @return Builder
      */
     public TBuilder cleanup(Function<CleanupSink.Builder<TOutput>, SinkBuilder<TOutput, CleanupSink<TOutput>>> f) {
-        return this.destination(f.apply(Sinks.cleanup()).build());
+        return this.destination(f.apply(inherit(Sinks.cleanup())).build());
     }
 
     /**
@@ -153,7 +189,7 @@ public abstract class AbstractForwardingSinkBuilder<TInput, TOutput, TSink exten
      */
     public TBuilder suppressDuplicates(
             Function<SuppressDuplicatesSink.Builder<TOutput>, SinkBuilder<TOutput, SuppressDuplicatesSink<TOutput>>> f) {
-        return this.destination(f.apply(Sinks.suppressDuplicates()).build());
+        return this.destination(f.apply(inherit(Sinks.suppressDuplicates())).build());
     }
 
     /**
@@ -166,7 +202,7 @@ public abstract class AbstractForwardingSinkBuilder<TInput, TOutput, TSink exten
      */
     public <TKey, TValue> TBuilder suppressUnmodified(
             Function<SuppressUnmodifiedSink.Builder<TOutput, TKey, TValue>, SinkBuilder<TOutput, SuppressUnmodifiedSink<TOutput, TKey, TValue>>> f) {
-        return this.destination(f.apply(Sinks.suppressUnmodified()).build());
+        return this.destination(f.apply(inherit(Sinks.suppressUnmodified())).build());
     }
 
     /**
@@ -177,7 +213,18 @@ public abstract class AbstractForwardingSinkBuilder<TInput, TOutput, TSink exten
      */
     public TBuilder throughput(
             Function<ThroughputSink.Builder<TOutput>, SinkBuilder<TOutput, ThroughputSink<TOutput>>> f) {
-        return this.destination(f.apply(Sinks.throughput()).build());
+        return this.destination(f.apply(inherit(Sinks.throughput())).build());
+    }
+
+    /**
+     * Builds the sink, wrapping it via {@link StageTimings#wrap(Sink)} if timings were configured via
+     * {@link #timings(StageTimings)} so that the outermost stage of the pipeline is also instrumented
+     *
+     * @return Sink
+     */
+    public Sink<TInput> buildTimed() {
+        TSink sink = this.build();
+        return this.timings != null ? this.timings.wrap(sink) : sink;
     }
 
     /**
@@ -180,6 +180,24 @@ public class ThroughputTracker {
         }
     }
 
+    /**
+     * Should be called when multiple items are received e.g. via batch processing, but before they are processed
+     *
+     * @param items Number of items that have been received
+     */
+    public void itemsReceived(int items) {
+        if (items < 1) {
+            throw new IllegalArgumentException("Items must be >= 1");
+        }
+        if (this.first == -1) {
+            this.start();
+        }
+        this.received += items;
+        if (this.metricsEnabled) {
+            this.receivedMetric.add(items, this.metricAttributes);
+        }
+    }
+
     /**
      * Should be called when an item has been processed
      */
@@ -209,13 +227,16 @@ public class ThroughputTracker {
             throw new IllegalStateException(TRACKING_MISMATCH_ERROR);
         }
 
+        long before = this.processed;
         this.processed += items;
         if (this.metricsEnabled) {
             this.processedMetric.add(items, this.metricAttributes);
         }
         this.last = System.currentTimeMillis();
 
-        if (this.processed % this.reportBatchSize == 0) reportThroughput();
+        // Batches won't necessarily land exactly on a multiple of the reporting batch size so report whenever a batch
+        // takes us over a reporting boundary
+        if (before / this.reportBatchSize != this.processed / this.reportBatchSize) reportThroughput();
     }
 
     /**
@@ -0,0 +1,75 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.projectors.AsyncSink;
+import uk.gov.dbt.ndtp.secure.agent.projectors.SinkException;
+
+public class TestAsyncSink {
+
+    @Test
+    public void givenSucceedingAsyncSink_whenSendingSynchronously_thenItemsAreProcessed() {
+        // Given
+        List<String> items = new ArrayList<>();
+        AsyncSink<String> sink = item -> CompletableFuture.runAsync(() -> items.add(item));
+
+        // When
+        sink.send("foo");
+        sink.send("bar");
+
+        // Then
+        Assert.assertEquals(items, List.of("foo", "bar"));
+    }
+
+    @Test(expectedExceptions = SinkException.class, expectedExceptionsMessageRegExp = "Rejected")
+    public void givenAsyncSinkFailingWithSinkException_whenSendingSynchronously_thenSinkExceptionIsThrown() {
+        // Given
+        AsyncSink<String> sink = item -> CompletableFuture.failedFuture(new SinkException("Rejected"));
+
+        // When and Then
+        sink.send("foo");
+    }
+
+    @Test
+    public void givenAsyncSinkFailingWithOtherError_whenSendingSynchronously_thenErrorIsWrapped() {
+        // Given
+        IllegalStateException cause = new IllegalStateException("Broken");
+        AsyncSink<String> sink = item -> CompletableFuture.failedFuture(cause);
+
+        // When
+        try {
+            sink.send("foo");
+            Assert.fail("Expected a SinkException");
+        } catch (SinkException e) {
+            // Then
+            Assert.assertSame(e.getCause(), cause);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.sinks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.lang3.StringUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestFusedSink {
+
+    @Test
+    public void givenNoStages_whenSendingItems_thenAllItemsAreForwarded() {
+        // Given
+        CollectorSink<String> collector = CollectorSink.of();
+        try (FusedSink<String, String> sink = Sinks.<String>pipeline().destination(collector).build()) {
+            // When
+            Assert.assertEquals(sink.stages(), 0);
+            sink.send("a");
+            sink.send("b");
+
+            // Then
+            Assert.assertEquals(collector.get(), Arrays.asList("a", "b"));
+        }
+    }
+
+    @Test
+    public void givenFilterAndMapStages_whenSendingItems_thenStagesAreAppliedInOrder() {
+        // Given
+        CollectorSink<Integer> collector = CollectorSink.of();
+        //@formatter:off
+        try (FusedSink<String, Integer> sink = Sinks.<String>pipeline()
+                                                     .filter(s -> StringUtils.startsWith(s, "f"))
+                                                     .map(String::length)
+                                                     .filter(l -> l > 2)
+                                                     .destination(collector)
+                                                     .build()) {
+        //@formatter:on
+            // When
+            Assert.assertEquals(sink.stages(), 3);
+            for (String value : Arrays.asList("foo", "bar", "f", "fizz", "fa")) {
+                sink.send(value);
+            }
+
+            // Then
+            Assert.assertEquals(collector.get(), Arrays.asList(3, 4));
+        }
+    }
+
+    @Test
+    public void givenPeekStage_whenSendingItems_thenOnlyItemsReachingThePeekAreObserved() {
+        // Given
+        List<String> seen = new ArrayList<>();
+        CollectorSink<String> collector = CollectorSink.of();
+        //@formatter:off
+        try (FusedSink<String, String> sink = Sinks.<String>pipeline()
+                                                    .filter(s -> !s.isEmpty())
+                                                    .peek(seen::add)
+                                                    .map(String::toUpperCase)
+                                                    .destination(collector)
+                                                    .build()) {
+        //@formatter:on
+            // When
+            sink.send("a");
+            sink.send("");
+            sink.send("b");
+
+            // Then
+            Assert.assertEquals(seen, Arrays.asList("a", "b"));
+            Assert.assertEquals(collector.get(), Arrays.asList("A", "B"));
+        }
+    }
+
+    @Test
+    public void givenNoDestination_whenSendingItems_thenItemsAreDiscarded() {
+        // Given
+        List<String> seen = new ArrayList<>();
+        try (FusedSink<String, String> sink = Sinks.<String>pipeline().peek(seen::add).build()) {
+            // When
+            sink.send("a");
+
+            // Then
+            Assert.assertEquals(seen, Collections.singletonList("a"));
+        }
+    }
+
+    @Test
+    public void givenDestinationBuilder_whenClosingFusedSink_thenDestinationIsClosed() {
+        // Given
+        CollectorSink<String> collector = CollectorSink.of();
+        collector.send("a");
+        FusedSink<String, String> sink = Sinks.<String>pipeline()
+                                              .destination(Sinks.<String>filter().destination(collector))
+                                              .build();
+
+        // When
+        sink.close();
+
+        // Then
+        Assert.assertTrue(collector.get().isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "Destination has.*")
+    public void givenDestination_whenSettingAnotherDestination_thenError() {
+        // Given, When and Then
+        Sinks.<String>pipeline().destination(NullSink.of()).destination(NullSink.of());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "Cannot add further.*")
+    public void givenDestination_whenAddingAnotherStage_thenError() {
+        // Given, When and Then
+        Sinks.<String>pipeline().destination(NullSink.of()).filter(s -> true);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void givenNullPredicate_whenAddingFilterStage_thenError() {
+        // Given, When and Then
+        Sinks.<String>pipeline().filter(null);
+    }
+}
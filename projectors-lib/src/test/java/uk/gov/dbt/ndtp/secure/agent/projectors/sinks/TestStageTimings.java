@@ -0,0 +1,160 @@
+// SPDX-License-Identifier: Apache-2.0
+// Originally developed by Telicent Ltd.; subsequently adapted, enhanced, and maintained by the National Digital Twin Programme.
+
+/*
+ *  Copyright (c) Telicent Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+/*
+ *  Modifications made by the National Digital Twin Programme (NDTP)
+ *  © Crown Copyright 2025. This work has been developed by the National Digital Twin Programme
+ *  and is legally attributed to the Department for Business and Trade (UK) as the governing entity.
+ */
+package uk.gov.dbt.ndtp.secure.agent.projectors.sinks;
+
+import java.util.Arrays;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import uk.gov.dbt.ndtp.secure.agent.observability.MetricNames;
+import uk.gov.dbt.ndtp.secure.agent.observability.metrics.MetricTestUtils;
+import uk.gov.dbt.ndtp.secure.agent.projectors.Sink;
+
+public class TestStageTimings extends AbstractSinkHelper {
+
+    private static double stageCount(StageTimings timings, String stage) {
+        return MetricTestUtils.getReportedMetric(MetricNames.STAGE_TIME + ".count", timings.attributes(stage));
+    }
+
+    private static double stageTime(StageTimings timings, String stage) {
+        return MetricTestUtils.getReportedMetric(MetricNames.STAGE_TIME, timings.attributes(stage));
+    }
+
+    private static double stageDropped(StageTimings timings, String stage) {
+        return MetricTestUtils.getReportedMetric(MetricNames.STAGE_DROPPED, timings.attributes(stage));
+    }
+
+    @Test
+    public void givenTimedPipeline_whenSendingItems_thenEveryStageIsTimedAndDropsAreCounted() {
+        // Given
+        StageTimings timings = new StageTimings("timed_01", 1);
+        CollectorSink<Integer> collector = CollectorSink.of();
+        //@formatter:off
+        Sink<Integer> sink = Sinks.<Integer>filter()
+                                  .timings(timings)
+                                  .predicate(i -> i % 2 == 0)
+                                  .suppressDuplicates(s -> s.cacheSize(10).destination(collector))
+                                  .buildTimed();
+        //@formatter:on
+
+        // When
+        for (int i = 1; i <= 10; i++) {
+            sink.send(i);
+        }
+        sink.send(2);
+        sink.send(4);
+
+        // Then
+        Assert.assertEquals(collector.get(), Arrays.asList(2, 4, 6, 8, 10));
+        Assert.assertEquals(stageCount(timings, "FilterSink"), 12.0);
+        Assert.assertEquals(stageCount(timings, "SuppressDuplicatesSink"), 7.0);
+        Assert.assertEquals(stageCount(timings, "CollectorSink"), 5.0);
+        Assert.assertEquals(stageDropped(timings, "FilterSink"), 5.0);
+        Assert.assertEquals(stageDropped(timings, "SuppressDuplicatesSink"), 2.0);
+    }
+
+    @Test
+    public void givenSampledPipeline_whenSendingItems_thenOnlySampledItemsAreTimed() {
+        // Given
+        StageTimings timings = new StageTimings("timed_02", 4);
+        CollectorSink<Integer> collector = CollectorSink.of();
+        Sink<Integer> sink = Sinks.<Integer>filter().timings(timings).destination(collector).buildTimed();
+
+        // When
+        for (int i = 0; i < 12; i++) {
+            sink.send(i);
+        }
+
+        // Then
+        Assert.assertEquals(collector.get().size(), 12);
+        Assert.assertEquals(timings.sampleInterval(), 4);
+        Assert.assertEquals(stageCount(timings, "FilterSink"), 3.0);
+        Assert.assertEquals(stageCount(timings, "CollectorSink"), 3.0);
+    }
+
+    @Test
+    public void givenSlowStage_whenSendingItems_thenSelfTimeExcludesSubsequentStages() {
+        // Given
+        StageTimings timings = new StageTimings("timed_03", 1);
+        CollectorSink<Integer> collector = CollectorSink.of();
+        Sink<Integer> sink =
+                Sinks.<Integer>filter().timings(timings).destination(new DelaySink<>(collector, 25)).buildTimed();
+
+        // When
+        sink.send(1);
+        sink.send(2);
+
+        // Then
+        Assert.assertTrue(stageTime(timings, "DelaySink") >= 0.05);
+        Assert.assertTrue(stageTime(timings, "FilterSink") < 0.025);
+        Assert.assertEquals(collector.get().size(), 2);
+    }
+
+    @Test
+    public void givenSameStageTypes_whenWrapping_thenStageNamesAreDistinct() {
+        // Given
+        StageTimings timings = new StageTimings("timed_04", 1);
+        Sink<String> inner = timings.wrap(NullSink.of());
+
+        // When
+        Sink<String> outer = timings.wrap(NullSink.of());
+        outer.send("a");
+        inner.send("b");
+
+        // Then
+        Assert.assertSame(timings.wrap(outer), outer);
+        Assert.assertEquals(stageCount(timings, "NullSink"), 1.0);
+        Assert.assertEquals(stageCount(timings, "NullSink-2"), 1.0);
+    }
+
+    @Test
+    public void givenNoTimings_whenBuildingTimed_thenSinkIsNotWrapped() {
+        // Given
+        FilterSink.Builder<String> builder = Sinks.<String>filter().discard();
+
+        // When
+        Sink<String> sink = builder.buildTimed();
+
+        // Then
+        Assert.assertTrue(sink instanceof FilterSink<String>);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "Timings must.*")
+    public void givenDestination_whenSettingTimings_thenError() {
+        // Given, When and Then
+        Sinks.<String>filter().discard().timings(new StageTimings("timed_05"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void givenBadSampleInterval_whenCreatingTimings_thenError() {
+        // Given, When and Then
+        new StageTimings("timed_06", 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void givenBlankLabel_whenCreatingTimings_thenError() {
+        // Given, When and Then
+        new StageTimings(" ");
+    }
+}
@@ -308,6 +308,35 @@ public class TestThroughputTracker {
         Assert.assertEquals(reportedMetric, tracker.getOverallRate(), 500.0);
     }
 
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ".*>= 1")
+    public void throughput_tracker_bad_09() {
+        ThroughputTracker tracker = new ThroughputTracker(LOGGER, 100, TimeUnit.SECONDS, null, null, null);
+        tracker.itemsReceived(0);
+    }
+
+    @Test(dataProvider = "tracker")
+    public void throughput_tracker_batches_01(int count, int reportBatchSize) {
+        String metricsLabel = String.format("batches_01_%d_%d", count, reportBatchSize);
+        ThroughputTracker tracker = new ThroughputTracker(LOGGER, reportBatchSize, TimeUnit.SECONDS,
+                                                          ThroughputTracker.DEFAULT_ACTION,
+                                                          ThroughputTracker.DEFAULT_ITEMS_NAME,
+                                                          metricsLabel);
+
+        // Use a batch size that won't line up with the reporting batch size
+        int batchSize = 7;
+        while (tracker.receivedCount() < count) {
+            int batch = (int) Math.min(batchSize, count - tracker.receivedCount());
+            tracker.itemsReceived(batch);
+            tracker.itemsProcessed(batch);
+        }
+
+        Assert.assertEquals(tracker.receivedCount(), count);
+        Assert.assertEquals(tracker.processedCount(), count);
+        Assert.assertEquals(testLogger.getLoggingEvents().size(), count / reportBatchSize);
+
+        validateMetrics(tracker, metricsLabel);
+    }
+
     @Test
     public void builder_01() {
         ThroughputTracker.create().logger(TestThroughputTracker.class).inMilliseconds().metricsLabel("test").build();